@@ -23,7 +23,7 @@ public class Agent {
         Options attachOptions = new Options();
 
         attachOptions.addOption(build("p", "pid", "webserver process id"));
-        attachOptions.addOption(build("m", "mode", "optional: install uninstall"));
+        attachOptions.addOption(build("m", "mode", "optional: install uninstall dump"));
         attachOptions.addOption(build("debug", "debug", "optional: debug mode"));
         attachOptions.addOption(build("app_create", "app_create", "optional: DongTai Application Auto Create, default: false"));
         attachOptions.addOption(build("app_name", "app_name", "optional: DongTai Application Name, default: ExampleApplication"));
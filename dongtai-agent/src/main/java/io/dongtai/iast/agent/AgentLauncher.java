@@ -9,7 +9,9 @@ import io.dongtai.iast.common.state.*;
 import io.dongtai.log.DongTaiLog;
 import io.dongtai.log.ErrorCode;
 
+import java.io.*;
 import java.lang.instrument.Instrumentation;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -81,6 +83,11 @@ public class AgentLauncher {
         IastProperties.getInstance();
         StateCause cause = null;
 
+        if ("dump".equals(mode)) {
+            dumpMetrics();
+            return;
+        }
+
         if ("uninstall".equals(mode)) {
             cause = StateCause.UNINSTALL_BY_CLI;
             if (AGENT_STATE.getPendingState() != null) {
@@ -153,6 +160,37 @@ public class AgentLauncher {
         engineManager.uninstall();
     }
 
+    /**
+     * 把引擎的运行指标写到临时目录下的 dongtai-metrics-{pid}.json
+     */
+    private static void dumpMetrics() {
+        EngineManager engineManager = EngineManager.getInstance();
+        if (engineManager == null || !AGENT_STATE.isInit() || AGENT_STATE.isUninstalled()) {
+            DongTaiLog.info("DongTai wasn't installed.");
+            return;
+        }
+        String metrics = engineManager.dumpMetrics();
+        if (metrics == null) {
+            return;
+        }
+        File file = new File(IastProperties.getInstance().getTmpDir(), "dongtai-metrics-" + EngineManager.getPID() + ".json");
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+            writer.write(metrics);
+            DongTaiLog.info("DongTai agent metrics dumped to {}", file.getAbsolutePath());
+        } catch (IOException e) {
+            DongTaiLog.warn("dump agent metrics to {} failed: {}", file.getAbsolutePath(), e.getMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
     /**
      * install agent
      *
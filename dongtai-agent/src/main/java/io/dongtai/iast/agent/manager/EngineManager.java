@@ -16,6 +16,7 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.instrument.Instrumentation;
 import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -39,6 +40,10 @@ public class EngineManager {
     private final IastProperties properties;
     private final String launchMode;
     private Class<?> classOfEngine;
+    /**
+     * 性能监控线程每个周期都会同步 CPU 使用率，缓存反射得到的方法
+     */
+    private volatile Method updateCpuUsageMethod;
     private final FallbackManager fallbackManager;
     private final AgentState agentState;
 
@@ -202,6 +207,55 @@ public class EngineManager {
         return false;
     }
 
+    /**
+     * 向检测引擎同步应用的 CPU 使用率
+     */
+    public void updateCpuUsage(Integer cpuUsage) {
+        try {
+            Class<?> engine = classOfEngine;
+            if (engine == null) {
+                return;
+            }
+            Method method = this.updateCpuUsageMethod;
+            if (method == null || method.getDeclaringClass() != engine) {
+                method = engine.getMethod("updateCpuUsage", Integer.class);
+                this.updateCpuUsageMethod = method;
+            }
+            method.invoke(null, cpuUsage);
+        } catch (Throwable e) {
+            DongTaiLog.debug("update engine cpu usage failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 通知检测引擎重新加载策略
+     */
+    public void reloadPolicy() {
+        try {
+            if (classOfEngine != null) {
+                classOfEngine.getMethod("reloadPolicy").invoke(null);
+            }
+        } catch (Throwable e) {
+            DongTaiLog.warn("reload engine policy failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 导出引擎的运行指标
+     *
+     * @return JSON 格式的指标，引擎未加载或导出失败时返回 null
+     */
+    public String dumpMetrics() {
+        try {
+            if (classOfEngine != null) {
+                return (String) classOfEngine.getMethod("dumpMetrics").invoke(null);
+            }
+        } catch (Throwable e) {
+            DongTaiLog.warn("dump engine metrics failed: {}", e.getMessage());
+        }
+        return null;
+    }
+
     /**
      * 停止检测引擎
      *
@@ -240,6 +294,7 @@ public class EngineManager {
 
             // 关闭SandboxClassLoader
             classOfEngine = null;
+            updateCpuUsageMethod = null;
             IAST_CLASS_LOADER.closeIfPossible();
             IAST_CLASS_LOADER = null;
             LogCollector.stopFluent();
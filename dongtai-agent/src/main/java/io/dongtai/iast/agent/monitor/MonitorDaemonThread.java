@@ -26,7 +26,7 @@ public class MonitorDaemonThread implements Runnable {
     public MonitorDaemonThread(EngineManager engineManager) {
         monitorTasks = new ArrayList<IMonitor>();
         monitorTasks.add(new FallbackConfigMonitor());
-        monitorTasks.add(new ConfigMonitor());
+        monitorTasks.add(new ConfigMonitor(engineManager));
         monitorTasks.add(new PerformanceMonitor(engineManager));
         monitorTasks.add(new AgentStateMonitor(engineManager));
         monitorTasks.add(new HeartBeatMonitor());
@@ -16,9 +16,9 @@ public enum MetricsBindCollectorEnum {
     /**
      * JVM性能指标相关收集器
      */
-    CPU_USAGE_COLLECTOR(CPU_USAGE, CpuUsageCollector.class, "绑定cpu使用率收集器"),
+    CPU_USAGE_COLLECTOR(CPU_USAGE, new CpuUsageCollector(), "绑定cpu使用率收集器"),
 
-    MEM_USAGE_COLLECTOR(MEM_USAGE, MemUsageCollector.class, "绑定内存使用率收集器"),
+    MEM_USAGE_COLLECTOR(MEM_USAGE, new MemUsageCollector(), "绑定内存使用率收集器"),
 
     ;
 
@@ -29,16 +29,16 @@ public enum MetricsBindCollectorEnum {
     private final MetricsKey key;
 
     /**
-     * 收集器类型
+     * 收集器，CPU 使用率依赖上一次采集的结果，所以每个指标只使用一个收集器
      */
-    private final Class<? extends IPerformanceCollector> collector;
+    private final IPerformanceCollector collector;
 
     /**
      * 描述
      */
     private final String desc;
 
-    MetricsBindCollectorEnum(MetricsKey key, Class<? extends IPerformanceCollector> collector, String desc) {
+    MetricsBindCollectorEnum(MetricsKey key, IPerformanceCollector collector, String desc) {
         this.key = key;
         this.collector = collector;
         this.desc = desc;
@@ -48,7 +48,7 @@ public enum MetricsBindCollectorEnum {
         return key;
     }
 
-    public Class<? extends IPerformanceCollector> getCollector() {
+    public IPerformanceCollector getCollector() {
         return collector;
     }
 
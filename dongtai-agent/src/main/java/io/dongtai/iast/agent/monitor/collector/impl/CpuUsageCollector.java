@@ -8,47 +8,159 @@ import oshi.SystemInfo;
 import oshi.hardware.CentralProcessor;
 
 import java.lang.management.ManagementFactory;
-import java.util.concurrent.TimeUnit;
+import java.lang.management.OperatingSystemMXBean;
 
 /**
  * cpu使用率收集器
+ * <p>
+ * 收集器是单例，每次采集取与上一次采集之间的增量，不在监控线程上等待。
+ * 优先使用 OperatingSystemMXBean 的系统 CPU 负载，不可用时使用 oshi 的 CPU tick 增量。
+ * 上报的使用率是最近 {@link #WINDOW} 次采样的平均值，避免熔断器因为瞬时的峰值降级
  *
  * @author chenyi
  * @date 2022/2/28
  */
 public class CpuUsageCollector extends AbstractPerformanceCollector {
+    /**
+     * 平滑窗口的采样次数，监控线程每 30 秒采集一次
+     */
+    static final int WINDOW = 4;
+    private static final int IDLE = CentralProcessor.TickType.IDLE.getIndex();
+
+    /**
+     * 系统 CPU 负载
+     */
+    interface LoadSource {
+        /**
+         * @return 0~1，不可用时返回负数
+         */
+        double getLoad();
+    }
+
+    /**
+     * 系统 CPU 各状态的累计 tick，下标与 {@link CentralProcessor.TickType} 一致
+     */
+    interface TickSource {
+        long[] getTicks();
+    }
+
+    private final LoadSource loadSource;
+    private final TickSource tickSource;
+    private final double[] samples;
+    private int sampleCount;
+    private int nextSample;
+    private long[] prevTicks;
+
+    public CpuUsageCollector() {
+        this(systemLoadSource(), JavaVersionUtils.isJava6() ? null : new OshiTickSource(), WINDOW);
+    }
+
+    CpuUsageCollector(LoadSource loadSource, TickSource tickSource, int window) {
+        this.loadSource = loadSource;
+        this.tickSource = tickSource;
+        this.samples = new double[window];
+    }
 
     @Override
-    public PerformanceMetrics getMetrics() {
-        if (JavaVersionUtils.isJava6()) {
-            com.sun.management.OperatingSystemMXBean osmxb = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
-            double systemCpuLoad = osmxb.getSystemCpuLoad() * 100;
-            CpuInfoMetrics metricsValue = new CpuInfoMetrics();
-            metricsValue.setCpuUsagePercentage(systemCpuLoad);
-            return buildMetricsData(MetricsKey.CPU_USAGE, metricsValue);
-        } else {
-            SystemInfo systemInfo = new SystemInfo();
-            CentralProcessor processor = systemInfo.getHardware().getProcessor();
-            long[] prevTicks = processor.getSystemCpuLoadTicks();
-            try {
-                TimeUnit.SECONDS.sleep(1);
-            } catch (InterruptedException ignored) {
+    public synchronized PerformanceMetrics getMetrics() {
+        double sample = sample();
+        if (sample >= 0) {
+            this.samples[this.nextSample] = sample;
+            this.nextSample = (this.nextSample + 1) % this.samples.length;
+            if (this.sampleCount < this.samples.length) {
+                this.sampleCount++;
             }
-            long[] ticks = processor.getSystemCpuLoadTicks();
-            long nice = ticks[CentralProcessor.TickType.NICE.getIndex()] - prevTicks[CentralProcessor.TickType.NICE.getIndex()];
-            long irq = ticks[CentralProcessor.TickType.IRQ.getIndex()] - prevTicks[CentralProcessor.TickType.IRQ.getIndex()];
-            long softirq = ticks[CentralProcessor.TickType.SOFTIRQ.getIndex()] - prevTicks[CentralProcessor.TickType.SOFTIRQ.getIndex()];
-            long steal = ticks[CentralProcessor.TickType.STEAL.getIndex()] - prevTicks[CentralProcessor.TickType.STEAL.getIndex()];
-            long cSys = ticks[CentralProcessor.TickType.SYSTEM.getIndex()] - prevTicks[CentralProcessor.TickType.SYSTEM.getIndex()];
-            long user = ticks[CentralProcessor.TickType.USER.getIndex()] - prevTicks[CentralProcessor.TickType.USER.getIndex()];
-            long iowait = ticks[CentralProcessor.TickType.IOWAIT.getIndex()] - prevTicks[CentralProcessor.TickType.IOWAIT.getIndex()];
-            long idle = ticks[CentralProcessor.TickType.IDLE.getIndex()] - prevTicks[CentralProcessor.TickType.IDLE.getIndex()];
-            long totalCpu = user + nice + cSys + idle + iowait + irq + softirq + steal;
+        }
 
-            CpuInfoMetrics metricsValue = new CpuInfoMetrics();
-            metricsValue.setCpuUsagePercentage((1.0 - (idle * 1.0 / totalCpu)) * 100);
-            return buildMetricsData(MetricsKey.CPU_USAGE, metricsValue);
+        double sum = 0;
+        for (int i = 0; i < this.sampleCount; i++) {
+            sum += this.samples[i];
         }
+        CpuInfoMetrics metricsValue = new CpuInfoMetrics();
+        metricsValue.setCpuUsagePercentage(this.sampleCount == 0 ? 0 : sum / this.sampleCount);
+        return buildMetricsData(MetricsKey.CPU_USAGE, metricsValue);
     }
 
+    /**
+     * @return 本次采样的 CPU 使用百分比，还没有可用的增量时返回负数
+     */
+    private double sample() {
+        if (this.loadSource != null) {
+            double load = this.loadSource.getLoad();
+            if (load >= 0) {
+                return Math.min(load, 1) * 100;
+            }
+        }
+        if (this.tickSource == null) {
+            return -1;
+        }
+        long[] ticks = this.tickSource.getTicks();
+        long[] prev = this.prevTicks;
+        this.prevTicks = ticks;
+        if (prev == null || ticks == null) {
+            return -1;
+        }
+        return usage(prev, ticks);
+    }
+
+    /**
+     * 两次 tick 之间非空闲时间的占比，iowait 等也计为使用
+     *
+     * @return CPU 使用百分比，两次 tick 之间没有增量时返回负数
+     */
+    static double usage(long[] prevTicks, long[] ticks) {
+        long total = 0;
+        for (int i = 0; i < ticks.length && i < prevTicks.length; i++) {
+            total += ticks[i] - prevTicks[i];
+        }
+        if (total <= 0) {
+            return -1;
+        }
+        long idle = Math.max(0, ticks[IDLE] - prevTicks[IDLE]);
+        return Math.max(0, 1.0 - idle * 1.0 / total) * 100;
+    }
+
+    private static LoadSource systemLoadSource() {
+        try {
+            OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+            if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+                final com.sun.management.OperatingSystemMXBean osBean = (com.sun.management.OperatingSystemMXBean) bean;
+                // 第一次调用只记录基准
+                osBean.getSystemCpuLoad();
+                return new LoadSource() {
+                    @Override
+                    public double getLoad() {
+                        return osBean.getSystemCpuLoad();
+                    }
+                };
+            }
+        } catch (Throwable ignore) {
+            // 非 HotSpot 的 JVM 或者 java 6 没有 getSystemCpuLoad
+        }
+        return null;
+    }
+
+    /**
+     * 第一次使用时才创建 oshi 的 SystemInfo
+     */
+    private static class OshiTickSource implements TickSource {
+        private CentralProcessor processor;
+        private boolean unavailable;
+
+        @Override
+        public long[] getTicks() {
+            if (this.unavailable) {
+                return null;
+            }
+            try {
+                if (this.processor == null) {
+                    this.processor = new SystemInfo().getHardware().getProcessor();
+                }
+                return this.processor.getSystemCpuLoadTicks();
+            } catch (Throwable e) {
+                this.unavailable = true;
+                return null;
+            }
+        }
+    }
 }
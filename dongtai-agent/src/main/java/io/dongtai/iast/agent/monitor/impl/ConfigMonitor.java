@@ -1,5 +1,6 @@
 package io.dongtai.iast.agent.monitor.impl;
 
+import io.dongtai.iast.agent.manager.EngineManager;
 import io.dongtai.iast.agent.monitor.IMonitor;
 import io.dongtai.iast.agent.monitor.MonitorDaemonThread;
 import io.dongtai.iast.agent.report.AgentRegisterReport;
@@ -17,6 +18,15 @@ import java.util.Map;
 
 public class ConfigMonitor implements IMonitor {
     private static final String NAME = "ConfigMonitor";
+    private final EngineManager engineManager;
+    /**
+     * 上次获取到的服务端策略版本，版本变化时通知引擎重新加载策略
+     */
+    private String policyVersion;
+
+    public ConfigMonitor(EngineManager engineManager) {
+        this.engineManager = engineManager;
+    }
 
     @Override
     public String getName() {
@@ -48,6 +58,23 @@ public class ConfigMonitor implements IMonitor {
         if (logLevel != null) {
             DongTaiLog.setLevel(DongTaiLog.parseLevel(logLevel));
         }
+
+        checkPolicyVersion(ConfigBuilder.getInstance().<String>get(ConfigKey.POLICY_VERSION));
+    }
+
+    /**
+     * 引擎启动时已加载当时的策略，首次获取到的版本只做记录
+     */
+    void checkPolicyVersion(String version) {
+        if (version == null || version.equals(this.policyVersion)) {
+            return;
+        }
+        boolean changed = this.policyVersion != null;
+        this.policyVersion = version;
+        if (changed) {
+            DongTaiLog.info("policy version changed to {}, reload engine policy", version);
+            this.engineManager.reloadPolicy();
+        }
     }
 
     @Override
@@ -110,6 +110,7 @@ public class PerformanceMonitor implements IMonitor {
             if (metrics.getMetricsKey() == MetricsKey.CPU_USAGE) {
                 final CpuInfoMetrics cpuInfoMetrics = metrics.getMetricsValue(CpuInfoMetrics.class);
                 CPU_USAGE = cpuInfoMetrics.getCpuUsagePercentage().intValue();
+                engineManager.updateCpuUsage(CPU_USAGE);
             } else if (metrics.getMetricsKey() == MetricsKey.MEM_USAGE) {
                 MEMORY_USAGE = metrics.getMetricsValue(MemoryUsageMetrics.class);
             }
@@ -131,7 +132,7 @@ public class PerformanceMonitor implements IMonitor {
                 continue;
             }
             try {
-                IPerformanceCollector collector = collectorEnum.getCollector().newInstance();
+                IPerformanceCollector collector = collectorEnum.getCollector();
                 metricsList.add(collector.getMetrics());
             } catch (Throwable t) {
                 DongTaiLog.warn(ErrorCode.AGENT_MONITOR_COLLECT_PERFORMANCE_METRICS_FAILED, collectorEnum, t.getMessage());
@@ -0,0 +1,110 @@
+package io.dongtai.iast.agent.monitor.collector.impl;
+
+import io.dongtai.iast.agent.IastProperties;
+import io.dongtai.iast.agent.manager.EngineManager;
+import io.dongtai.iast.agent.monitor.collector.MetricsBindCollectorEnum;
+import io.dongtai.iast.agent.monitor.impl.PerformanceMonitor;
+import io.dongtai.iast.common.entity.performance.metrics.CpuInfoMetrics;
+import io.dongtai.iast.common.enums.MetricsKey;
+import io.dongtai.iast.common.state.AgentState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Queue;
+
+public class CpuUsageCollectorTest {
+
+    @Test
+    public void testUsage() {
+        // USER, NICE, SYSTEM, IDLE, IOWAIT, IRQ, SOFTIRQ, STEAL
+        long[] prev = {100, 0, 50, 1000, 10, 0, 0, 0};
+        long[] ticks = {160, 0, 70, 1060, 20, 0, 0, 0};
+        // 增量共 150，空闲 60
+        Assert.assertEquals(60.0, CpuUsageCollector.usage(prev, ticks), 0.001);
+        // 没有增量
+        Assert.assertTrue(CpuUsageCollector.usage(ticks, ticks) < 0);
+    }
+
+    @Test
+    public void testTickDeltaAndWindow() {
+        FakeTicks ticks = new FakeTicks(
+                new long[]{0, 0, 0, 0, 0, 0, 0, 0},
+                new long[]{50, 0, 0, 50, 0, 0, 0, 0},
+                new long[]{50, 0, 0, 50, 0, 0, 0, 0},
+                new long[]{50, 0, 0, 150, 0, 0, 0, 0},
+                new long[]{150, 0, 0, 150, 0, 0, 0, 0},
+                new long[]{250, 0, 0, 150, 0, 0, 0, 0});
+        CpuUsageCollector collector = new CpuUsageCollector(null, ticks, 2);
+
+        // 第一次采集只有基准
+        Assert.assertEquals(0, usage(collector), 0.001);
+        Assert.assertEquals(50, usage(collector), 0.001);
+        // 两次 tick 相同时沿用之前的采样
+        Assert.assertEquals(50, usage(collector), 0.001);
+        // 窗口内取平均：50 和 0
+        Assert.assertEquals(25, usage(collector), 0.001);
+        // 0 和 100
+        Assert.assertEquals(50, usage(collector), 0.001);
+        // 100 和 100
+        Assert.assertEquals(100, usage(collector), 0.001);
+    }
+
+    @Test
+    public void testPreferLoadSource() {
+        final Queue<Double> loads = new LinkedList<Double>(Arrays.asList(-1.0, 0.3, 0.5));
+        CpuUsageCollector.LoadSource load = new CpuUsageCollector.LoadSource() {
+            @Override
+            public double getLoad() {
+                return loads.poll();
+            }
+        };
+        FakeTicks ticks = new FakeTicks(
+                new long[]{0, 0, 0, 0, 0, 0, 0, 0},
+                new long[]{90, 0, 0, 10, 0, 0, 0, 0});
+        CpuUsageCollector collector = new CpuUsageCollector(load, ticks, 4);
+
+        // 负载不可用时使用 tick
+        Assert.assertEquals(0, usage(collector), 0.001);
+        Assert.assertEquals(1, ticks.read);
+        Assert.assertEquals(30, usage(collector), 0.001);
+        Assert.assertEquals(40, usage(collector), 0.001);
+        Assert.assertEquals(1, ticks.read);
+    }
+
+    @Test
+    public void testMonitorCycleNotBlocking() {
+        IastProperties.initTmpDir();
+        Assert.assertSame(MetricsBindCollectorEnum.CPU_USAGE_COLLECTOR.getCollector(),
+                MetricsBindCollectorEnum.getEnum(MetricsKey.CPU_USAGE).getCollector());
+
+        PerformanceMonitor monitor = new PerformanceMonitor(
+                new EngineManager(null, "premain", "1", AgentState.getInstance()));
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            monitor.check();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        Assert.assertTrue("monitor cycle took " + elapsedMillis + "ms", elapsedMillis < 1000);
+        Assert.assertEquals(2, PerformanceMonitor.getPerformanceMetrics().size());
+    }
+
+    private static double usage(CpuUsageCollector collector) {
+        return collector.getMetrics().getMetricsValue(CpuInfoMetrics.class).getCpuUsagePercentage();
+    }
+
+    private static class FakeTicks implements CpuUsageCollector.TickSource {
+        private final long[][] ticks;
+        private int read;
+
+        FakeTicks(long[]... ticks) {
+            this.ticks = ticks;
+        }
+
+        @Override
+        public long[] getTicks() {
+            return this.ticks[this.read++];
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.dongtai.iast.agent.monitor.impl;
+
+import io.dongtai.iast.agent.IastProperties;
+import io.dongtai.iast.agent.manager.EngineManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConfigMonitorTest {
+    private int reloadCount;
+
+    @Test
+    public void testReloadPolicyOnVersionChange() {
+        IastProperties.initTmpDir();
+        ConfigMonitor monitor = new ConfigMonitor(new EngineManager(null, null, null, null) {
+            @Override
+            public void reloadPolicy() {
+                reloadCount++;
+            }
+        });
+
+        // 引擎启动时已经加载了策略
+        monitor.checkPolicyVersion("v1");
+        Assert.assertEquals(0, this.reloadCount);
+        monitor.checkPolicyVersion("v1");
+        monitor.checkPolicyVersion(null);
+        Assert.assertEquals(0, this.reloadCount);
+
+        monitor.checkPolicyVersion("v2");
+        Assert.assertEquals(1, this.reloadCount);
+        monitor.checkPolicyVersion("v2");
+        Assert.assertEquals(1, this.reloadCount);
+    }
+}
@@ -26,6 +26,8 @@ public class ConfigBuilder {
                 Config.<String>create(ConfigKey.LOGGER_LEVEL));
         this.configMap.put(ConfigKey.VALIDATED_SINK,
                 Config.<Boolean>create(ConfigKey.VALIDATED_SINK).setDefaultValue(false));
+        this.configMap.put(ConfigKey.POLICY_VERSION,
+                Config.<String>create(ConfigKey.POLICY_VERSION));
     }
 
     public static ConfigBuilder getInstance() {
@@ -65,6 +67,7 @@ public class ConfigBuilder {
         updateBool(config, ConfigKey.JsonKey.JSON_ENABLE_LOGGER);
         updateString(config, ConfigKey.JsonKey.JSON_LOGGER_LEVEL);
         updateBool(config, ConfigKey.JsonKey.JSON_VALIDATED_SINK);
+        updateString(config, ConfigKey.JsonKey.JSON_POLICY_VERSION);
         updateRequestDenyList(config);
     }
 
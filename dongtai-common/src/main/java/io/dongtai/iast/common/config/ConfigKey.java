@@ -9,6 +9,7 @@ public enum ConfigKey {
     ENABLE_LOGGER,
     LOGGER_LEVEL,
     VALIDATED_SINK,
+    POLICY_VERSION,
     ;
 
     public enum JsonKey {
@@ -20,6 +21,7 @@ public enum ConfigKey {
         JSON_ENABLE_LOGGER("enable_log", ENABLE_LOGGER),
         JSON_LOGGER_LEVEL("log_level", LOGGER_LEVEL),
         JSON_VALIDATED_SINK("report_validated_sink", VALIDATED_SINK),
+        JSON_POLICY_VERSION("policy_version", POLICY_VERSION),
         ;
 
         private final String key;
@@ -37,4 +37,19 @@ public class PropertyConstant {
     public static final String PROPERTY_POOL_SIZE = "dongtai.pool.size";
     public static final String PROPERTY_POOL_MAX_SIZE = "dongtai.pool.max.size";
     public static final String PROPERTY_POOL_KEEPALIVE = "dongtai.pool.keepalive";
+    public static final String PROPERTY_SAMPLING_ENABLE = "dongtai.sampling.enable";
+    public static final String PROPERTY_SAMPLING_WARMUP = "dongtai.sampling.warmup";
+    public static final String PROPERTY_SAMPLING_MAX_INTERVAL = "dongtai.sampling.max.interval";
+    public static final String PROPERTY_REPORT_DEDUP_ENABLE = "dongtai.report.dedup.enable";
+    public static final String PROPERTY_REPORT_DEDUP_TTL = "dongtai.report.dedup.ttl";
+    public static final String PROPERTY_REPORT_NORMAL_DEDUP_ENABLE = "dongtai.report.normal.dedup.enable";
+    public static final String PROPERTY_REPORT_NORMAL_DEDUP_WINDOW = "dongtai.report.normal.dedup.window";
+    public static final String PROPERTY_TRANSFORM_CACHE_ENABLE = "dongtai.transform.cache.enable";
+    public static final String PROPERTY_POLICY_SNAPSHOT_ENABLE = "dongtai.policy.snapshot.enable";
+    public static final String PROPERTY_TAINT_IDENTITY_ENABLE = "dongtai.taint.identity.enable";
+    public static final String PROPERTY_REPLAY_RATE = "dongtai.replay.rate";
+    public static final String PROPERTY_REPLAY_CONCURRENCY = "dongtai.replay.concurrency";
+    public static final String PROPERTY_REPLAY_CPU_THRESHOLD = "dongtai.replay.cpu.threshold";
+    public static final String PROPERTY_REPLAY_LATENCY_THRESHOLD = "dongtai.replay.latency.threshold";
+    public static final String PROPERTY_METRICS_LATENCY_SAMPLE = "dongtai.metrics.latency.sample";
 }
@@ -1,28 +1,30 @@
 package io.dongtai.iast.common.scope;
 
+/**
+ * {@link ScopeAggregator} 中一个 scope 计数的视图
+ */
 public class GeneralScope {
-    private int level;
+    private final int[] levels;
+    private final int index;
+
+    GeneralScope(int[] levels, int index) {
+        this.levels = levels;
+        this.index = index;
+    }
 
     public boolean in() {
-        return this.level != 0;
+        return this.levels[this.index] != 0;
     }
 
     public boolean isFirst() {
-        return this.level == 1;
+        return this.levels[this.index] == 1;
     }
 
     public void enter() {
-        this.level++;
+        this.levels[this.index]++;
     }
 
     public void leave() {
-        this.level = decrement(this.level);
-    }
-
-    private int decrement(int level) {
-        if (level > 0) {
-            return level - 1;
-        }
-        return 0;
+        this.levels[this.index] = ScopeAggregator.decrement(this.levels[this.index]);
     }
 }
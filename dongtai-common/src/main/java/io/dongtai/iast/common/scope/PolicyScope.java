@@ -1,98 +1,90 @@
 package io.dongtai.iast.common.scope;
 
+import static io.dongtai.iast.common.scope.ScopeAggregator.*;
+
+/**
+ * {@link ScopeAggregator} 中 agent/source/propagator/sink 计数的视图
+ */
 public class PolicyScope {
-    private int agentLevel;
-    private int sourceLevel;
-    private int propagatorLevel;
-    private int propagatorSkipDepth;
-    private int sinkLevel;
-    private int ignoreInternalLevel;
-    /**
-     * over max method pool size
-     */
-    private boolean overCapacity;
+    private final int[] levels;
+
+    PolicyScope(int[] levels) {
+        this.levels = levels;
+    }
 
     public void enterAgent() {
-        this.agentLevel++;
+        this.levels[AGENT]++;
     }
 
     public boolean inAgent() {
-        return this.agentLevel > 0;
+        return this.levels[AGENT] > 0;
     }
 
-    /* renamed from: d */
     public void leaveAgent() {
-        this.agentLevel = decrement(this.agentLevel);
+        this.levels[AGENT] = decrement(this.levels[AGENT]);
     }
 
     public void enterSource() {
-        this.sourceLevel++;
+        this.levels[SOURCE]++;
     }
 
     public boolean isValidSource() {
-        return this.agentLevel == 0
-                && this.ignoreInternalLevel == 0 && !this.overCapacity
-                && this.sourceLevel == 1;
+        return (this.levels[AGENT] | this.levels[IGNORE_INTERNAL] | this.levels[OVER_CAPACITY]) == 0
+                && this.levels[SOURCE] == 1;
     }
 
     public void leaveSource() {
-        this.sourceLevel = decrement(this.sourceLevel);
+        this.levels[SOURCE] = decrement(this.levels[SOURCE]);
     }
 
     public void enterPropagator(boolean skipScope) {
-        this.propagatorLevel++;
+        this.levels[PROPAGATOR]++;
         if (skipScope) {
-            this.propagatorSkipDepth++;
+            this.levels[PROPAGATOR_SKIP]++;
         }
     }
 
     public boolean isValidPropagator() {
-        return this.agentLevel == 0
-                && this.ignoreInternalLevel == 0 && !this.overCapacity && this.sourceLevel == 0
-                && (this.propagatorLevel == 1 || this.propagatorSkipDepth > 0);
+        return (this.levels[AGENT] | this.levels[IGNORE_INTERNAL] | this.levels[OVER_CAPACITY] | this.levels[SOURCE]) == 0
+                && (this.levels[PROPAGATOR] == 1 || this.levels[PROPAGATOR_SKIP] > 0);
     }
 
     public void leavePropagator(boolean skipScope) {
-        this.propagatorLevel = decrement(this.propagatorLevel);
+        this.levels[PROPAGATOR] = decrement(this.levels[PROPAGATOR]);
         if (skipScope) {
-            this.propagatorSkipDepth = decrement(this.propagatorSkipDepth);
+            this.levels[PROPAGATOR_SKIP] = decrement(this.levels[PROPAGATOR_SKIP]);
         }
     }
 
     public void enterSink() {
-        this.sinkLevel++;
+        this.levels[SINK]++;
     }
 
     public boolean isValidSink() {
-        return this.agentLevel == 0
-                && this.ignoreInternalLevel == 0 && !this.overCapacity && this.sourceLevel == 0
-                && this.sinkLevel == 1;
+        return (this.levels[AGENT] | this.levels[IGNORE_INTERNAL] | this.levels[OVER_CAPACITY] | this.levels[SOURCE]) == 0
+                && this.levels[SINK] == 1;
     }
 
     public void leaveSink() {
-        this.sinkLevel = decrement(this.sinkLevel);
+        this.levels[SINK] = decrement(this.levels[SINK]);
     }
 
     public void enterIgnoreInternal() {
-        this.ignoreInternalLevel++;
+        this.levels[IGNORE_INTERNAL]++;
     }
 
     public void leaveIgnoreInternal() {
-        this.ignoreInternalLevel = decrement(this.ignoreInternalLevel);
+        this.levels[IGNORE_INTERNAL] = decrement(this.levels[IGNORE_INTERNAL]);
     }
 
+    /**
+     * over max method pool size
+     */
     public boolean isOverCapacity() {
-        return this.overCapacity;
+        return this.levels[OVER_CAPACITY] != 0;
     }
 
     public void setOverCapacity(boolean overCapacity) {
-        this.overCapacity = overCapacity;
-    }
-
-    private int decrement(int level) {
-        if (level > 0) {
-            return level - 1;
-        }
-        return 0;
+        this.levels[OVER_CAPACITY] = overCapacity ? 1 : 0;
     }
 }
@@ -8,8 +8,23 @@ public enum Scope {
     DUBBO_REQUEST(5),
     DUBBO_ENTRY(6),
     DUBBO_SOURCE(7),
+    KAFKA_ENTRY(8),
+    GRPC_ENTRY(9),
     ;
 
+    /**
+     * 最大的 id，id 从 1 开始连续编号
+     */
+    public static final int MAX_ID = 9;
+
+    private static final Scope[] BY_ID = new Scope[MAX_ID + 1];
+
+    static {
+        for (Scope each : Scope.values()) {
+            BY_ID[each.id] = each;
+        }
+    }
+
     private final int id;
 
     Scope(int id) {
@@ -21,12 +36,13 @@ public enum Scope {
     }
 
     public static Scope getScope(int id) {
-        for (Scope each : Scope.values()) {
-            if (id == each.id) {
-                return each;
-            }
+        if (!isValidId(id)) {
+            return null;
         }
+        return BY_ID[id];
+    }
 
-        return null;
+    public static boolean isValidId(int id) {
+        return id > 0 && id <= MAX_ID;
     }
 }
@@ -1,41 +1,102 @@
 package io.dongtai.iast.common.scope;
 
+/**
+ * 线程的全部 scope 计数，保存在一个 int 数组中
+ * <p>
+ * 下标 1-{@link Scope#MAX_ID} 对应 {@link Scope#getId()}，之后是 {@link PolicyScope} 使用的计数。
+ * {@link GeneralScope} 和 {@link PolicyScope} 只是这个数组的视图，不单独保存状态
+ */
 public class ScopeAggregator {
-    private final GeneralScope httpRequestScope = new GeneralScope();
-    private final GeneralScope httpEntryScope = new GeneralScope();
-    private final GeneralScope dubboRequestScope = new GeneralScope();
-    private final GeneralScope dubboEntryScope = new GeneralScope();
-    private final GeneralScope dubboSourceScope = new GeneralScope();
-    private final GeneralScope servletInputStreamReadScope = new GeneralScope();
-    private final GeneralScope servletOutputStreamWriteScope = new GeneralScope();
-    private final PolicyScope policyScope = new PolicyScope();
+    static final int AGENT = Scope.MAX_ID + 1;
+    static final int SOURCE = AGENT + 1;
+    static final int PROPAGATOR = SOURCE + 1;
+    static final int PROPAGATOR_SKIP = PROPAGATOR + 1;
+    static final int SINK = PROPAGATOR_SKIP + 1;
+    static final int IGNORE_INTERNAL = SINK + 1;
+    static final int OVER_CAPACITY = IGNORE_INTERNAL + 1;
+    static final int SLOTS = OVER_CAPACITY + 1;
+
+    private final int[] levels = new int[SLOTS];
+    private final PolicyScope policyScope = new PolicyScope(this.levels);
+
+    /**
+     * 无分支的减一，最小为 0
+     */
+    static int decrement(int level) {
+        int next = level - 1;
+        return next & ~(next >> 31);
+    }
+
+    /**
+     * 进入 scope，id 不合法时忽略
+     */
+    public void enter(int id) {
+        if (Scope.isValidId(id)) {
+            this.levels[id]++;
+        }
+    }
+
+    public void leave(int id) {
+        if (Scope.isValidId(id)) {
+            this.levels[id] = decrement(this.levels[id]);
+        }
+    }
+
+    public boolean in(int id) {
+        return Scope.isValidId(id) && this.levels[id] != 0;
+    }
+
+    public boolean isFirst(int id) {
+        return Scope.isValidId(id) && this.levels[id] == 1;
+    }
+
+    public boolean inEnterEntry() {
+        return (this.levels[Scope.HTTP_ENTRY.getId()] | this.levels[Scope.DUBBO_REQUEST.getId()]
+                | this.levels[Scope.KAFKA_ENTRY.getId()] | this.levels[Scope.GRPC_ENTRY.getId()]) != 0;
+    }
+
+    public boolean inAgent() {
+        return this.levels[AGENT] != 0;
+    }
+
+    public GeneralScope getScope(Scope scope) {
+        return new GeneralScope(this.levels, scope.getId());
+    }
 
     public GeneralScope getHttpRequestScope() {
-        return httpRequestScope;
+        return getScope(Scope.HTTP_REQUEST);
     }
 
     public GeneralScope getHttpEntryScope() {
-        return httpEntryScope;
+        return getScope(Scope.HTTP_ENTRY);
     }
 
     public GeneralScope getDubboRequestScope() {
-        return dubboRequestScope;
+        return getScope(Scope.DUBBO_REQUEST);
     }
 
     public GeneralScope getDubboEntryScope() {
-        return dubboEntryScope;
+        return getScope(Scope.DUBBO_ENTRY);
     }
 
     public GeneralScope getDubboSourceScope() {
-        return dubboSourceScope;
+        return getScope(Scope.DUBBO_SOURCE);
+    }
+
+    public GeneralScope getKafkaEntryScope() {
+        return getScope(Scope.KAFKA_ENTRY);
+    }
+
+    public GeneralScope getGrpcEntryScope() {
+        return getScope(Scope.GRPC_ENTRY);
     }
 
     public GeneralScope getServletInputStreamReadScope() {
-        return servletInputStreamReadScope;
+        return getScope(Scope.SERVLET_INPUT_STREAM_READ);
     }
 
     public GeneralScope getServletOutputStreamWriteScope() {
-        return servletOutputStreamWriteScope;
+        return getScope(Scope.SERVLET_OUTPUT_WRITE);
     }
 
     public PolicyScope getPolicyScope() {
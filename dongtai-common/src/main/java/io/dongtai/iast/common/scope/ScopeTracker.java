@@ -1,41 +1,137 @@
 package io.dongtai.iast.common.scope;
 
+/**
+ * 线程的 scope 状态
+ * <p>
+ * ScopeAggregator 在第一次进入 scope 时才创建，只读的判断不会创建。
+ * 虚拟线程数量很多，大部分线程不会进入请求，不需要为每个线程都分配一份 scope 状态。
+ * 每个方法只取一次 ThreadLocal，advice 中的一次调用只对应一次查找
+ */
 public class ScopeTracker extends ThreadLocal<ScopeAggregator> {
     @Override
-    protected ScopeAggregator initialValue() {
-        return new ScopeAggregator();
+    public ScopeAggregator get() {
+        ScopeAggregator aggregator = super.get();
+        if (aggregator == null) {
+            aggregator = new ScopeAggregator();
+            this.set(aggregator);
+        }
+        return aggregator;
+    }
+
+    /**
+     * @return 当前线程的 scope 状态，没有进入过 scope 时返回 null，不会创建
+     */
+    public ScopeAggregator peek() {
+        return super.get();
+    }
+
+    /**
+     * @return 当前线程在请求中且不在 agent 内部时返回 scope 状态，否则返回 null
+     */
+    public ScopeAggregator getRequestScopes() {
+        ScopeAggregator aggregator = super.get();
+        if (aggregator == null || aggregator.inAgent() || !aggregator.inEnterEntry()) {
+            return null;
+        }
+        return aggregator;
     }
 
     public GeneralScope getScope(Scope scope) {
-        switch (scope) {
-            case HTTP_REQUEST:
-                return this.get().getHttpRequestScope();
-            case HTTP_ENTRY:
-                return this.get().getHttpEntryScope();
-            case SERVLET_INPUT_STREAM_READ:
-                return this.get().getServletInputStreamReadScope();
-            case SERVLET_OUTPUT_WRITE:
-                return this.get().getServletOutputStreamWriteScope();
-            case DUBBO_REQUEST:
-                return this.get().getDubboRequestScope();
-            case DUBBO_ENTRY:
-                return this.get().getDubboEntryScope();
-            case DUBBO_SOURCE:
-                return this.get().getDubboSourceScope();
-            default:
-                return null;
+        return this.get().getScope(scope);
+    }
+
+    public void enter(Scope scope) {
+        this.get().enter(scope.getId());
+    }
+
+    public void enter(int id) {
+        this.get().enter(id);
+    }
+
+    /**
+     * 只读判断和离开 scope 时不创建 ScopeAggregator
+     */
+    public boolean in(Scope scope) {
+        return this.in(scope.getId());
+    }
+
+    public boolean in(int id) {
+        ScopeAggregator aggregator = super.get();
+        return aggregator != null && aggregator.in(id);
+    }
+
+    public boolean isFirst(Scope scope) {
+        return this.isFirst(scope.getId());
+    }
+
+    public boolean isFirst(int id) {
+        ScopeAggregator aggregator = super.get();
+        return aggregator != null && aggregator.isFirst(id);
+    }
+
+    public void leave(Scope scope) {
+        this.leave(scope.getId());
+    }
+
+    public void leave(int id) {
+        ScopeAggregator aggregator = super.get();
+        if (aggregator != null) {
+            aggregator.leave(id);
         }
     }
 
     public boolean inEnterEntry() {
-        return this.get().getHttpEntryScope().in() || this.get().getDubboRequestScope().in();
+        ScopeAggregator aggregator = super.get();
+        return aggregator != null && aggregator.inEnterEntry();
     }
 
+    /**
+     * 会创建 ScopeAggregator，只在请求入口等需要建立 scope 状态的地方使用，
+     * 只处理请求内调用的 hook 点使用 {@link #enterAgentInEntry()} 或 {@link #enterAgentIn(Scope)}
+     */
     public PolicyScope getPolicyScope() {
         return this.get().getPolicyScope();
     }
 
+    /**
+     * 当前线程在请求中时进入 agent 内部
+     *
+     * @return 进入后的 scope 状态，需要交给 {@link #leaveAgent(ScopeAggregator)}；不在请求中时返回 null，不会创建
+     */
+    public ScopeAggregator enterAgentInEntry() {
+        ScopeAggregator aggregator = super.get();
+        if (aggregator == null || !aggregator.inEnterEntry()) {
+            return null;
+        }
+        aggregator.getPolicyScope().enterAgent();
+        return aggregator;
+    }
+
+    /**
+     * 当前线程在给定的 scope 中时进入 agent 内部
+     *
+     * @return 进入后的 scope 状态，需要交给 {@link #leaveAgent(ScopeAggregator)}；不在 scope 中时返回 null，不会创建
+     */
+    public ScopeAggregator enterAgentIn(Scope scope) {
+        ScopeAggregator aggregator = super.get();
+        if (aggregator == null || !aggregator.in(scope.getId())) {
+            return null;
+        }
+        aggregator.getPolicyScope().enterAgent();
+        return aggregator;
+    }
+
+    /**
+     * 离开 {@link #enterAgentInEntry()}、{@link #enterAgentIn(Scope)} 进入的 agent 内部，参数为 null 时不做任何事
+     */
+    public void leaveAgent(ScopeAggregator aggregator) {
+        if (aggregator != null) {
+            aggregator.getPolicyScope().leaveAgent();
+        }
+    }
+
     public boolean inAgent() {
-        return this.get().getPolicyScope().inAgent();
+        ScopeAggregator aggregator = super.get();
+        return aggregator != null && aggregator.inAgent();
     }
 }
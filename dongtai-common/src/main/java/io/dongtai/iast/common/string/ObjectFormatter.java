@@ -2,9 +2,7 @@ package io.dongtai.iast.common.string;
 
 import java.io.StringWriter;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.function.Consumer;
 
 /**
  * 用于把对象格式化为字符串
@@ -35,11 +33,11 @@ public class ObjectFormatter {
                 // 判断是否是基本类型的数组，基本类型的数组无法类型转换为Object[]，导致java.lang.ClassCastException异常
                 Object[] taints = (Object[]) value;
                 return objArray2StringV2(taints, charLimit);
+            } else if (value instanceof CharSequence) {
+                // StringBuilder之类的可能非常大，直接从缓冲区里取头尾，不整个toString
+                return formatCharSequence((CharSequence) value, charLimit);
             } else if (value instanceof StringWriter) {
-                String s = ((StringWriter) value).getBuffer().toString();
-                r.originalLength = s.length();
-                r.objectFormatString = StringUtils.normalize(s, charLimit);
-                return r;
+                return formatCharSequence(((StringWriter) value).getBuffer(), charLimit);
             } else {
                 String s = value.toString();
                 r.originalLength = s.length();
@@ -55,8 +53,18 @@ public class ObjectFormatter {
         }
     }
 
+    private static ObjectFormatResult formatCharSequence(CharSequence cs, int charLimit) {
+        ObjectFormatResult r = new ObjectFormatResult();
+        r.originalLength = cs.length();
+        r.objectFormatString = StringUtils.normalize(cs, charLimit);
+        return r;
+    }
+
     /**
      * 对象数组转为字符串，会往下穿透到第二层
+     * <p>
+     * 元素依次拼接后的结果与 {@link StringUtils#normalize(CharSequence, int)} 一致，但只复制头尾需要的字符，
+     * CharSequence 类型的元素也不会被 toString
      *
      * @param objArray  要转换为字符串的对象数组
      * @param charLimit 同 {{@link #formatObject(Object, int)}}
@@ -67,8 +75,9 @@ public class ObjectFormatter {
 
         ObjectFormatResult r = new ObjectFormatResult();
 
-        // 第一步，先把对象都收集一下，把要处理的对象打平
-        List<Object> objList = new ArrayList<>();
+        // 第一步，先把对象都收集一下，把要处理的对象打平，同时累计总长度
+        List<CharSequence> pieces = new ArrayList<>();
+        long length = 0;
         for (Object taint : objArray) {
             if (taint != null) {
                 if (taint.getClass().isArray() && !taint.getClass().getComponentType().isPrimitive()) {
@@ -77,58 +86,69 @@ public class ObjectFormatter {
                         if (subTaint == null) {
                             continue;
                         }
-                        objList.add(subTaint);
+                        length += addPiece(pieces, subTaint);
                     }
                 } else {
-                    objList.add(taint);
+                    length += addPiece(pieces, taint);
                 }
             }
         }
+        r.originalLength = (int) Math.min(length, Integer.MAX_VALUE);
 
-        // 从前往后开始读取
-        StringBuilder header = new StringBuilder();
-        int headIndex = 0;
-        while (headIndex < objList.size()) {
-
-            String s = objList.get(headIndex).toString();
-            headIndex++;
-            // 如果这个地方的字符串比较长怎么办？是不是应该截断一下？还是有优化空间的
-            header.append(s);
-            r.originalLength += s.length();
-
-            // 如果进来的话，说明长度是超了，这个时候应该做的是从尾部读取一部分进来，然后等会儿做截断用
-            if (header.length() > charLimit) {
-
-                // 然后就从尾部开始向前读取
-                int readCount = 0;
-                LinkedList<String> tailStringList = new LinkedList<>();
-                int needReadChar = charLimit / 2 + charLimit % 2;
-                for (int tailIndex = objList.size() - 1; tailIndex >= headIndex; tailIndex--) {
-                    s = objList.get(tailIndex).toString();
-                    // 仅读取需要的字符数，超过的话则不再读取
-                    if (readCount < needReadChar) {
-                        readCount += s.length();
-                        tailStringList.addFirst(s);
-                    }
-                    // 但是长度是要整个计算的
-                    r.originalLength += s.length();
-                }
-
-                // 然后开始拼接处理
-                tailStringList.forEach(new Consumer<String>() {
-                    @Override
-                    public void accept(String s) {
-                        // 是不是应该避免一下不必要的拼接拷贝？某些特殊数据下还是可能会发生占用较长时间
-                        header.append(s);
-                    }
-                });
+        int max = Math.max(charLimit, 5);
+        if (length <= max) {
+            StringBuilder sb = new StringBuilder((int) length);
+            for (CharSequence piece : pieces) {
+                sb.append(piece);
+            }
+            r.objectFormatString = sb.toString();
+            return r;
+        }
 
+        // 超长了，从前往后取头部，从后往前取尾部，中间的元素不复制
+        int middle = (max - 3) / 2;
+        StringBuilder sb = new StringBuilder(max);
+        int need = (1 - (max % 2)) + middle;
+        for (int i = 0; i < pieces.size() && need > 0; i++) {
+            CharSequence piece = pieces.get(i);
+            int n = Math.min(need, piece.length());
+            sb.append(piece, 0, n);
+            need -= n;
+        }
+        sb.append("...");
+
+        int tailIndex = pieces.size() - 1;
+        int tailOffset = 0;
+        need = middle;
+        while (tailIndex >= 0) {
+            int pieceLength = pieces.get(tailIndex).length();
+            if (pieceLength >= need) {
+                tailOffset = pieceLength - need;
                 break;
             }
+            need -= pieceLength;
+            tailIndex--;
+        }
+        for (int i = Math.max(tailIndex, 0); i < pieces.size(); i++) {
+            CharSequence piece = pieces.get(i);
+            sb.append(piece, i == tailIndex ? tailOffset : 0, piece.length());
         }
 
-        r.objectFormatString = StringUtils.normalize(header.toString(), charLimit);
+        r.objectFormatString = sb.toString();
         return r;
     }
 
+    private static int addPiece(List<CharSequence> pieces, Object obj) {
+        CharSequence piece;
+        if (obj instanceof CharSequence) {
+            piece = (CharSequence) obj;
+        } else if (obj instanceof StringWriter) {
+            piece = ((StringWriter) obj).getBuffer();
+        } else {
+            piece = String.valueOf(obj.toString());
+        }
+        pieces.add(piece);
+        return piece.length();
+    }
+
 }
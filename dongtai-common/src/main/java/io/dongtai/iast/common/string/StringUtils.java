@@ -44,16 +44,33 @@ public class StringUtils {
     }
 
     public static String normalize(String str, int maxLength) {
+        return normalize((CharSequence) str, maxLength);
+    }
+
+    /**
+     * 超长时只保留头尾，中间用 ... 省略
+     * <p>
+     * 只复制头尾需要的字符，StringBuilder 等大缓冲区不会被完整转换为字符串
+     *
+     * @param str       要截断的字符序列
+     * @param maxLength 截断后的最大长度，最小为 5
+     * @return 截断后的字符串
+     */
+    public static String normalize(CharSequence str, int maxLength) {
+        if (str == null) {
+            return null;
+        }
+        int length = str.length();
         int max = Math.max(maxLength, 5);
-        if (str != null && str.length() != 0 && str.length() > max) {
+        if (length > max) {
             int middle = (max - 3) / 2;
-            StringBuilder sb = new StringBuilder();
+            StringBuilder sb = new StringBuilder(max);
             sb.append(str, 0, (1 - (max % 2)) + middle);
             sb.append("...");
-            sb.append(str, str.length() - middle, str.length());
+            sb.append(str, length - middle, length);
             return sb.toString();
         }
-        return str;
+        return str.toString();
     }
 
     /**
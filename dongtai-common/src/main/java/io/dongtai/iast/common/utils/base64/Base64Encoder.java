@@ -16,10 +16,45 @@ public class Base64Encoder extends CharacterEncoder {
         return instance.encode(data);
     }
 
+    /**
+     * 直接将字节数组片段编码到字符数组中，输出格式（每 57 字节换行）与 {@link #encode(byte[])} 一致，
+     * 但不会创建中间的流和 PrintStream
+     */
+    public static String encodeBase64String(byte[] data, int offset, int length) {
+        if (length <= 0) {
+            return "";
+        }
+        String lineSeparator = System.getProperty("line.separator");
+        int lines = length / BYTES_PER_LINE;
+        char[] out = new char[(length + 2) / 3 * 4 + lines * lineSeparator.length()];
+        int pos = 0;
+        int end = offset + length;
+        for (int lineStart = offset; lineStart < end; lineStart += BYTES_PER_LINE) {
+            int lineEnd = Math.min(lineStart + BYTES_PER_LINE, end);
+            for (int i = lineStart; i < lineEnd; i += 3) {
+                int b0 = data[i] & 0xff;
+                int b1 = i + 1 < lineEnd ? data[i + 1] & 0xff : 0;
+                int b2 = i + 2 < lineEnd ? data[i + 2] & 0xff : 0;
+                out[pos++] = PEM_ARRAY[b0 >>> 2];
+                out[pos++] = PEM_ARRAY[(b0 << 4 & 48) | (b1 >>> 4)];
+                out[pos++] = i + 1 < lineEnd ? PEM_ARRAY[(b1 << 2 & 60) | (b2 >>> 6)] : '=';
+                out[pos++] = i + 2 < lineEnd ? PEM_ARRAY[b2 & 63] : '=';
+            }
+            if (lineEnd - lineStart == BYTES_PER_LINE) {
+                for (int j = 0; j < lineSeparator.length(); j++) {
+                    out[pos++] = lineSeparator.charAt(j);
+                }
+            }
+        }
+        return new String(out, 0, pos);
+    }
+
     public static void setInstance(Base64Encoder instance) {
         Base64Encoder.instance = instance;
     }
 
+    private static final int BYTES_PER_LINE = 57;
+
     private static final char[] PEM_ARRAY = new char[]{'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '+', '/'};
 
     public Base64Encoder() {
@@ -32,7 +67,7 @@ public class Base64Encoder extends CharacterEncoder {
 
     @Override
     protected int bytesPerLine() {
-        return 57;
+        return BYTES_PER_LINE;
     }
 
     @Override
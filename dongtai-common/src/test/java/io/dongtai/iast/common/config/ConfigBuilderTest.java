@@ -27,6 +27,7 @@ public class ConfigBuilderTest {
         Assert.assertEquals("VERSION_HEADER_KEY default", "DongTai", versionHeaderKey);
         requestDenyList = builder.get(ConfigKey.REQUEST_DENY_LIST);
         Assert.assertNull("REQUEST_DENY_LIST default", requestDenyList);
+        Assert.assertNull("POLICY_VERSION default", builder.get(ConfigKey.POLICY_VERSION));
 
         // update
         configString = "{\"gather_res_body\": false}";
@@ -38,6 +39,9 @@ public class ConfigBuilderTest {
         configString = "{\"blacklist_rules\": [[{\"target_type\": \"HEADER_KEY\", \"operator\": \"EXISTS\", \"value\": \"key1\"}]]}";
         configJson = new JSONObject(configString);
         builder.update(configJson);
+        configString = "{\"policy_version\": \"v2\"}";
+        configJson = new JSONObject(configString);
+        builder.update(configJson);
 
         RequestDenyList expectRequestDenyList = new RequestDenyList();
         RequestDeny headerKeyMatch = new RequestDeny(RequestDeny.TargetType.HEADER_KEY,
@@ -50,6 +54,7 @@ public class ConfigBuilderTest {
         Assert.assertEquals("REPORT_MAX_METHOD_POOL_SIZE updated", new Integer(1000), reportMaxMethodPoolSize);
         requestDenyList = builder.get(ConfigKey.REQUEST_DENY_LIST);
         Assert.assertEquals("REQUEST_DENY_LIST updated", expectRequestDenyList, requestDenyList);
+        Assert.assertEquals("POLICY_VERSION updated", "v2", builder.get(ConfigKey.POLICY_VERSION));
 
         // update invalid
         configString = "{\"gather_res_body\": \"invalid\"}";
@@ -0,0 +1,164 @@
+package io.dongtai.iast.common.scope;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * advice 生成的 scope 调用序列：servlet 入口（enterHttp/isFirstLevelHttp/leaveHttp）、
+ * servlet 流读取（enterScope/isFirstLevelScope/leaveScope）和传播节点（enterPropagator/isFirstLevelPropagator/leavePropagator），
+ * legacy 为每个 scope 一个对象、按 id 遍历 Scope.values() 查找的实现
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+public class ScopeTrackerBenchmarkTest {
+    private static final ScopeTracker TRACKER = new ScopeTracker();
+    private static final ThreadLocal<LegacyAggregator> LEGACY = new ThreadLocal<LegacyAggregator>() {
+        @Override
+        protected LegacyAggregator initialValue() {
+            return new LegacyAggregator();
+        }
+    };
+
+    private static final int INPUT_READ = Scope.SERVLET_INPUT_STREAM_READ.getId();
+
+    @State(org.openjdk.jmh.annotations.Scope.Thread)
+    public static class InRequest {
+        @Setup
+        public void setup() {
+            TRACKER.enter(Scope.HTTP_ENTRY);
+            LEGACY.get().get(Scope.HTTP_ENTRY).level++;
+        }
+    }
+
+    @Benchmark
+    public boolean legacyServletEntry() {
+        LegacyLevel request = LEGACY.get().get(Scope.HTTP_REQUEST);
+        request.level++;
+        boolean first = LEGACY.get().get(Scope.HTTP_REQUEST).level == 1;
+        LEGACY.get().get(Scope.HTTP_REQUEST).leave();
+        return first && LEGACY.get().get(Scope.HTTP_REQUEST).level == 0
+                && LEGACY.get().get(Scope.HTTP_ENTRY).level != 0;
+    }
+
+    @Benchmark
+    public boolean packedServletEntry() {
+        TRACKER.enter(Scope.HTTP_REQUEST);
+        boolean first = TRACKER.isFirst(Scope.HTTP_REQUEST);
+        TRACKER.leave(Scope.HTTP_REQUEST);
+        return first && !TRACKER.in(Scope.HTTP_REQUEST) && TRACKER.in(Scope.HTTP_ENTRY);
+    }
+
+    @Benchmark
+    public boolean legacyStreamRead() {
+        LEGACY.get().get(legacyGetScope(INPUT_READ)).level++;
+        boolean first = LEGACY.get().get(legacyGetScope(INPUT_READ)).level == 1;
+        LEGACY.get().get(legacyGetScope(INPUT_READ)).leave();
+        return first;
+    }
+
+    @Benchmark
+    public boolean packedStreamRead() {
+        TRACKER.enter(INPUT_READ);
+        boolean first = TRACKER.isFirst(INPUT_READ);
+        TRACKER.leave(INPUT_READ);
+        return first;
+    }
+
+    @Benchmark
+    public boolean legacyPropagator(InRequest inRequest) {
+        LegacyAggregator agg = LEGACY.get();
+        if (!(LEGACY.get().agent > 0) && LEGACY.get().inEnterEntry()) {
+            LEGACY.get().propagator++;
+        }
+        boolean first = LEGACY.get().inEnterEntry() && LEGACY.get().agent == 0 && LEGACY.get().propagator == 1;
+        if (!(LEGACY.get().agent > 0) && LEGACY.get().inEnterEntry()) {
+            agg.propagator = agg.propagator > 0 ? agg.propagator - 1 : 0;
+        }
+        return first;
+    }
+
+    @Benchmark
+    public boolean packedPropagator(InRequest inRequest) {
+        ScopeAggregator scopes = TRACKER.getRequestScopes();
+        if (scopes != null) {
+            scopes.getPolicyScope().enterPropagator(false);
+        }
+        scopes = TRACKER.peek();
+        boolean first = scopes != null && scopes.inEnterEntry() && scopes.getPolicyScope().isValidPropagator();
+        scopes = TRACKER.getRequestScopes();
+        if (scopes != null) {
+            scopes.getPolicyScope().leavePropagator(false);
+        }
+        return first;
+    }
+
+    private static Scope legacyGetScope(int id) {
+        for (Scope each : Scope.values()) {
+            if (id == each.getId()) {
+                return each;
+            }
+        }
+        return null;
+    }
+
+    private static class LegacyLevel {
+        private int level;
+
+        void leave() {
+            this.level = this.level > 0 ? this.level - 1 : 0;
+        }
+    }
+
+    private static class LegacyAggregator {
+        private final LegacyLevel[] levels = new LegacyLevel[Scope.values().length];
+        private int agent;
+        private int propagator;
+
+        LegacyAggregator() {
+            for (int i = 0; i < this.levels.length; i++) {
+                this.levels[i] = new LegacyLevel();
+            }
+        }
+
+        LegacyLevel get(Scope scope) {
+            switch (scope) {
+                case HTTP_REQUEST:
+                    return this.levels[0];
+                case HTTP_ENTRY:
+                    return this.levels[1];
+                case SERVLET_INPUT_STREAM_READ:
+                    return this.levels[2];
+                case SERVLET_OUTPUT_WRITE:
+                    return this.levels[3];
+                case DUBBO_REQUEST:
+                    return this.levels[4];
+                case DUBBO_ENTRY:
+                    return this.levels[5];
+                default:
+                    return this.levels[6];
+            }
+        }
+
+        boolean inEnterEntry() {
+            return get(Scope.HTTP_ENTRY).level != 0 || get(Scope.DUBBO_REQUEST).level != 0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(ScopeTrackerBenchmarkTest.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,129 @@
+package io.dongtai.iast.common.scope;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScopeTrackerTest {
+    private final ScopeTracker tracker = new ScopeTracker();
+
+    @After
+    public void tearDown() {
+        this.tracker.remove();
+    }
+
+    @Test
+    public void testReadOnlyDoesNotCreate() {
+        Assert.assertFalse(this.tracker.inEnterEntry());
+        Assert.assertFalse(this.tracker.inAgent());
+        Assert.assertFalse(this.tracker.in(Scope.HTTP_REQUEST));
+        Assert.assertFalse(this.tracker.isFirst(Scope.DUBBO_REQUEST));
+        this.tracker.leave(Scope.HTTP_ENTRY);
+        Assert.assertNull(this.tracker.peek());
+    }
+
+    @Test
+    public void testCreateOnEnter() {
+        this.tracker.getScope(Scope.HTTP_ENTRY).enter();
+        ScopeAggregator aggregator = this.tracker.peek();
+        Assert.assertNotNull(aggregator);
+        Assert.assertSame(aggregator, this.tracker.get());
+        Assert.assertTrue(this.tracker.inEnterEntry());
+        Assert.assertTrue(this.tracker.isFirst(Scope.HTTP_ENTRY));
+
+        this.tracker.getPolicyScope().enterAgent();
+        Assert.assertTrue(this.tracker.inAgent());
+        this.tracker.getPolicyScope().leaveAgent();
+
+        this.tracker.leave(Scope.HTTP_ENTRY);
+        Assert.assertFalse(this.tracker.in(Scope.HTTP_ENTRY));
+
+        this.tracker.remove();
+        Assert.assertNull(this.tracker.peek());
+        Assert.assertNotNull(this.tracker.get());
+    }
+
+    @Test
+    public void testPackedCounters() {
+        ScopeAggregator aggregator = new ScopeAggregator();
+        aggregator.enter(Scope.HTTP_REQUEST.getId());
+        aggregator.enter(Scope.HTTP_REQUEST.getId());
+        Assert.assertTrue(aggregator.in(Scope.HTTP_REQUEST.getId()));
+        Assert.assertFalse(aggregator.isFirst(Scope.HTTP_REQUEST.getId()));
+        aggregator.leave(Scope.HTTP_REQUEST.getId());
+        Assert.assertTrue(aggregator.isFirst(Scope.HTTP_REQUEST.getId()));
+        Assert.assertTrue(aggregator.getHttpRequestScope().isFirst());
+        aggregator.leave(Scope.HTTP_REQUEST.getId());
+        aggregator.leave(Scope.HTTP_REQUEST.getId());
+        Assert.assertFalse(aggregator.in(Scope.HTTP_REQUEST.getId()));
+        aggregator.enter(Scope.HTTP_REQUEST.getId());
+        Assert.assertTrue(aggregator.isFirst(Scope.HTTP_REQUEST.getId()));
+
+        // 不合法的 id 不影响其他计数
+        for (int id : new int[]{0, -1, Scope.MAX_ID + 1, Integer.MAX_VALUE}) {
+            aggregator.enter(id);
+            aggregator.leave(id);
+            Assert.assertFalse(aggregator.in(id));
+            Assert.assertFalse(aggregator.isFirst(id));
+            Assert.assertNull(Scope.getScope(id));
+        }
+        Assert.assertFalse(aggregator.inAgent());
+        for (Scope scope : Scope.values()) {
+            Assert.assertSame(scope, Scope.getScope(scope.getId()));
+        }
+
+        Assert.assertFalse(aggregator.inEnterEntry());
+        aggregator.getDubboRequestScope().enter();
+        Assert.assertTrue(aggregator.inEnterEntry());
+        aggregator.getDubboRequestScope().leave();
+        Assert.assertFalse(aggregator.inEnterEntry());
+        aggregator.getKafkaEntryScope().enter();
+        Assert.assertTrue(aggregator.inEnterEntry());
+    }
+
+    @Test
+    public void testPolicyScope() {
+        PolicyScope policy = new ScopeAggregator().getPolicyScope();
+        policy.enterSource();
+        Assert.assertTrue(policy.isValidSource());
+        policy.enterPropagator(false);
+        Assert.assertFalse(policy.isValidPropagator());
+        policy.leavePropagator(false);
+        policy.leaveSource();
+        policy.leaveSource();
+        Assert.assertFalse(policy.isValidSource());
+
+        policy.enterPropagator(false);
+        Assert.assertTrue(policy.isValidPropagator());
+        policy.enterPropagator(true);
+        Assert.assertTrue(policy.isValidPropagator());
+        policy.leavePropagator(true);
+        policy.enterPropagator(false);
+        Assert.assertFalse(policy.isValidPropagator());
+        policy.leavePropagator(false);
+
+        policy.enterSink();
+        Assert.assertTrue(policy.isValidSink());
+        policy.setOverCapacity(true);
+        Assert.assertTrue(policy.isOverCapacity());
+        Assert.assertFalse(policy.isValidSink());
+        policy.setOverCapacity(false);
+        policy.enterIgnoreInternal();
+        Assert.assertFalse(policy.isValidSink());
+        policy.leaveIgnoreInternal();
+        policy.enterAgent();
+        Assert.assertFalse(policy.isValidSink());
+        Assert.assertTrue(policy.inAgent());
+        policy.leaveAgent();
+        Assert.assertTrue(policy.isValidSink());
+    }
+
+    @Test
+    public void testRequestScopes() {
+        Assert.assertNull(this.tracker.getRequestScopes());
+        this.tracker.enter(Scope.HTTP_ENTRY);
+        Assert.assertSame(this.tracker.peek(), this.tracker.getRequestScopes());
+        this.tracker.getPolicyScope().enterAgent();
+        Assert.assertNull(this.tracker.getRequestScopes());
+    }
+}
@@ -0,0 +1,60 @@
+package io.dongtai.iast.common.string;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1MB 的 StringBuilder 格式化：先 toString 再截断 vs 直接从缓冲区取头尾
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Threads(1)
+public class ObjectFormatterBenchmarkTest {
+    private static final int CHAR_LIMIT = 1024;
+
+    private StringBuilder builder;
+    private Object[] array;
+
+    @Setup
+    public void setUp() {
+        this.builder = new StringBuilder(1024 * 1024);
+        while (this.builder.length() < 1024 * 1024) {
+            this.builder.append("select * from user where name = 'dongtai' and id = ").append(this.builder.length()).append(";");
+        }
+        this.array = new Object[]{this.builder, "tail", new Object[]{this.builder}};
+    }
+
+    @Benchmark
+    public ObjectFormatResult toStringThenNormalize() {
+        ObjectFormatResult r = new ObjectFormatResult();
+        String s = this.builder.toString();
+        r.originalLength = s.length();
+        r.objectFormatString = StringUtils.normalize(s, CHAR_LIMIT);
+        return r;
+    }
+
+    @Benchmark
+    public ObjectFormatResult formatBuilder() {
+        return ObjectFormatter.formatObject(this.builder, CHAR_LIMIT);
+    }
+
+    @Benchmark
+    public ObjectFormatResult formatArray() {
+        return ObjectFormatter.formatObject(this.array, CHAR_LIMIT);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(ObjectFormatterBenchmarkTest.class.getSimpleName())
+                .build();
+        new Runner(opts).run();
+    }
+
+}
@@ -3,6 +3,9 @@ package io.dongtai.iast.common.string;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.StringWriter;
+import java.util.Random;
+
 /**
  * @author CC11001100
  */
@@ -143,4 +146,65 @@ public class ObjectFormatterTest {
 
     }
 
+    @Test
+    public void formatCharSequence() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i % 10);
+        }
+        ObjectFormatResult r = ObjectFormatter.formatObject(sb, 10);
+        Assert.assertEquals(1000, r.originalLength);
+        Assert.assertEquals("0123...789", r.objectFormatString);
+
+        r = ObjectFormatter.formatObject(new StringBuffer("short"), 10);
+        Assert.assertEquals(5, r.originalLength);
+        Assert.assertEquals("short", r.objectFormatString);
+
+        StringWriter writer = new StringWriter();
+        writer.write(sb.toString());
+        r = ObjectFormatter.formatObject(writer, 11);
+        Assert.assertEquals(1000, r.originalLength);
+        Assert.assertEquals("0123...6789", r.objectFormatString);
+    }
+
+    @Test
+    public void formatArrayMatchesNormalize() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            int count = random.nextInt(6);
+            Object[] array = new Object[count];
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                String s = randomString(random, random.nextInt(20));
+                switch (random.nextInt(4)) {
+                    case 0:
+                        array[i] = new StringBuilder(s);
+                        break;
+                    case 1:
+                        array[i] = new Object[]{s, null};
+                        break;
+                    case 2:
+                        array[i] = null;
+                        s = "";
+                        break;
+                    default:
+                        array[i] = s;
+                }
+                expected.append(s);
+            }
+            int limit = random.nextInt(30);
+            ObjectFormatResult r = ObjectFormatter.formatObject(array, limit);
+            Assert.assertEquals(expected.length(), r.originalLength);
+            Assert.assertEquals(StringUtils.normalize(expected.toString(), limit), r.objectFormatString);
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
 }
\ No newline at end of file
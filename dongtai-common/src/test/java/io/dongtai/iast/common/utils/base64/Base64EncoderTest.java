@@ -0,0 +1,21 @@
+package io.dongtai.iast.common.utils.base64;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class Base64EncoderTest {
+    @Test
+    public void testEncodeRange() {
+        Random random = new Random(7);
+        byte[] data = new byte[300];
+        random.nextBytes(data);
+        for (int len = 0; len <= 240; len++) {
+            byte[] slice = Arrays.copyOfRange(data, 3, 3 + len);
+            Assert.assertEquals("length " + len, new Base64Encoder().encode(slice),
+                    Base64Encoder.encodeBase64String(data, 3, len));
+        }
+    }
+}
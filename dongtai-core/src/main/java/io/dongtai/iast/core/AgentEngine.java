@@ -4,12 +4,15 @@ import io.dongtai.iast.common.constants.AgentConstant;
 import io.dongtai.iast.common.constants.Version;
 import io.dongtai.iast.common.state.AgentState;
 import io.dongtai.iast.common.state.State;
+import io.dongtai.iast.core.bytecode.enhance.plugin.hardcoded.HardcodedCollector;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
+import io.dongtai.iast.core.handler.metrics.AgentMetrics;
 import io.dongtai.iast.core.handler.hookpoint.vulscan.dynamic.FastjsonCheck;
 import io.dongtai.iast.core.handler.hookpoint.vulscan.dynamic.QLExpressCheck;
 import io.dongtai.iast.core.init.IEngine;
 import io.dongtai.iast.core.init.impl.ConfigEngine;
 import io.dongtai.iast.core.init.impl.TransformEngine;
+import io.dongtai.iast.core.replay.ReplayEngine;
 import io.dongtai.iast.core.service.ServiceDirReport;
 import io.dongtai.iast.core.service.ServiceFactory;
 import io.dongtai.iast.core.service.StartUpTimeReport;
@@ -61,6 +64,7 @@ public class AgentEngine {
             stopWatch.start();
             DongTaiLog.debug("DongTai Engine is about to be installed, the installation mode is {}", mode);
             PropertyUtils cfg = PropertyUtils.getInstance(propertiesFilePath);
+            AgentMetrics.setLatencySample(cfg.getMetricsLatencySample());
             EngineManager.getInstance(agentId);
             PolicyManager policyManager = new PolicyManager();
             AgentEngine agentEngine = AgentEngine.getInstance();
@@ -91,6 +95,36 @@ public class AgentEngine {
         DongTaiLog.info("Turn off the engine successfully");
     }
 
+    /**
+     * 策略变化后重新加载，不需要重启应用
+     */
+    public static void reloadPolicy() {
+        AgentEngine agentEngine = AgentEngine.getInstance();
+        PropertyUtils cfg = PropertyUtils.getInstance();
+        for (IEngine engine : agentEngine.engines) {
+            if (engine instanceof TransformEngine) {
+                int count = ((TransformEngine) engine).reloadPolicy(cfg == null ? null : cfg.getPolicyPath());
+                DongTaiLog.info("policy reloaded, {} classes retransformed", count);
+            }
+        }
+    }
+
+    /**
+     * agent 自身的运行指标，由 attach 的 dump 命令调用
+     */
+    public static String dumpMetrics() {
+        return AgentMetrics.snapshot().toString();
+    }
+
+    /**
+     * 由 agent 的性能监控线程同步应用的 CPU 使用率
+     */
+    public static void updateCpuUsage(Integer cpuUsage) {
+        if (cpuUsage != null) {
+            ReplayEngine.onCpuUsage(cpuUsage);
+        }
+    }
+
     public static void destroy(String mode, String propertiesFilePath, Instrumentation inst) {
         try {
             DongTaiLog.info("Uninstall engine");
@@ -102,6 +136,7 @@ public class AgentEngine {
             assert agentEngine != null;
             agentEngine.destroy();
             ThreadPools.destroy();
+            HardcodedCollector.destroy();
             ServiceFactory.getInstance().destroy();
             SpyDispatcherHandler.destroy();
             DongTaiLog.info("Engine uninstallation succeeded");
@@ -4,10 +4,12 @@ import io.dongtai.iast.common.scope.Scope;
 import io.dongtai.iast.common.scope.ScopeManager;
 import io.dongtai.iast.common.state.AgentState;
 import io.dongtai.iast.core.handler.context.ContextManager;
+import io.dongtai.iast.core.handler.context.RequestTaintStore;
 import io.dongtai.iast.core.handler.hookpoint.IastServer;
 import io.dongtai.iast.core.handler.hookpoint.controller.BodyBuffer;
 import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
 import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+import io.dongtai.iast.core.handler.sampling.RequestSampler;
 import io.dongtai.iast.core.service.ServerAddressReport;
 import io.dongtai.iast.core.service.ServiceFactory;
 import io.dongtai.iast.core.utils.PropertyUtils;
@@ -31,6 +33,10 @@ public class EngineManager {
     public static final IastTrackMap TRACK_MAP = new IastTrackMap();
     public static final IastTaintHashCodes TAINT_HASH_CODES = new IastTaintHashCodes();
     public static final TaintRangesPool TAINT_RANGES_POOL = new TaintRangesPool();
+    /**
+     * 请求提交过异步任务时才会创建
+     */
+    public static final ThreadLocal<RequestTaintStore> REQUEST_TAINT_STORE = new RequestTaintStoreLocal();
     public static final BodyBuffer BODY_BUFFER = new BodyBuffer();
     public static IastServer SERVER;
     public static final AgentState AGENT_STATE = AgentState.getInstance();
@@ -38,6 +44,10 @@ public class EngineManager {
     private static final AtomicInteger reqCounts = new AtomicInteger(0);
 
     public static final BooleanThreadLocal ENTER_REPLAY_ENTRYPOINT = new BooleanThreadLocal(false);
+    /**
+     * 请求开始处理的时间，只在本地使用，不上报
+     */
+    private static final String REQUEST_START_NANOS = "startNanos";
 
     public static EngineManager getInstance() {
         return instance;
@@ -60,10 +70,8 @@ public class EngineManager {
      * 清除当前线程的状态，避免线程重用导致的ThreadLocal产生内存泄漏的问题
      */
     public static void cleanThreadState() {
-        EngineManager.REQUEST_CONTEXT.remove();
-        EngineManager.TRACK_MAP.remove();
-        EngineManager.TAINT_HASH_CODES.remove();
-        EngineManager.TAINT_RANGES_POOL.remove();
+        // 请求信息、方法池、污点池和跨线程的污点存储保存在同一个对象中，一起清除
+        RequestStateLocal.clear();
         EngineManager.ENTER_REPLAY_ENTRYPOINT.remove();
         ContextManager.getContext().remove();
         ScopeManager.SCOPE_TRACKER.remove();
@@ -100,6 +108,15 @@ public class EngineManager {
         return instance.agentId;
     }
 
+    /**
+     * @return 当前 HTTP 请求从进入到现在的纳秒数，没有记录时返回 -1
+     */
+    public static long getRequestElapsedNanos() {
+        Map<String, Object> requestMeta = REQUEST_CONTEXT.get();
+        Object start = requestMeta == null ? null : requestMeta.get(REQUEST_START_NANOS);
+        return start instanceof Long ? System.nanoTime() - (Long) start : -1;
+    }
+
     public static void enterHttpEntry(Map<String, Object> requestMeta) {
         ServiceFactory.startService();
         if (null == SERVER) {
@@ -126,6 +143,7 @@ public class EngineManager {
             ServerAddressReport serverAddressReport = new ServerAddressReport(EngineManager.SERVER.getServerAddr(), EngineManager.SERVER.getServerPort(), EngineManager.SERVER.getProtocol());
             serverAddressReport.run();
         }
+        // 未采样的请求也要把 trace id 传给下游服务
         Map<String, String> headers = (Map<String, String>) requestMeta.get("headers");
         String traceIdKey = ContextManager.getHeaderKey();
         if (headers.containsKey(traceIdKey)) {
@@ -134,18 +152,44 @@ public class EngineManager {
             String newTraceId = ContextManager.currentTraceId();
             headers.put(traceIdKey, newTraceId);
         }
+        if (!RequestSampler.getInstance().shouldAnalyze(requestMeta)) {
+            return;
+        }
+        requestMeta.put(REQUEST_START_NANOS, System.nanoTime());
         REQUEST_CONTEXT.set(requestMeta);
         TRACK_MAP.set(new HashMap<Integer, MethodEvent>(1024));
-        TAINT_HASH_CODES.set(new HashSet<Long>());
+        TAINT_HASH_CODES.set(IastTaintHashCodes.newPool());
         TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
-        ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_ENTRY).enter();
+        ScopeManager.SCOPE_TRACKER.enter(Scope.HTTP_ENTRY);
     }
 
     public static void enterDubboEntry(Map<String, Object> requestMeta) {
         REQUEST_CONTEXT.set(requestMeta);
         TRACK_MAP.set(new HashMap<Integer, MethodEvent>(1024));
-        TAINT_HASH_CODES.set(new HashSet<Long>());
+        TAINT_HASH_CODES.set(IastTaintHashCodes.newPool());
+        TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
+        ScopeManager.SCOPE_TRACKER.enter(Scope.DUBBO_ENTRY);
+    }
+
+    /**
+     * 进入一条 kafka 消息的处理，每条消息使用单独的方法池和污点池
+     */
+    public static void enterKafkaEntry(Map<String, Object> requestMeta) {
+        REQUEST_CONTEXT.set(requestMeta);
+        TRACK_MAP.set(new HashMap<Integer, MethodEvent>(64));
+        TAINT_HASH_CODES.set(IastTaintHashCodes.newPool());
+        TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
+        ScopeManager.SCOPE_TRACKER.enter(Scope.KAFKA_ENTRY);
+    }
+
+    /**
+     * 进入一次 gRPC 服务端调用，流式调用的所有消息使用同一个方法池和污点池
+     */
+    public static void enterGrpcEntry(Map<String, Object> requestMeta) {
+        REQUEST_CONTEXT.set(requestMeta);
+        TRACK_MAP.set(new HashMap<Integer, MethodEvent>(64));
+        TAINT_HASH_CODES.set(IastTaintHashCodes.newPool());
         TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
-        ScopeManager.SCOPE_TRACKER.getScope(Scope.DUBBO_ENTRY).enter();
+        ScopeManager.SCOPE_TRACKER.enter(Scope.GRPC_ENTRY);
     }
 }
@@ -1,11 +1,14 @@
 package io.dongtai.iast.core.bytecode;
 
+import io.dongtai.iast.common.constants.Version;
 import io.dongtai.iast.common.scope.ScopeManager;
 import io.dongtai.iast.core.EngineManager;
 import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.ClassHierarchyCache;
 import io.dongtai.iast.core.bytecode.enhance.IastClassDiagram;
 import io.dongtai.iast.core.bytecode.enhance.plugin.AbstractClassVisitor;
 import io.dongtai.iast.core.bytecode.enhance.plugin.PluginRegister;
+import io.dongtai.iast.core.bytecode.enhance.plugin.concurrent.DispatchAsyncTask;
 import io.dongtai.iast.core.bytecode.sca.ScaScanner;
 import io.dongtai.iast.core.handler.hookpoint.SpyDispatcherImpl;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
@@ -22,6 +25,7 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.dongtai.SpyDispatcherHandler;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
@@ -30,7 +34,6 @@ import java.net.URL;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 
 import static org.apache.commons.io.FileUtils.writeByteArrayToFile;
@@ -53,6 +56,9 @@ public class IastClassFileTransformer implements ClassFileTransformer {
     private static IastClassFileTransformer INSTANCE;
     private final PolicyManager policyManager;
     private final static HashMap<Object, byte[]> transformMap = new HashMap<Object, byte[]>();
+    private final boolean transformCacheEnabled;
+    private volatile TransformCache transformCache;
+    private String agentVersion;
 
     /**
      * Gets a singleton object
@@ -84,6 +90,8 @@ public class IastClassFileTransformer implements ClassFileTransformer {
         this.configMatcher = ConfigMatcher.getInstance();
         this.configMatcher.setInst(inst);
         this.policyManager = policyManager;
+        this.transformCacheEnabled = this.properties != null && this.properties.isTransformCacheEnable()
+                && PropertyUtils.getTmpDir() != null;
 
         SpyDispatcherHandler.setDispatcher(new SpyDispatcherImpl());
     }
@@ -180,13 +188,34 @@ public class IastClassFileTransformer implements ClassFileTransformer {
             }
             final String className = classContext.getClassName();
 
+            // 记录当前类的类头，COMPUTE_FRAMES 计算公共父类时无需再读取
+            ClassHierarchyCache.getInstance().put(loader, cr);
+
             // 设置类的祖先类
-            Set<String> ancestors = classDiagram.getClassAncestorSet(className);
+            Set<String> ancestors = classDiagram.getClassAncestorSet(loader, className);
             if (ancestors == null) {
                 ancestors = classDiagram.updateAncestorsByClassContext(loader, classContext);
             }
             classContext.setAncestors(ancestors);
 
+            // 相同的类字节码、祖先类和策略下转换结果是确定的，直接复用上次的结果
+            TransformCache cache = getTransformCache();
+            String cacheKey = null;
+            if (cache != null) {
+                cacheKey = TransformCache.key(srcByteCodeArray, ancestors, loader == null);
+                byte[] cached = cache.get(cacheKey);
+                if (cached != null) {
+                    plugins.collect(cr, classContext, policyManager);
+                }
+                if (cached == TransformCache.NOT_HOOKABLE) {
+                    return null;
+                }
+                if (cached != null) {
+                    recordTransformed(className, classBeingRedefined, srcByteCodeArray);
+                    return dumpClassIfNecessary(cr.getClassName(), cached, srcByteCodeArray);
+                }
+            }
+
             final ClassWriter cw = createClassWriter(loader, cr);
             ClassVisitor cv = plugins.initial(cw, classContext, policyManager);
 
@@ -194,15 +223,17 @@ public class IastClassFileTransformer implements ClassFileTransformer {
                 cr.accept(cv, ClassReader.EXPAND_FRAMES);
                 AbstractClassVisitor dumpClassVisitor = (AbstractClassVisitor) cv;
                 if (dumpClassVisitor.hasTransformed()) {
-                    if (null == classBeingRedefined) {
-                        transformMap.put(className, srcByteCodeArray);
-                    } else {
-                        transformMap.put(classBeingRedefined, srcByteCodeArray);
+                    recordTransformed(className, classBeingRedefined, srcByteCodeArray);
+                    byte[] transformed = cw.toByteArray();
+                    if (cacheKey != null && isCurrentPolicy(cache)) {
+                        cache.putTransformed(cacheKey, transformed);
                     }
-                    transformCount++;
-                    return dumpClassIfNecessary(cr.getClassName(), cw.toByteArray(), srcByteCodeArray);
+                    return dumpClassIfNecessary(cr.getClassName(), transformed, srcByteCodeArray);
                 }
             }
+            if (cacheKey != null && isCurrentPolicy(cache)) {
+                cache.putNotHookable(cacheKey);
+            }
         } catch (Throwable throwable) {
             DongTaiLog.warn(ErrorCode.get("TRANSFORM_CLASS_FAILED"), internalClassName, throwable);
         } finally {
@@ -275,6 +306,103 @@ public class IastClassFileTransformer implements ClassFileTransformer {
         return data;
     }
 
+    private void recordTransformed(String className, Class<?> classBeingRedefined, byte[] srcByteCodeArray) {
+        if (null == classBeingRedefined) {
+            transformMap.put(className, srcByteCodeArray);
+        } else {
+            transformMap.put(classBeingRedefined, srcByteCodeArray);
+        }
+        transformCount++;
+    }
+
+    /**
+     * 获取字节码转换缓存，策略版本变化时重新打开，旧策略下的缓存随之失效
+     *
+     * @return 未开启或不可用时返回 null
+     */
+    private TransformCache getTransformCache() {
+        if (!this.transformCacheEnabled) {
+            return null;
+        }
+        String policyVersion = this.policyManager.getPolicyVersion();
+        if (policyVersion == null) {
+            return null;
+        }
+        TransformCache cache = this.transformCache;
+        if (cache != null && policyVersion.equals(cache.getPolicyVersion())) {
+            return cache;
+        }
+        synchronized (this) {
+            cache = this.transformCache;
+            if (cache != null && policyVersion.equals(cache.getPolicyVersion())) {
+                return cache;
+            }
+            if (cache != null) {
+                cache.close();
+            }
+            cache = TransformCache.open(new File(PropertyUtils.getTmpDir()), getAgentVersion(), policyVersion);
+            this.transformCache = cache;
+            return cache;
+        }
+    }
+
+    /**
+     * 转换期间策略被替换时，结果可能来自新策略，不能写入旧版本的缓存
+     */
+    private boolean isCurrentPolicy(TransformCache cache) {
+        return cache.getPolicyVersion().equals(this.policyManager.getPolicyVersion());
+    }
+
+    public synchronized void closeTransformCache() {
+        if (this.transformCache != null) {
+            this.transformCache.close();
+            this.transformCache = null;
+        }
+    }
+
+    /**
+     * agent 版本：agent 版本号、core 包和 spy 包的内容摘要，以及可能影响转换结果的配置项。
+     * agent 每次启动都会重新释放 jar 包，所以按内容而不是路径、修改时间区分
+     */
+    private String getAgentVersion() {
+        if (this.agentVersion != null) {
+            return this.agentVersion;
+        }
+        StringBuilder sb = new StringBuilder(Version.VERSION);
+        try {
+            CodeSource codeSource = IastClassFileTransformer.class.getProtectionDomain().getCodeSource();
+            if (codeSource != null && codeSource.getLocation() != null) {
+                sb.append('|').append(contentVersion(new File(codeSource.getLocation().toURI())));
+            }
+            URL spy = ClassLoader.getSystemResource(SpyDispatcherHandler.class.getName().replace('.', '/') + ".class");
+            if (spy != null && "jar".equals(spy.getProtocol())) {
+                String path = spy.getPath();
+                sb.append('|').append(contentVersion(new File(new URL(path.substring(0, path.indexOf("!/"))).toURI())));
+            }
+        } catch (Throwable ignored) {
+        }
+        Map<String, String> config = new TreeMap<String, String>();
+        if (this.properties.cfg != null) {
+            for (String name : this.properties.cfg.stringPropertyNames()) {
+                config.put(name, this.properties.cfg.getProperty(name));
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("dongtai.")) {
+                config.put(name, System.getProperty(name));
+            }
+        }
+        this.agentVersion = sb.append('|').append(config).toString();
+        return this.agentVersion;
+    }
+
+    /**
+     * jar 包取内容摘要，开发环境下的 classes 目录取路径
+     */
+    private static String contentVersion(File file) throws IOException {
+        return file.isFile() ? TransformCache.sha1Hex(file) : file.getPath();
+    }
+
     /**
      * 找到需要修改字节码的类
      *
@@ -285,6 +413,7 @@ public class IastClassFileTransformer implements ClassFileTransformer {
         final Class<?>[] enhanceClasses = new Class[loaded.length];
         // 获取所有的
         int enhanceClassSize = 0;
+        boolean isAsyncTaskEnabled = !PluginRegister.isPluginDisable(DispatchAsyncTask.NAME);
         for (Class<?> clazz : loaded) {
             if (clazz == null) {
                 continue;
@@ -293,25 +422,10 @@ public class IastClassFileTransformer implements ClassFileTransformer {
                 if (!configMatcher.canHook(clazz, this.policyManager)) {
                     continue;
                 }
-                String className = clazz.getName();
-                Set<String> diagram = classDiagram.getClassAncestorSet(className);
-                if (diagram == null) {
-                    diagram = ConcurrentHashMap.newKeySet();
-                    Queue<Class<?>> classQueue = new LinkedList<Class<?>>();
-
-                    classQueue.add(clazz);
-                    while (classQueue.size() > 0) {
-                        Class<?> currentClazz = classQueue.poll();
-                        diagram.add(currentClazz.getName());
-
-                        Class<?> superClazz = currentClazz.getSuperclass();
-                        if (null != superClazz && superClazz != Object.class) {
-                            classQueue.add(superClazz);
-                        }
-                        Class<?>[] interfaces = currentClazz.getInterfaces();
-                        Collections.addAll(classQueue, interfaces);
-                    }
-                    classDiagram.setClassAncestorSet(className, diagram);
+                Set<String> diagram = classDiagram.getClassAncestorSet(clazz);
+                if (isAsyncTaskEnabled && DispatchAsyncTask.isHookClass(diagram)) {
+                    enhanceClasses[enhanceClassSize++] = clazz;
+                    continue;
                 }
                 for (String clazzName : diagram) {
                     if (this.policyManager.isHookClass(clazzName) ||
@@ -357,6 +471,10 @@ public class IastClassFileTransformer implements ClassFileTransformer {
         }
         stopWatch.stop();
         DongTaiLog.debug("finish reTransform, class count: {}, time: {}", getTransformCount(), stopWatch.getTime());
+        TransformCache cache = this.transformCache;
+        if (cache != null) {
+            DongTaiLog.debug("transform cache hit: {}, miss: {}", cache.getHitCount(), cache.getMissCount());
+        }
     }
 
     public static HashMap<Object, byte[]> getTransformMap() {
@@ -0,0 +1,100 @@
+package io.dongtai.iast.core.bytecode;
+
+import io.dongtai.iast.core.bytecode.enhance.IastClassDiagram;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyDiff;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
+import io.dongtai.iast.core.utils.matcher.ConfigMatcher;
+import io.dongtai.log.DongTaiLog;
+import io.dongtai.log.ErrorCode;
+import org.apache.commons.lang3.time.StopWatch;
+
+import java.lang.instrument.Instrumentation;
+import java.util.Set;
+
+/**
+ * 策略热加载：替换策略后只重新转换命中变化节点的已加载类
+ */
+public class PolicyReloader {
+    private static final Class<?>[] EMPTY = new Class<?>[0];
+
+    private final Instrumentation inst;
+    private final PolicyManager policyManager;
+    private final ConfigMatcher configMatcher;
+    private final IastClassDiagram classDiagram;
+
+    public PolicyReloader(Instrumentation inst, PolicyManager policyManager) {
+        this(inst, policyManager, ConfigMatcher.getInstance(), IastClassDiagram.getInstance());
+    }
+
+    PolicyReloader(Instrumentation inst, PolicyManager policyManager,
+                   ConfigMatcher configMatcher, IastClassDiagram classDiagram) {
+        this.inst = inst;
+        this.policyManager = policyManager;
+        this.configMatcher = configMatcher;
+        this.classDiagram = classDiagram;
+    }
+
+    /**
+     * 重新加载策略，替换后重新转换受影响的类
+     *
+     * @param policyPath 策略文件路径，为空时从服务端获取
+     * @return 重新转换的类
+     */
+    public synchronized Class<?>[] reload(String policyPath) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        PolicyDiff diff = this.policyManager.reloadPolicy(policyPath);
+        if (diff == null || diff.isEmpty()) {
+            return EMPTY;
+        }
+        Class<?>[] classes = findAffected(diff);
+        retransform(classes);
+        stopWatch.stop();
+        DongTaiLog.debug("reload policy, {}, reTransform {} classes, time: {}",
+                diff, classes.length, stopWatch.getTime());
+        return classes;
+    }
+
+    /**
+     * 找到命中变化节点的已加载类，包括删除的节点，这些类重新转换后去掉原来的 hook
+     */
+    Class<?>[] findAffected(PolicyDiff diff) {
+        final Class<?>[] loaded = this.inst.getAllLoadedClasses();
+        final Class<?>[] affected = new Class[loaded.length];
+        int affectedSize = 0;
+        for (Class<?> clazz : loaded) {
+            if (clazz == null) {
+                continue;
+            }
+            try {
+                if (!this.configMatcher.canHook(clazz, this.policyManager)) {
+                    continue;
+                }
+                Set<String> ancestors = this.classDiagram.getClassAncestorSet(clazz);
+                if (diff.isAffected(clazz.getName(), ancestors)) {
+                    affected[affectedSize++] = clazz;
+                }
+            } catch (Throwable cause) {
+                DongTaiLog.trace("remove from findAffected, because loading class:" + clazz.getName()
+                        + " occur an exception", cause);
+            }
+        }
+        Class<?>[] classes = new Class[affectedSize];
+        System.arraycopy(affected, 0, classes, 0, affectedSize);
+        return classes;
+    }
+
+    private void retransform(Class<?>[] classes) {
+        for (Class<?> clazz : classes) {
+            try {
+                this.inst.retransformClasses(clazz);
+            } catch (ClassCircularityError e) {
+                DongTaiLog.error(ErrorCode.get("RETRANSFORM_CLASS_CIRCULARITY_ERROR"), clazz.getCanonicalName(),
+                        e.getCause() != null ? e.getCause().getMessage() : "");
+            } catch (InternalError ignored) {
+            } catch (Throwable e) {
+                DongTaiLog.error(ErrorCode.get("RETRANSFORM_CLASS_FAILED"), clazz.getCanonicalName(), e);
+            }
+        }
+    }
+}
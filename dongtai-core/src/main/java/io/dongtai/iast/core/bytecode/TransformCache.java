@@ -0,0 +1,282 @@
+package io.dongtai.iast.core.bytecode;
+
+import io.dongtai.log.DongTaiLog;
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 字节码转换结果的磁盘缓存，JVM 重启后相同的类直接复用上次的转换结果
+ * <p>
+ * 缓存目录按 (agent 版本, 策略版本) 区分，策略变化后换一个目录，旧的转换结果不再使用。
+ * 同一台机器上的多个 JVM 共用缓存根目录，策略不同的 JVM 各用各的目录，所以打开时只清理超过 {@link #MAX_IDLE_MILLIS}
+ * 没有被打开过的目录，目录超过 {@link #MAX_ENTRIES} 个时再按最近打开时间淘汰，正在使用的目录打开时会刷新修改时间。
+ * 目录内以 (类字节码, 祖先类集合) 的摘要作为 key：转换后的字节码每个类一个文件，不需要转换的类的 key 追加写入同一个索引文件
+ * <p>
+ * 命中缓存时不会再执行插件的 ClassVisitor，转换过程中的副作用需要调用方自行补上，见 {@link io.dongtai.iast.core.bytecode.enhance.plugin.PluginRegister#collect}
+ */
+public class TransformCache {
+    static final String CACHE_DIR_NAME = "transform-cache";
+    static final String NOT_HOOKABLE_INDEX = "not-hookable.idx";
+    private static final String CLASS_SUFFIX = ".class";
+    private static final int KEY_LENGTH = 20;
+    static final long MAX_IDLE_MILLIS = TimeUnit.DAYS.toMillis(7);
+    static final int MAX_ENTRIES = 16;
+
+    /**
+     * 缓存命中且无需转换时 {@link #get(String)} 的返回值
+     */
+    public static final byte[] NOT_HOOKABLE = new byte[0];
+
+    private static final ThreadLocal<MessageDigest> DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String policyVersion;
+    private final File dir;
+    private final Set<String> notHookable = ConcurrentHashMap.newKeySet();
+    private OutputStream notHookableIndex;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 打开缓存目录
+     *
+     * @param baseDir       agent 临时目录
+     * @param agentVersion  agent 版本，包含影响字节码转换结果的配置
+     * @param policyVersion 策略版本
+     * @return 缓存，目录不可用时返回 null
+     */
+    public static TransformCache open(File baseDir, String agentVersion, String policyVersion) {
+        try {
+            File root = new File(baseDir, CACHE_DIR_NAME);
+            String name = sha1Hex((agentVersion + "|" + policyVersion).getBytes(StandardCharsets.UTF_8));
+            File dir = new File(root, name);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                return null;
+            }
+            dir.setLastModified(System.currentTimeMillis());
+            evict(root, dir);
+            return new TransformCache(dir, policyVersion);
+        } catch (Throwable e) {
+            DongTaiLog.debug("open transform cache failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 清理长时间没有打开过的目录，其他 JVM 正在使用的目录打开时刷新过修改时间，不会被清理
+     */
+    static void evict(File root, File current) {
+        File[] entries = root.listFiles();
+        if (entries == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<File> alive = new ArrayList<File>();
+        for (File entry : entries) {
+            if (entry.equals(current)) {
+                continue;
+            }
+            if (now - entry.lastModified() > MAX_IDLE_MILLIS) {
+                FileUtils.deleteQuietly(entry);
+            } else {
+                alive.add(entry);
+            }
+        }
+        if (alive.size() < MAX_ENTRIES) {
+            return;
+        }
+        Collections.sort(alive, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(b.lastModified(), a.lastModified());
+            }
+        });
+        for (int i = MAX_ENTRIES - 1; i < alive.size(); i++) {
+            FileUtils.deleteQuietly(alive.get(i));
+        }
+    }
+
+    TransformCache(File dir, String policyVersion) throws IOException {
+        this.dir = dir;
+        this.policyVersion = policyVersion;
+        File index = new File(dir, NOT_HOOKABLE_INDEX);
+        if (index.isFile()) {
+            byte[] keys = FileUtils.readFileToByteArray(index);
+            // 进程异常退出时最后一条记录可能不完整，忽略掉
+            for (int offset = 0; offset + KEY_LENGTH <= keys.length; offset += KEY_LENGTH) {
+                this.notHookable.add(toHex(keys, offset, KEY_LENGTH));
+            }
+            if (keys.length % KEY_LENGTH != 0) {
+                FileUtils.writeByteArrayToFile(index, Arrays.copyOf(keys, keys.length - keys.length % KEY_LENGTH));
+            }
+        }
+        // 不做缓冲，进程随时退出时已经写入的记录都不会丢失
+        this.notHookableIndex = new FileOutputStream(index, true);
+    }
+
+    public String getPolicyVersion() {
+        return this.policyVersion;
+    }
+
+    /**
+     * 计算类的缓存 key，转换结果只取决于类字节码、祖先类集合以及是否由 BootstrapClassLoader 加载
+     */
+    public static String key(byte[] classBytes, Set<String> ancestors, boolean bootstrap) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        digest.update(classBytes);
+        digest.update((byte) (bootstrap ? 1 : 0));
+        if (ancestors != null) {
+            String[] sorted = ancestors.toArray(new String[0]);
+            Arrays.sort(sorted);
+            for (String ancestor : sorted) {
+                digest.update((byte) '\n');
+                digest.update(ancestor.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        byte[] hash = digest.digest();
+        return toHex(hash, 0, hash.length);
+    }
+
+    /**
+     * @return 转换后的字节码；{@link #NOT_HOOKABLE} 表示不需要转换；null 表示未命中
+     */
+    public byte[] get(String key) {
+        if (this.notHookable.contains(key)) {
+            this.hits.incrementAndGet();
+            return NOT_HOOKABLE;
+        }
+        File file = new File(this.dir, key + CLASS_SUFFIX);
+        if (file.isFile()) {
+            try {
+                byte[] bytes = FileUtils.readFileToByteArray(file);
+                this.hits.incrementAndGet();
+                return bytes;
+            } catch (IOException e) {
+                FileUtils.deleteQuietly(file);
+            }
+        }
+        this.misses.incrementAndGet();
+        return null;
+    }
+
+    public void putTransformed(String key, byte[] transformed) {
+        File file = new File(this.dir, key + CLASS_SUFFIX);
+        File tmp = new File(this.dir, key + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            FileUtils.writeByteArrayToFile(tmp, transformed);
+            if (!tmp.renameTo(file)) {
+                FileUtils.deleteQuietly(tmp);
+            }
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(tmp);
+            DongTaiLog.debug("write transform cache failed: {}", e.getMessage());
+        }
+    }
+
+    public void putNotHookable(String key) {
+        if (!this.notHookable.add(key)) {
+            return;
+        }
+        synchronized (this) {
+            if (this.notHookableIndex == null) {
+                return;
+            }
+            try {
+                this.notHookableIndex.write(fromHex(key));
+            } catch (IOException e) {
+                DongTaiLog.debug("write transform cache index failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public synchronized void close() {
+        if (this.notHookableIndex == null) {
+            return;
+        }
+        try {
+            this.notHookableIndex.close();
+        } catch (IOException ignored) {
+        }
+        this.notHookableIndex = null;
+    }
+
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    File getDir() {
+        return this.dir;
+    }
+
+    /**
+     * 计算字节数组的 SHA-1 摘要
+     */
+    public static String sha1Hex(byte[] bytes) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        byte[] hash = digest.digest(bytes);
+        return toHex(hash, 0, hash.length);
+    }
+
+    /**
+     * 计算文件内容的 SHA-1 摘要
+     */
+    public static String sha1Hex(File file) throws IOException {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        byte[] hash = digest.digest();
+        return toHex(hash, 0, hash.length);
+    }
+
+    private static String toHex(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int b = bytes[offset + i] & 0xff;
+            chars[i * 2] = HEX[b >>> 4];
+            chars[i * 2 + 1] = HEX[b & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,195 @@
+package io.dongtai.iast.core.bytecode.enhance;
+
+import io.dongtai.log.DongTaiLog;
+import io.dongtai.log.ErrorCode;
+import org.apache.commons.io.IOUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 类继承结构的头信息缓存（父类、接口、访问标志），按 ClassLoader 区分并以弱引用持有 ClassLoader
+ * <p>
+ * 祖先类解析（{@link IastClassDiagram}）和 COMPUTE_FRAMES 时的公共父类计算（{@link io.dongtai.iast.core.utils.AsmUtils}）
+ * 共用这份缓存，每个类在每个 ClassLoader 下只读取并解析一次类头，ClassLoader 被回收后对应的缓存随之释放
+ */
+public class ClassHierarchyCache {
+
+    private static final ClassHierarchyCache INSTANCE = new ClassHierarchyCache();
+
+    /**
+     * 找不到类文件时的占位，避免重复查找
+     */
+    private static final ClassHeader MISSING = new ClassHeader(null, null, new String[0], 0);
+
+    /**
+     * BootstrapClassLoader 无法作为 WeakHashMap 的 key，单独存放
+     */
+    private final ConcurrentMap<String, ClassHeader> bootstrapHeaders = new ConcurrentHashMap<String, ClassHeader>();
+
+    private final Map<ClassLoader, ConcurrentMap<String, ClassHeader>> loaderHeaders =
+            new WeakHashMap<ClassLoader, ConcurrentMap<String, ClassHeader>>();
+
+    public static ClassHierarchyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 类头信息，不持有 ClassLoader 的引用
+     */
+    public static class ClassHeader {
+        private final String internalName;
+        private final String superName;
+        private final String[] interfaces;
+        private final int access;
+
+        public ClassHeader(String internalName, String superName, String[] interfaces, int access) {
+            this.internalName = internalName;
+            this.superName = superName;
+            this.interfaces = interfaces;
+            this.access = access;
+        }
+
+        public String getInternalName() {
+            return internalName;
+        }
+
+        /**
+         * @return /分隔的父类名，java/lang/Object 的父类为 null
+         */
+        public String getSuperName() {
+            return superName;
+        }
+
+        public String[] getInterfaces() {
+            return interfaces;
+        }
+
+        public int getAccess() {
+            return access;
+        }
+
+        public boolean isInterface() {
+            return (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+    }
+
+    private ConcurrentMap<String, ClassHeader> headersOf(ClassLoader loader) {
+        if (loader == null) {
+            return this.bootstrapHeaders;
+        }
+        synchronized (this.loaderHeaders) {
+            ConcurrentMap<String, ClassHeader> headers = this.loaderHeaders.get(loader);
+            if (headers == null) {
+                headers = new ConcurrentHashMap<String, ClassHeader>();
+                this.loaderHeaders.put(loader, headers);
+            }
+            return headers;
+        }
+    }
+
+    /**
+     * 记录正在转换的类的头信息，后续查找时无需再读取类文件
+     */
+    public void put(ClassLoader loader, ClassReader classReader) {
+        ClassHeader header = new ClassHeader(classReader.getClassName(), classReader.getSuperName(),
+                classReader.getInterfaces(), classReader.getAccess());
+        headersOf(loader).put(header.getInternalName(), header);
+    }
+
+    /**
+     * 获取类的头信息
+     *
+     * @param loader       查找类文件的 ClassLoader，null 表示 BootstrapClassLoader
+     * @param internalName /分隔的类名，比如 com/foo/Bar
+     * @return 类头信息，找不到类文件时返回 null
+     */
+    public ClassHeader get(ClassLoader loader, String internalName) {
+        ConcurrentMap<String, ClassHeader> headers = headersOf(loader);
+        ClassHeader header = headers.get(internalName);
+        if (header == null) {
+            header = read(loader, internalName);
+            ClassHeader prev = headers.putIfAbsent(internalName, header);
+            if (prev != null) {
+                header = prev;
+            }
+        }
+        return header == MISSING ? null : header;
+    }
+
+    private static ClassHeader read(ClassLoader loader, String internalName) {
+        if (loader == null) {
+            loader = ClassLoader.getSystemClassLoader();
+        }
+        if (loader == null) {
+            return MISSING;
+        }
+        InputStream inputStream = null;
+        try {
+            inputStream = loader.getResourceAsStream(internalName + ".class");
+            if (inputStream == null) {
+                return MISSING;
+            }
+            ClassReader cr = new ClassReader(inputStream);
+            return new ClassHeader(cr.getClassName(), cr.getSuperName(), cr.getInterfaces(), cr.getAccess());
+        } catch (Throwable e) {
+            DongTaiLog.warn(ErrorCode.get("CLASS_DIAGRAM_SCAN_JAR_ANCESTOR_FAILED"), e);
+            return MISSING;
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * 判断 from 是否可以赋值给 target（from 是 target 自身或其子类/实现类）
+     */
+    public boolean isAssignableFrom(ClassLoader loader, String target, String from) {
+        if (target.equals(from)) {
+            return true;
+        }
+        Deque<String> queue = new ArrayDeque<String>();
+        Set<String> visited = new HashSet<String>();
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (!visited.add(current)) {
+                continue;
+            }
+            if (target.equals(current)) {
+                return true;
+            }
+            ClassHeader header = get(loader, current);
+            if (header == null) {
+                continue;
+            }
+            if (header.getSuperName() != null) {
+                queue.add(header.getSuperName());
+            }
+            for (String itf : header.getInterfaces()) {
+                queue.add(itf);
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        int size = this.bootstrapHeaders.size();
+        synchronized (this.loaderHeaders) {
+            for (ConcurrentMap<String, ClassHeader> headers : this.loaderHeaders.values()) {
+                size += headers.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        this.bootstrapHeaders.clear();
+        synchronized (this.loaderHeaders) {
+            this.loaderHeaders.clear();
+        }
+    }
+}
@@ -1,13 +1,7 @@
 package io.dongtai.iast.core.bytecode.enhance;
 
-import io.dongtai.log.DongTaiLog;
-import io.dongtai.log.ErrorCode;
-import org.objectweb.asm.ClassReader;
-
-import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Consumer;
 
 import static io.dongtai.iast.common.string.StringUtils.formatClassNameToDotDelimiter;
 import static io.dongtai.iast.common.string.StringUtils.formatClassNameToSlashDelimiter;
@@ -46,15 +40,26 @@ public class IastClassDiagram {
                 Collections.singletonList(" java.sql.Statement".substring(1)));
     }
 
-    // 存储类名到祖先类的映射关系
-    // <className, Set<String>>
-    private final Map<String, Set<String>> diagrams;
+    // 存储类名到祖先类的映射关系，按 ClassLoader 区分，ClassLoader 被回收后对应的映射随之释放
+    // <ClassLoader, <className, Set<String>>>
+    private final Map<ClassLoader, Map<String, Set<String>>> diagrams;
+
+    // BootstrapClassLoader 加载的类无法作为 WeakHashMap 的 key，单独存放
+    private final Map<String, Set<String>> bootstrapDiagrams;
+
+    private final ClassHierarchyCache hierarchyCache;
 
     // DCL单例
     private static volatile IastClassDiagram instance;
 
     private IastClassDiagram() {
-        this.diagrams = new ConcurrentHashMap<String, Set<String>>();
+        this(ClassHierarchyCache.getInstance());
+    }
+
+    IastClassDiagram(ClassHierarchyCache hierarchyCache) {
+        this.diagrams = new WeakHashMap<ClassLoader, Map<String, Set<String>>>();
+        this.bootstrapDiagrams = new ConcurrentHashMap<String, Set<String>>();
+        this.hierarchyCache = hierarchyCache;
     }
 
     /**
@@ -74,30 +79,76 @@ public class IastClassDiagram {
         return instance;
     }
 
+    private Map<String, Set<String>> diagramsOf(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return this.bootstrapDiagrams;
+        }
+        synchronized (this.diagrams) {
+            Map<String, Set<String>> loaderDiagrams = this.diagrams.get(classLoader);
+            if (loaderDiagrams == null) {
+                loaderDiagrams = new ConcurrentHashMap<String, Set<String>>();
+                this.diagrams.put(classLoader, loaderDiagrams);
+            }
+            return loaderDiagrams;
+        }
+    }
+
     /**
      * 获取类的所有祖先
      *
-     * @param className .分隔的全路径类名，比如 com.foo.Bar
+     * @param classLoader 类所属的加载器，null 表示 BootstrapClassLoader
+     * @param className   .分隔的全路径类名，比如 com.foo.Bar
      * @return
      */
-    public Set<String> getClassAncestorSet(String className) {
-        return this.diagrams.get(className);
+    public Set<String> getClassAncestorSet(ClassLoader classLoader, String className) {
+        return diagramsOf(classLoader).get(className);
+    }
+
+    /**
+     * 获取已加载类的所有祖先，没有记录时通过反射遍历父类和接口并记录
+     *
+     * @param clazz 已加载的类
+     * @return 包含类本身的祖先集合
+     */
+    public Set<String> getClassAncestorSet(Class<?> clazz) {
+        String className = clazz.getName();
+        Set<String> diagram = getClassAncestorSet(clazz.getClassLoader(), className);
+        if (diagram != null) {
+            return diagram;
+        }
+        diagram = ConcurrentHashMap.newKeySet();
+        Queue<Class<?>> classQueue = new LinkedList<Class<?>>();
+        classQueue.add(clazz);
+        while (classQueue.size() > 0) {
+            Class<?> currentClazz = classQueue.poll();
+            diagram.add(currentClazz.getName());
+
+            Class<?> superClazz = currentClazz.getSuperclass();
+            if (null != superClazz && superClazz != Object.class) {
+                classQueue.add(superClazz);
+            }
+            Class<?>[] interfaces = currentClazz.getInterfaces();
+            Collections.addAll(classQueue, interfaces);
+        }
+        setClassAncestorSet(clazz.getClassLoader(), className, diagram);
+        return diagram;
     }
 
     /**
      * 设置类的祖先，覆盖式替换更新
      *
+     * @param classLoader      类所属的加载器，null 表示 BootstrapClassLoader
      * @param className        .分隔的全路径类名，比如 com.foo.Bar
      * @param classAncestorSet
      */
-    public void setClassAncestorSet(String className, Set<String> classAncestorSet) {
+    public void setClassAncestorSet(ClassLoader classLoader, String className, Set<String> classAncestorSet) {
         // 确保放入的是一个并发安全的set，如果不是的话就替换为一个并发安全的set，这样后面直接对set操作才会没问题
         if (!isConcurrentSafeSet(classAncestorSet)) {
             Set<String> concurrentSafeSet = ConcurrentHashMap.newKeySet();
             concurrentSafeSet.addAll(classAncestorSet);
             classAncestorSet = concurrentSafeSet;
         }
-        this.diagrams.put(className, classAncestorSet);
+        diagramsOf(classLoader).put(className, classAncestorSet);
     }
 
     /**
@@ -120,15 +171,11 @@ public class IastClassDiagram {
      * @return 返回更新后的祖先类集合，不需要的话可以忽略返回值
      */
     public Set<String> updateAncestorsByClassContext(ClassLoader classLoader, ClassContext classContext) {
-
-        // 如果没有传递ClassLoader的话则使用当前类的ClassLoader，但感觉这可能会有点问题？祖传逻辑，不敢动...
-        if (classLoader == null) {
-            classLoader = this.getClass().getClassLoader();
-        }
+        Map<String, Set<String>> loaderDiagrams = diagramsOf(classLoader);
 
         // 以.分隔的全路径类名
         String className = classContext.getClassName();
-        Set<String> ancestorSet = this.diagrams.computeIfAbsent(className, k -> ConcurrentHashMap.newKeySet());
+        Set<String> ancestorSet = loaderDiagrams.computeIfAbsent(className, k -> ConcurrentHashMap.newKeySet());
 
         // 认为当前类的直接继承关系是已经解析好的不再重复解析，所以当前类是直接加入到结果集而不是加入到队列中
         // 当前类的继承关系会从ClassContext上读取，这样避免了一次解析
@@ -140,7 +187,7 @@ public class IastClassDiagram {
         }
 
         // 然后就是构造队列，一直递归往上找了，收集要查找的类都有哪些
-        Queue<String> queue = new LinkedList<String>();
+        Queue<String> queue = new ArrayDeque<String>();
 
         // 父类要参与查找，将其加入到队列
         String superClassName = formatClassNameToDotDelimiter(classContext.getSuperClassName());
@@ -170,46 +217,34 @@ public class IastClassDiagram {
             ancestorSet.add(currentClassName);
 
             // 如果之前已经处理过这个类，则从缓存中读取之前已经处理过的结果
-            if (this.diagrams.containsKey(currentClassName)) {
-                this.diagrams.get(currentClassName).forEach(new Consumer<String>() {
-                    @Override
-                    public void accept(String s) {
-                        queue.offer(s);
-                    }
-                });
-            } else {
-                // 缓存中没有，则从文件中读取
-                try {
-                    String classpath = formatClassNameToSlashDelimiter(currentClassName) + ".class";
-                    InputStream inputStream = classLoader.getResourceAsStream(classpath);
-                    if (inputStream == null) {
-                        // TODO 2023-8-28 16:14:03 查找不到的情况怎么办
-                        continue;
-                    }
-                    ClassReader cr = new ClassReader(inputStream);
-                    inputStream.close();
-
-                    // 把父类加入到队列
-                    superClassName = formatClassNameToDotDelimiter(cr.getSuperName());
-                    if (isValidSuperClass(superClassName)) {
-                        queue.offer(superClassName);
-                    }
-
-                    // 合并父接口
-                    implementInterfaces = cr.getInterfaces();
-                    for (String interfaceName : implementInterfaces) {
-                        queue.offer(formatClassNameToDotDelimiter(interfaceName));
-                    }
-
-                    // 如果有默认继承关系的话则把这个继承关系也处理一下，但是要注意，这里是直接加入到结果集而不是加入到队列
-                    // 这是因为目前的策略用到的类的最高级别不会超过DEFAULT_INTERFACE_LIST_MAP给定的父类，所以没必要再去往上继续寻找
-                    if (DEFAULT_INTERFACE_LIST_MAP.containsKey(className)) {
-                        ancestorSet.addAll(DEFAULT_INTERFACE_LIST_MAP.get(className));
-                    }
-
-                } catch (Throwable e) {
-                    DongTaiLog.warn(ErrorCode.get("CLASS_DIAGRAM_SCAN_JAR_ANCESTOR_FAILED"), e);
-                }
+            Set<String> cachedAncestors = loaderDiagrams.get(currentClassName);
+            if (cachedAncestors != null) {
+                queue.addAll(cachedAncestors);
+                continue;
+            }
+
+            // 缓存中没有，则读取类头，同一个 ClassLoader 下每个类只会读取解析一次
+            ClassHierarchyCache.ClassHeader header = this.hierarchyCache.get(classLoader,
+                    formatClassNameToSlashDelimiter(currentClassName));
+            if (header == null) {
+                continue;
+            }
+
+            // 把父类加入到队列
+            superClassName = formatClassNameToDotDelimiter(header.getSuperName());
+            if (isValidSuperClass(superClassName)) {
+                queue.offer(superClassName);
+            }
+
+            // 合并父接口
+            for (String interfaceName : header.getInterfaces()) {
+                queue.offer(formatClassNameToDotDelimiter(interfaceName));
+            }
+
+            // 如果有默认继承关系的话则把这个继承关系也处理一下，但是要注意，这里是直接加入到结果集而不是加入到队列
+            // 这是因为目前的策略用到的类的最高级别不会超过DEFAULT_INTERFACE_LIST_MAP给定的父类，所以没必要再去往上继续寻找
+            if (DEFAULT_INTERFACE_LIST_MAP.containsKey(currentClassName)) {
+                ancestorSet.addAll(DEFAULT_INTERFACE_LIST_MAP.get(currentClassName));
             }
         }
 
@@ -180,6 +180,15 @@ public interface AsmMethods {
             Object.class,
             byte.class
     );
+    Method SPY$enterKafkaRecord = InnerHelper.getAsmMethod(
+            SpyDispatcher.class,
+            "enterKafkaRecord",
+            Object.class
+    );
+    Method SPY$leaveKafkaRecord = InnerHelper.getAsmMethod(
+            SpyDispatcher.class,
+            "leaveKafkaRecord"
+    );
 
     Method SPY$enterSource = InnerHelper.getAsmMethod(
             SpyDispatcher.class,
@@ -207,6 +216,11 @@ public interface AsmMethods {
             SpyDispatcher.class,
             "isFirstLevelPropagator"
     );
+    Method SPY$isTainted = InnerHelper.getAsmMethod(
+            SpyDispatcher.class,
+            "isTainted",
+            Object.class
+    );
     Method SPY$enterSink = InnerHelper.getAsmMethod(
             SpyDispatcher.class,
             "enterSink"
@@ -328,4 +342,25 @@ public interface AsmMethods {
             SpyDispatcher.class,
             "isNotReplayRequest"
     );
+
+    Method SPY$wrapAsyncTask = InnerHelper.getAsmMethod(
+            SpyDispatcher.class,
+            "wrapAsyncTask",
+            Object.class
+    );
+    Method SPY$captureAsyncTask = InnerHelper.getAsmMethod(
+            SpyDispatcher.class,
+            "captureAsyncTask",
+            Object.class
+    );
+    Method SPY$enterAsyncTask = InnerHelper.getAsmMethod(
+            SpyDispatcher.class,
+            "enterAsyncTask",
+            Object.class
+    );
+    Method SPY$leaveAsyncTask = InnerHelper.getAsmMethod(
+            SpyDispatcher.class,
+            "leaveAsyncTask",
+            Object.class
+    );
 }
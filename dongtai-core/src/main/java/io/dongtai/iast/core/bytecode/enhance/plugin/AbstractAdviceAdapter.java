@@ -6,11 +6,16 @@ import io.dongtai.iast.core.bytecode.enhance.MethodContext;
 import io.dongtai.iast.core.bytecode.enhance.asm.AsmMethods;
 import io.dongtai.iast.core.bytecode.enhance.asm.AsmTypes;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyNode;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PropagatorNode;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.TaintPosition;
 import io.dongtai.iast.core.utils.AsmUtils;
 import org.objectweb.asm.*;
 import org.objectweb.asm.commons.AdviceAdapter;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @author dongzhiyong@huoxian.cn
@@ -126,6 +131,7 @@ public abstract class AbstractAdviceAdapter extends AdviceAdapter implements Asm
             final PolicyNode policyNode,
             final boolean captureRet
     ) {
+        Label skipLabel = taintGate(policyNode);
         newLocal(ASM_TYPE_OBJECT);
         if (captureRet && !isThrow(opcode)) {
             loadReturn(opcode);
@@ -145,6 +151,70 @@ public abstract class AbstractAdviceAdapter extends AdviceAdapter implements Asm
         push(Modifier.isStatic(this.access));
         invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$collectMethod);
         pop();
+        if (skipLabel != null) {
+            mark(skipLabel);
+        }
+    }
+
+    /**
+     * 传播节点只检查 source 位置上的对象是否有污点，都没有污点时跳过参数数组的构建和 collectMethod 的调用，
+     * 避免每次调用都装箱基本类型并分配 Object[]
+     *
+     * @return 跳转的位置，不需要检查时返回 null
+     */
+    protected Label taintGate(final PolicyNode policyNode) {
+        if (!(policyNode instanceof PropagatorNode)) {
+            return null;
+        }
+
+        Type[] argumentTypes = Type.getArgumentTypes(this.desc);
+        boolean isStatic = Modifier.isStatic(this.access);
+        List<Integer> positions = new ArrayList<Integer>();
+        for (TaintPosition position : ((PropagatorNode) policyNode).getSources()) {
+            if (position.isObject()) {
+                if (!isStatic) {
+                    positions.add(-1);
+                }
+            } else if (position.isParameter()) {
+                int index = position.getParameterIndex();
+                if (index >= argumentTypes.length) {
+                    continue;
+                }
+                int sort = argumentTypes[index].getSort();
+                if (sort == Type.CHAR || sort == Type.BYTE) {
+                    // 装箱后的 Character、Byte 可以作为污点，按原来的方式处理
+                    return null;
+                }
+                if (sort == Type.OBJECT || sort == Type.ARRAY) {
+                    positions.add(index);
+                }
+            }
+        }
+        if (positions.isEmpty()) {
+            return null;
+        }
+        // 先检查对象，再按顺序检查参数
+        Collections.sort(positions);
+
+        Label trackLabel = new Label();
+        Label skipLabel = new Label();
+        for (int i = 0; i < positions.size(); i++) {
+            invokeStatic(ASM_TYPE_SPY_HANDLER, SPY_HANDLER$getDispatcher);
+            int index = positions.get(i);
+            if (index < 0) {
+                loadThis();
+            } else {
+                loadArg(index);
+            }
+            invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$isTainted);
+            if (i < positions.size() - 1) {
+                ifZCmp(NE, trackLabel);
+            } else {
+                ifZCmp(EQ, skipLabel);
+            }
+        }
+        mark(trackLabel);
+        return skipLabel;
     }
 
     public void captureMethodState(
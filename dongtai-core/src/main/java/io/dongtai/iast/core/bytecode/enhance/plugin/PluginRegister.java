@@ -2,6 +2,7 @@ package io.dongtai.iast.core.bytecode.enhance.plugin;
 
 import io.dongtai.iast.core.bytecode.enhance.ClassContext;
 import io.dongtai.iast.core.bytecode.enhance.plugin.authentication.shiro.DispatchShiro;
+import io.dongtai.iast.core.bytecode.enhance.plugin.concurrent.DispatchAsyncTask;
 import io.dongtai.iast.core.bytecode.enhance.plugin.core.DispatchClassPlugin;
 import io.dongtai.iast.core.bytecode.enhance.plugin.framework.dubbo.DispatchDubbo;
 import io.dongtai.iast.core.bytecode.enhance.plugin.framework.feign.DispatchFeign;
@@ -12,7 +13,9 @@ import io.dongtai.iast.core.bytecode.enhance.plugin.service.kafka.DispatchKafka;
 import io.dongtai.iast.core.bytecode.enhance.plugin.spring.DispatchApiCollector;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.Policy;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
+import io.dongtai.iast.core.utils.AsmUtils;
 import io.dongtai.iast.core.utils.PropertyUtils;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 
 import java.util.ArrayList;
@@ -39,7 +42,8 @@ public class PluginRegister {
                 new DispatchJdbc(),
                 new DispatchShiro(),
                 new DispatchFeign(),
-                new DispatchDubbo()
+                new DispatchDubbo(),
+                new DispatchAsyncTask()
         ));
         allPlugins.removeIf(plugin -> disabledPlugins != null && disabledPlugins.contains(plugin.getName()));
         this.plugins.addAll(allPlugins);
@@ -66,6 +70,19 @@ public class PluginRegister {
         return classVisitor;
     }
 
+    /**
+     * 转换缓存命中时不会执行 {@link #initial} 返回的 ClassVisitor，这里只补上访问类时收集的信息（目前只有硬编码检测），
+     * 不修改字节码
+     */
+    public void collect(ClassReader cr, ClassContext context, PolicyManager policyManager) {
+        ClassVisitor empty = new ClassVisitor(AsmUtils.api) {
+        };
+        ClassVisitor classVisitor = new DispatchHardcodedPlugin().dispatch(empty, context, policyManager.getPolicy());
+        if (classVisitor != empty) {
+            cr.accept(classVisitor, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        }
+    }
+
     /**
      * 查询给定的插件是否被禁用
      *
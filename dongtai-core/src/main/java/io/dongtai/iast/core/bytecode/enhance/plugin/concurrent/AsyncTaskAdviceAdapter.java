@@ -0,0 +1,44 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.concurrent;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.plugin.AbstractAdviceAdapter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.Method;
+
+/**
+ * 方法开始时把任务参数传给 SpyDispatcher：
+ * 有返回值的方法替换任务参数 arg = (T) SpyDispatcherHandler.getDispatcher().wrapAsyncTask(arg)，
+ * 其他方法只通知 SpyDispatcherHandler.getDispatcher().enterAsyncTask(arg)
+ */
+public class AsyncTaskAdviceAdapter extends AbstractAdviceAdapter {
+    private final int argIndex;
+    private final Method spyMethod;
+
+    protected AsyncTaskAdviceAdapter(MethodVisitor mv, int access, String name, String desc, String signature,
+                                     ClassContext context, int argIndex, Method spyMethod) {
+        super(mv, access, name, desc, context, "async", signature);
+        this.argIndex = argIndex;
+        this.spyMethod = spyMethod;
+    }
+
+    @Override
+    protected void before() {
+        invokeStatic(ASM_TYPE_SPY_HANDLER, SPY_HANDLER$getDispatcher);
+        loadArg(this.argIndex);
+        invokeInterface(ASM_TYPE_SPY_DISPATCHER, this.spyMethod);
+        if (!Type.VOID_TYPE.equals(this.spyMethod.getReturnType())) {
+            checkCast(Type.getArgumentTypes(this.desc)[this.argIndex]);
+            storeArg(this.argIndex);
+        }
+    }
+
+    @Override
+    protected void after(int opcode) {
+    }
+
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+        visitMaxsNew(maxStack, maxLocals);
+    }
+}
@@ -0,0 +1,86 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.concurrent;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.asm.AsmMethods;
+import io.dongtai.iast.core.bytecode.enhance.plugin.AbstractClassVisitor;
+import io.dongtai.iast.core.utils.AsmUtils;
+import io.dongtai.log.DongTaiLog;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.Method;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AsyncTaskExecutorAdapter extends AbstractClassVisitor {
+    /**
+     * 提交任务的方法，参数中的任务被替换为包装后的任务。这些线程池把任务包在自己的任务类型中，包装对象不会暴露给业务代码
+     */
+    private static final Map<String, Integer> WRAP_METHODS = new HashMap<String, Integer>();
+    /**
+     * ThreadPoolExecutor 的任务直接放在队列中，只记录请求上下文，任务原样提交
+     */
+    private static final Map<String, Integer> CAPTURE_METHODS = new HashMap<String, Integer>();
+    /**
+     * ThreadPoolExecutor 及子类的回调方法，在工作线程上恢复、还原请求上下文
+     */
+    private static final Map<String, Method> CALLBACK_METHODS = new HashMap<String, Method>();
+    private static final Type RUNNABLE = Type.getType(Runnable.class);
+
+    static {
+        WRAP_METHODS.put("java.util.concurrent.ScheduledThreadPoolExecutor.schedule(java.lang.Runnable,long,java.util.concurrent.TimeUnit)", 0);
+        WRAP_METHODS.put("java.util.concurrent.ScheduledThreadPoolExecutor.schedule(java.util.concurrent.Callable,long,java.util.concurrent.TimeUnit)", 0);
+        WRAP_METHODS.put("java.util.concurrent.ForkJoinPool.execute(java.lang.Runnable)", 0);
+        WRAP_METHODS.put("java.util.concurrent.ForkJoinPool.submit(java.lang.Runnable)", 0);
+        WRAP_METHODS.put("java.util.concurrent.ForkJoinPool.submit(java.lang.Runnable,java.lang.Object)", 0);
+        WRAP_METHODS.put("java.util.concurrent.ForkJoinPool.submit(java.util.concurrent.Callable)", 0);
+        WRAP_METHODS.put("java.util.concurrent.CompletableFuture$ThreadPerTaskExecutor.execute(java.lang.Runnable)", 0);
+
+        CAPTURE_METHODS.put("java.util.concurrent.ThreadPoolExecutor.execute(java.lang.Runnable)", 0);
+
+        CALLBACK_METHODS.put("beforeExecute(Ljava/lang/Thread;Ljava/lang/Runnable;)V", AsmMethods.SPY$enterAsyncTask);
+        CALLBACK_METHODS.put("afterExecute(Ljava/lang/Runnable;Ljava/lang/Throwable;)V", AsmMethods.SPY$leaveAsyncTask);
+    }
+
+    public AsyncTaskExecutorAdapter(ClassVisitor classVisitor, ClassContext context) {
+        super(classVisitor, context);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String desc, final String signature, final String[] exceptions) {
+        MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+        if (Modifier.isAbstract(access) || Modifier.isNative(access)) {
+            return mv;
+        }
+
+        String signCode = AsmUtils.buildSignature(context.getClassName(), name, desc);
+        Integer argIndex = WRAP_METHODS.get(signCode);
+        if (argIndex != null) {
+            DongTaiLog.debug("Adding async task wrapping for type {}.{}", context.getClassName(), name);
+            mv = new AsyncTaskAdviceAdapter(mv, access, name, desc, signCode, this.context, argIndex,
+                    AsmMethods.SPY$wrapAsyncTask);
+            setTransformed();
+            return mv;
+        }
+
+        argIndex = CAPTURE_METHODS.get(signCode);
+        if (argIndex != null) {
+            DongTaiLog.debug("Adding async task capturing for type {}.{}", context.getClassName(), name);
+            mv = new AsyncTaskAdviceAdapter(mv, access, name, desc, signCode, this.context, argIndex,
+                    AsmMethods.SPY$captureAsyncTask);
+            setTransformed();
+            return mv;
+        }
+
+        Method spyMethod = CALLBACK_METHODS.get(name + desc);
+        if (spyMethod != null) {
+            argIndex = Arrays.asList(Type.getArgumentTypes(desc)).indexOf(RUNNABLE);
+            mv = new AsyncTaskAdviceAdapter(mv, access, name, desc, signCode, this.context, argIndex, spyMethod);
+            setTransformed();
+        }
+        return mv;
+    }
+}
@@ -0,0 +1,60 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.concurrent;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.plugin.DispatchPlugin;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.Policy;
+import org.objectweb.asm.ClassVisitor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 线程池任务提交，把请求上下文传递到执行任务的工作线程
+ */
+public class DispatchAsyncTask implements DispatchPlugin {
+    public static final String NAME = "async";
+    public static final String THREAD_POOL_EXECUTOR = "java.util.concurrent.ThreadPoolExecutor";
+    public static final String SCHEDULED_THREAD_POOL_EXECUTOR = "java.util.concurrent.ScheduledThreadPoolExecutor";
+    public static final String FORK_JOIN_POOL = "java.util.concurrent.ForkJoinPool";
+    public static final String THREAD_PER_TASK_EXECUTOR = "java.util.concurrent.CompletableFuture$ThreadPerTaskExecutor";
+
+    /**
+     * 这些类在 agent 启动前通常已经加载，需要重新转换
+     */
+    private static final Set<String> HOOK_CLASSES = new HashSet<String>(Arrays.asList(
+            THREAD_POOL_EXECUTOR,
+            SCHEDULED_THREAD_POOL_EXECUTOR,
+            FORK_JOIN_POOL,
+            THREAD_PER_TASK_EXECUTOR
+    ));
+
+    @Override
+    public ClassVisitor dispatch(ClassVisitor classVisitor, ClassContext context, Policy policy) {
+        String className = context.getClassName();
+        if (HOOK_CLASSES.contains(className)
+                || (context.getAncestors() != null && context.getAncestors().contains(THREAD_POOL_EXECUTOR))) {
+            classVisitor = new AsyncTaskExecutorAdapter(classVisitor, context);
+        }
+        return classVisitor;
+    }
+
+    /**
+     * @param classNames 类及其所有父类、接口
+     * @return 是否需要重新转换
+     */
+    public static boolean isHookClass(Collection<String> classNames) {
+        for (String className : classNames) {
+            if (HOOK_CLASSES.contains(className)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -15,8 +15,6 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.JSRInlinerAdapter;
 
 import java.lang.reflect.Modifier;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -83,7 +81,7 @@ public class DispatchClassPlugin implements DispatchPlugin {
                 return mv;
             }
 
-            if (this.policy.isBlacklistHooks(this.context.getClassName())
+            if (this.policy.isBlacklistHooks(this.context.getInternalClassName())
                     && !this.policy.isIgnoreBlacklistHooks(this.context.getClassName())
                     && !this.policy.isIgnoreInternalHooks(this.context.getClassName())) {
                 if (this.classVersion <= Opcodes.V1_6) {
@@ -97,12 +95,11 @@ public class DispatchClassPlugin implements DispatchPlugin {
             methodContext.setDescriptor(descriptor);
             methodContext.setParameters(AsmUtils.buildParameterTypes(descriptor));
 
-            String matchedSignature;
+            String methodKey = Policy.methodKey(name, descriptor);
             boolean methodIsTransformed = false;
             for (String matchedName : context.getMatchedClassSet()) {
                 context.setMatchedClassName(matchedName);
-                matchedSignature = AsmUtils.buildSignature(matchedName, name, descriptor);
-                mv = lazyAop(mv, access, name, descriptor, matchedSignature, methodContext);
+                mv = lazyAop(mv, access, name, descriptor, matchedName, methodKey, methodContext);
                 methodIsTransformed = mv instanceof MethodAdviceAdapter;
                 if (methodIsTransformed) break;
 
@@ -121,27 +118,20 @@ public class DispatchClassPlugin implements DispatchPlugin {
         /**
          * 懒惰AOP，用于处理预定义HOOK点
          *
-         * @param mv         方法访问器
-         * @param access     方法访问控制符
-         * @param name       方法名
-         * @param descriptor 方法描述符
-         * @param signature  方法签名
+         * @param mv          方法访问器
+         * @param access      方法访问控制符
+         * @param name        方法名
+         * @param descriptor  方法描述符
+         * @param matchedName 命中策略的类名
+         * @param methodKey   策略索引中的方法 key
          * @return 修改后的方法访问器
          */
-        private MethodVisitor lazyAop(MethodVisitor mv, int access, String name, String descriptor, String signature,
-                                      MethodContext methodContext) {
-            Set<PolicyNode> matchedNodes = new HashSet<PolicyNode>();
-
-            Map<String, PolicyNode> policyNodesMap = this.policy.getPolicyNodesMap();
-            if (policyNodesMap != null && policyNodesMap.size() != 0) {
-                for (Map.Entry<String, PolicyNode> entry : policyNodesMap.entrySet()) {
-                    if (entry.getValue().getMethodMatcher().match(methodContext)) {
-                        matchedNodes.add(entry.getValue());
-                    }
-                }
-            }
+        private MethodVisitor lazyAop(MethodVisitor mv, int access, String name, String descriptor,
+                                      String matchedName, String methodKey, MethodContext methodContext) {
+            Set<PolicyNode> matchedNodes = this.policy.getMatchedPolicyNodes(matchedName, methodKey);
 
-            if (matchedNodes.size() > 0) {
+            if (matchedNodes != null && matchedNodes.size() > 0) {
+                String signature = AsmUtils.buildSignature(matchedName, name, descriptor);
                 mv = new MethodAdviceAdapter(mv, access, name, descriptor, signature,
                         matchedNodes, methodContext, this.methodAdapters);
                 setTransformed();
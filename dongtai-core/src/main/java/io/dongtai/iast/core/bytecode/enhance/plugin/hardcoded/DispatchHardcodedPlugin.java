@@ -1,33 +1,33 @@
 package io.dongtai.iast.core.bytecode.enhance.plugin.hardcoded;
 
-import com.alibaba.fastjson2.JSONObject;
-import io.dongtai.iast.common.constants.*;
-import io.dongtai.iast.common.utils.base64.Base64Encoder;
-import io.dongtai.iast.core.EngineManager;
 import io.dongtai.iast.core.bytecode.enhance.ClassContext;
 import io.dongtai.iast.core.bytecode.enhance.plugin.AbstractClassVisitor;
 import io.dongtai.iast.core.bytecode.enhance.plugin.DispatchPlugin;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.Policy;
-import io.dongtai.iast.core.service.ThreadPools;
-import io.dongtai.iast.core.utils.commonUtils;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 
-import java.lang.reflect.Modifier;
-import java.util.regex.Pattern;
-
 /**
- * 检测字节码中使用硬编码的转换类
+ * 检测字节码中使用硬编码的转换类，转换时只收集常量字段，由 {@link HardcodedCollector} 在后台判断和上报
  *
  * @author dongzhiyong@huoxian.cn
  */
 public class DispatchHardcodedPlugin implements DispatchPlugin {
+    private final HardcodedCollector collector;
+
+    public DispatchHardcodedPlugin() {
+        this(null);
+    }
 
+    DispatchHardcodedPlugin(HardcodedCollector collector) {
+        this.collector = collector;
+    }
 
     @Override
     public ClassVisitor dispatch(ClassVisitor classVisitor, ClassContext context, Policy policy) {
         if (!context.isBootstrapClassLoader()) {
-            classVisitor = new ExtractClassContent(classVisitor, context);
+            classVisitor = new ExtractClassContent(classVisitor, context,
+                    this.collector != null ? this.collector : HardcodedCollector.getInstance());
             return classVisitor;
         }
         return classVisitor;
@@ -38,12 +38,13 @@ public class DispatchHardcodedPlugin implements DispatchPlugin {
         return "hardcode";
     }
 
-    private class ExtractClassContent extends AbstractClassVisitor {
-
+    private static class ExtractClassContent extends AbstractClassVisitor {
+        private final HardcodedCollector collector;
         private String source;
 
-        public ExtractClassContent(ClassVisitor classVisitor, ClassContext context) {
+        public ExtractClassContent(ClassVisitor classVisitor, ClassContext context, HardcodedCollector collector) {
             super(classVisitor, context);
+            this.collector = collector;
         }
 
         @Override
@@ -56,74 +57,10 @@ public class DispatchHardcodedPlugin implements DispatchPlugin {
         public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
             FieldVisitor fieldVisitor = super.visitField(access, name, desc, signature, value);
             if (null != value) {
-                if ("[B".equals(desc) && isKeysField(name)) {
-                    sendVulReport(source, context.getClassName(), context.isBootstrapClassLoader(), name,
-                            Base64Encoder.encodeBase64String((byte[]) value));
-                } else if ("Ljava/lang/String;".equals(desc) && isStaticAndFinal(access) && isPassField(name)
-                        && !isWrongPrefix(name) && value instanceof String) {
-                    String fieldValue = (String) value;
-                    if (!commonUtils.isEmpty(fieldValue) && !valueMatcher(fieldValue)) {
-                        sendVulReport(source, context.getClassName(), context.isBootstrapClassLoader(), name,
-                                fieldValue);
-                    }
-                }
+                this.collector.collect(this.source, context.getClassName(), context.isBootstrapClassLoader(),
+                        access, name, desc, value);
             }
             return fieldVisitor;
         }
-
-        private boolean isStaticAndFinal(int access) {
-            return (Modifier.isStatic(access) && Modifier.isFinal(access));
-        }
-
-        private boolean isPassField(String name) {
-            return containArrayItem(name, passArray);
-        }
-
-        private boolean isWrongPrefix(String name) {
-            return containArrayItem(name, notPrefixes);
-        }
-
-        private boolean isKeysField(String name) {
-            return containArrayItem(name, keyArray);
-        }
-
-        private boolean containArrayItem(String name, String[] arrays) {
-            name = name.toUpperCase();
-            for (String item : arrays) {
-                if (name.equals(item)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
-        private boolean valueMatcher(String value) {
-            return e.matcher(value).find() || f.matcher(value).find();
-        }
-
-        private final Pattern e = Pattern.compile("^[a-zA-Z]+\\.[\\.a-zA-Z]*[a-zA-Z]+$");
-
-        private final Pattern f = Pattern.compile("^[a-zA-Z]+\\_[\\_a-zA-Z]*[a-zA-Z]+$");
-
-        private final String[] keyArray = {"key", "aes", "des", "iv", "secret", "blowfish"};
-        private final String[] passArray = {"PASSWORD", "PASSKEY", "PASSPHRASE", "SECRET", "ACCESS_TOKEN",
-                "AWS_ACCESS_KEY_ID", "AWS_SECRET_ACCESS_KEY"};
-        private final String[] notPrefixes = {"date", "forgot", "form", "encode", "pattern", "prefix", "prop", "suffix",
-                "url"};
-
-        private void sendVulReport(String fileName, String className, boolean isJDKClass, String fieldName,
-                                   String value) {
-            JSONObject report = new JSONObject();
-            JSONObject detail = new JSONObject();
-            report.put(ReportKey.TYPE, ReportType.VUL_HARDCODE);
-            report.put(ReportKey.DETAIL, detail);
-            detail.put(ReportKey.AGENT_ID, EngineManager.getAgentId());
-            detail.put("file", fileName);
-            detail.put("class", className);
-            detail.put("isJdk", isJDKClass);
-            detail.put("field", fieldName);
-            detail.put("value", value);
-            ThreadPools.sendPriorityReport(ApiPath.REPORT_UPLOAD, report.toString());
-        }
     }
 }
@@ -0,0 +1,233 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.hardcoded;
+
+import com.alibaba.fastjson2.JSONObject;
+import io.dongtai.iast.common.constants.AgentConstant;
+import io.dongtai.iast.common.constants.ApiPath;
+import io.dongtai.iast.common.constants.ReportKey;
+import io.dongtai.iast.common.constants.ReportType;
+import io.dongtai.iast.common.utils.base64.Base64Encoder;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.commonUtils;
+import io.dongtai.log.DongTaiLog;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 收集字节码中的硬编码候选字段
+ * <p>
+ * 类转换时只按字段名和修饰符筛选出候选的（类、字段、值），由后台线程检查字段的值，按类名、字段和值去重
+ * （同一个类被多个类加载器加载时只上报一次），再批量上报
+ */
+public class HardcodedCollector {
+    static final int MAX_PENDING = 10000;
+    static final int MAX_BATCH = 200;
+    static final int MAX_REPORTED = 100000;
+    private static final long FLUSH_INTERVAL = 5;
+
+    private static final Pattern DOT_NAME = Pattern.compile("^[a-zA-Z]+\\.[\\.a-zA-Z]*[a-zA-Z]+$");
+    private static final Pattern UNDERSCORE_NAME = Pattern.compile("^[a-zA-Z]+\\_[\\_a-zA-Z]*[a-zA-Z]+$");
+    private static final String[] KEY_FIELDS = {"key", "aes", "des", "iv", "secret", "blowfish"};
+    private static final String[] PASS_FIELDS = {"PASSWORD", "PASSKEY", "PASSPHRASE", "SECRET", "ACCESS_TOKEN",
+            "AWS_ACCESS_KEY_ID", "AWS_SECRET_ACCESS_KEY"};
+
+    private static volatile HardcodedCollector instance;
+
+    private final BlockingQueue<Candidate> pending;
+    private final AtomicLong dropped = new AtomicLong();
+    /**
+     * 已上报的字段，只在后台线程中访问
+     */
+    private final Set<String> reported = new HashSet<String>();
+    private ScheduledExecutorService worker;
+
+    HardcodedCollector() {
+        this(MAX_PENDING);
+    }
+
+    HardcodedCollector(int maxPending) {
+        this.pending = new LinkedBlockingQueue<Candidate>(maxPending);
+    }
+
+    public static HardcodedCollector getInstance() {
+        if (instance == null) {
+            synchronized (HardcodedCollector.class) {
+                if (instance == null) {
+                    HardcodedCollector collector = new HardcodedCollector();
+                    collector.start();
+                    instance = collector;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static synchronized void destroy() {
+        if (instance != null) {
+            instance.stop();
+            instance = null;
+        }
+    }
+
+    /**
+     * 类转换时调用，记录字段名可能是密钥、密码的常量字段，队列已满时丢弃
+     */
+    public void collect(String source, String className, boolean isJdk, int access, String name, String desc,
+                        Object value) {
+        if (value == null) {
+            return;
+        }
+        if ("[B".equals(desc)) {
+            if (!isKeysField(name)) {
+                return;
+            }
+        } else if (!"Ljava/lang/String;".equals(desc) || !Modifier.isStatic(access) || !Modifier.isFinal(access)
+                || !isPassField(name)) {
+            return;
+        }
+        if (!this.pending.offer(new Candidate(source, className, isJdk, name, desc, value))) {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    int getPending() {
+        return this.pending.size();
+    }
+
+    void start() {
+        this.worker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, AgentConstant.THREAD_NAME_PREFIX_CORE + "Hardcoded");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        this.worker.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    void stop() {
+        if (this.worker != null) {
+            this.worker.shutdownNow();
+        }
+    }
+
+    /**
+     * 处理队列中的所有候选字段，每批最多 {@link #MAX_BATCH} 个报告
+     */
+    void flush() {
+        try {
+            List<String> reports;
+            while (!(reports = drain(MAX_BATCH)).isEmpty()) {
+                ThreadPools.sendReports(ApiPath.REPORT_UPLOAD, reports);
+            }
+        } catch (Throwable e) {
+            DongTaiLog.debug("flush hardcoded reports failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从队列中取出候选字段，返回需要上报的报告
+     *
+     * @param maxReports 最多返回的报告数量
+     */
+    List<String> drain(int maxReports) {
+        List<String> reports = new ArrayList<String>();
+        Candidate candidate;
+        while (reports.size() < maxReports && (candidate = this.pending.poll()) != null) {
+            String value = candidate.hardcodedValue();
+            if (value == null) {
+                continue;
+            }
+            if (this.reported.size() >= MAX_REPORTED) {
+                this.reported.clear();
+            }
+            if (this.reported.add(candidate.className + '#' + candidate.name + '=' + value)) {
+                reports.add(candidate.toReport(value));
+            }
+        }
+        return reports;
+    }
+
+    static boolean isKeysField(String name) {
+        return containsIgnoreCase(KEY_FIELDS, name);
+    }
+
+    static boolean isPassField(String name) {
+        return containsIgnoreCase(PASS_FIELDS, name);
+    }
+
+    private static boolean containsIgnoreCase(String[] items, String name) {
+        for (String item : items) {
+            if (item.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean valueMatcher(String value) {
+        return DOT_NAME.matcher(value).find() || UNDERSCORE_NAME.matcher(value).find();
+    }
+
+    private static class Candidate {
+        private final String source;
+        private final String className;
+        private final boolean isJdk;
+        private final String name;
+        private final String desc;
+        private final Object value;
+
+        Candidate(String source, String className, boolean isJdk, String name, String desc, Object value) {
+            this.source = source;
+            this.className = className;
+            this.isJdk = isJdk;
+            this.name = name;
+            this.desc = desc;
+            this.value = value;
+        }
+
+        /**
+         * @return 硬编码的值，不是硬编码时返回 null
+         */
+        String hardcodedValue() {
+            if ("[B".equals(this.desc)) {
+                return this.value instanceof byte[] ? Base64Encoder.encodeBase64String((byte[]) this.value) : null;
+            }
+            if (this.value instanceof String) {
+                String fieldValue = (String) this.value;
+                if (!commonUtils.isEmpty(fieldValue) && !valueMatcher(fieldValue)) {
+                    return fieldValue;
+                }
+            }
+            return null;
+        }
+
+        String toReport(String value) {
+            JSONObject report = new JSONObject();
+            JSONObject detail = new JSONObject();
+            report.put(ReportKey.TYPE, ReportType.VUL_HARDCODE);
+            report.put(ReportKey.DETAIL, detail);
+            detail.put(ReportKey.AGENT_ID, EngineManager.getAgentId());
+            detail.put("file", this.source);
+            detail.put("class", this.className);
+            detail.put("isJdk", this.isJdk);
+            detail.put("field", this.name);
+            detail.put("value", value);
+            return report.toString();
+        }
+    }
+}
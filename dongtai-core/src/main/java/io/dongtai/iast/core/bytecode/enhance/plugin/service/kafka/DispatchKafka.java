@@ -7,6 +7,9 @@ import org.objectweb.asm.ClassVisitor;
 
 public class DispatchKafka implements DispatchPlugin {
     private final String classOfAbstractConfig = " org.apache.kafka.common.config.AbstractConfig".substring(1);
+    private final String classOfKafkaConsumer = " org.apache.kafka.clients.consumer.KafkaConsumer".substring(1);
+    private final String classOfRecordIterator = " org.apache.kafka.clients.consumer.ConsumerRecords$ConcatenatedIterable$1".substring(1);
+    private final String classOfListenerConsumer = " org.springframework.kafka.listener.KafkaMessageListenerContainer$ListenerConsumer".substring(1);
 
     @Override
     public ClassVisitor dispatch(ClassVisitor classVisitor, ClassContext context, Policy policy) {
@@ -14,6 +17,12 @@ public class DispatchKafka implements DispatchPlugin {
 
         if (classOfAbstractConfig.equals(className)) {
             classVisitor = new KafkaAbstractConfigAdapter(classVisitor, context);
+        } else if (classOfKafkaConsumer.equals(className)) {
+            classVisitor = new KafkaConsumerAdapter(classVisitor, context);
+        } else if (classOfRecordIterator.equals(className)) {
+            classVisitor = new KafkaRecordIteratorAdapter(classVisitor, context);
+        } else if (classOfListenerConsumer.equals(className)) {
+            classVisitor = new KafkaListenerConsumerAdapter(classVisitor, context);
         }
 
         return classVisitor;
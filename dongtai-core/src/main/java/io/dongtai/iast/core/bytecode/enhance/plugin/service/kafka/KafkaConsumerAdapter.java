@@ -0,0 +1,33 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.service.kafka;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.plugin.AbstractClassVisitor;
+import io.dongtai.log.DongTaiLog;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * KafkaConsumer.poll，再次拉取消息时上一批消息已经处理完，结束当前线程最后一条消息
+ */
+public class KafkaConsumerAdapter extends AbstractClassVisitor {
+    static final String CONSUMER_RECORDS = " org/apache/kafka/clients/consumer/ConsumerRecords".substring(1);
+
+    public KafkaConsumerAdapter(ClassVisitor classVisitor, ClassContext context) {
+        super(classVisitor, context);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String desc, final String signature, final String[] exceptions) {
+        MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+
+        if ("poll".equals(name) && (access & Opcodes.ACC_PUBLIC) != 0
+                && CONSUMER_RECORDS.equals(Type.getReturnType(desc).getInternalName())) {
+            DongTaiLog.debug("Adding kafka consumer poll tracking for type {}.{}{}", context.getClassName(), name, desc);
+            mv = new KafkaConsumerPollAdviceAdapter(mv, access, name, desc);
+            setTransformed();
+        }
+        return mv;
+    }
+}
@@ -0,0 +1,19 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.service.kafka;
+
+import io.dongtai.iast.core.bytecode.enhance.asm.AsmMethods;
+import io.dongtai.iast.core.bytecode.enhance.asm.AsmTypes;
+import io.dongtai.iast.core.utils.AsmUtils;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.commons.AdviceAdapter;
+
+public class KafkaConsumerPollAdviceAdapter extends AdviceAdapter implements AsmTypes, AsmMethods {
+    protected KafkaConsumerPollAdviceAdapter(MethodVisitor mv, int access, String name, String desc) {
+        super(AsmUtils.api, mv, access, name, desc);
+    }
+
+    @Override
+    protected void onMethodEnter() {
+        invokeStatic(ASM_TYPE_SPY_HANDLER, SPY_HANDLER$getDispatcher);
+        invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$leaveKafkaRecord);
+    }
+}
@@ -0,0 +1,32 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.service.kafka;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.plugin.AbstractClassVisitor;
+import io.dongtai.iast.core.utils.AsmUtils;
+import io.dongtai.log.DongTaiLog;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * spring-kafka 的监听容器，每条消息分发给 listener 时是一个单独的入口
+ */
+public class KafkaListenerConsumerAdapter extends AbstractClassVisitor {
+    static final String DO_INVOKE_ON_MESSAGE = " org.springframework.kafka.listener.KafkaMessageListenerContainer$ListenerConsumer.doInvokeOnMessage(org.apache.kafka.clients.consumer.ConsumerRecord)".substring(1);
+
+    public KafkaListenerConsumerAdapter(ClassVisitor classVisitor, ClassContext context) {
+        super(classVisitor, context);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String desc, final String signature, final String[] exceptions) {
+        MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+        String signCode = AsmUtils.buildSignature(context.getClassName(), name, desc);
+
+        if (DO_INVOKE_ON_MESSAGE.equals(signCode)) {
+            DongTaiLog.debug("Adding kafka listener tracking by {}", signCode);
+            mv = new KafkaListenerInvokeAdviceAdapter(mv, access, name, desc, signCode, this.context);
+            setTransformed();
+        }
+        return mv;
+    }
+}
@@ -0,0 +1,26 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.service.kafka;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.plugin.AbstractAdviceAdapter;
+import org.objectweb.asm.MethodVisitor;
+
+public class KafkaListenerInvokeAdviceAdapter extends AbstractAdviceAdapter {
+    protected KafkaListenerInvokeAdviceAdapter(MethodVisitor mv, int access, String name, String desc,
+                                               String signature, ClassContext context) {
+        super(mv, access, name, desc, context, "kafka", signature);
+    }
+
+    @Override
+    protected void before() {
+        mark(tryLabel);
+        invokeStatic(ASM_TYPE_SPY_HANDLER, SPY_HANDLER$getDispatcher);
+        loadArg(0);
+        invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$enterKafkaRecord);
+    }
+
+    @Override
+    protected void after(int opcode) {
+        invokeStatic(ASM_TYPE_SPY_HANDLER, SPY_HANDLER$getDispatcher);
+        invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$leaveKafkaRecord);
+    }
+}
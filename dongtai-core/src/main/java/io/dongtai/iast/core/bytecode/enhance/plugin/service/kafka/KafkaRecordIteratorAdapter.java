@@ -0,0 +1,30 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.service.kafka;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.plugin.AbstractClassVisitor;
+import io.dongtai.log.DongTaiLog;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * ConsumerRecords 的迭代器，每次取出下一条消息时切换到这条消息的上下文
+ */
+public class KafkaRecordIteratorAdapter extends AbstractClassVisitor {
+    static final String MAKE_NEXT_DESC = "()L" + " org/apache/kafka/clients/consumer/ConsumerRecord".substring(1) + ";";
+
+    public KafkaRecordIteratorAdapter(ClassVisitor classVisitor, ClassContext context) {
+        super(classVisitor, context);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String desc, final String signature, final String[] exceptions) {
+        MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+
+        if ("makeNext".equals(name) && MAKE_NEXT_DESC.equals(desc)) {
+            DongTaiLog.debug("Adding kafka record tracking for type {}.{}", context.getClassName(), name);
+            mv = new KafkaRecordIteratorAdviceAdapter(mv, access, name, desc);
+            setTransformed();
+        }
+        return mv;
+    }
+}
@@ -0,0 +1,26 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.service.kafka;
+
+import io.dongtai.iast.core.bytecode.enhance.asm.AsmMethods;
+import io.dongtai.iast.core.bytecode.enhance.asm.AsmTypes;
+import io.dongtai.iast.core.utils.AsmUtils;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.commons.AdviceAdapter;
+
+/**
+ * makeNext 返回时进入返回的消息，迭代结束时返回 null，结束上一条消息
+ */
+public class KafkaRecordIteratorAdviceAdapter extends AdviceAdapter implements AsmTypes, AsmMethods {
+    protected KafkaRecordIteratorAdviceAdapter(MethodVisitor mv, int access, String name, String desc) {
+        super(AsmUtils.api, mv, access, name, desc);
+    }
+
+    @Override
+    protected void onMethodExit(int opcode) {
+        if (opcode == ARETURN) {
+            dup();
+            invokeStatic(ASM_TYPE_SPY_HANDLER, SPY_HANDLER$getDispatcher);
+            swap();
+            invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$enterKafkaRecord);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.dongtai.iast.core.handler.context;
+
+import io.dongtai.iast.common.scope.Scope;
+import io.dongtai.iast.common.scope.ScopeAggregator;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+import io.dongtai.iast.core.utils.threadlocal.IastTaintHashCodes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 提交异步任务时捕获的请求上下文，在工作线程上恢复
+ * <p>
+ * 工作线程使用独立的线程本地方法池和污点池，提交时已有的污点和其他任务产生的污点通过 {@link RequestTaintStore} 查询，
+ * 任务结束后把新产生的污点和方法调用发布到 {@link RequestTaintStore}，最后恢复工作线程原来的状态。
+ */
+public class AsyncTaintContext {
+    private final Map<String, Object> requestMeta;
+    private final TracingContext tracingContext;
+    private final RequestTaintStore store;
+    private final Scope entryScope;
+
+    private AsyncTaintContext(Map<String, Object> requestMeta, TracingContext tracingContext,
+                              RequestTaintStore store, Scope entryScope) {
+        this.requestMeta = requestMeta;
+        this.tracingContext = tracingContext;
+        this.store = store;
+        this.entryScope = entryScope;
+    }
+
+    /**
+     * 在提交任务的线程上调用
+     *
+     * @return 当前线程不在请求中或在 agent 内部时返回 null
+     */
+    public static AsyncTaintContext capture() {
+        Map<String, Object> requestMeta = EngineManager.REQUEST_CONTEXT.get();
+        if (requestMeta == null || EngineManager.TRACK_MAP.get() == null) {
+            return null;
+        }
+        ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.peek();
+        if (scopes == null || scopes.inAgent()) {
+            return null;
+        }
+        Scope entryScope;
+        if (scopes.in(Scope.HTTP_ENTRY.getId())) {
+            entryScope = Scope.HTTP_ENTRY;
+        } else if (scopes.in(Scope.DUBBO_REQUEST.getId())) {
+            entryScope = Scope.DUBBO_REQUEST;
+        } else {
+            return null;
+        }
+
+        RequestTaintStore store = EngineManager.REQUEST_TAINT_STORE.get();
+        if (store == null) {
+            store = new RequestTaintStore();
+            EngineManager.REQUEST_TAINT_STORE.set(store);
+        }
+        store.publishRequest(EngineManager.TAINT_HASH_CODES.get(), EngineManager.TAINT_RANGES_POOL.get());
+        // 请求线程之后还会修改请求信息，工作线程使用副本
+        return new AsyncTaintContext(new HashMap<String, Object>(requestMeta), ContextManager.getContext().get(),
+                store, entryScope);
+    }
+
+    public void run(Runnable task) {
+        ThreadState prev = enter();
+        try {
+            task.run();
+        } finally {
+            exit(prev);
+        }
+    }
+
+    public <V> V call(Callable<V> task) throws Exception {
+        ThreadState prev = enter();
+        try {
+            return task.call();
+        } finally {
+            exit(prev);
+        }
+    }
+
+    /**
+     * 当前线程换到请求的上下文
+     *
+     * @return 线程原来的状态，已经在同一个请求中时返回 null
+     */
+    public ThreadState enter() {
+        if (isAttached()) {
+            return null;
+        }
+        ThreadState prev = ThreadState.save();
+        attach();
+        return prev;
+    }
+
+    /**
+     * 发布任务产生的污点和方法调用，恢复线程原来的状态
+     *
+     * @param prev {@link #enter()} 的返回值
+     */
+    public void exit(ThreadState prev) {
+        if (prev == null) {
+            return;
+        }
+        try {
+            detach();
+        } finally {
+            prev.restore();
+        }
+    }
+
+    /**
+     * 调用方线程直接执行（如 CallerRunsPolicy）时已经在同一个请求中
+     */
+    private boolean isAttached() {
+        return EngineManager.REQUEST_TAINT_STORE.get() == this.store;
+    }
+
+    private void attach() {
+        EngineManager.REQUEST_CONTEXT.set(this.requestMeta);
+        EngineManager.TRACK_MAP.set(new HashMap<Integer, MethodEvent>(64));
+        EngineManager.TAINT_HASH_CODES.set(IastTaintHashCodes.newPool());
+        EngineManager.TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
+        EngineManager.REQUEST_TAINT_STORE.set(this.store);
+        ThreadState.restore(ContextManager.getContext(), this.tracingContext);
+        ScopeManager.SCOPE_TRACKER.set(new ScopeAggregator());
+        ScopeManager.SCOPE_TRACKER.enter(this.entryScope);
+    }
+
+    private void detach() {
+        this.store.publish(EngineManager.TAINT_HASH_CODES.get(), EngineManager.TAINT_RANGES_POOL.get());
+        this.store.publishEvents(EngineManager.TRACK_MAP.get());
+    }
+
+    RequestTaintStore getStore() {
+        return store;
+    }
+
+    /**
+     * 包装后的任务，同时实现 Runnable 和 Callable，可以替换线程池方法中任意一种类型的参数
+     */
+    public static class WrappedTask implements Runnable, Callable<Object> {
+        private final AsyncTaintContext context;
+        private final Object task;
+
+        public WrappedTask(AsyncTaintContext context, Object task) {
+            this.context = context;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            this.context.run((Runnable) this.task);
+        }
+
+        @Override
+        public Object call() throws Exception {
+            return this.context.call((Callable<?>) this.task);
+        }
+
+        public Object getTask() {
+            return task;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(this.task);
+        }
+    }
+}
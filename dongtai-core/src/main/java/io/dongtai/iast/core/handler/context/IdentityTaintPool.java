@@ -0,0 +1,98 @@
+package io.dongtai.iast.core.handler.context;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 按对象引用确认的污点池
+ * <p>
+ * 污点哈希由 identityHashCode 计算，无关的对象可能得到相同的哈希，被误认为污点。
+ * 这里在哈希集合之外记录每个哈希对应的污点对象：哈希集合仍用于快速排除不是污点的对象，
+ * 命中哈希后再比较对象引用。污点对象可能比请求活得更久，这里只持有弱引用，不影响回收。
+ * <p>
+ * 与线程本地污点池一样只由当前线程读写；通过 {@code dongtai.taint.identity.enable} 开启
+ */
+public class IdentityTaintPool extends HashSet<Long> {
+    /**
+     * 哈希对应的污点对象，值为 WeakReference，多个对象的哈希相同时为 WeakReference 列表
+     */
+    private final HashMap<Long, Object> objects = new HashMap<Long, Object>();
+
+    public void add(Long hash, Object obj) {
+        add(hash);
+        if (obj == null) {
+            return;
+        }
+
+        Object refs = this.objects.get(hash);
+        if (refs == null) {
+            this.objects.put(hash, new WeakReference<Object>(obj));
+            return;
+        }
+        if (refs instanceof WeakReference) {
+            Object referent = ((WeakReference<?>) refs).get();
+            if (referent == obj) {
+                return;
+            }
+            if (referent == null) {
+                this.objects.put(hash, new WeakReference<Object>(obj));
+                return;
+            }
+            List<WeakReference<?>> list = new ArrayList<WeakReference<?>>(2);
+            list.add((WeakReference<?>) refs);
+            list.add(new WeakReference<Object>(obj));
+            this.objects.put(hash, list);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<WeakReference<?>> list = (List<WeakReference<?>>) refs;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            Object referent = list.get(i).get();
+            if (referent == obj) {
+                return;
+            }
+            if (referent == null) {
+                list.remove(i);
+            }
+        }
+        list.add(new WeakReference<Object>(obj));
+    }
+
+    /**
+     * 哈希不在池中时直接返回 false；哈希只以数字形式加入（没有对应的对象）时与普通污点池一致
+     */
+    public boolean contains(Long hash, Object obj) {
+        if (!contains(hash)) {
+            return false;
+        }
+        Object refs = this.objects.get(hash);
+        if (refs == null || obj == null) {
+            return true;
+        }
+        if (refs instanceof WeakReference) {
+            return ((WeakReference<?>) refs).get() == obj;
+        }
+        for (Object ref : (List<?>) refs) {
+            if (((WeakReference<?>) ref).get() == obj) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        this.objects.remove(o);
+        return super.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        this.objects.clear();
+        super.clear();
+    }
+}
@@ -0,0 +1,125 @@
+package io.dongtai.iast.core.handler.context;
+
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 请求级别的跨线程污点存储
+ * <p>
+ * 请求线程的污点池是普通的 HashMap/HashSet，只能由请求线程自己读写。提交异步任务时把请求线程当前的污点发布到这里，
+ * 工作线程在自己的线程本地污点池中追踪，任务结束后把新产生的污点和方法调用发布回来。
+ * 污点查询在线程本地未命中时再查这里；方法调用在上报时合并到请求线程的方法池。
+ */
+public class RequestTaintStore {
+    private final Set<Long> hashes = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Long, TaintRanges> ranges = new ConcurrentHashMap<Long, TaintRanges>();
+    private final ConcurrentLinkedQueue<Map<Integer, MethodEvent>> events =
+            new ConcurrentLinkedQueue<Map<Integer, MethodEvent>>();
+    private volatile boolean merged;
+    /**
+     * 最近一次发布的污点池和当时的数量。污点池只增不减，同一个池数量没变时不重复发布；
+     * 请求线程和工作线程（嵌套提交）都会发布，按污点池对象区分
+     */
+    private volatile PublishMark lastPublished;
+
+    /**
+     * 提交任务时发布当前线程的污点
+     */
+    public void publishRequest(Set<Long> taintHashes, Map<Long, TaintRanges> taintRanges) {
+        PublishMark mark = new PublishMark(taintHashes, taintRanges);
+        if (mark.equals(this.lastPublished)) {
+            return;
+        }
+        publish(taintHashes, taintRanges);
+        this.lastPublished = mark;
+    }
+
+    /**
+     * 发布污点，工作线程任务结束时调用
+     */
+    public void publish(Set<Long> taintHashes, Map<Long, TaintRanges> taintRanges) {
+        if (taintHashes != null && !taintHashes.isEmpty()) {
+            this.hashes.addAll(taintHashes);
+        }
+        if (taintRanges != null) {
+            for (Map.Entry<Long, TaintRanges> entry : taintRanges.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    this.ranges.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * 发布工作线程追踪到的方法调用，请求已上报时丢弃
+     */
+    public void publishEvents(Map<Integer, MethodEvent> trackMap) {
+        if (this.merged || trackMap == null || trackMap.isEmpty()) {
+            return;
+        }
+        this.events.add(trackMap);
+    }
+
+    public boolean containsHash(Long hash) {
+        return !this.hashes.isEmpty() && this.hashes.contains(hash);
+    }
+
+    public boolean isEmpty() {
+        return this.hashes.isEmpty();
+    }
+
+    public TaintRanges getRanges(long hash) {
+        return this.ranges.get(hash);
+    }
+
+    private static class PublishMark {
+        private final Set<Long> taintHashes;
+        private final Map<Long, TaintRanges> taintRanges;
+        private final int hashCount;
+        private final int rangeCount;
+
+        PublishMark(Set<Long> taintHashes, Map<Long, TaintRanges> taintRanges) {
+            this.taintHashes = taintHashes;
+            this.taintRanges = taintRanges;
+            this.hashCount = taintHashes == null ? 0 : taintHashes.size();
+            this.rangeCount = taintRanges == null ? 0 : taintRanges.size();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PublishMark)) {
+                return false;
+            }
+            PublishMark other = (PublishMark) obj;
+            return this.taintHashes == other.taintHashes && this.taintRanges == other.taintRanges
+                    && this.hashCount == other.hashCount && this.rangeCount == other.rangeCount;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.hashCount + this.rangeCount;
+        }
+    }
+
+    /**
+     * 上报时把已完成的异步任务的方法调用合并到请求线程的方法池，之后完成的任务不再收集
+     *
+     * @return 合并的方法调用数
+     */
+    public int mergeInto(Map<Integer, MethodEvent> trackMap) {
+        this.merged = true;
+        int count = 0;
+        Map<Integer, MethodEvent> events;
+        while ((events = this.events.poll()) != null) {
+            trackMap.putAll(events);
+            count += events.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,58 @@
+package io.dongtai.iast.core.handler.context;
+
+import io.dongtai.iast.common.scope.ScopeAggregator;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * 线程上与请求相关的状态快照，用于在线程之间移交请求：保存线程原来的状态，
+ * 换上请求的状态执行业务代码，结束后原样恢复
+ */
+public class ThreadState {
+    private Map<String, Object> requestMeta;
+    private Map<Integer, MethodEvent> trackMap;
+    private HashSet<Long> taintHashes;
+    private Map<Long, TaintRanges> taintRanges;
+    private RequestTaintStore store;
+    private TracingContext tracingContext;
+    private ScopeAggregator scopes;
+
+    public static ThreadState save() {
+        ThreadState state = new ThreadState();
+        state.requestMeta = EngineManager.REQUEST_CONTEXT.get();
+        state.trackMap = EngineManager.TRACK_MAP.get();
+        state.taintHashes = EngineManager.TAINT_HASH_CODES.get();
+        state.taintRanges = EngineManager.TAINT_RANGES_POOL.get();
+        state.store = EngineManager.REQUEST_TAINT_STORE.get();
+        state.tracingContext = ContextManager.getContext().get();
+        state.scopes = ScopeManager.SCOPE_TRACKER.peek();
+        return state;
+    }
+
+    public void restore() {
+        restore(EngineManager.REQUEST_CONTEXT, this.requestMeta);
+        restore(EngineManager.TRACK_MAP, this.trackMap);
+        restore(EngineManager.TAINT_HASH_CODES, this.taintHashes);
+        restore(EngineManager.TAINT_RANGES_POOL, this.taintRanges);
+        restore(EngineManager.REQUEST_TAINT_STORE, this.store);
+        restore(ContextManager.getContext(), this.tracingContext);
+        restore(ScopeManager.SCOPE_TRACKER, this.scopes);
+    }
+
+    public Map<String, Object> getRequestMeta() {
+        return requestMeta;
+    }
+
+    static <T> void restore(ThreadLocal<T> threadLocal, T value) {
+        if (value == null) {
+            threadLocal.remove();
+        } else {
+            threadLocal.set(value);
+        }
+    }
+}
@@ -3,11 +3,14 @@ package io.dongtai.iast.core.handler.hookpoint;
 import io.dongtai.iast.common.config.ConfigBuilder;
 import io.dongtai.iast.common.config.ConfigKey;
 import io.dongtai.iast.common.scope.Scope;
+import io.dongtai.iast.common.scope.ScopeAggregator;
 import io.dongtai.iast.common.scope.ScopeManager;
 import io.dongtai.iast.common.string.StringUtils;
 import io.dongtai.iast.core.AgentEngine;
 import io.dongtai.iast.core.EngineManager;
 import io.dongtai.iast.core.handler.bypass.BlackUrlBypass;
+import io.dongtai.iast.core.handler.context.ContextManager;
+import io.dongtai.iast.core.handler.context.ThreadState;
 import io.dongtai.iast.core.handler.hookpoint.api.DubboApiGatherThread;
 import io.dongtai.iast.core.handler.hookpoint.api.SpringGatherApiThread;
 import io.dongtai.iast.core.handler.hookpoint.controller.HookType;
@@ -18,6 +21,9 @@ import io.dongtai.iast.core.handler.hookpoint.models.policy.*;
 import io.dongtai.iast.core.handler.hookpoint.service.trace.DubboService;
 import io.dongtai.iast.core.handler.hookpoint.service.trace.FeignService;
 import io.dongtai.iast.core.handler.hookpoint.service.trace.HttpService;
+import io.dongtai.iast.core.handler.metrics.AgentMetrics;
+import io.dongtai.iast.core.replay.ReplayEngine;
+import io.dongtai.iast.core.utils.TaintPoolUtils;
 import io.dongtai.iast.core.utils.matcher.ConfigMatcher;
 import io.dongtai.log.DongTaiLog;
 import io.dongtai.log.ErrorCode;
@@ -47,11 +53,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            Scope scope = Scope.getScope(id);
-            if (scope == null) {
-                return;
-            }
-            ScopeManager.SCOPE_TRACKER.getScope(scope).enter();
+            ScopeManager.SCOPE_TRACKER.enter(id);
         } catch (Throwable ignore) {
         }
     }
@@ -62,11 +64,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return false;
             }
-            Scope scope = Scope.getScope(id);
-            if (scope == null) {
-                return false;
-            }
-            return ScopeManager.SCOPE_TRACKER.getScope(scope).in();
+            return ScopeManager.SCOPE_TRACKER.in(id);
         } catch (Throwable ignore) {
             return false;
         }
@@ -78,11 +76,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return false;
             }
-            Scope scope = Scope.getScope(id);
-            if (scope == null) {
-                return false;
-            }
-            return ScopeManager.SCOPE_TRACKER.getScope(scope).isFirst();
+            return ScopeManager.SCOPE_TRACKER.isFirst(id);
         } catch (Throwable ignore) {
             return false;
         }
@@ -94,11 +88,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            Scope scope = Scope.getScope(id);
-            if (scope == null) {
-                return;
-            }
-            ScopeManager.SCOPE_TRACKER.getScope(scope).leave();
+            ScopeManager.SCOPE_TRACKER.leave(id);
         } catch (Throwable ignore) {
         }
     }
@@ -114,7 +104,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             return;
         }
         try {
-            ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_REQUEST).enter();
+            ScopeManager.SCOPE_TRACKER.enter(Scope.HTTP_REQUEST);
         } catch (Throwable ignore) {
         }
     }
@@ -131,17 +121,26 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             EngineManager.cleanThreadState();
             return;
         }
+        long start = AgentMetrics.startTimer();
         try {
-            ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_REQUEST).leave();
-            if (!ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_REQUEST).in()
-                    && ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_ENTRY).in()) {
+            ScopeManager.SCOPE_TRACKER.leave(Scope.HTTP_REQUEST);
+            if (!ScopeManager.SCOPE_TRACKER.in(Scope.HTTP_REQUEST)
+                    && ScopeManager.SCOPE_TRACKER.in(Scope.HTTP_ENTRY)) {
+                ReplayEngine.onRequestLatency(EngineManager.getRequestElapsedNanos());
                 EngineManager.maintainRequestCount();
                 GraphBuilder.buildAndReport();
                 EngineManager.cleanThreadState();
+            } else if (!ScopeManager.SCOPE_TRACKER.in(Scope.HTTP_REQUEST)
+                    && !ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
+                // 未采样的请求只设置了 trace 上下文，可能借用了请求体缓冲区
+                ContextManager.getContext().remove();
+                EngineManager.BODY_BUFFER.remove();
             }
         } catch (Throwable e) {
             DongTaiLog.error(ErrorCode.get("SPY_LEAVE_HTTP_FAILED"), e);
             EngineManager.cleanThreadState();
+        } finally {
+            AgentMetrics.stopTimer(AgentMetrics.SPY_LEAVE, start);
         }
     }
 
@@ -156,7 +155,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             return false;
         }
         try {
-            return ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_REQUEST).isFirst();
+            return ScopeManager.SCOPE_TRACKER.isFirst(Scope.HTTP_REQUEST);
         } catch (Throwable ignore) {
             return false;
         }
@@ -167,12 +166,15 @@ public class SpyDispatcherImpl implements SpyDispatcher {
                                    String queryString, String method, String protocol, String scheme,
                                    String serverName, String contextPath, String remoteAddr,
                                    boolean isSecure, int serverPort, Enumeration<?> headerNames) {
+        long start = 0L;
         try {
             ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
 
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
+            AgentMetrics.hook(AgentMetrics.Hook.HTTP);
+            start = AgentMetrics.startTimer();
 
             HttpImpl.createClassLoader(req);
 
@@ -205,18 +207,21 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             DongTaiLog.warn(ErrorCode.get("SPY_COLLECT_HTTP_FAILED"), "request", e);
         } finally {
             ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            AgentMetrics.stopTimer(AgentMetrics.SPY_ENTRY, start);
         }
     }
 
     @Override
     public void onServletInputStreamRead(int ret, String desc, Object stream, byte[] bs, int offset, int len) {
+        ScopeAggregator scopes = null;
         try {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
 
-            if (!ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_ENTRY).in()) {
+            // 不在请求中时不进入 agent，也不创建线程的 scope 状态
+            scopes = ScopeManager.SCOPE_TRACKER.enterAgentIn(Scope.HTTP_ENTRY);
+            if (scopes == null) {
                 return;
             }
 
@@ -224,19 +229,21 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         } catch (Throwable e) {
             DongTaiLog.warn(ErrorCode.get("SPY_COLLECT_HTTP_FAILED"), "request body", e);
         } finally {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            ScopeManager.SCOPE_TRACKER.leaveAgent(scopes);
         }
     }
 
     @Override
     public void collectHttpResponse(Object obj, Object req, Object resp, Collection<?> headerNames, int status) {
+        ScopeAggregator scopes = null;
         try {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
-
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            if (!ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_ENTRY).in()) {
+
+            // 不在请求中时不进入 agent，也不创建线程的 scope 状态
+            scopes = ScopeManager.SCOPE_TRACKER.enterAgentIn(Scope.HTTP_ENTRY);
+            if (scopes == null) {
                 return;
             }
 
@@ -244,19 +251,21 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         } catch (Throwable e) {
             DongTaiLog.warn(ErrorCode.get("SPY_COLLECT_HTTP_FAILED"), "response header", e);
         } finally {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            ScopeManager.SCOPE_TRACKER.leaveAgent(scopes);
         }
     }
 
     @Override
     public void onServletOutputStreamWrite(String desc, Object stream, int b, byte[] bs, int offset, int len) {
+        ScopeAggregator scopes = null;
         try {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
 
-            if (!ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_ENTRY).in()) {
+            // 不在请求中时不进入 agent，也不创建线程的 scope 状态
+            scopes = ScopeManager.SCOPE_TRACKER.enterAgentIn(Scope.HTTP_ENTRY);
+            if (scopes == null) {
                 return;
             }
 
@@ -264,19 +273,21 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         } catch (Throwable e) {
             DongTaiLog.warn(ErrorCode.get("SPY_COLLECT_HTTP_FAILED"), "response body", e);
         } finally {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            ScopeManager.SCOPE_TRACKER.leaveAgent(scopes);
         }
     }
 
     @Override
     public void onPrintWriterWrite(String desc, Object writer, int b, String s, char[] cs, int offset, int len) {
+        ScopeAggregator scopes = null;
         try {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
 
-            if (!ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_ENTRY).in()) {
+            // 不在请求中时不进入 agent，也不创建线程的 scope 状态
+            scopes = ScopeManager.SCOPE_TRACKER.enterAgentIn(Scope.HTTP_ENTRY);
+            if (scopes == null) {
                 return;
             }
 
@@ -284,7 +295,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         } catch (Throwable e) {
             DongTaiLog.warn(ErrorCode.get("SPY_COLLECT_HTTP_FAILED"), "response body", e);
         } finally {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            ScopeManager.SCOPE_TRACKER.leaveAgent(scopes);
         }
     }
 
@@ -294,7 +305,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             return;
         }
         try {
-            ScopeManager.SCOPE_TRACKER.getScope(Scope.DUBBO_REQUEST).enter();
+            ScopeManager.SCOPE_TRACKER.enter(Scope.DUBBO_REQUEST);
         } catch (Throwable ignore) {
         }
     }
@@ -305,10 +316,11 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             EngineManager.cleanThreadState();
             return;
         }
+        long start = AgentMetrics.startTimer();
         try {
-            ScopeManager.SCOPE_TRACKER.getScope(Scope.DUBBO_REQUEST).leave();
-            if (!ScopeManager.SCOPE_TRACKER.getScope(Scope.DUBBO_REQUEST).in()
-                    && ScopeManager.SCOPE_TRACKER.getScope(Scope.DUBBO_ENTRY).in()) {
+            ScopeManager.SCOPE_TRACKER.leave(Scope.DUBBO_REQUEST);
+            if (!ScopeManager.SCOPE_TRACKER.in(Scope.DUBBO_REQUEST)
+                    && ScopeManager.SCOPE_TRACKER.in(Scope.DUBBO_ENTRY)) {
                 EngineManager.maintainRequestCount();
                 GraphBuilder.buildAndReport();
                 EngineManager.cleanThreadState();
@@ -316,6 +328,8 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         } catch (Throwable e) {
             DongTaiLog.error(ErrorCode.get("SPY_LEAVE_DUBBO_FAILED"), e);
             EngineManager.cleanThreadState();
+        } finally {
+            AgentMetrics.stopTimer(AgentMetrics.SPY_LEAVE, start);
         }
     }
 
@@ -325,7 +339,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             return false;
         }
         try {
-            return ScopeManager.SCOPE_TRACKER.getScope(Scope.DUBBO_REQUEST).isFirst();
+            return ScopeManager.SCOPE_TRACKER.isFirst(Scope.DUBBO_REQUEST);
         } catch (Throwable ignore) {
             return false;
         }
@@ -335,6 +349,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
     public void collectDubboRequest(Object handler, Object channel, Object request,
                                     String url, InetSocketAddress remoteAddress,
                                     boolean isTwoWay, boolean isEvent, boolean isBroken, boolean isHeartbeat) {
+        long start = 0L;
         try {
             ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
 
@@ -345,12 +360,15 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (isEvent || isBroken || isHeartbeat || !isTwoWay) {
                 return;
             }
+            AgentMetrics.hook(AgentMetrics.Hook.DUBBO);
+            start = AgentMetrics.startTimer();
 
             DubboImpl.solveDubboRequest(handler, channel, request, url, remoteAddress.getAddress().getHostAddress());
         } catch (Throwable e) {
             DongTaiLog.warn(ErrorCode.get("SPY_COLLECT_DUBBO_FAILED"), "request", e);
         } finally {
             ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            AgentMetrics.stopTimer(AgentMetrics.SPY_ENTRY, start);
         }
 
         DubboImpl.createClassLoader(handler);
@@ -387,24 +405,147 @@ public class SpyDispatcherImpl implements SpyDispatcher {
 
     @Override
     public void collectDubboResponse(Object result, byte status) {
+        ScopeAggregator scopes = null;
         try {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
-
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
 
-            if (!ScopeManager.SCOPE_TRACKER.getScope(Scope.DUBBO_REQUEST).isFirst()
-                    || !ScopeManager.SCOPE_TRACKER.getScope(Scope.DUBBO_ENTRY).in()
-                    || ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_REQUEST).in()) {
+            scopes = ScopeManager.SCOPE_TRACKER.enterAgentIn(Scope.DUBBO_ENTRY);
+            if (scopes == null) {
+                return;
+            }
+
+            if (!scopes.isFirst(Scope.DUBBO_REQUEST.getId())
+                    || scopes.in(Scope.HTTP_REQUEST.getId())) {
                 return;
             }
 
             DubboImpl.collectDubboResponse(result, status);
         } catch (Throwable e) {
             DongTaiLog.warn(ErrorCode.get("SPY_COLLECT_DUBBO_FAILED"), "response", e);
+        } finally {
+            ScopeManager.SCOPE_TRACKER.leaveAgent(scopes);
+        }
+    }
+
+    @Override
+    public void enterKafkaRecord(Object record) {
+        if (!EngineManager.isEngineRunning()) {
+            return;
+        }
+        long start = AgentMetrics.startTimer();
+        try {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
+            if (record != null) {
+                AgentMetrics.hook(AgentMetrics.Hook.KAFKA);
+            }
+            KafkaImpl.enterRecord(record);
+        } catch (Throwable e) {
+            DongTaiLog.error(ErrorCode.get("SPY_ENTER_KAFKA_RECORD_FAILED"), e);
+            KafkaImpl.clear();
         } finally {
             ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            AgentMetrics.stopTimer(AgentMetrics.SPY_ENTRY, start);
+        }
+    }
+
+    @Override
+    public void leaveKafkaRecord() {
+        if (!EngineManager.isEngineRunning()) {
+            KafkaImpl.clear();
+            return;
+        }
+        long start = AgentMetrics.startTimer();
+        try {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
+            KafkaImpl.leaveRecord();
+        } catch (Throwable e) {
+            DongTaiLog.error(ErrorCode.get("SPY_LEAVE_KAFKA_RECORD_FAILED"), e);
+            KafkaImpl.clear();
+        } finally {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            AgentMetrics.stopTimer(AgentMetrics.SPY_LEAVE, start);
+        }
+    }
+
+    @Override
+    public Object enterGrpcCall(Map<String, Object> meta) {
+        if (!EngineManager.isEngineRunning()) {
+            return null;
+        }
+        long start = AgentMetrics.startTimer();
+        try {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
+            AgentMetrics.hook(AgentMetrics.Hook.GRPC);
+            return GrpcImpl.enterCall(meta);
+        } catch (Throwable e) {
+            DongTaiLog.error(ErrorCode.get("SPY_ENTER_GRPC_CALL_FAILED"), e);
+            return null;
+        } finally {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            AgentMetrics.stopTimer(AgentMetrics.SPY_ENTRY, start);
+        }
+    }
+
+    @Override
+    public Object attachGrpcCall(Object call) {
+        if (!(call instanceof GrpcImpl.Call)) {
+            return null;
+        }
+        try {
+            return GrpcImpl.attach((GrpcImpl.Call) call);
+        } catch (Throwable e) {
+            DongTaiLog.debug("attach grpc call failed: {}", e.toString());
+            return null;
+        }
+    }
+
+    @Override
+    public void detachGrpcCall(Object call, Object threadState) {
+        if (!(call instanceof GrpcImpl.Call) || !(threadState instanceof ThreadState)) {
+            return;
+        }
+        try {
+            GrpcImpl.detach((GrpcImpl.Call) call, (ThreadState) threadState);
+        } catch (Throwable e) {
+            DongTaiLog.debug("detach grpc call failed: {}", e.toString());
+        }
+    }
+
+    @Override
+    public void collectGrpcMessage(Object call, Object message) {
+        if (!(call instanceof GrpcImpl.Call)) {
+            return;
+        }
+        if (!EngineManager.isEngineRunning()) {
+            GrpcImpl.clear((GrpcImpl.Call) call);
+            return;
+        }
+        try {
+            GrpcImpl.collectMessage((GrpcImpl.Call) call, message, INVOKE_ID_SEQUENCER);
+        } catch (Throwable e) {
+            DongTaiLog.error(ErrorCode.get("SPY_COLLECT_GRPC_MESSAGE_FAILED"), e);
+        }
+    }
+
+    @Override
+    public void leaveGrpcCall(Object call) {
+        if (!(call instanceof GrpcImpl.Call)) {
+            return;
+        }
+        if (!EngineManager.isEngineRunning()) {
+            GrpcImpl.clear((GrpcImpl.Call) call);
+            return;
+        }
+        long start = AgentMetrics.startTimer();
+        try {
+            GrpcImpl.leaveCall((GrpcImpl.Call) call);
+        } catch (Throwable e) {
+            DongTaiLog.error(ErrorCode.get("SPY_LEAVE_GRPC_CALL_FAILED"), e);
+            GrpcImpl.clear((GrpcImpl.Call) call);
+        } finally {
+            AgentMetrics.stopTimer(AgentMetrics.SPY_LEAVE, start);
         }
     }
 
@@ -419,10 +560,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            if (ScopeManager.SCOPE_TRACKER.inAgent() || !ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
-                return;
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.getRequestScopes();
+            if (scopes != null) {
+                scopes.getPolicyScope().enterSource();
             }
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterSource();
         } catch (Throwable ignore) {
         }
     }
@@ -438,10 +579,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            if (ScopeManager.SCOPE_TRACKER.inAgent() || !ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
-                return;
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.getRequestScopes();
+            if (scopes != null) {
+                scopes.getPolicyScope().leaveSource();
             }
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveSource();
         } catch (Throwable ignore) {
         }
     }
@@ -458,8 +599,8 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return false;
             }
-            return ScopeManager.SCOPE_TRACKER.inEnterEntry()
-                    && ScopeManager.SCOPE_TRACKER.getPolicyScope().isValidSource();
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.peek();
+            return scopes != null && scopes.inEnterEntry() && scopes.getPolicyScope().isValidSource();
         } catch (Throwable ignore) {
             return false;
         }
@@ -476,10 +617,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            if (ScopeManager.SCOPE_TRACKER.inAgent() || !ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
-                return;
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.getRequestScopes();
+            if (scopes != null) {
+                scopes.getPolicyScope().enterPropagator(skipScope);
             }
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterPropagator(skipScope);
         } catch (Throwable ignore) {
         }
     }
@@ -495,10 +636,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            if (ScopeManager.SCOPE_TRACKER.inAgent() || !ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
-                return;
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.getRequestScopes();
+            if (scopes != null) {
+                scopes.getPolicyScope().leavePropagator(skipScope);
             }
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leavePropagator(skipScope);
         } catch (Throwable ignore) {
         }
     }
@@ -515,13 +656,42 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return false;
             }
-            return ScopeManager.SCOPE_TRACKER.inEnterEntry()
-                    && ScopeManager.SCOPE_TRACKER.getPolicyScope().isValidPropagator();
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.peek();
+            return scopes != null && scopes.inEnterEntry() && scopes.getPolicyScope().isValidPropagator();
         } catch (Throwable ignore) {
             return false;
         }
     }
 
+    /**
+     * 传播节点的插桩代码只在 source 位置上的对象有污点时才构建参数数组并调用 collectMethod
+     *
+     * @return 检查失败时返回 true，由 collectMethod 处理
+     */
+    @Override
+    public boolean isTainted(Object obj) {
+        ScopeAggregator scopes;
+        try {
+            // 污点池为空或不在请求中的线程直接返回，不创建线程的 scope 状态
+            if (EngineManager.TAINT_HASH_CODES.isEmpty()) {
+                return false;
+            }
+            scopes = ScopeManager.SCOPE_TRACKER.enterAgentInEntry();
+            if (scopes == null) {
+                return false;
+            }
+        } catch (Throwable ignore) {
+            return true;
+        }
+        try {
+            return TaintPoolUtils.isTainted(obj);
+        } catch (Throwable ignore) {
+            return true;
+        } finally {
+            ScopeManager.SCOPE_TRACKER.leaveAgent(scopes);
+        }
+    }
+
     /**
      * mark for enter Sink Entry Point
      *
@@ -533,10 +703,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            if (ScopeManager.SCOPE_TRACKER.inAgent() || !ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
-                return;
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.getRequestScopes();
+            if (scopes != null) {
+                scopes.getPolicyScope().enterSink();
             }
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterSink();
         } catch (Throwable ignore) {
         }
     }
@@ -552,10 +722,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            if (ScopeManager.SCOPE_TRACKER.inAgent() || !ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
-                return;
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.getRequestScopes();
+            if (scopes != null) {
+                scopes.getPolicyScope().leaveSink();
             }
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveSink();
         } catch (Throwable ignore) {
         }
     }
@@ -568,7 +738,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         if (!EngineManager.isEngineRunning()) {
             return false;
         }
-        return !ScopeManager.SCOPE_TRACKER.inAgent() && ScopeManager.SCOPE_TRACKER.inEnterEntry();
+        return ScopeManager.SCOPE_TRACKER.getRequestScopes() != null;
     }
 
     /**
@@ -582,8 +752,8 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return false;
             }
-            return ScopeManager.SCOPE_TRACKER.inEnterEntry()
-                    && ScopeManager.SCOPE_TRACKER.getPolicyScope().isValidSink();
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.peek();
+            return scopes != null && scopes.inEnterEntry() && scopes.getPolicyScope().isValidSink();
         } catch (Throwable ignore) {
             return false;
         }
@@ -595,10 +765,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            if (ScopeManager.SCOPE_TRACKER.inAgent() || !ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
-                return;
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.getRequestScopes();
+            if (scopes != null) {
+                scopes.getPolicyScope().enterIgnoreInternal();
             }
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterIgnoreInternal();
         } catch (Throwable ignore) {
         }
     }
@@ -609,10 +779,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!EngineManager.isEngineRunning()) {
                 return;
             }
-            if (ScopeManager.SCOPE_TRACKER.inAgent() || !ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
-                return;
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.getRequestScopes();
+            if (scopes != null) {
+                scopes.getPolicyScope().leaveIgnoreInternal();
             }
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveIgnoreInternal();
         } catch (Throwable ignore) {
         }
     }
@@ -664,8 +834,14 @@ public class SpyDispatcherImpl implements SpyDispatcher {
     public boolean collectMethod(Object instance, Object[] parameters, Object retObject, String policyKey,
                                  String className, String matchedClassName, String methodName, String signature,
                                  boolean isStatic) {
+        long start = 0L;
+        ScopeAggregator scopes = null;
         try {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
+            // 不在请求中的线程直接返回，不创建线程的 scope 状态
+            scopes = ScopeManager.SCOPE_TRACKER.enterAgentInEntry();
+            if (scopes == null) {
+                return false;
+            }
             PolicyNode policyNode = getPolicyNode(policyKey);
             if (policyNode == null) {
                 return false;
@@ -674,20 +850,25 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             if (!isCollectAllowed(false)) {
                 return false;
             }
+            start = AgentMetrics.startTimer();
 
             MethodEvent event = new MethodEvent(className, matchedClassName, methodName,
                     signature, instance, parameters, retObject);
 
             if ((policyNode instanceof SourceNode)) {
+                AgentMetrics.hook(AgentMetrics.Hook.SOURCE);
                 SourceImpl.solveSource(event, (SourceNode) policyNode, INVOKE_ID_SEQUENCER);
                 return true;
             } else if ((policyNode instanceof PropagatorNode)) {
+                AgentMetrics.hook(AgentMetrics.Hook.PROPAGATOR);
                 PropagatorImpl.solvePropagator(event, (PropagatorNode) policyNode, INVOKE_ID_SEQUENCER);
                 return true;
             } else if ((policyNode instanceof SinkNode)) {
+                AgentMetrics.hook(AgentMetrics.Hook.SINK);
                 SinkImpl.solveSink(event, (SinkNode) policyNode);
                 return true;
             } else if ((policyNode instanceof ValidatorNode)) {
+                AgentMetrics.hook(AgentMetrics.Hook.VALIDATOR);
                 ValidatorImpl.solveValidator(event,(ValidatorNode)policyNode, INVOKE_ID_SEQUENCER);
                 return true;
             }
@@ -696,7 +877,8 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         } catch (Throwable e) {
             DongTaiLog.error(ErrorCode.get("SPY_COLLECT_METHOD_FAILED"), e);
         } finally {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            ScopeManager.SCOPE_TRACKER.leaveAgent(scopes);
+            AgentMetrics.stopTimer(AgentMetrics.SPY_METHOD, start);
         }
         return false;
     }
@@ -704,9 +886,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
     @Override
     public boolean traceFeignInvoke(Object instance, Object[] parameters,
                                     String className, String methodName, String signature) {
+        ScopeAggregator scopes = null;
         try {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
-            if (!isCollectAllowed(false)) {
+            scopes = ScopeManager.SCOPE_TRACKER.enterAgentInEntry();
+            if (scopes == null || !isCollectAllowed(false)) {
                 return false;
             }
 
@@ -717,7 +900,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         } catch (Throwable e) {
             DongTaiLog.error(ErrorCode.get("SPY_TRACE_FEIGN_INVOKE_FAILED"), e);
         } finally {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            ScopeManager.SCOPE_TRACKER.leaveAgent(scopes);
         }
         return false;
     }
@@ -726,9 +909,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
     public boolean traceDubboInvoke(Object instance, String url, Object invocation, Object[] arguments,
                                     Map<String, String> headers, String className, String methodName,
                                     String signature) {
+        ScopeAggregator scopes = null;
         try {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
-            if (!isCollectAllowed(false)) {
+            scopes = ScopeManager.SCOPE_TRACKER.enterAgentInEntry();
+            if (scopes == null || !isCollectAllowed(false)) {
                 return false;
             }
 
@@ -739,7 +923,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         } catch (Throwable e) {
             DongTaiLog.error(ErrorCode.get("SPY_TRACE_DUBBO_CONSUMER_INVOKE_FAILED"), e);
         } finally {
-            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            ScopeManager.SCOPE_TRACKER.leaveAgent(scopes);
         }
         return false;
     }
@@ -792,6 +976,10 @@ public class SpyDispatcherImpl implements SpyDispatcher {
     public boolean skipCollect(Object instance, Object[] parameters, Object retObject, String policyKey,
                                String className, String matchedClassName, String methodName, String signature,
                                boolean isStatic) {
+        if (isUnsampledRequest()) {
+            traceUnsampledRequest(className, matchedClassName, methodName, signature, instance, parameters,
+                    retObject, policyKey);
+        }
         if (BlackUrlBypass.isBlackUrl()) {
             MethodEvent event = new MethodEvent(className, matchedClassName, methodName,
                     signature, instance, parameters, retObject);
@@ -808,17 +996,96 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         return false;
     }
 
+    /**
+     * 请求未被采样时不进入 HTTP_ENTRY，但 trace 上下文已经建立
+     */
+    private static boolean isUnsampledRequest() {
+        return EngineManager.isEngineRunning()
+                && ContextManager.getContext().get() != null
+                && ScopeManager.SCOPE_TRACKER.in(Scope.HTTP_REQUEST)
+                && !ScopeManager.SCOPE_TRACKER.inEnterEntry();
+    }
+
+    /**
+     * 未采样的请求不追踪污点，只给下游的 HTTP 调用加上 trace id
+     */
+    private void traceUnsampledRequest(String className, String matchedClassName, String methodName,
+                                       String signature, Object instance, Object[] parameters, Object retObject,
+                                       String policyKey) {
+        try {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
+            PolicyNode policyNode = getPolicyNode(policyKey);
+            if (policyNode == null) {
+                return;
+            }
+            MethodEvent event = new MethodEvent(className, matchedClassName, methodName,
+                    signature, instance, parameters, retObject);
+            HttpService httpService = new HttpService();
+            if (httpService.match(event, policyNode)) {
+                httpService.addTrace(event, policyNode);
+            }
+        } catch (Throwable e) {
+            DongTaiLog.debug("add traceId to unsampled request failed: {}", e.toString());
+        } finally {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+        }
+    }
+
+    @Override
+    public Object wrapAsyncTask(Object task) {
+        try {
+            if (!EngineManager.isEngineRunning()) {
+                return task;
+            }
+            return AsyncTaskImpl.wrap(task);
+        } catch (Throwable e) {
+            DongTaiLog.debug("wrap async task failed: {}", e.toString());
+            return task;
+        }
+    }
+
+    @Override
+    public void captureAsyncTask(Object task) {
+        try {
+            if (!EngineManager.isEngineRunning()) {
+                return;
+            }
+            AsyncTaskImpl.capture(task);
+        } catch (Throwable e) {
+            DongTaiLog.debug("capture async task failed: {}", e.toString());
+        }
+    }
+
+    @Override
+    public void enterAsyncTask(Object task) {
+        try {
+            AsyncTaskImpl.enter(task);
+        } catch (Throwable e) {
+            DongTaiLog.debug("enter async task failed: {}", e.toString());
+        }
+    }
+
+    @Override
+    public void leaveAsyncTask(Object task) {
+        try {
+            AsyncTaskImpl.leave(task);
+        } catch (Throwable e) {
+            DongTaiLog.debug("leave async task failed: {}", e.toString());
+        }
+    }
+
     private boolean isCollectAllowed(boolean isEnterEntry) {
         if (!EngineManager.isEngineRunning()) {
             return false;
         }
 
         if (!isEnterEntry) {
-            if (!ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
+            ScopeAggregator scopes = ScopeManager.SCOPE_TRACKER.peek();
+            if (scopes == null || !scopes.inEnterEntry()) {
                 return false;
             }
 
-            if (ScopeManager.SCOPE_TRACKER.getPolicyScope().isOverCapacity()) {
+            if (scopes.getPolicyScope().isOverCapacity()) {
                 return false;
             }
 
@@ -829,7 +1096,7 @@ public class SpyDispatcherImpl implements SpyDispatcher {
             Integer methodPoolMaxSize = ConfigBuilder.getInstance().get(ConfigKey.REPORT_MAX_METHOD_POOL_SIZE);
             if (methodPoolMaxSize != null && methodPoolMaxSize > 0
                     && EngineManager.TRACK_MAP.get().size() >= methodPoolMaxSize) {
-                ScopeManager.SCOPE_TRACKER.getPolicyScope().setOverCapacity(true);
+                scopes.getPolicyScope().setOverCapacity(true);
                 DongTaiLog.warn(ErrorCode.get("SPY_METHOD_POOL_OVER_CAPACITY"), methodPoolMaxSize);
                 return false;
             }
@@ -1,22 +1,47 @@
 package io.dongtai.iast.core.handler.hookpoint.controller;
 
-import java.io.ByteArrayOutputStream;
-
 public class BodyBuffer {
-    private static final ThreadLocal<ByteArrayOutputStream> REQUEST_STREAM = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(65535));
+    private static final ThreadLocal<PooledBodyStream> REQUEST_STREAM = new ThreadLocal<PooledBodyStream>();
+
+    private static final ThreadLocal<PooledBodyStream> RESPONSE_STREAM = new ThreadLocal<PooledBodyStream>();
+
+    private final BodyBufferPool pool;
+
+    public BodyBuffer() {
+        this(BodyBufferPool.getInstance());
+    }
 
-    private static final ThreadLocal<ByteArrayOutputStream> RESPONSE_STREAM = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(65535));
+    public BodyBuffer(BodyBufferPool pool) {
+        this.pool = pool;
+    }
+
+    public PooledBodyStream getRequest() {
+        return get(REQUEST_STREAM);
+    }
 
-    public ByteArrayOutputStream getRequest() {
-        return REQUEST_STREAM.get();
+    public PooledBodyStream getResponse() {
+        return get(RESPONSE_STREAM);
     }
 
-    public ByteArrayOutputStream getResponse() {
-        return RESPONSE_STREAM.get();
+    private PooledBodyStream get(ThreadLocal<PooledBodyStream> holder) {
+        PooledBodyStream stream = holder.get();
+        if (stream == null) {
+            stream = new PooledBodyStream(this.pool);
+            holder.set(stream);
+        }
+        return stream;
     }
 
     public void remove() {
-        REQUEST_STREAM.remove();
-        RESPONSE_STREAM.remove();
+        release(REQUEST_STREAM);
+        release(RESPONSE_STREAM);
+    }
+
+    private static void release(ThreadLocal<PooledBodyStream> holder) {
+        PooledBodyStream stream = holder.get();
+        if (stream != null) {
+            stream.release();
+            holder.remove();
+        }
     }
 }
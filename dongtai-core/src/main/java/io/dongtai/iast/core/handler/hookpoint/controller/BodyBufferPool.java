@@ -0,0 +1,97 @@
+package io.dongtai.iast.core.handler.hookpoint.controller;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求/响应体缓冲区的分级字节数组池
+ * <p>
+ * 缓冲区只在第一次写入时借出，并在请求结束时归还，避免每个工作线程常驻大块的缓冲区
+ */
+public class BodyBufferPool {
+    static final int[] SIZE_CLASSES = new int[]{1024, 4096, 16384, 65536};
+
+    private static final int DEFAULT_MAX_IDLE_PER_CLASS = 32;
+
+    private static final BodyBufferPool INSTANCE = new BodyBufferPool(DEFAULT_MAX_IDLE_PER_CLASS);
+
+    private final Queue<byte[]>[] freeLists;
+    private final AtomicInteger[] idleCounts;
+    private final int maxIdlePerClass;
+
+    @SuppressWarnings("unchecked")
+    public BodyBufferPool(int maxIdlePerClass) {
+        this.maxIdlePerClass = maxIdlePerClass;
+        this.freeLists = new Queue[SIZE_CLASSES.length];
+        this.idleCounts = new AtomicInteger[SIZE_CLASSES.length];
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            this.freeLists[i] = new ConcurrentLinkedQueue<byte[]>();
+            this.idleCounts[i] = new AtomicInteger(0);
+        }
+    }
+
+    public static BodyBufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 借出一个容量不小于 minCapacity 的数组，超过最大分级的请求直接按需分配，不进入池
+     */
+    public byte[] borrow(int minCapacity) {
+        int idx = sizeClassOf(minCapacity);
+        if (idx < 0) {
+            return new byte[minCapacity];
+        }
+        byte[] buf = this.freeLists[idx].poll();
+        if (buf != null) {
+            this.idleCounts[idx].decrementAndGet();
+            return buf;
+        }
+        return new byte[SIZE_CLASSES[idx]];
+    }
+
+    /**
+     * 归还数组，非分级大小的数组或池已满时直接丢弃交由 GC 回收
+     */
+    public void release(byte[] buf) {
+        if (buf == null) {
+            return;
+        }
+        int idx = exactSizeClassOf(buf.length);
+        if (idx < 0) {
+            return;
+        }
+        if (this.idleCounts[idx].incrementAndGet() > this.maxIdlePerClass) {
+            this.idleCounts[idx].decrementAndGet();
+            return;
+        }
+        this.freeLists[idx].offer(buf);
+    }
+
+    public long getIdleBytes() {
+        long total = 0;
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            total += (long) this.idleCounts[i].get() * SIZE_CLASSES[i];
+        }
+        return total;
+    }
+
+    private static int sizeClassOf(int capacity) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (capacity <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int exactSizeClassOf(int length) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (length == SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
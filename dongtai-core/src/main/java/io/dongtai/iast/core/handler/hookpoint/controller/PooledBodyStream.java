@@ -0,0 +1,127 @@
+package io.dongtai.iast.core.handler.hookpoint.controller;
+
+import io.dongtai.iast.common.utils.base64.Base64Encoder;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.*;
+
+/**
+ * 基于 {@link BodyBufferPool} 的请求/响应体缓冲区，第一次写入时才借用数组
+ * <p>
+ * 所有写入方法都带有 limit 参数，超过 limit 的部分会被直接丢弃
+ */
+public class PooledBodyStream {
+    private final BodyBufferPool pool;
+    private byte[] buf;
+    private int count;
+    private CharsetEncoder encoder;
+
+    public PooledBodyStream(BodyBufferPool pool) {
+        this.pool = pool;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public void write(int b, int limit) {
+        if (this.count >= limit) {
+            return;
+        }
+        ensureCapacity(this.count + 1, limit);
+        this.buf[this.count++] = (byte) b;
+    }
+
+    public void write(byte[] bs, int offset, int len, int limit) {
+        int n = Math.min(len, limit - this.count);
+        if (n <= 0) {
+            return;
+        }
+        ensureCapacity(this.count + n, limit);
+        System.arraycopy(bs, offset, this.buf, this.count, n);
+        this.count += n;
+    }
+
+    public void write(char[] cs, int offset, int len, int limit) {
+        if (this.count >= limit || len <= 0) {
+            return;
+        }
+        encode(CharBuffer.wrap(cs, offset, len), limit);
+    }
+
+    public void write(CharSequence s, int offset, int len, int limit) {
+        if (this.count >= limit || len <= 0) {
+            return;
+        }
+        encode(CharBuffer.wrap(s, offset, offset + len), limit);
+    }
+
+    /**
+     * 将字符直接编码进池化的数组，不生成中间的 String 和 byte[]
+     */
+    private void encode(CharBuffer in, int limit) {
+        CharsetEncoder enc = getEncoder();
+        enc.reset();
+        ensureCapacity(Math.min(limit, this.count + in.remaining()), limit);
+        while (in.hasRemaining()) {
+            int end = Math.min(this.buf.length, limit);
+            ByteBuffer out = ByteBuffer.wrap(this.buf, this.count, end - this.count);
+            CoderResult result = enc.encode(in, out, true);
+            this.count = out.position();
+            if (!result.isOverflow() || end >= limit) {
+                break;
+            }
+            ensureCapacity(Math.min(limit, this.count + Math.max(in.remaining(), 4)), limit);
+        }
+    }
+
+    private CharsetEncoder getEncoder() {
+        if (this.encoder == null) {
+            this.encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        return this.encoder;
+    }
+
+    private void ensureCapacity(int required, int limit) {
+        if (this.buf != null && this.buf.length >= required) {
+            return;
+        }
+        int target = required;
+        if (this.buf != null) {
+            target = Math.max(required, Math.min(limit, this.buf.length << 1));
+        }
+        byte[] next = this.pool.borrow(target);
+        if (this.buf != null) {
+            System.arraycopy(this.buf, 0, next, 0, this.count);
+            this.pool.release(this.buf);
+        }
+        this.buf = next;
+    }
+
+    public String toBase64String() {
+        if (this.count == 0) {
+            return "";
+        }
+        return Base64Encoder.encodeBase64String(this.buf, 0, this.count);
+    }
+
+    @Override
+    public String toString() {
+        if (this.count == 0) {
+            return "";
+        }
+        return new String(this.buf, 0, this.count);
+    }
+
+    /**
+     * 归还借用的数组，调用后缓冲区重新变为空
+     */
+    public void release() {
+        this.pool.release(this.buf);
+        this.buf = null;
+        this.count = 0;
+    }
+}
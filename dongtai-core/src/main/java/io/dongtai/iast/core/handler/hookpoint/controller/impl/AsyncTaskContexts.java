@@ -0,0 +1,102 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import io.dongtai.iast.core.handler.context.AsyncTaintContext;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已提交、尚未执行的任务对应的请求上下文，按任务对象的引用查找
+ * <p>
+ * 只持有任务的弱引用，没有执行就被丢弃的任务（shutdownNow、remove、拒绝）不会导致泄漏。
+ * 同一个任务对象可能被多次提交，按提交顺序保存每次的上下文
+ */
+class AsyncTaskContexts {
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+    private final ConcurrentHashMap<TaskKey, ArrayDeque<AsyncTaintContext>> contexts =
+            new ConcurrentHashMap<TaskKey, ArrayDeque<AsyncTaintContext>>();
+
+    void put(Object task, AsyncTaintContext context) {
+        expunge();
+        TaskKey key = new TaskKey(task, this.queue);
+        while (true) {
+            ArrayDeque<AsyncTaintContext> pending = this.contexts.get(key);
+            if (pending == null) {
+                ArrayDeque<AsyncTaintContext> created = new ArrayDeque<AsyncTaintContext>(1);
+                created.add(context);
+                if (this.contexts.putIfAbsent(key, created) == null) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (pending) {
+                // poll 取空后会移除队列，此时需要重新创建
+                if (this.contexts.get(key) == pending) {
+                    pending.add(context);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 最早一次提交的上下文，没有时返回 null
+     */
+    AsyncTaintContext poll(Object task) {
+        TaskKey key = new TaskKey(task, null);
+        ArrayDeque<AsyncTaintContext> pending = this.contexts.get(key);
+        if (pending == null) {
+            return null;
+        }
+        synchronized (pending) {
+            AsyncTaintContext context = pending.poll();
+            if (pending.isEmpty()) {
+                this.contexts.remove(key, pending);
+            }
+            return context;
+        }
+    }
+
+    int size() {
+        expunge();
+        return this.contexts.size();
+    }
+
+    private void expunge() {
+        Object ref;
+        while ((ref = this.queue.poll()) != null) {
+            this.contexts.remove(ref);
+        }
+    }
+
+    /**
+     * 按引用比较的弱引用键
+     */
+    private static class TaskKey extends WeakReference<Object> {
+        private final int hash;
+
+        TaskKey(Object task, ReferenceQueue<Object> queue) {
+            super(task, queue);
+            this.hash = System.identityHashCode(task);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TaskKey)) {
+                return false;
+            }
+            Object task = get();
+            return task != null && task == ((TaskKey) obj).get();
+        }
+    }
+}
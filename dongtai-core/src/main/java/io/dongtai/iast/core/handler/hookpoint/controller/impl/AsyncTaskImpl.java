@@ -0,0 +1,112 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import io.dongtai.iast.core.handler.context.AsyncTaintContext;
+import io.dongtai.iast.core.handler.context.ThreadState;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 处理提交到线程池的异步任务
+ */
+public class AsyncTaskImpl {
+    private static final AsyncTaskContexts PENDING = new AsyncTaskContexts();
+    /**
+     * 工作线程上正在执行的 ThreadPoolExecutor 任务
+     */
+    private static final ThreadLocal<RunningTask> RUNNING = new ThreadLocal<RunningTask>();
+
+    /**
+     * 在请求中提交的任务包装为 {@link AsyncTaintContext.WrappedTask}，在工作线程上恢复请求上下文。
+     * 只用于线程池把任务包在自己的任务类型中的情况（ForkJoinPool、ScheduledThreadPoolExecutor），包装对象不会暴露给业务代码
+     *
+     * @param task Runnable 或 Callable
+     * @return 包装后的任务，不需要包装时返回原任务
+     */
+    public static Object wrap(Object task) {
+        if (task == null || task instanceof AsyncTaintContext.WrappedTask) {
+            return task;
+        }
+        if (!(task instanceof Runnable) && !(task instanceof Callable)) {
+            return task;
+        }
+        // fork/join 任务需要保持原对象才能 join，只包装 CompletableFuture 的异步任务
+        if (task instanceof ForkJoinTask && !(task instanceof CompletableFuture.AsynchronousCompletionTask)) {
+            return task;
+        }
+        AsyncTaintContext context = AsyncTaintContext.capture();
+        if (context == null) {
+            return task;
+        }
+        return new AsyncTaintContext.WrappedTask(context, task);
+    }
+
+    /**
+     * ThreadPoolExecutor.execute 提交的任务原样放入队列，请求上下文单独记录，
+     * 这样 getQueue、shutdownNow、remove 和拒绝策略看到的都是业务提交的任务
+     */
+    public static void capture(Object task) {
+        if (!(task instanceof Runnable) || task instanceof AsyncTaintContext.WrappedTask) {
+            return;
+        }
+        AsyncTaintContext context = AsyncTaintContext.capture();
+        if (context != null) {
+            PENDING.put(task, context);
+        }
+    }
+
+    /**
+     * ThreadPoolExecutor 的 beforeExecute 中恢复任务提交时的请求上下文
+     */
+    public static void enter(Object task) {
+        RunningTask running = RUNNING.get();
+        if (running != null) {
+            // 子类的 beforeExecute 调用了 super.beforeExecute
+            if (running.task == task) {
+                return;
+            }
+            // 上一个任务的 beforeExecute 抛出异常，没有调用 afterExecute
+            leave(running.task);
+        }
+        if (task == null) {
+            return;
+        }
+        AsyncTaintContext context = PENDING.poll(task);
+        if (context == null) {
+            return;
+        }
+        ThreadState prev = context.enter();
+        if (prev != null) {
+            RUNNING.set(new RunningTask(task, context, prev));
+        }
+    }
+
+    /**
+     * ThreadPoolExecutor 的 afterExecute 中恢复工作线程原来的状态
+     */
+    public static void leave(Object task) {
+        RunningTask running = RUNNING.get();
+        if (running == null || running.task != task) {
+            return;
+        }
+        RUNNING.remove();
+        running.context.exit(running.prev);
+    }
+
+    static int pendingCount() {
+        return PENDING.size();
+    }
+
+    private static class RunningTask {
+        private final Object task;
+        private final AsyncTaintContext context;
+        private final ThreadState prev;
+
+        RunningTask(Object task, AsyncTaintContext context, ThreadState prev) {
+            this.task = task;
+            this.context = context;
+            this.prev = prev;
+        }
+    }
+}
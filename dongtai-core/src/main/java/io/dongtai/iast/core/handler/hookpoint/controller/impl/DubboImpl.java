@@ -21,18 +21,24 @@ import io.dongtai.iast.core.utils.StackUtils;
 import io.dongtai.iast.core.utils.TaintPoolUtils;
 import io.dongtai.log.DongTaiLog;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class DubboImpl {
 
+    /**
+     * Dubbo 请求参数的 source 节点，不会被修改，所有请求共用
+     */
+    private static final SourceNode SOURCE_NODE = new SourceNode(
+            Collections.singleton(new TaintPosition("O")),
+            Collections.singleton(new TaintPosition("P1")),
+            null);
+
     private static IastClassLoader iastClassLoader;
     public static File IAST_REQUEST_JAR_PACKAGE;
 
@@ -65,22 +71,10 @@ public class DubboImpl {
 
     public static void solveDubboRequest(Object handler, Object channel, Object request, String url, String remoteAddress) {
         try {
-            URI u = new URI(url);
-            Map<String, Object> requestMeta = new HashMap<String, Object>() {{
-                put("requestURL", u.getScheme() + "://" + u.getAuthority() + u.getPath());
-                put("requestURI", u.getPath());
-                put("queryString", "");
-                put("method", "DUBBO");
-                put("protocol", "DUBBO");
-                put("scheme", u.getScheme());
-                put("contextPath", "");
-                put("remoteAddr", "0:0:0:0:0:0:0:1".equals(remoteAddress) ? "127.0.0.1" : remoteAddress);
-                put("secure", false);
-                put("serverPort", u.getPort());
-            }};
+            Map<String, Object> requestMeta = DubboRequestCache.getProvider(url).newRequestMeta(remoteAddress);
 
             EngineManager.enterDubboEntry(requestMeta);
-            DongTaiLog.debug("Dubbo: {}", request.toString());
+            DongTaiLog.debug("Dubbo: {}", request);
         } catch (URISyntaxException ignore) {
         }
     }
@@ -102,37 +96,15 @@ public class DubboImpl {
             return;
         }
 
-        String url = requestMeta.get("requestURL").toString() + "/" + methodName;
-        String uri = requestMeta.get("requestURI").toString() + "/" + methodName;
-
-        StringBuilder argSign = new StringBuilder("(");
-        if (argumentTypes != null && argumentTypes.length > 0) {
-            int i = 0;
-            for (Class<?> argumentType : argumentTypes) {
-                if (i != 0) {
-                    argSign.append(",");
-                }
-                argSign.append(argumentType.getCanonicalName());
-                i++;
-            }
-        }
-        argSign.append(")");
-        String argSignStr = argSign.toString();
-        url += argSignStr;
-        uri += argSignStr;
-
-        requestMeta.put("requestURL", url);
-        requestMeta.put("requestURI", uri);
+        String[] urls = DubboRequestCache.getMethodUrls(requestMeta.get("requestURL").toString(),
+                requestMeta.get("requestURI").toString(), methodName, argumentTypes);
+        requestMeta.put("requestURL", urls[0]);
+        requestMeta.put("requestURI", urls[1]);
 
         MethodEvent event = new MethodEvent(hookClass, hookClass, hookMethod,
                 hookSign, null, arguments, null);
 
-        HashSet<TaintPosition> src = new HashSet<TaintPosition>();
-        HashSet<TaintPosition> tgt = new HashSet<TaintPosition>();
-        src.add(new TaintPosition("O"));
-        tgt.add(new TaintPosition("P1"));
-
-        SourceNode sourceNode = new SourceNode(src, tgt, null);
+        SourceNode sourceNode = SOURCE_NODE;
         TaintPoolUtils.trackObject(event, sourceNode, arguments, 0, true);
 
         Map<String, String> sHeaders = new HashMap<String, String>();
@@ -204,8 +176,8 @@ public class DubboImpl {
         try {
             EngineManager.REQUEST_CONTEXT.get().put("responseStatus",
                     EngineManager.REQUEST_CONTEXT.get().get("protocol").toString() + " " + status);
-            ByteArrayOutputStream buff = EngineManager.BODY_BUFFER.getResponse();
-            buff.write(result.toString().getBytes());
+            String body = result.toString();
+            EngineManager.BODY_BUFFER.getResponse().write(body, 0, body.length(), Integer.MAX_VALUE);
         } catch (Throwable ignore) {
         }
     }
@@ -0,0 +1,154 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dubbo 请求元数据缓存：provider URL 只解析一次，每个服务方法的 requestURL/requestURI 只拼接一次
+ * <p>
+ * 缓存数量有上限，超过后不再缓存，直接计算
+ */
+class DubboRequestCache {
+    static final int MAX_CACHE_SIZE = 4096;
+
+    private static final ClassValue<String> CANONICAL_NAMES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return type.getCanonicalName();
+        }
+    };
+
+    private static final Map<String, Provider> PROVIDERS = new ConcurrentHashMap<String, Provider>();
+    private static final Map<MethodKey, String[]> METHODS = new ConcurrentHashMap<MethodKey, String[]>();
+
+    /**
+     * provider URL 解析结果
+     */
+    static class Provider {
+        final String requestURL;
+        final String requestURI;
+        final String scheme;
+        final int port;
+
+        Provider(URI uri) {
+            this.requestURL = uri.getScheme() + "://" + uri.getAuthority() + uri.getPath();
+            this.requestURI = uri.getPath();
+            this.scheme = uri.getScheme();
+            this.port = uri.getPort();
+        }
+
+        /**
+         * 每个请求都会修改 requestMeta，所以每次返回新的 map
+         */
+        Map<String, Object> newRequestMeta(String remoteAddress) {
+            Map<String, Object> requestMeta = new HashMap<String, Object>(32);
+            requestMeta.put("requestURL", this.requestURL);
+            requestMeta.put("requestURI", this.requestURI);
+            requestMeta.put("queryString", "");
+            requestMeta.put("method", "DUBBO");
+            requestMeta.put("protocol", "DUBBO");
+            requestMeta.put("scheme", this.scheme);
+            requestMeta.put("contextPath", "");
+            requestMeta.put("remoteAddr", "0:0:0:0:0:0:0:1".equals(remoteAddress) ? "127.0.0.1" : remoteAddress);
+            requestMeta.put("secure", false);
+            requestMeta.put("serverPort", this.port);
+            return requestMeta;
+        }
+    }
+
+    static Provider getProvider(String url) throws URISyntaxException {
+        Provider provider = PROVIDERS.get(url);
+        if (provider == null) {
+            provider = new Provider(new URI(url));
+            if (PROVIDERS.size() < MAX_CACHE_SIZE) {
+                PROVIDERS.put(url, provider);
+            }
+        }
+        return provider;
+    }
+
+    /**
+     * @return [requestURL, requestURI]，如：dubbo://127.0.0.1:20880/com.example.Service/sayHello(java.lang.String)
+     */
+    static String[] getMethodUrls(String requestURL, String requestURI, String methodName, Class<?>[] argumentTypes) {
+        // key 中只保存类名，不持有 Class 引用，避免应用的 ClassLoader 无法卸载
+        String[] argumentNames = new String[argumentTypes == null ? 0 : argumentTypes.length];
+        for (int i = 0; i < argumentNames.length; i++) {
+            argumentNames[i] = argumentTypes[i] == null ? null : CANONICAL_NAMES.get(argumentTypes[i]);
+        }
+        MethodKey key = new MethodKey(requestURL, requestURI, methodName, argumentNames);
+        String[] urls = METHODS.get(key);
+        if (urls == null) {
+            String suffix = "/" + methodName + argumentSignature(argumentNames);
+            urls = new String[]{requestURL + suffix, requestURI + suffix};
+            if (METHODS.size() < MAX_CACHE_SIZE) {
+                METHODS.put(key, urls);
+            }
+        }
+        return urls;
+    }
+
+    private static String argumentSignature(String[] argumentNames) {
+        StringBuilder argSign = new StringBuilder("(");
+        for (int i = 0; i < argumentNames.length; i++) {
+            if (i != 0) {
+                argSign.append(",");
+            }
+            argSign.append(argumentNames[i]);
+        }
+        return argSign.append(")").toString();
+    }
+
+    static void clear() {
+        PROVIDERS.clear();
+        METHODS.clear();
+    }
+
+    static int size() {
+        return PROVIDERS.size() + METHODS.size();
+    }
+
+    private static class MethodKey {
+        private final String requestURL;
+        private final String requestURI;
+        private final String methodName;
+        private final String[] argumentNames;
+        private final int hash;
+
+        private MethodKey(String requestURL, String requestURI, String methodName, String[] argumentNames) {
+            this.requestURL = requestURL;
+            this.requestURI = requestURI;
+            this.methodName = methodName;
+            this.argumentNames = argumentNames;
+            int h = requestURL.hashCode();
+            h = 31 * h + requestURI.hashCode();
+            h = 31 * h + methodName.hashCode();
+            this.hash = 31 * h + Arrays.hashCode(argumentNames);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) o;
+            return this.hash == other.hash
+                    && this.methodName.equals(other.methodName)
+                    && this.requestURL.equals(other.requestURL)
+                    && this.requestURI.equals(other.requestURI)
+                    && Arrays.equals(this.argumentNames, other.argumentNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
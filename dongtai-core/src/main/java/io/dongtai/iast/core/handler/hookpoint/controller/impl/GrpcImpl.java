@@ -0,0 +1,233 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import com.alibaba.fastjson2.JSONArray;
+import io.dongtai.iast.common.scope.Scope;
+import io.dongtai.iast.common.scope.ScopeAggregator;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.context.ContextManager;
+import io.dongtai.iast.core.handler.context.ThreadState;
+import io.dongtai.iast.core.handler.hookpoint.graphy.GraphBuilder;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyNodeType;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.SourceNode;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.TaintPosition;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRange;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRangesBuilder;
+import io.dongtai.iast.core.utils.StackUtils;
+import io.dongtai.iast.core.utils.TaintPoolUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * gRPC 服务端调用的入口
+ * <p>
+ * 一次调用是一个请求。gRPC 的监听器回调（收到消息、半关闭、完成等）可能在不同的线程上执行，
+ * 调用的方法池和污点池保存在 {@link Call} 中，每个回调执行期间换到当前线程上，回调结束后恢复线程原来的状态。
+ * 每条请求消息都是一个污点来源，调用完成或取消时上报整个调用的方法池
+ */
+public class GrpcImpl {
+    static final String PROTOCOL = "GRPC";
+    static final String METHOD = "POST";
+    static final String HOOK_CLASS = " io.grpc.ServerCall$Listener".substring(1);
+    static final String HOOK_METHOD = "onMessage";
+    static final String HOOK_SIGN = HOOK_CLASS + ".onMessage(java.lang.Object)";
+    /**
+     * 请求体中最多保留的消息数，超出的消息仍然作为污点来源
+     */
+    static final int MAX_BODY_MESSAGES = 64;
+
+    private static final SourceNode SOURCE_NODE = new SourceNode(
+            Collections.singleton(new TaintPosition("P1")),
+            Collections.singleton(new TaintPosition("P1")),
+            null);
+
+    /**
+     * 单次调用的状态，由插件持有，回调之间不会并发执行
+     */
+    public static class Call {
+        private volatile ThreadState state;
+        private final JSONArray body = new JSONArray();
+        private int messageCount;
+    }
+
+    /**
+     * 创建调用的上下文，不修改当前线程的状态
+     *
+     * @param meta requestURI、serverAddr 和 headers
+     * @return 在 HTTP、Dubbo 等请求中发起的进程内调用属于外层请求，返回 null
+     */
+    public static Call enterCall(Map<String, Object> meta) {
+        if (meta == null || ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
+            return null;
+        }
+        ThreadState prev = ThreadState.save();
+        try {
+            EngineManager.REQUEST_TAINT_STORE.remove();
+            ContextManager.getContext().remove();
+            ScopeManager.SCOPE_TRACKER.set(new ScopeAggregator());
+            EngineManager.enterGrpcEntry(newRequestMeta(meta));
+            Call call = new Call();
+            call.state = ThreadState.save();
+            return call;
+        } finally {
+            prev.restore();
+        }
+    }
+
+    /**
+     * 把当前线程换到调用的上下文
+     *
+     * @return 线程原来的状态，调用已结束时返回 null
+     */
+    public static ThreadState attach(Call call) {
+        ThreadState state = call.state;
+        if (state == null) {
+            return null;
+        }
+        ThreadState prev = ThreadState.save();
+        state.restore();
+        return prev;
+    }
+
+    public static void detach(Call call, ThreadState prev) {
+        if (prev == null) {
+            return;
+        }
+        if (call.state != null) {
+            call.state = ThreadState.save();
+        }
+        prev.restore();
+    }
+
+    /**
+     * 每条请求消息作为一个污点来源
+     */
+    public static void collectMessage(Call call, Object message, AtomicInteger invokeIdSequencer) {
+        if (message == null) {
+            return;
+        }
+        ThreadState prev = attach(call);
+        if (prev == null) {
+            return;
+        }
+        ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
+        try {
+            trackMessage(call, message, invokeIdSequencer);
+        } finally {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            detach(call, prev);
+        }
+    }
+
+    /**
+     * 调用完成或取消，上报调用的方法池并丢弃调用的上下文，重复调用时忽略
+     */
+    public static void leaveCall(Call call) {
+        ThreadState prev = attach(call);
+        if (prev == null) {
+            return;
+        }
+        call.state = null;
+        ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
+        try {
+            if (ScopeManager.SCOPE_TRACKER.in(Scope.GRPC_ENTRY)) {
+                Map<String, Object> requestMeta = EngineManager.REQUEST_CONTEXT.get();
+                if (requestMeta != null && !call.body.isEmpty()) {
+                    requestMeta.put("body", call.body.toString());
+                }
+                EngineManager.maintainRequestCount();
+                GraphBuilder.buildAndReport();
+            }
+        } finally {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            prev.restore();
+        }
+    }
+
+    /**
+     * 不上报，直接丢弃调用的上下文
+     */
+    public static void clear(Call call) {
+        if (call != null) {
+            call.state = null;
+        }
+    }
+
+    private static void trackMessage(Call call, Object message, AtomicInteger invokeIdSequencer) {
+        Map<String, Object> requestMeta = EngineManager.REQUEST_CONTEXT.get();
+        if (requestMeta == null) {
+            return;
+        }
+        // 请求体在调用结束时才生成，每条消息只追加一次
+        if (call.messageCount++ < MAX_BODY_MESSAGES) {
+            call.body.add(MethodEvent.formatObject(message).objectFormatString);
+        }
+
+        MethodEvent event = new MethodEvent(HOOK_CLASS, HOOK_CLASS, HOOK_METHOD,
+                HOOK_SIGN, null, new Object[]{message}, null);
+        TaintPoolUtils.trackObject(event, SOURCE_NODE, message, 0, true);
+        if (event.getTargetHashes().isEmpty()) {
+            return;
+        }
+
+        event.addParameterValue(0, message, true);
+        event.setTaintPositions(SOURCE_NODE.getSources(), SOURCE_NODE.getTargets());
+
+        String fv = event.parameterValues.get(0).getValue();
+        long hash = TaintPoolUtils.toStringHash(fv.hashCode(), System.identityHashCode(fv));
+        int len = TaintRangesBuilder.getLength(fv);
+        event.targetRanges.add(0, new MethodEvent.MethodEventTargetRange(hash, new TaintRanges(new TaintRange(0, len))));
+
+        int invokeId = invokeIdSequencer.getAndIncrement();
+        event.setInvokeId(invokeId);
+        event.setPolicyType(PolicyNodeType.SOURCE.getName());
+        event.source = true;
+        event.setCallStacks(StackUtils.createCallStack(4));
+        EngineManager.TRACK_MAP.addTrackMethod(invokeId, event);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> newRequestMeta(Map<String, Object> meta) {
+        Object uri = meta.get("requestURI");
+        String requestURI = uri == null ? "/" : uri.toString();
+        if (!requestURI.startsWith("/")) {
+            requestURI = "/" + requestURI;
+        }
+        Object serverAddr = meta.get("serverAddr");
+
+        Map<String, String> headers = new HashMap<String, String>();
+        Object rawHeaders = meta.get("headers");
+        if (rawHeaders instanceof Map) {
+            for (Map.Entry<String, ?> entry : ((Map<String, ?>) rawHeaders).entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    headers.put(entry.getKey(), entry.getValue().toString());
+                }
+            }
+        }
+        String traceIdKey = ContextManager.getHeaderKey();
+        if (headers.containsKey(traceIdKey)) {
+            ContextManager.parseTraceId(headers.get(traceIdKey));
+        } else {
+            headers.put(traceIdKey, ContextManager.currentTraceId());
+        }
+
+        Map<String, Object> requestMeta = new HashMap<String, Object>(32);
+        requestMeta.put("requestURL", "grpc://" + (serverAddr == null ? "" : serverAddr) + requestURI);
+        requestMeta.put("requestURI", requestURI);
+        requestMeta.put("queryString", "");
+        requestMeta.put("method", METHOD);
+        requestMeta.put("protocol", PROTOCOL);
+        requestMeta.put("scheme", "grpc");
+        requestMeta.put("contextPath", "");
+        requestMeta.put("remoteAddr", "");
+        requestMeta.put("secure", false);
+        requestMeta.put("headers", headers);
+        requestMeta.put("body", "");
+        return requestMeta;
+    }
+}
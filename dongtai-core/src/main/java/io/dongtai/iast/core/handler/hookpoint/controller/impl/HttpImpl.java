@@ -14,7 +14,6 @@ import io.dongtai.iast.core.utils.ReflectUtils;
 import io.dongtai.iast.core.utils.matcher.ConfigMatcher;
 import io.dongtai.log.DongTaiLog;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.lang.reflect.Method;
 import java.net.URL;
@@ -148,10 +147,7 @@ public class HttpImpl {
             if (ret == -1) {
                 return;
             }
-            ByteArrayOutputStream buff = EngineManager.BODY_BUFFER.getRequest();
-            if (buff.size() < 4096) {
-                buff.write(ret);
-            }
+            EngineManager.BODY_BUFFER.getRequest().write(ret, 4096);
         } else if ("([B)I".equals(desc)) {
             if (ret == -1 || bs == null) {
                 return;
@@ -162,11 +158,7 @@ public class HttpImpl {
                 return;
             }
 
-            ByteArrayOutputStream buff = EngineManager.BODY_BUFFER.getRequest();
-            int size = buff.size();
-            if (size < 4096) {
-                buff.write(bs, offset, Math.min(ret, 4096 - size));
-            }
+            EngineManager.BODY_BUFFER.getRequest().write(bs, offset, ret, 4096);
         }
     }
 
@@ -248,10 +240,7 @@ public class HttpImpl {
                 if (b == -1) {
                     return;
                 }
-                ByteArrayOutputStream buff = EngineManager.BODY_BUFFER.getResponse();
-                if (buff.size() < maxLength) {
-                    buff.write(b);
-                }
+                EngineManager.BODY_BUFFER.getResponse().write(b, maxLength);
             } else if ("([B)V".equals(desc)) {
                 if (bs == null) {
                     return;
@@ -262,11 +251,7 @@ public class HttpImpl {
                     return;
                 }
 
-                ByteArrayOutputStream buff = EngineManager.BODY_BUFFER.getResponse();
-                int size = buff.size();
-                if (size < maxLength) {
-                    buff.write(bs, offset, Math.min(len, maxLength - size));
-                }
+                EngineManager.BODY_BUFFER.getResponse().write(bs, offset, len, maxLength);
             }
         } catch (Throwable ignore) {
         }
@@ -290,30 +275,19 @@ public class HttpImpl {
                 if (b == -1) {
                     return;
                 }
-                ByteArrayOutputStream buff = EngineManager.BODY_BUFFER.getResponse();
-                if (buff.size() < maxLength) {
-                    buff.write(b);
-                }
+                EngineManager.BODY_BUFFER.getResponse().write(b, maxLength);
             } else if ("([CII)V".equals(desc)) {
                 if (cs == null || offset < 0 || len < 0) {
                     return;
                 }
 
-                ByteArrayOutputStream buff = EngineManager.BODY_BUFFER.getResponse();
-                int size = buff.size();
-                if (size < maxLength) {
-                    buff.write((new String(cs, offset, Math.min(len, maxLength - size))).getBytes());
-                }
+                EngineManager.BODY_BUFFER.getResponse().write(cs, offset, Math.min(len, cs.length - offset), maxLength);
             } else if ("(Ljava/lang/String;II)V".equals(desc)) {
                 if (StringUtils.isEmpty(s) || offset < 0 || len < 0) {
                     return;
                 }
 
-                ByteArrayOutputStream buff = EngineManager.BODY_BUFFER.getResponse();
-                int size = buff.size();
-                if (size < maxLength) {
-                    buff.write((new String(s.toCharArray(), offset, Math.min(len, maxLength - size))).getBytes());
-                }
+                EngineManager.BODY_BUFFER.getResponse().write(s, offset, Math.min(len, s.length() - offset), maxLength);
             }
         } catch (Throwable ignore) {
         }
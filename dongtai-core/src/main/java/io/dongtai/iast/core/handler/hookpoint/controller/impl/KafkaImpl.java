@@ -0,0 +1,189 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import io.dongtai.iast.common.scope.Scope;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.context.ContextManager;
+import io.dongtai.iast.core.handler.hookpoint.graphy.GraphBuilder;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.log.DongTaiLog;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka 消费者的消息入口
+ * <p>
+ * 每条消息（ConsumerRecord）是一个单独的入口：开始处理下一条消息、迭代结束或再次 poll 时，
+ * 上一条消息的方法池作为一个单独的请求上报，请求中带有 topic、partition 和 offset
+ */
+public class KafkaImpl {
+    static final String PROTOCOL = "KAFKA";
+    static final String METHOD = "CONSUME";
+    static final int MAX_HEADERS = 32;
+
+    /**
+     * 当前线程正在处理的消息
+     */
+    private static final ThreadLocal<Object> CURRENT_RECORD = new ThreadLocal<Object>();
+
+    private static final ClassValue<RecordAccessor> ACCESSORS = new ClassValue<RecordAccessor>() {
+        @Override
+        protected RecordAccessor computeValue(Class<?> type) {
+            try {
+                return new RecordAccessor(type);
+            } catch (NoSuchMethodException e) {
+                DongTaiLog.debug("unsupported kafka record type {}", type.getName());
+                return null;
+            }
+        }
+    };
+
+    /**
+     * 开始处理一条消息，结束当前线程上一条消息的上下文
+     *
+     * @param record ConsumerRecord，为 null 时只结束上一条消息
+     */
+    public static void enterRecord(Object record) {
+        if (record != null && record == CURRENT_RECORD.get()) {
+            return;
+        }
+        leaveRecord();
+        // 在 HTTP、Dubbo 请求中消费消息时，消息属于这个请求
+        if (record == null || ScopeManager.SCOPE_TRACKER.inEnterEntry()) {
+            return;
+        }
+        RecordAccessor accessor = ACCESSORS.get(record.getClass());
+        if (accessor == null) {
+            return;
+        }
+        Map<String, Object> requestMeta = accessor.newRequestMeta(record);
+        if (requestMeta == null) {
+            return;
+        }
+        EngineManager.enterKafkaEntry(requestMeta);
+        CURRENT_RECORD.set(record);
+    }
+
+    /**
+     * 结束当前消息，上报这条消息的方法池
+     */
+    public static void leaveRecord() {
+        if (CURRENT_RECORD.get() == null) {
+            return;
+        }
+        CURRENT_RECORD.remove();
+        if (!ScopeManager.SCOPE_TRACKER.in(Scope.KAFKA_ENTRY)) {
+            return;
+        }
+        EngineManager.maintainRequestCount();
+        GraphBuilder.buildAndReport();
+        EngineManager.cleanThreadState();
+    }
+
+    /**
+     * 不上报，直接丢弃当前消息的上下文
+     */
+    public static void clear() {
+        if (CURRENT_RECORD.get() == null) {
+            return;
+        }
+        CURRENT_RECORD.remove();
+        EngineManager.cleanThreadState();
+    }
+
+    /**
+     * 通过反射读取 ConsumerRecord，不依赖 kafka-clients 的版本
+     */
+    static class RecordAccessor {
+        private final Method topic;
+        private final Method partition;
+        private final Method offset;
+        private final Method value;
+        private final Method headers;
+
+        RecordAccessor(Class<?> type) throws NoSuchMethodException {
+            this.topic = type.getMethod("topic");
+            this.partition = type.getMethod("partition");
+            this.offset = type.getMethod("offset");
+            this.value = type.getMethod("value");
+            Method headers = null;
+            try {
+                // 0.11 之前的版本没有 headers
+                headers = type.getMethod("headers");
+            } catch (NoSuchMethodException ignore) {
+            }
+            this.headers = headers;
+        }
+
+        Map<String, Object> newRequestMeta(Object record) {
+            String topic;
+            Object partition;
+            Object offset;
+            Object value;
+            try {
+                topic = (String) this.topic.invoke(record);
+                partition = this.partition.invoke(record);
+                offset = this.offset.invoke(record);
+                value = this.value.invoke(record);
+            } catch (Throwable e) {
+                DongTaiLog.debug("read kafka record failed: {}", e.getMessage());
+                return null;
+            }
+            if (topic == null) {
+                return null;
+            }
+
+            Map<String, String> headers = readHeaders(record);
+            String traceIdKey = ContextManager.getHeaderKey();
+            if (headers.containsKey(traceIdKey)) {
+                ContextManager.parseTraceId(headers.get(traceIdKey));
+            } else {
+                headers.put(traceIdKey, ContextManager.currentTraceId());
+            }
+
+            Map<String, Object> requestMeta = new HashMap<String, Object>(32);
+            requestMeta.put("requestURL", "kafka://" + topic);
+            requestMeta.put("requestURI", "/" + topic);
+            requestMeta.put("queryString", "partition=" + partition + "&offset=" + offset);
+            requestMeta.put("method", METHOD);
+            requestMeta.put("protocol", PROTOCOL);
+            requestMeta.put("scheme", "kafka");
+            requestMeta.put("contextPath", "");
+            requestMeta.put("remoteAddr", "");
+            requestMeta.put("secure", false);
+            requestMeta.put("headers", headers);
+            requestMeta.put("body", value == null ? "" : MethodEvent.formatObject(value).objectFormatString);
+            return requestMeta;
+        }
+
+        private Map<String, String> readHeaders(Object record) {
+            Map<String, String> headers = new HashMap<String, String>();
+            if (this.headers == null) {
+                return headers;
+            }
+            try {
+                Object recordHeaders = this.headers.invoke(record);
+                if (!(recordHeaders instanceof Iterable)) {
+                    return headers;
+                }
+                for (Object header : (Iterable<?>) recordHeaders) {
+                    if (headers.size() >= MAX_HEADERS) {
+                        break;
+                    }
+                    Class<?> headerType = header.getClass();
+                    Object key = headerType.getMethod("key").invoke(header);
+                    Object value = headerType.getMethod("value").invoke(header);
+                    if (key != null && value instanceof byte[]) {
+                        headers.put(key.toString(), new String((byte[]) value, StandardCharsets.UTF_8));
+                    }
+                }
+            } catch (Throwable e) {
+                DongTaiLog.debug("read kafka record headers failed: {}", e.getMessage());
+            }
+            return headers;
+        }
+    }
+}
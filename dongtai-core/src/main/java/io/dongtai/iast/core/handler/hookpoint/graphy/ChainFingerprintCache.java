@@ -0,0 +1,135 @@
+package io.dongtai.iast.core.handler.hookpoint.graphy;
+
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyNodeType;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已上报污点链路的指纹缓存（有界 LRU + 过期时间）
+ * <p>
+ * 同一条 source -> propagator -> sink 链路（方法签名、调用位置、sink 调用栈均相同）在过期之前只上报一次完整的方法池，
+ * 之后的重复命中不上报，只计入 agent 的运行指标
+ * <p>
+ * 每个请求上报时都会访问，使用 ReentrantLock 而不是 synchronized，虚拟线程等锁时不会占住载体线程
+ */
+public class ChainFingerprintCache {
+    private final int maxEntries;
+    private final long ttlMillis;
+    /**
+     * 链路指纹 -> 第一次上报的时间
+     */
+    private final Map<Long, Long> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ChainFingerprintCache(final int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<Long, Long>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 记录一次链路命中
+     *
+     * @param fingerprint 链路指纹
+     * @param now         当前时间（毫秒）
+     * @return 是否需要上报：链路第一次出现，或者上次上报已经过期
+     */
+    public boolean observe(long fingerprint, long now) {
+        this.lock.lock();
+        try {
+            expireEldest(now);
+            Long reported = this.entries.get(fingerprint);
+            if (reported != null && now - reported < this.ttlMillis) {
+                return false;
+            }
+            this.entries.put(fingerprint, now);
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 按访问顺序移除最久未命中且已过期的链路
+     */
+    private void expireEldest(long now) {
+        Iterator<Map.Entry<Long, Long>> it = this.entries.entrySet().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().getValue() < this.ttlMillis) {
+                return;
+            }
+            it.remove();
+        }
+    }
+
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.entries.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * 计算方法池中污点链路的指纹，不包含 sink 的方法池不参与去重，返回 0
+     * <p>
+     * 每个事件的哈希与顺序无关地累加，避免对方法池进行排序
+     */
+    public static long fingerprint(Collection<MethodEvent> events) {
+        boolean hasSink = false;
+        long fp = 0;
+        for (MethodEvent event : events) {
+            String policyType = event.getPolicyType();
+            long h = hash(1125899906842597L, policyType);
+            h = hash(h, event.getSignature());
+            h = hash(h, event.getCallerClass());
+            h = hash(h, event.getCallerMethod());
+            h = 31 * h + event.getCallerLine();
+            if (PolicyNodeType.SINK.getName().equals(policyType)) {
+                hasSink = true;
+                List<Object> stacks = event.getStacks();
+                if (stacks != null) {
+                    for (Object stack : stacks) {
+                        h = hash(h, String.valueOf(stack));
+                    }
+                }
+            }
+            fp += mix(h);
+        }
+        if (!hasSink || fp == 0) {
+            return 0;
+        }
+        return fp;
+    }
+
+    public static long hash(long h, String s) {
+        if (s == null) {
+            return 31 * h;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -4,27 +4,49 @@ import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import io.dongtai.iast.common.constants.*;
 import io.dongtai.iast.common.scope.ScopeManager;
-import io.dongtai.iast.common.utils.base64.Base64Encoder;
 import io.dongtai.iast.core.EngineManager;
 import io.dongtai.iast.core.handler.context.ContextManager;
+import io.dongtai.iast.core.handler.context.RequestTaintStore;
 import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.TaintPosition;
 import io.dongtai.iast.core.handler.hookpoint.vulscan.normal.AbstractNormalVulScan;
+import io.dongtai.iast.core.handler.metrics.AgentMetrics;
 import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.PropertyUtils;
 import io.dongtai.iast.common.string.StringUtils;
 import io.dongtai.log.DongTaiLog;
 import io.dongtai.log.ErrorCode;
 
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
  * @author dongzhiyong@huoxian.cn
  */
 public class GraphBuilder {
+    private static final int CHAIN_CACHE_MAX_ENTRIES = 4096;
+
+    private static volatile ChainFingerprintCache chainCache;
+
+    private static ChainFingerprintCache getChainCache() {
+        ChainFingerprintCache cache = chainCache;
+        if (cache != null) {
+            return cache;
+        }
+        PropertyUtils cfg = PropertyUtils.getInstance();
+        if (cfg == null || !cfg.isReportDedupEnable()) {
+            return null;
+        }
+        synchronized (GraphBuilder.class) {
+            if (chainCache == null) {
+                chainCache = new ChainFingerprintCache(CHAIN_CACHE_MAX_ENTRIES, cfg.getReportDedupTtl() * 1000L);
+            }
+            return chainCache;
+        }
+    }
 
     public static void buildAndReport() {
+        long start = System.nanoTime();
         try {
             ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
             String report = convertToReport();
@@ -36,6 +58,7 @@ public class GraphBuilder {
             DongTaiLog.error(ErrorCode.get("GRAPH_BUILD_AND_REPORT_FAILED"), e);
         } finally {
             ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+            AgentMetrics.GRAPH_BUILD.recordSince(start);
         }
     }
 
@@ -66,6 +89,22 @@ public class GraphBuilder {
         }
 
         detail.put(ReportKey.URI, requestURI);
+
+        Map<Integer, MethodEvent> events = EngineManager.TRACK_MAP.get();
+        RequestTaintStore taintStore = EngineManager.REQUEST_TAINT_STORE.get();
+        if (taintStore != null) {
+            // 合并请求中已完成的异步任务的方法调用
+            taintStore.mergeInto(events);
+        }
+        ChainFingerprintCache chainCache = getChainCache();
+        if (chainCache != null) {
+            long fingerprint = ChainFingerprintCache.fingerprint(events.values());
+            if (fingerprint != 0 && !chainCache.observe(fingerprint, System.currentTimeMillis())) {
+                // 服务端没有重复计数的报告类型，重复链路只计入本地指标
+                AgentMetrics.REPORT_DEDUPED.increment();
+                return null;
+            }
+        }
         detail.put(ReportKey.CLIENT_IP, requestMeta.getOrDefault("remoteAddr", ""));
         detail.put(ReportKey.QUERY_STRING, requestMeta.getOrDefault("queryString", ""));
         detail.put(ReportKey.REQ_HEADER, AbstractNormalVulScan.getEncodedHeader(
@@ -80,18 +119,13 @@ public class GraphBuilder {
         detail.put(ReportKey.RES_HEADER, AbstractNormalVulScan.getEncodedResponseHeader(
                 (String) requestMeta.get("responseStatus"),
                 (Map<String, Collection<String>>) requestMeta.get("responseHeaders")));
-        String responseBody = EngineManager.BODY_BUFFER.getResponse().toString();
-        if (responseBody != null && !responseBody.isEmpty()) {
-            responseBody = Base64Encoder.encodeBase64String(responseBody.getBytes(StandardCharsets.UTF_8));
-        }
-        detail.put(ReportKey.RES_BODY, responseBody);
+        detail.put(ReportKey.RES_BODY, EngineManager.BODY_BUFFER.getResponse().toBase64String());
         detail.put(ReportKey.CONTEXT_PATH, requestMeta.getOrDefault("contextPath", ""));
         detail.put(ReportKey.REPLAY_REQUEST, requestMeta.getOrDefault("replay-request", false));
 
         detail.put(ReportKey.METHOD_POOL, methodPool);
         detail.put(ReportKey.TRACE_ID, ContextManager.currentTraceId());
 
-        Map<Integer, MethodEvent> events = EngineManager.TRACK_MAP.get();
         for (Map.Entry<Integer, MethodEvent> entry : events.entrySet()) {
             MethodEvent event = entry.getValue();
             methodPool.add(toJson(event));
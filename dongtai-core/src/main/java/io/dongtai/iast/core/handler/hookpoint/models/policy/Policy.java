@@ -3,17 +3,28 @@ package io.dongtai.iast.core.handler.hookpoint.models.policy;
 import io.dongtai.iast.core.bytecode.enhance.ClassContext;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Policy {
+    static final int MAX_BLACKLIST_HOOKS = 65536;
+
     private final List<SourceNode> sources = new ArrayList<SourceNode>();
     private final List<PropagatorNode> propagators = new ArrayList<PropagatorNode>();
     private final List<SinkNode> sinks = new ArrayList<SinkNode>();
     private final List<ValidatorNode> validators = new ArrayList<ValidatorNode>();
     private final Map<String, PolicyNode> policyNodesMap = new HashMap<String, PolicyNode>();
+    /**
+     * 策略节点索引：className -> (方法名 + 参数描述符) -> 策略节点，字节码转换时每个方法只需一次查找
+     */
+    private final Map<String, Map<String, Set<PolicyNode>>> policyNodesIndex =
+            new HashMap<String, Map<String, Set<PolicyNode>>>();
     private final Set<String> classHooks = new HashSet<String>();
     private final Set<String> ancestorClassHooks = new HashSet<String>();
 
-    private final Set<String> blacklistHooks = new HashSet<String>();
+    /**
+     * 命中 hook 黑名单的类（jvm内部类名），类加载时由各个转换线程并发写入，超过上限后不再记录
+     */
+    private final Set<String> blacklistHooks = ConcurrentHashMap.newKeySet();
     private final Set<String> ignoreInternalHooks = new HashSet<String>();
     private final Set<String> ignoreBlacklistHooks = new HashSet<String>();
 
@@ -44,6 +55,10 @@ public class Policy {
         addPolicyNode(sink);
     }
 
+    public List<ValidatorNode> getValidators() {
+        return validators;
+    }
+
     public void addValidator(ValidatorNode validator) {
         this.validators.add(validator);
         addPolicyNode(validator);
@@ -61,7 +76,8 @@ public class Policy {
         SignatureMethodMatcher methodMatcher;
         if (node.getMethodMatcher() instanceof SignatureMethodMatcher) {
             methodMatcher = (SignatureMethodMatcher) node.getMethodMatcher();
-            this.policyNodesMap.put(node.toString(), node);
+            PolicyNode prev = this.policyNodesMap.put(node.toString(), node);
+            indexPolicyNode(methodMatcher.getSignature(), prev, node);
             addHooks(methodMatcher.getSignature().getClassName(), node.getInheritable());
             if (node.isIgnoreInternal()) {
                 this.ignoreInternalHooks.add(methodMatcher.getSignature().getClassName());
@@ -72,6 +88,98 @@ public class Policy {
         }
     }
 
+    private void indexPolicyNode(Signature signature, PolicyNode prev, PolicyNode node) {
+        Map<String, Set<PolicyNode>> methods = this.policyNodesIndex.get(signature.getClassName());
+        if (methods == null) {
+            methods = new HashMap<String, Set<PolicyNode>>();
+            this.policyNodesIndex.put(signature.getClassName(), methods);
+        }
+        String methodKey = methodKey(signature.getMethodName(), signature.getParameters());
+        Set<PolicyNode> nodes = methods.get(methodKey);
+        if (nodes == null) {
+            nodes = new HashSet<PolicyNode>();
+            methods.put(methodKey, nodes);
+        }
+        // 与 policyNodesMap 保持一致，相同的节点以后加入的为准
+        if (prev != null) {
+            nodes.remove(prev);
+        }
+        nodes.add(node);
+    }
+
+    /**
+     * 获取方法匹配的策略节点
+     *
+     * @param className .分隔的类名（命中策略的类或祖先类）
+     * @param methodKey {@link #methodKey(String, String)} 的结果
+     * @return 匹配的策略节点，没有匹配时返回 null
+     */
+    public Set<PolicyNode> getMatchedPolicyNodes(String className, String methodKey) {
+        Map<String, Set<PolicyNode>> methods = this.policyNodesIndex.get(className);
+        if (methods == null) {
+            return null;
+        }
+        return methods.get(methodKey);
+    }
+
+    /**
+     * 方法索引的 key：方法名 + 参数部分的描述符，比如 append(Ljava/lang/String;)
+     *
+     * @param methodName 方法名
+     * @param descriptor 方法描述符，比如 (Ljava/lang/String;)Ljava/lang/StringBuilder;
+     */
+    public static String methodKey(String methodName, String descriptor) {
+        return methodName.concat(descriptor.substring(0, descriptor.indexOf(')') + 1));
+    }
+
+    /**
+     * 将策略中的参数类型（比如 java.lang.String[]、int）转换为描述符形式的方法索引 key
+     */
+    static String methodKey(String methodName, String[] parameters) {
+        StringBuilder sb = new StringBuilder(methodName).append('(');
+        if (parameters != null) {
+            for (String parameter : parameters) {
+                appendDescriptor(sb, parameter.trim());
+            }
+        }
+        return sb.append(')').toString();
+    }
+
+    private static void appendDescriptor(StringBuilder sb, String typeName) {
+        while (typeName.endsWith("[]")) {
+            sb.append('[');
+            typeName = typeName.substring(0, typeName.length() - 2);
+        }
+        switch (typeName) {
+            case "boolean":
+                sb.append('Z');
+                break;
+            case "char":
+                sb.append('C');
+                break;
+            case "byte":
+                sb.append('B');
+                break;
+            case "short":
+                sb.append('S');
+                break;
+            case "int":
+                sb.append('I');
+                break;
+            case "float":
+                sb.append('F');
+                break;
+            case "long":
+                sb.append('J');
+                break;
+            case "double":
+                sb.append('D');
+                break;
+            default:
+                sb.append('L').append(typeName.replace('.', '/')).append(';');
+        }
+    }
+
     public void addHooks(String className, Inheritable inheritable) {
         if (Inheritable.ALL.equals(inheritable) || Inheritable.SELF.equals(inheritable)) {
             this.classHooks.add(className);
@@ -108,10 +216,18 @@ public class Policy {
         return this.ancestorClassHooks;
     }
 
+    /**
+     * @param className jvm内部类名，如：java/lang/Runtime
+     */
     public void addBlacklistHooks(String className) {
-        this.blacklistHooks.add(className);
+        if (this.blacklistHooks.size() < MAX_BLACKLIST_HOOKS) {
+            this.blacklistHooks.add(className);
+        }
     }
 
+    /**
+     * @param className jvm内部类名，如：java/lang/Runtime
+     */
     public boolean isBlacklistHooks(String className) {
         return this.blacklistHooks.contains(className);
     }
@@ -123,4 +239,12 @@ public class Policy {
     public boolean isIgnoreBlacklistHooks(String className) {
         return this.ignoreBlacklistHooks.contains(className);
     }
+
+    public Set<String> getIgnoreInternalHooks() {
+        return this.ignoreInternalHooks;
+    }
+
+    public Set<String> getIgnoreBlacklistHooks() {
+        return this.ignoreBlacklistHooks;
+    }
 }
@@ -34,23 +34,44 @@ public class PolicyBuilder {
     private static final String KEY_IGNORE_BLACKLIST = "ignore_blacklist";
 
     public static JSONArray fetchFromServer() throws PolicyException {
+        return parseFromServer(requestServer());
+    }
+
+    public static JSONArray fetchFromFile(String path) throws PolicyException {
+        return parseFromFile(path, readFile(path));
+    }
+
+    /**
+     * @return 服务端返回的策略原文
+     */
+    public static String requestServer() {
+        return HttpClientUtils.sendGet(ApiPath.HOOK_PROFILE, null).toString();
+    }
+
+    public static JSONArray parseFromServer(String content) throws PolicyException {
         try {
-            StringBuilder resp = HttpClientUtils.sendGet(ApiPath.HOOK_PROFILE, null);
-            JSONObject respObj = new JSONObject(resp.toString());
+            JSONObject respObj = new JSONObject(content);
             return respObj.getJSONArray(KEY_DATA);
         } catch (JSONException e) {
             throw new PolicyException(PolicyException.ERR_POLICY_CONFIG_FROM_SERVER_INVALID, e);
         }
     }
 
-    public static JSONArray fetchFromFile(String path) throws PolicyException {
+    /**
+     * @return 策略文件原文
+     */
+    public static String readFile(String path) throws PolicyException {
         try {
-            File file = new File(path);
-            String content = FileUtils.readFileToString(file);
-            JSONObject respObj = new JSONObject(content);
-            return respObj.getJSONArray(KEY_DATA);
+            return FileUtils.readFileToString(new File(path));
         } catch (IOException e) {
             throw new PolicyException(String.format(PolicyException.ERR_POLICY_CONFIG_FILE_READ_FAILED, path), e);
+        }
+    }
+
+    public static JSONArray parseFromFile(String path, String content) throws PolicyException {
+        try {
+            JSONObject respObj = new JSONObject(content);
+            return respObj.getJSONArray(KEY_DATA);
         } catch (JSONException e) {
             throw new PolicyException(String.format(PolicyException.ERR_POLICY_CONFIG_FILE_INVALID, path), e);
         }
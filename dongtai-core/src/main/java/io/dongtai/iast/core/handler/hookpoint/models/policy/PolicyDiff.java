@@ -0,0 +1,114 @@
+package io.dongtai.iast.core.handler.hookpoint.models.policy;
+
+import java.util.*;
+
+/**
+ * 新旧策略的差异
+ * <p>
+ * 插桩时写入字节码的只有策略节点的 key（类型 + 方法签名）以及 inherit、ignore_internal、ignore_blacklist，
+ * 污点位置、标签、漏洞类型等在运行时按 key 从当前策略中查找。因此只有新增、删除的节点和这几个属性变化的节点
+ * 需要重新转换对应的类，其他内容的变化在替换策略后立即生效。
+ */
+public class PolicyDiff {
+    private final List<PolicyNode> added = new ArrayList<PolicyNode>();
+    private final List<PolicyNode> removed = new ArrayList<PolicyNode>();
+    private final List<PolicyNode> changed = new ArrayList<PolicyNode>();
+    /**
+     * 需要重新转换的类：本身命中变化节点的类名，以及祖先命中变化节点的类名
+     */
+    private final Set<String> classHooks = new HashSet<String>();
+    private final Set<String> ancestorClassHooks = new HashSet<String>();
+
+    public static PolicyDiff diff(Policy oldPolicy, Policy newPolicy) {
+        Map<String, PolicyNode> oldNodes = oldPolicy == null
+                ? Collections.<String, PolicyNode>emptyMap() : oldPolicy.getPolicyNodesMap();
+        Map<String, PolicyNode> newNodes = newPolicy == null
+                ? Collections.<String, PolicyNode>emptyMap() : newPolicy.getPolicyNodesMap();
+
+        PolicyDiff diff = new PolicyDiff();
+        for (Map.Entry<String, PolicyNode> entry : newNodes.entrySet()) {
+            PolicyNode oldNode = oldNodes.get(entry.getKey());
+            PolicyNode newNode = entry.getValue();
+            if (oldNode == null) {
+                diff.added.add(newNode);
+                diff.addHooks(newNode);
+            } else if (isHookChanged(oldNode, newNode)) {
+                diff.changed.add(newNode);
+                diff.addHooks(oldNode);
+                diff.addHooks(newNode);
+            }
+        }
+        for (Map.Entry<String, PolicyNode> entry : oldNodes.entrySet()) {
+            if (!newNodes.containsKey(entry.getKey())) {
+                diff.removed.add(entry.getValue());
+                diff.addHooks(entry.getValue());
+            }
+        }
+        return diff;
+    }
+
+    private static boolean isHookChanged(PolicyNode oldNode, PolicyNode newNode) {
+        return oldNode.getInheritable() != newNode.getInheritable()
+                || oldNode.isIgnoreInternal() != newNode.isIgnoreInternal()
+                || oldNode.isIgnoreBlacklist() != newNode.isIgnoreBlacklist();
+    }
+
+    private void addHooks(PolicyNode node) {
+        if (!(node.getMethodMatcher() instanceof SignatureMethodMatcher)) {
+            return;
+        }
+        String className = ((SignatureMethodMatcher) node.getMethodMatcher()).getSignature().getClassName();
+        Inheritable inheritable = node.getInheritable();
+        if (Inheritable.ALL.equals(inheritable) || Inheritable.SELF.equals(inheritable)) {
+            this.classHooks.add(className);
+        }
+        if (Inheritable.ALL.equals(inheritable) || Inheritable.SUBCLASS.equals(inheritable)) {
+            this.ancestorClassHooks.add(className);
+        }
+    }
+
+    /**
+     * 与 {@link Policy#getMatchedClass} 的匹配规则一致
+     *
+     * @param className .分隔的类名
+     * @param ancestors 类的祖先
+     * @return 类是否命中变化的策略节点，需要重新转换
+     */
+    public boolean isAffected(String className, Set<String> ancestors) {
+        if (this.classHooks.contains(className)) {
+            return true;
+        }
+        if (ancestors != null && !this.ancestorClassHooks.isEmpty()) {
+            for (String ancestor : ancestors) {
+                if (this.ancestorClassHooks.contains(ancestor)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 是否需要重新转换类
+     */
+    public boolean isEmpty() {
+        return this.added.isEmpty() && this.removed.isEmpty() && this.changed.isEmpty();
+    }
+
+    public List<PolicyNode> getAdded() {
+        return this.added;
+    }
+
+    public List<PolicyNode> getRemoved() {
+        return this.removed;
+    }
+
+    public List<PolicyNode> getChanged() {
+        return this.changed;
+    }
+
+    @Override
+    public String toString() {
+        return "added: " + this.added.size() + ", removed: " + this.removed.size() + ", changed: " + this.changed.size();
+    }
+}
@@ -1,17 +1,31 @@
 package io.dongtai.iast.core.handler.hookpoint.models.policy;
 
+import io.dongtai.iast.core.bytecode.TransformCache;
 import io.dongtai.iast.core.bytecode.enhance.plugin.framework.dubbo.DispatchDubbo;
 import io.dongtai.iast.core.bytecode.enhance.plugin.framework.feign.DispatchFeign;
 import io.dongtai.iast.core.bytecode.enhance.plugin.framework.j2ee.dispatch.DispatchJ2ee;
 import io.dongtai.iast.common.string.StringUtils;
+import io.dongtai.iast.core.utils.PropertyUtils;
 import io.dongtai.log.DongTaiLog;
 import io.dongtai.log.ErrorCode;
 import org.json.JSONArray;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public class PolicyManager {
-    private Policy policy;
+    private static final String SNAPSHOT_PREFIX = "policy-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    /**
+     * 其他策略版本的快照超过该时间没有更新时清理
+     */
+    static final long SNAPSHOT_MAX_IDLE_MILLIS = TimeUnit.DAYS.toMillis(7);
+    /**
+     * 热加载时由其他线程整体替换，策略和版本总是成对读取
+     */
+    private volatile PolicyHolder current = new PolicyHolder(null, null);
     /**
      * hook class names for no policy
      */
@@ -41,27 +55,136 @@ public class PolicyManager {
     private static final Set<String> HOOK_CLASS_SUFFIX_NAMES = new HashSet<String>();
 
     public Policy getPolicy() {
-        return this.policy;
+        return this.current.policy;
     }
 
+    /**
+     * 直接设置的策略没有版本，不使用字节码转换缓存
+     */
     public void setPolicy(Policy policy) {
-        this.policy = policy;
+        this.current = new PolicyHolder(policy, null);
+    }
+
+    /**
+     * 策略内容的摘要，策略变化后字节码转换缓存随之失效
+     */
+    public String getPolicyVersion() {
+        return this.current.version;
     }
 
     public void loadPolicy(String policyPath) {
         try {
-            JSONArray policyConfig;
-            if (StringUtils.isEmpty(policyPath)) {
-                policyConfig = PolicyBuilder.fetchFromServer();
+            String content = fetchPolicyContent(policyPath);
+            String version = TransformCache.sha1Hex(content.getBytes(StandardCharsets.UTF_8));
+            File snapshot = getSnapshotFile(version);
+            Policy loaded = snapshot == null ? null : PolicySnapshot.read(snapshot, version);
+            if (loaded == null) {
+                loaded = PolicyBuilder.build(parsePolicyContent(policyPath, content));
+                if (snapshot != null) {
+                    writeSnapshot(snapshot, version, loaded);
+                }
             } else {
-                policyConfig = PolicyBuilder.fetchFromFile(policyPath);
+                DongTaiLog.debug("load policy from snapshot {}", snapshot);
             }
-            this.policy = PolicyBuilder.build(policyConfig);
+            this.current = new PolicyHolder(loaded, version);
         } catch (Throwable e) {
             DongTaiLog.error(ErrorCode.get("POLICY_LOAD_FAILED"), e);
         }
     }
 
+    /**
+     * 重新加载策略并替换当前策略，替换后新转换的类和已插桩的 hook 点使用新策略
+     *
+     * @param policyPath 策略文件路径，为空时从服务端获取
+     * @return 新旧策略的差异，策略没有变化时差异为空，加载失败时返回 null 并保留原策略
+     */
+    public synchronized PolicyDiff reloadPolicy(String policyPath) {
+        try {
+            String content = fetchPolicyContent(policyPath);
+            String newVersion = TransformCache.sha1Hex(content.getBytes(StandardCharsets.UTF_8));
+            PolicyHolder prev = this.current;
+            if (newVersion.equals(prev.version)) {
+                return new PolicyDiff();
+            }
+            Policy newPolicy = PolicyBuilder.build(parsePolicyContent(policyPath, content));
+            File snapshot = getSnapshotFile(newVersion);
+            if (snapshot != null) {
+                writeSnapshot(snapshot, newVersion, newPolicy);
+            }
+            PolicyDiff diff = PolicyDiff.diff(prev.policy, newPolicy);
+            this.current = new PolicyHolder(newPolicy, newVersion);
+            return diff;
+        } catch (Throwable e) {
+            DongTaiLog.error(ErrorCode.get("POLICY_LOAD_FAILED"), e);
+            return null;
+        }
+    }
+
+    /**
+     * 策略原文，策略版本是原文的摘要，快照命中时不需要解析
+     */
+    private static String fetchPolicyContent(String policyPath) throws PolicyException {
+        if (StringUtils.isEmpty(policyPath)) {
+            return PolicyBuilder.requestServer();
+        }
+        return PolicyBuilder.readFile(policyPath);
+    }
+
+    private static JSONArray parsePolicyContent(String policyPath, String content) throws PolicyException {
+        if (StringUtils.isEmpty(policyPath)) {
+            return PolicyBuilder.parseFromServer(content);
+        }
+        return PolicyBuilder.parseFromFile(policyPath, content);
+    }
+
+    /**
+     * 快照按策略内容的摘要命名，使用不同策略的 JVM 共用临时目录时互不覆盖
+     *
+     * @return 未开启或临时目录不可用时返回 null
+     */
+    static File getSnapshotFile(String version) {
+        PropertyUtils cfg = PropertyUtils.getInstance();
+        String tmpDir = PropertyUtils.getTmpDir();
+        if (cfg == null || tmpDir == null || !cfg.isPolicySnapshotEnable()) {
+            return null;
+        }
+        return new File(tmpDir, SNAPSHOT_PREFIX + version + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * 写入快照，同时清理长时间没有更新的其他版本的快照和临时文件
+     */
+    private static void writeSnapshot(File snapshot, String version, Policy policy) {
+        PolicySnapshot.write(snapshot, version, policy);
+        File[] files = snapshot.getAbsoluteFile().getParentFile().listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            String name = file.getName();
+            // 进程异常退出时可能留下临时文件
+            boolean isSnapshot = name.endsWith(SNAPSHOT_SUFFIX) || name.endsWith(".tmp");
+            if (name.startsWith(SNAPSHOT_PREFIX) && isSnapshot && !file.equals(snapshot)
+                    && now - file.lastModified() > SNAPSHOT_MAX_IDLE_MILLIS) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * 策略和对应的版本，一次发布
+     */
+    private static class PolicyHolder {
+        private final Policy policy;
+        private final String version;
+
+        PolicyHolder(Policy policy, String version) {
+            this.policy = policy;
+            this.version = version;
+        }
+    }
+
     public boolean isHookClass(String className) {
         return HOOK_CLASS_NAMES.contains(className) || hookBySuffix(className);
     }
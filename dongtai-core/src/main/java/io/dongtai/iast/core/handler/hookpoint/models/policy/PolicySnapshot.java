@@ -0,0 +1,336 @@
+package io.dongtai.iast.core.handler.hookpoint.models.policy;
+
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintCommand;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintCommandRunner;
+import io.dongtai.log.DongTaiLog;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * 构建好的策略的二进制快照，下次启动时策略内容没有变化就直接读取，不再解析 JSON 和方法签名
+ * <p>
+ * 文件格式：
+ * <pre>
+ * magic, version, 策略内容摘要
+ * 字符串表：类名、方法名、参数类型、污点位置、标签等去重后的字符串，读取时每个字符串只创建一次
+ * 节点：按 source、propagator、sink、validator 的顺序，签名已拆分为类名、方法名、参数的字符串表下标
+ * </pre>
+ * 读取时按原来的顺序重新加入 {@link Policy}，类名和方法索引与 JSON 构建的结果一致
+ */
+public class PolicySnapshot {
+    private static final int MAGIC = 0x44545053;
+    private static final int FORMAT_VERSION = 1;
+    private static final int NONE = -1;
+
+    private static final int FLAG_IGNORE_INTERNAL = 1;
+    private static final int FLAG_IGNORE_BLACKLIST = 1 << 1;
+
+    private static final Inheritable[] INHERITABLES = Inheritable.values();
+    private static final TaintCommand[] COMMANDS = TaintCommand.values();
+
+    /**
+     * 写入快照，先在同一目录下写唯一的临时文件再原子替换，多个 JVM 同时写入时不会读到不完整的快照
+     *
+     * @param file        快照文件
+     * @param contentHash 策略内容摘要
+     * @param policy      构建好的策略
+     * @return 是否写入成功
+     */
+    public static boolean write(File file, String contentHash, Policy policy) {
+        File tmp = null;
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                return false;
+            }
+            tmp = File.createTempFile(file.getName(), ".tmp", dir);
+            Writer writer = new Writer();
+            writer.writeNodes(policy.getSources());
+            writer.writeNodes(policy.getPropagators());
+            writer.writeNodes(policy.getSinks());
+            writer.writeNodes(policy.getValidators());
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, contentHash);
+                out.writeInt(writer.strings.size());
+                for (String s : writer.strings) {
+                    writeString(out, s);
+                }
+                writer.writeNodesTo(out);
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (Throwable e) {
+            DongTaiLog.debug("write policy snapshot failed: {}", e.getMessage());
+            if (tmp != null) {
+                tmp.delete();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 读取快照
+     *
+     * @param file        快照文件
+     * @param contentHash 当前策略内容的摘要
+     * @return 快照不存在、已损坏或与策略内容不一致时返回 null
+     */
+    public static Policy read(File file, String contentHash) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            // 快照只有几百 KB，整体读入堆内，不持有文件映射
+            return read(ByteBuffer.wrap(Files.readAllBytes(file.toPath())), contentHash);
+        } catch (Throwable e) {
+            DongTaiLog.debug("read policy snapshot failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    static Policy read(ByteBuffer buf, String contentHash) {
+        try {
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION || !contentHash.equals(readString(buf))) {
+                return null;
+            }
+            String[] strings = new String[buf.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buf);
+            }
+            Reader reader = new Reader(buf, strings);
+            Policy policy = new Policy();
+            int count = buf.getInt();
+            for (int i = 0; i < count; i++) {
+                reader.readNode(policy);
+            }
+            return buf.hasRemaining() ? null : policy;
+        } catch (BufferUnderflowException e) {
+            return null;
+        } catch (IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Writer {
+        private final List<String> strings = new ArrayList<String>();
+        private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+        private final ByteArrayOutputStream nodeBytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(nodeBytes);
+        private int nodeCount;
+
+        void writeNodesTo(DataOutputStream target) throws IOException {
+            this.out.flush();
+            target.writeInt(this.nodeCount);
+            this.nodeBytes.writeTo(target);
+        }
+
+        void writeNodes(List<? extends PolicyNode> policyNodes) throws IOException {
+            for (PolicyNode node : policyNodes) {
+                if (!(node.getMethodMatcher() instanceof SignatureMethodMatcher)) {
+                    continue;
+                }
+                writeNode(node);
+                this.nodeCount++;
+            }
+        }
+
+        private void writeNode(PolicyNode node) throws IOException {
+            Signature signature = ((SignatureMethodMatcher) node.getMethodMatcher()).getSignature();
+            out.writeByte(node.getType().getType());
+            out.writeInt(index(signature.getClassName()));
+            out.writeInt(index(signature.getMethodName()));
+            writeStrings(signature.getParameters());
+            out.writeByte(node.getInheritable() == null ? NONE : node.getInheritable().ordinal());
+            out.writeByte((node.isIgnoreInternal() ? FLAG_IGNORE_INTERNAL : 0)
+                    | (node.isIgnoreBlacklist() ? FLAG_IGNORE_BLACKLIST : 0));
+
+            if (node instanceof SourceNode) {
+                SourceNode source = (SourceNode) node;
+                writePositions(source.getSources());
+                writePositions(source.getTargets());
+                writeStrings(source.getTags());
+            } else if (node instanceof PropagatorNode) {
+                PropagatorNode propagator = (PropagatorNode) node;
+                writePositions(propagator.getSources());
+                writePositions(propagator.getTargets());
+                writeStrings(propagator.getTags());
+                writeStrings(propagator.getUntags());
+                TaintCommandRunner runner = propagator.getCommandRunner();
+                if (runner == null || runner.getCommand() == null) {
+                    out.writeByte(NONE);
+                } else {
+                    out.writeByte(runner.getCommand().ordinal());
+                    writeStrings(runner.getOrigParams().toArray(new String[0]));
+                }
+            } else if (node instanceof SinkNode) {
+                SinkNode sink = (SinkNode) node;
+                writePositions(sink.getSources());
+                out.writeInt(sink.getVulType() == null ? NONE : index(sink.getVulType()));
+                writeStrings(sink.getStackDenyList());
+            } else if (node instanceof ValidatorNode) {
+                ValidatorNode validator = (ValidatorNode) node;
+                writePositions(validator.getSources());
+                writeStrings(validator.getTags());
+            }
+        }
+
+        private void writePositions(Set<TaintPosition> positions) throws IOException {
+            if (positions == null) {
+                out.writeInt(NONE);
+                return;
+            }
+            out.writeInt(positions.size());
+            for (TaintPosition position : positions) {
+                out.writeInt(index(position.toString()));
+            }
+        }
+
+        private void writeStrings(String[] values) throws IOException {
+            if (values == null) {
+                out.writeInt(NONE);
+                return;
+            }
+            out.writeInt(values.length);
+            for (String value : values) {
+                out.writeInt(index(value));
+            }
+        }
+
+        private int index(String s) {
+            Integer idx = this.stringIndex.get(s);
+            if (idx == null) {
+                idx = this.strings.size();
+                this.strings.add(s);
+                this.stringIndex.put(s, idx);
+            }
+            return idx;
+        }
+    }
+
+    private static class Reader {
+        private final ByteBuffer buf;
+        private final String[] strings;
+        /**
+         * 相同的污点位置共享同一个对象
+         */
+        private final Map<String, TaintPosition> positions = new HashMap<String, TaintPosition>();
+
+        Reader(ByteBuffer buf, String[] strings) {
+            this.buf = buf;
+            this.strings = strings;
+        }
+
+        void readNode(Policy policy) {
+            PolicyNodeType type = PolicyNodeType.get((int) buf.get());
+            String className = strings[buf.getInt()];
+            String methodName = strings[buf.getInt()];
+            String[] parameters = readStrings();
+            Signature signature = new Signature(className, methodName,
+                    parameters == null ? new String[0] : parameters);
+            MethodMatcher methodMatcher = new SignatureMethodMatcher(signature);
+            int inheritable = buf.get();
+            int flags = buf.get();
+
+            PolicyNode node;
+            if (PolicyNodeType.SOURCE.equals(type)) {
+                SourceNode source = new SourceNode(readPositions(), readPositions(), methodMatcher);
+                source.setTags(readStrings());
+                node = source;
+            } else if (PolicyNodeType.PROPAGATOR.equals(type)) {
+                PropagatorNode propagator = new PropagatorNode(readPositions(), readPositions(), methodMatcher);
+                propagator.setTags(readStrings());
+                propagator.setUntags(readStrings());
+                int command = buf.get();
+                if (command != NONE) {
+                    propagator.setCommandRunner(TaintCommandRunner.create(signature.toString(),
+                            COMMANDS[command], readStrings()));
+                }
+                node = propagator;
+            } else if (PolicyNodeType.SINK.equals(type)) {
+                SinkNode sink = new SinkNode(readPositions(), methodMatcher);
+                int vulType = buf.getInt();
+                sink.setVulType(vulType == NONE ? null : strings[vulType]);
+                sink.setStackDenyList(readStrings());
+                node = sink;
+            } else if (PolicyNodeType.VALIDATOR.equals(type)) {
+                ValidatorNode validator = new ValidatorNode(readPositions(), methodMatcher);
+                validator.setTags(readStrings());
+                node = validator;
+            } else {
+                throw new IndexOutOfBoundsException("invalid policy node type");
+            }
+            node.setInheritable(inheritable == NONE ? null : INHERITABLES[inheritable]);
+            node.setIgnoreInternal((flags & FLAG_IGNORE_INTERNAL) != 0);
+            node.setIgnoreBlacklist((flags & FLAG_IGNORE_BLACKLIST) != 0);
+
+            if (node instanceof SourceNode) {
+                policy.addSource((SourceNode) node);
+            } else if (node instanceof PropagatorNode) {
+                policy.addPropagator((PropagatorNode) node);
+            } else if (node instanceof SinkNode) {
+                policy.addSink((SinkNode) node);
+            } else {
+                policy.addValidator((ValidatorNode) node);
+            }
+        }
+
+        private Set<TaintPosition> readPositions() {
+            int count = buf.getInt();
+            if (count == NONE) {
+                return null;
+            }
+            Set<TaintPosition> set = new HashSet<TaintPosition>();
+            for (int i = 0; i < count; i++) {
+                String value = strings[buf.getInt()];
+                TaintPosition position = this.positions.get(value);
+                if (position == null) {
+                    position = new TaintPosition(value);
+                    this.positions.put(value, position);
+                }
+                set.add(position);
+            }
+            return set;
+        }
+
+        private String[] readStrings() {
+            int count = buf.getInt();
+            if (count == NONE) {
+                return null;
+            }
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = strings[buf.getInt()];
+            }
+            return values;
+        }
+    }
+}
@@ -5,8 +5,12 @@ import com.alibaba.fastjson2.JSONObject;
 import io.dongtai.iast.common.constants.*;
 import io.dongtai.iast.common.utils.base64.Base64Encoder;
 import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.graphy.ChainFingerprintCache;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
 import io.dongtai.iast.core.handler.hookpoint.vulscan.IVulScan;
+import io.dongtai.iast.core.handler.metrics.AgentMetrics;
 import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.PropertyUtils;
 import io.dongtai.iast.core.utils.StackUtils;
 
 
@@ -17,12 +21,91 @@ import java.util.Map;
  * @author dongzhiyong@huoxian.cn
  */
 public abstract class AbstractNormalVulScan implements IVulScan {
+    private static final int DEDUP_MAX_ENTRIES = 4096;
+    private static final long DEDUP_SEED = 1125899906842597L;
+
+    /**
+     * 关闭去重时缓存的占位对象，之后的命中不再读取配置和加锁
+     */
+    private static final ChainFingerprintCache DISABLED = new ChainFingerprintCache(1, 0L);
+
+    /**
+     * 多个请求线程同时检测时由第一个线程创建
+     */
+    private static volatile ChainFingerprintCache dedupCache;
+
+    static ChainFingerprintCache getDedupCache() {
+        ChainFingerprintCache cache = dedupCache;
+        if (cache == null) {
+            cache = createDedupCache();
+        }
+        return cache == DISABLED ? null : cache;
+    }
+
+    private static ChainFingerprintCache createDedupCache() {
+        PropertyUtils cfg = PropertyUtils.getInstance();
+        if (cfg == null) {
+            return null;
+        }
+        synchronized (AbstractNormalVulScan.class) {
+            if (dedupCache == null) {
+                if (!cfg.isReportNormalDedupEnable()) {
+                    dedupCache = DISABLED;
+                } else {
+                    dedupCache = new ChainFingerprintCache(DEDUP_MAX_ENTRIES,
+                            cfg.getReportNormalDedupWindow() * 1000L);
+                }
+            }
+            return dedupCache;
+        }
+    }
+
+    static void clearDedupCache() {
+        dedupCache = null;
+    }
+
+    /**
+     * 同一类漏洞在同一个应用调用位置的命中，在时间窗口内只上报一次，需要在获取调用栈之前判断。
+     * 调用栈中没有应用的类时按 hook 的方法区分
+     *
+     * @param vulType vulnerability
+     * @param event   current method event
+     * @return 是否已经上报过
+     */
+    protected boolean isDuplicate(String vulType, MethodEvent event) {
+        ChainFingerprintCache cache = getDedupCache();
+        if (cache == null) {
+            return false;
+        }
+        String callSite = getCallSite();
+        if (callSite == null) {
+            callSite = event.signature;
+        }
+        long fingerprint = ChainFingerprintCache.mix(
+                ChainFingerprintCache.hash(ChainFingerprintCache.hash(DEDUP_SEED, vulType), callSite));
+        if (cache.observe(fingerprint, System.currentTimeMillis())) {
+            return false;
+        }
+        AgentMetrics.REPORT_DEDUPED.increment();
+        return true;
+    }
+
+    /**
+     * @return 第一个应用的调用位置
+     */
+    protected String getCallSite() {
+        return StackUtils.getApplicationFrame();
+    }
 
     /**
      * @param stacks  Method Call Stack
      * @param vulType vulnerability
      */
     public void sendReport(StackTraceElement[] stacks, String vulType) {
+        ThreadPools.sendPriorityReport(ApiPath.REPORT_UPLOAD, buildReport(stacks, vulType));
+    }
+
+    protected String buildReport(StackTraceElement[] stacks, String vulType) {
         Map<String, Object> requestMeta = EngineManager.REQUEST_CONTEXT.get();
         JSONObject report = new JSONObject();
         JSONObject detail = new JSONObject();
@@ -53,7 +136,7 @@ public abstract class AbstractNormalVulScan implements IVulScan {
         for (StackTraceElement element : stacks) {
             vulStacks.add(element.toString());
         }
-        ThreadPools.sendPriorityReport(ApiPath.REPORT_UPLOAD, report.toString());
+        return report.toString();
     }
 
     protected StackTraceElement[] getLatestStack() {
@@ -33,6 +33,9 @@ public class CookieFlagsMissingVulScan extends AbstractNormalVulScan {
                 if (flag) {
                     continue;
                 }
+                if (isDuplicate(sinkNode.getVulType(), event)) {
+                    return;
+                }
                 sendReport(getLatestStack(), sinkNode.getVulType());
                 break;
             } catch (Throwable e) {
@@ -40,6 +40,9 @@ public class CryptoBacCiphersVulScan extends AbstractNormalVulScan {
                 if (matcher.find()) {
                     continue;
                 }
+                if (isDuplicate(sinkNode.getVulType(), event)) {
+                    return;
+                }
                 sendReport(getLatestStack(), sinkNode.getVulType());
                 break;
             } catch (Throwable e) {
@@ -21,6 +21,9 @@ public class CryptoWeakRandomnessVulScan extends AbstractNormalVulScan {
         if (event.objectInstance != null && SECURE_RANDOM.equals(event.objectInstance.getClass().getName())) {
             return;
         }
+        if (isDuplicate(sinkNode.getVulType(), event)) {
+            return;
+        }
         sendReport(getLatestStack(), sinkNode.getVulType());
     }
 }
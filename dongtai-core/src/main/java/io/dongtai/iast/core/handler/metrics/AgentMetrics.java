@@ -0,0 +1,128 @@
+package io.dongtai.iast.core.handler.metrics;
+
+import com.alibaba.fastjson2.JSONObject;
+import io.dongtai.iast.core.replay.ReplayEngine;
+import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.PropertyUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * agent 自身的运行指标，随心跳上报，也可以通过 attach 的 dump 命令导出到本地
+ * <ul>
+ * <li>hooks：各类 hook 点进入 agent 处理的次数</li>
+ * <li>spyEntry：收集 HTTP、Dubbo、Kafka 请求入口的耗时</li>
+ * <li>spyMethod：处理 source、propagator、sink、validator 方法调用的耗时</li>
+ * <li>spyLeave：离开请求入口的耗时，包括构建并提交报告</li>
+ * <li>graphBuild：构建并提交方法池报告的耗时</li>
+ * <li>report：上报队列长度、被丢弃的报告数量、去重后没有上报的重复方法池和漏洞数量、上报耗时</li>
+ * <li>replay：重放请求的排队、执行、丢弃数量和当前退避时间，重放引擎未启动时没有</li>
+ * <li>latencySample：spy 耗时的采样间隔</li>
+ * </ul>
+ * hooks 计数每次都记录；spy 相关耗时每 latencySample 次调用才计时一次，直方图里的 count 是采样后的次数。
+ * spyMethod 只记录真正进入 source、propagator、sink、validator 处理的调用
+ */
+public class AgentMetrics {
+    public enum Hook {
+        HTTP("http"),
+        DUBBO("dubbo"),
+        KAFKA("kafka"),
+        GRPC("grpc"),
+        SOURCE("source"),
+        PROPAGATOR("propagator"),
+        SINK("sink"),
+        VALIDATOR("validator"),
+        ;
+
+        private final String name;
+
+        Hook(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+    }
+
+    private static final Hook[] HOOK_TYPES = Hook.values();
+    private static final StripedCounter[] HOOKS = new StripedCounter[HOOK_TYPES.length];
+
+    static {
+        for (int i = 0; i < HOOKS.length; i++) {
+            HOOKS[i] = new StripedCounter();
+        }
+    }
+
+    public static final LatencyHistogram SPY_ENTRY = new LatencyHistogram();
+    public static final LatencyHistogram SPY_METHOD = new LatencyHistogram();
+    public static final LatencyHistogram SPY_LEAVE = new LatencyHistogram();
+    public static final LatencyHistogram GRAPH_BUILD = new LatencyHistogram();
+    public static final LatencyHistogram REPORT_UPLOAD = new LatencyHistogram();
+    public static final StripedCounter REPORT_DROPPED = new StripedCounter();
+    public static final StripedCounter REPORT_DEDUPED = new StripedCounter();
+
+    private static volatile int latencySample = PropertyUtils.DEFAULT_METRICS_LATENCY_SAMPLE;
+
+    public static void setLatencySample(int sample) {
+        latencySample = sample > 0 ? sample : PropertyUtils.DEFAULT_METRICS_LATENCY_SAMPLE;
+    }
+
+    /**
+     * 按采样间隔开始计时
+     *
+     * @return 被采样时返回当前的 nanoTime，否则返回 0
+     */
+    public static long startTimer() {
+        int sample = latencySample;
+        if (sample > 1 && ThreadLocalRandom.current().nextInt(sample) != 0) {
+            return 0L;
+        }
+        // nanoTime 恰好为 0 时只是少记一次
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束 {@link #startTimer()} 开始的计时，未被采样时不做任何事
+     */
+    public static void stopTimer(LatencyHistogram histogram, long start) {
+        if (start != 0L) {
+            histogram.recordSince(start);
+        }
+    }
+
+    public static void hook(Hook hook) {
+        HOOKS[hook.ordinal()].increment();
+    }
+
+    public static long getHookCount(Hook hook) {
+        return HOOKS[hook.ordinal()].sum();
+    }
+
+    public static JSONObject snapshot() {
+        JSONObject hooks = new JSONObject();
+        for (Hook hook : HOOK_TYPES) {
+            hooks.put(hook.getName(), HOOKS[hook.ordinal()].sum());
+        }
+
+        JSONObject report = new JSONObject();
+        report.put("queue", ThreadPools.getReportQueueSize());
+        report.put("dropped", REPORT_DROPPED.sum());
+        report.put("deduped", REPORT_DEDUPED.sum());
+        report.put("upload", REPORT_UPLOAD.snapshot());
+
+        JSONObject metrics = new JSONObject();
+        metrics.put("hooks", hooks);
+        metrics.put("spyEntry", SPY_ENTRY.snapshot());
+        metrics.put("spyMethod", SPY_METHOD.snapshot());
+        metrics.put("spyLeave", SPY_LEAVE.snapshot());
+        metrics.put("graphBuild", GRAPH_BUILD.snapshot());
+        metrics.put("report", report);
+        JSONObject replay = ReplayEngine.metrics();
+        if (replay != null) {
+            metrics.put("replay", replay);
+        }
+        metrics.put("latencySample", latencySample);
+        return metrics;
+    }
+}
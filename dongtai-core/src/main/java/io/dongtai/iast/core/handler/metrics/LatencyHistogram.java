@@ -0,0 +1,98 @@
+package io.dongtai.iast.core.handler.metrics;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定分桶的耗时直方图（纳秒）
+ * <p>
+ * 第 i 个桶（i &gt; 0）记录 [2^(i-1), 2^i) 纳秒的次数，0 号桶记录 0 纳秒，最后一个桶包括更长的耗时。
+ * 与 {@link StripedCounter} 一样按线程分段，每段是一组桶加上总耗时，记录时不分配对象。
+ * 分位数按桶的上界估算，误差在 2 倍以内
+ */
+public class LatencyHistogram {
+    /**
+     * 2^39 纳秒约 9 分钟
+     */
+    static final int BUCKETS = 40;
+    private static final int SUM = BUCKETS;
+    /**
+     * 每段占用的 long 数量，按 {@link StripedCounter#PADDING} 对齐
+     */
+    private static final int STRIDE = (BUCKETS + 1 + StripedCounter.PADDING - 1)
+            / StripedCounter.PADDING * StripedCounter.PADDING;
+
+    private final AtomicLongArray cells = new AtomicLongArray(StripedCounter.STRIPES * STRIDE);
+
+    static int bucket(long nanos) {
+        // 负数只会在计时出错时出现，计入 0 号桶
+        if (nanos <= 0) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(nanos);
+        return bucket < BUCKETS ? bucket : BUCKETS - 1;
+    }
+
+    /**
+     * 桶的上界（纳秒）
+     */
+    static long upperBound(int bucket) {
+        return 1L << bucket;
+    }
+
+    public void record(long nanos) {
+        int base = StripedCounter.stripe() * STRIDE;
+        this.cells.getAndIncrement(base + bucket(nanos));
+        this.cells.getAndAdd(base + SUM, nanos);
+    }
+
+    /**
+     * 记录从 startNanos 到现在的耗时
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return count、avgNs、p50Ns、p90Ns、p99Ns、maxNs
+     */
+    public JSONObject snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        for (int i = 0; i < StripedCounter.STRIPES; i++) {
+            int base = i * STRIDE;
+            for (int b = 0; b < BUCKETS; b++) {
+                long c = this.cells.get(base + b);
+                counts[b] += c;
+                count += c;
+            }
+            sum += this.cells.get(base + SUM);
+        }
+
+        JSONObject snapshot = new JSONObject();
+        snapshot.put("count", count);
+        snapshot.put("avgNs", count == 0 ? 0 : sum / count);
+        snapshot.put("p50Ns", percentile(counts, count, 0.5));
+        snapshot.put("p90Ns", percentile(counts, count, 0.9));
+        snapshot.put("p99Ns", percentile(counts, count, 0.99));
+        snapshot.put("maxNs", percentile(counts, count, 1));
+        return snapshot;
+    }
+
+    private static long percentile(long[] counts, long count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank && counts[b] > 0) {
+                return upperBound(b);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+}
@@ -0,0 +1,51 @@
+package io.dongtai.iast.core.handler.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段计数器
+ * <p>
+ * 按线程 id 分散到多个计数槽，每个槽独占一个缓存行，多线程同时计数时不会竞争同一个变量。
+ * 计数时不分配对象，读取时把所有槽相加
+ */
+public class StripedCounter {
+    /**
+     * 每个槽占用的 long 数量，128 字节，避免相邻的槽在同一个缓存行（包括相邻行预取）
+     */
+    static final int PADDING = 16;
+    static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+    private static final int MASK = STRIPES - 1;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    /**
+     * @return 不小于处理器数量两倍的 2 的幂，最多 64
+     */
+    static int stripes(int processors) {
+        int n = Integer.highestOneBit(Math.max(1, processors * 2 - 1)) << 1;
+        return Math.min(64, n);
+    }
+
+    /**
+     * 当前线程使用的槽
+     */
+    static int stripe() {
+        return (int) Thread.currentThread().getId() & MASK;
+    }
+
+    public void increment() {
+        this.cells.getAndIncrement(stripe() * PADDING);
+    }
+
+    public void add(long value) {
+        this.cells.getAndAdd(stripe() * PADDING, value);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += this.cells.get(i * PADDING);
+        }
+        return sum;
+    }
+}
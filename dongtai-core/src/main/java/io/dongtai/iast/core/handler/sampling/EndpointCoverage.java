@@ -0,0 +1,63 @@
+package io.dongtai.iast.core.handler.sampling;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个接口（请求方法 + 归一化后的 URI 模板）的覆盖情况
+ */
+public class EndpointCoverage {
+    static final int MAX_SHAPES = 64;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong analyzed = new AtomicLong();
+    private final AtomicLong lastAnalyzedHit = new AtomicLong();
+    private final Set<Integer> shapes = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    /**
+     * 判断本次命中是否需要完整分析
+     * <ul>
+     *     <li>前 warmup 次命中全部分析</li>
+     *     <li>出现新的参数形态时分析</li>
+     *     <li>之后分析间隔随命中次数增长（hits / warmup），最大不超过 maxInterval</li>
+     * </ul>
+     */
+    boolean sample(int shape, int warmup, int maxInterval) {
+        long hit = this.hits.incrementAndGet();
+        boolean newShape = this.shapes.size() < MAX_SHAPES && this.shapes.add(shape);
+        if (hit <= warmup || newShape) {
+            markAnalyzed(hit);
+            return true;
+        }
+
+        long interval = Math.min(maxInterval, Math.max(1, hit / warmup));
+        long last = this.lastAnalyzedHit.get();
+        if (hit - last >= interval && this.lastAnalyzedHit.compareAndSet(last, hit)) {
+            this.analyzed.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void markAnalyzed(long hit) {
+        this.analyzed.incrementAndGet();
+        long last;
+        do {
+            last = this.lastAnalyzedHit.get();
+        } while (last < hit && !this.lastAnalyzedHit.compareAndSet(last, hit));
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getAnalyzed() {
+        return this.analyzed.get();
+    }
+
+    public int getShapeCount() {
+        return this.shapes.size();
+    }
+}
@@ -0,0 +1,202 @@
+package io.dongtai.iast.core.handler.sampling;
+
+import com.alibaba.fastjson2.JSONObject;
+import io.dongtai.iast.core.utils.PropertyUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于接口覆盖情况的请求采样
+ * <p>
+ * 在 {@link io.dongtai.iast.core.EngineManager#enterHttpEntry(Map)} 处决定本次请求是否进行污点分析，
+ * 未被采样的请求不会进入 HTTP_ENTRY 作用域，因此会跳过全部的污点跟踪与上报；trace id 仍然会解析并传递给下游服务
+ */
+public class RequestSampler {
+    static final int MAX_ENDPOINTS = 10000;
+    static final String ID_PLACEHOLDER = "{id}";
+
+    /**
+     * 配置未加载时使用，不采样也不记录状态
+     */
+    private static final RequestSampler DISABLED = new RequestSampler(false, PropertyUtils.DEFAULT_SAMPLING_WARMUP,
+            PropertyUtils.DEFAULT_SAMPLING_MAX_INTERVAL);
+    private static volatile RequestSampler instance;
+
+    private final boolean enabled;
+    private final int warmup;
+    private final int maxInterval;
+    private final ConcurrentMap<String, EndpointCoverage> endpoints = new ConcurrentHashMap<String, EndpointCoverage>();
+    private final EndpointCoverage overflow = new EndpointCoverage();
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public static RequestSampler getInstance() {
+        RequestSampler sampler = instance;
+        if (sampler != null) {
+            return sampler;
+        }
+        PropertyUtils cfg = PropertyUtils.getInstance();
+        if (cfg == null) {
+            return DISABLED;
+        }
+        synchronized (RequestSampler.class) {
+            if (instance == null) {
+                instance = new RequestSampler(cfg.isSamplingEnable(), cfg.getSamplingWarmup(),
+                        cfg.getSamplingMaxInterval());
+            }
+            return instance;
+        }
+    }
+
+    public RequestSampler(boolean enabled, int warmup, int maxInterval) {
+        this.enabled = enabled;
+        this.warmup = Math.max(1, warmup);
+        this.maxInterval = Math.max(1, maxInterval);
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean shouldAnalyze(Map<String, Object> requestMeta) {
+        if (!this.enabled || Boolean.TRUE.equals(requestMeta.get("replay-request"))) {
+            return true;
+        }
+
+        String key = requestMeta.get("method") + " " + normalizeUri((String) requestMeta.get("requestURI"));
+        Map<String, String> headers = (Map<String, String>) requestMeta.get("headers");
+        int shape = parameterShape((String) requestMeta.get("queryString"),
+                headers == null ? null : headers.get("Content-Type"));
+
+        EndpointCoverage coverage = this.endpoints.get(key);
+        if (coverage == null) {
+            if (this.endpoints.size() >= MAX_ENDPOINTS) {
+                // URI 模板数量异常（如未能归一化的路径参数），统一按一个接口进行衰减采样
+                coverage = this.overflow;
+            } else {
+                EndpointCoverage created = new EndpointCoverage();
+                coverage = this.endpoints.putIfAbsent(key, created);
+                if (coverage == null) {
+                    coverage = created;
+                }
+            }
+        }
+
+        if (coverage.sample(shape, this.warmup, this.maxInterval)) {
+            this.sampled.incrementAndGet();
+            return true;
+        }
+        this.skipped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 将 URI 中的路径参数（数字、UUID、长十六进制串等）替换为占位符，得到接口模板
+     */
+    static String normalizeUri(String uri) {
+        if (uri == null || uri.isEmpty()) {
+            return "/";
+        }
+        int semicolon = uri.indexOf(';');
+        if (semicolon >= 0) {
+            uri = uri.substring(0, semicolon);
+        }
+        StringBuilder sb = new StringBuilder(uri.length());
+        int start = 0;
+        int len = uri.length();
+        while (start <= len) {
+            int end = uri.indexOf('/', start);
+            if (end < 0) {
+                end = len;
+            }
+            if (isIdSegment(uri, start, end)) {
+                sb.append(ID_PLACEHOLDER);
+            } else {
+                sb.append(uri, start, end);
+            }
+            if (end < len) {
+                sb.append('/');
+            }
+            start = end + 1;
+        }
+        return sb.toString();
+    }
+
+    private static boolean isIdSegment(String uri, int start, int end) {
+        int len = end - start;
+        if (len == 0) {
+            return false;
+        }
+        boolean allDigits = true;
+        boolean allHex = true;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = uri.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                continue;
+            }
+            allDigits = false;
+            boolean hex = (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == '-';
+            if (!hex) {
+                allHex = false;
+            }
+        }
+        if (allDigits) {
+            return true;
+        }
+        // UUID / hash / ObjectId
+        if (allHex && len >= 16 && digits > 0) {
+            return true;
+        }
+        // 较长且数字占比较高的混合串，如订单号
+        return len >= 16 && digits * 2 >= len;
+    }
+
+    /**
+     * 参数形态：query 参数名集合（与顺序无关）+ Content-Type
+     */
+    static int parameterShape(String queryString, String contentType) {
+        int hash = contentType == null ? 0 : contentType.hashCode();
+        if (queryString == null || queryString.isEmpty()) {
+            return hash;
+        }
+        String[] pairs = queryString.split("&");
+        for (int i = 0; i < pairs.length; i++) {
+            int eq = pairs[i].indexOf('=');
+            pairs[i] = eq >= 0 ? pairs[i].substring(0, eq) : pairs[i];
+        }
+        Arrays.sort(pairs);
+        return 31 * hash + Arrays.hashCode(pairs);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public long getSampledCount() {
+        return this.sampled.get();
+    }
+
+    public long getSkippedCount() {
+        return this.skipped.get();
+    }
+
+    public int getEndpointCount() {
+        return this.endpoints.size();
+    }
+
+    EndpointCoverage getCoverage(String method, String uri) {
+        return this.endpoints.get(method + " " + normalizeUri(uri));
+    }
+
+    public JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        stats.put("enabled", this.enabled);
+        stats.put("endpoints", getEndpointCount());
+        stats.put("sampled", getSampledCount());
+        stats.put("skipped", getSkippedCount());
+        return stats;
+    }
+}
@@ -1,6 +1,7 @@
 package io.dongtai.iast.core.init.impl;
 
 import io.dongtai.iast.core.bytecode.IastClassFileTransformer;
+import io.dongtai.iast.core.bytecode.PolicyReloader;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
 import io.dongtai.iast.core.init.IEngine;
 import io.dongtai.iast.core.utils.PropertyUtils;
@@ -18,13 +19,33 @@ public class TransformEngine implements IEngine {
 
     private Instrumentation inst;
     private IastClassFileTransformer classFileTransformer;
+    private PolicyReloader policyReloader;
 
     @Override
     public void init(PropertyUtils cfg, Instrumentation inst, PolicyManager policyManager) {
         this.classFileTransformer = IastClassFileTransformer.getInstance(inst, policyManager);
+        this.policyReloader = new PolicyReloader(inst, policyManager);
         this.inst = inst;
     }
 
+    /**
+     * 重新加载策略，只重新转换受策略变化影响的类
+     *
+     * @param policyPath 策略文件路径，为空时从服务端获取
+     * @return 重新转换的类的数量
+     */
+    public int reloadPolicy(String policyPath) {
+        if (this.policyReloader == null) {
+            return 0;
+        }
+        try {
+            return this.policyReloader.reload(policyPath).length;
+        } catch (Throwable e) {
+            DongTaiLog.error(ErrorCode.get("POLICY_LOAD_FAILED"), e);
+            return 0;
+        }
+    }
+
     @Override
     public void start() {
         try {
@@ -49,6 +70,7 @@ public class TransformEngine implements IEngine {
     @Override
     public void destroy() {
         inst.removeTransformer(classFileTransformer);
+        classFileTransformer.closeTransformCache();
         HashMap<Object, byte[]> transformMap = IastClassFileTransformer.getTransformMap();
         int classSize = transformMap.size();
         ClassDefinition[] classDefinitions = new ClassDefinition[classSize];
@@ -75,5 +97,6 @@ public class TransformEngine implements IEngine {
         }
         inst = null;
         classFileTransformer = null;
+        policyReloader = null;
     }
 }
@@ -6,7 +6,6 @@ import com.alibaba.fastjson2.JSONObject;
 import io.dongtai.iast.common.utils.base64.Base64Decoder;
 import io.dongtai.iast.core.handler.context.ContextManager;
 import io.dongtai.iast.core.handler.hookpoint.models.IastReplayModel;
-import io.dongtai.iast.core.utils.HttpClientUtils;
 import io.dongtai.log.DongTaiLog;
 import io.dongtai.log.ErrorCode;
 
@@ -32,7 +31,7 @@ public class HttpRequestReplay implements Runnable {
     }
 
     /**
-     * 发起重放请求
+     * 提交重放请求，由 {@link ReplayEngine} 限速发送
      */
     private static void doReplay(IastReplayModel replayModel) {
         try {
@@ -46,9 +45,12 @@ public class HttpRequestReplay implements Runnable {
 
             String url = replayModel.getFullUrl();
             if (url != null) {
-                DongTaiLog.debug("Do request replay: {} {}, data={}, header={}",
-                        replayModel.getRequestMethod(), url, replayModel.getRequestBody(), headers.toString());
-                HttpClientUtils.sendReplayRequest(replayModel.getRequestMethod(), url, replayModel.getRequestBody(), headers);
+                DongTaiLog.debug("Submit request replay: {} {}, data={}, header={}",
+                        replayModel.getRequestMethod(), url, replayModel.getRequestBody(), headers);
+                if (!ReplayEngine.getInstance().submit(
+                        new ReplayRequest(replayModel.getRequestMethod(), url, replayModel.getRequestBody(), headers))) {
+                    DongTaiLog.debug("Request replay skipped, queue is full or the wait is too long: {}", ReplayEngine.getInstance());
+                }
             }
         } catch (Throwable e) {
             DongTaiLog.warn(ErrorCode.get("REPLAY_REQUEST_FAILED"), replayModel.getFullUrl(), e);
@@ -0,0 +1,327 @@
+package io.dongtai.iast.core.replay;
+
+import com.alibaba.fastjson2.JSONObject;
+import io.dongtai.iast.common.constants.AgentConstant;
+import io.dongtai.iast.core.utils.HttpClientUtils;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.log.DongTaiLog;
+import io.dongtai.log.ErrorCode;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重放请求执行引擎
+ * <p>
+ * 重放请求发往被检测的应用本身，为避免影响业务：
+ * 1. 按目标 host:port 令牌桶限速
+ * 2. 固定数量的工作线程，限制同时进行中的重放请求数
+ * 3. 应用 CPU 使用率（由 agent 的 PerformanceMonitor 同步）或应用请求的平均响应时间超过阈值时指数退避，
+ * 退避级别按经过的时间调整：过载期间每 {@link #BACKOFF_STEP_NANOS} 升一级，恢复后每经过一个周期降一级
+ * 4. 队列满、预计排队时间超过 {@link #MAX_QUEUE_NANOS} 的请求在提交时直接丢弃，不占用令牌，计入 skipped
+ * <p>
+ * 限速和退避的等待通过延迟调度实现，等待期间不占用工作线程；限速为 0 时不重放。
+ * 各项计数随 {@link io.dongtai.iast.core.handler.metrics.AgentMetrics} 在心跳中上报
+ */
+public class ReplayEngine {
+    static final int QUEUE_CAPACITY = 1024;
+    static final long MAX_QUEUE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    static final long MIN_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    static final int MAX_BACKOFF_LEVEL = 6;
+    static final long BACKOFF_STEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * 平均响应时间的平滑系数
+     */
+    private static final double LATENCY_ALPHA = 0.3;
+
+    /**
+     * 重放请求发送方式
+     */
+    public interface Sender {
+        void send(ReplayRequest request) throws Exception;
+    }
+
+    static final Sender HTTP_SENDER = new Sender() {
+        @Override
+        public void send(ReplayRequest request) {
+            HttpClientUtils.sendReplayRequest(request.getMethod(), request.getUrl(), request.getBody(),
+                    request.getHeaders());
+        }
+    };
+
+    private static volatile ReplayEngine instance;
+    private static volatile int lastCpuUsage;
+
+    private final double ratePerSecond;
+    private final int cpuThreshold;
+    private final long latencyThresholdNanos;
+    private final Sender sender;
+    private final ScheduledThreadPoolExecutor executor;
+    /**
+     * 已提交但还没有开始执行的请求数
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+
+    private volatile int cpuUsage;
+    /**
+     * 应用请求的平均响应时间
+     */
+    private volatile long latencyNanos;
+    private int backoffLevel;
+    private long backoffUpdatedNanos;
+    private volatile long backoffNanos;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public static synchronized ReplayEngine getInstance() {
+        if (instance == null) {
+            PropertyUtils cfg = PropertyUtils.getInstance();
+            if (cfg == null) {
+                instance = new ReplayEngine(PropertyUtils.DEFAULT_REPLAY_RATE, PropertyUtils.DEFAULT_REPLAY_CONCURRENCY,
+                        PropertyUtils.DEFAULT_REPLAY_CPU_THRESHOLD, PropertyUtils.DEFAULT_REPLAY_LATENCY_THRESHOLD,
+                        HTTP_SENDER);
+            } else {
+                instance = new ReplayEngine(cfg.getReplayRate(), cfg.getReplayConcurrency(),
+                        cfg.getReplayCpuThreshold(), cfg.getReplayLatencyThreshold(), HTTP_SENDER);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param ratePerSecond      每个 host 每秒的重放请求数，小于等于 0 时不重放
+     * @param concurrency        同时进行中的重放请求数
+     * @param cpuThreshold       CPU 使用率退避阈值（百分比）
+     * @param latencyThresholdMs 平均响应时间退避阈值（毫秒）
+     */
+    ReplayEngine(double ratePerSecond, int concurrency, int cpuThreshold, long latencyThresholdMs, Sender sender) {
+        this.ratePerSecond = ratePerSecond;
+        this.cpuThreshold = cpuThreshold;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.sender = sender;
+        this.cpuUsage = lastCpuUsage;
+        this.backoffUpdatedNanos = System.nanoTime();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, concurrency), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, AgentConstant.THREAD_NAME_PREFIX_CORE + "VulReplay-" + r.hashCode());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        this.executor.setKeepAliveTime(10L, TimeUnit.SECONDS);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public boolean isEnabled() {
+        return this.ratePerSecond > 0;
+    }
+
+    /**
+     * 提交重放请求，队列已满或预计排队时间超过上限时丢弃
+     *
+     * @return 是否进入队列
+     */
+    public boolean submit(ReplayRequest request) {
+        this.submitted.incrementAndGet();
+        if (!isEnabled()) {
+            this.skipped.incrementAndGet();
+            return false;
+        }
+        if (this.queued.incrementAndGet() > QUEUE_CAPACITY) {
+            this.queued.decrementAndGet();
+            this.skipped.incrementAndGet();
+            return false;
+        }
+        try {
+            long now = System.nanoTime();
+            long backoff = currentBackoffNanos(now);
+            long wait = bucket(request.getHost()).reserve(now, MAX_QUEUE_NANOS - backoff);
+            if (wait < 0) {
+                this.queued.decrementAndGet();
+                this.skipped.incrementAndGet();
+                return false;
+            }
+            this.executor.schedule(new ReplayTask(request), backoff + wait, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            this.queued.decrementAndGet();
+            this.skipped.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * 由 agent 的性能监控线程定时同步应用的 CPU 使用率
+     */
+    public void updateCpuUsage(int cpuUsage) {
+        this.cpuUsage = cpuUsage;
+    }
+
+    private class ReplayTask implements Runnable {
+        private final ReplayRequest request;
+
+        private ReplayTask(ReplayRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            queued.decrementAndGet();
+            if (System.nanoTime() - this.request.getCreateNanos() > MAX_QUEUE_NANOS) {
+                skipped.incrementAndGet();
+                return;
+            }
+
+            try {
+                sender.send(this.request);
+                executed.incrementAndGet();
+            } catch (Throwable e) {
+                failed.incrementAndGet();
+                DongTaiLog.warn(ErrorCode.get("REPLAY_REQUEST_FAILED"), this.request.getUrl(), e);
+            }
+        }
+    }
+
+    private TokenBucket bucket(String host) {
+        TokenBucket bucket = this.buckets.get(host);
+        if (bucket == null) {
+            bucket = new TokenBucket(this.ratePerSecond, this.ratePerSecond, System.nanoTime());
+            TokenBucket prev = this.buckets.putIfAbsent(host, bucket);
+            if (prev != null) {
+                bucket = prev;
+            }
+        }
+        return bucket;
+    }
+
+    void recordLatency(long elapsedNanos) {
+        long prev = this.latencyNanos;
+        this.latencyNanos = prev == 0 ? elapsedNanos : (long) (prev + LATENCY_ALPHA * (elapsedNanos - prev));
+    }
+
+    boolean isOverloaded() {
+        return this.cpuUsage >= this.cpuThreshold || this.latencyNanos >= this.latencyThresholdNanos;
+    }
+
+    /**
+     * 按上次调整以来经过的时间调整退避级别：过载时升一级，否则每经过一个周期降一级，同一个周期内不变
+     *
+     * @return 当前需要延迟执行的纳秒数
+     */
+    synchronized long currentBackoffNanos(long nowNanos) {
+        long steps = (nowNanos - this.backoffUpdatedNanos) / BACKOFF_STEP_NANOS;
+        if (steps <= 0) {
+            return this.backoffNanos;
+        }
+        if (isOverloaded()) {
+            this.backoffLevel = Math.min(this.backoffLevel + 1, MAX_BACKOFF_LEVEL);
+        } else {
+            this.backoffLevel = (int) Math.max(this.backoffLevel - steps, 0);
+        }
+        this.backoffUpdatedNanos = nowNanos;
+        this.backoffNanos = levelBackoffNanos(this.backoffLevel);
+        return this.backoffNanos;
+    }
+
+    static long levelBackoffNanos(int level) {
+        return level == 0 ? 0 : MIN_BACKOFF_NANOS << (level - 1);
+    }
+
+    public long getQueuedCount() {
+        return this.queued.get();
+    }
+
+    public long getSubmittedCount() {
+        return this.submitted.get();
+    }
+
+    public long getExecutedCount() {
+        return this.executed.get();
+    }
+
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    public long getSkippedCount() {
+        return this.skipped.get();
+    }
+
+    public long getBackoffMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.backoffNanos);
+    }
+
+    public long getLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.latencyNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayEngine{queued=" + getQueuedCount() + ", submitted=" + getSubmittedCount()
+                + ", executed=" + getExecutedCount() + ", failed=" + getFailedCount()
+                + ", skipped=" + getSkippedCount() + ", backoff=" + getBackoffMillis() + "ms"
+                + ", latency=" + getLatencyMillis() + "ms, cpu=" + this.cpuUsage + "%}";
+    }
+
+    /**
+     * @return queued、submitted、executed、failed、skipped、backoffMs、latencyMs、cpu
+     */
+    public JSONObject snapshot() {
+        JSONObject snapshot = new JSONObject();
+        snapshot.put("queued", getQueuedCount());
+        snapshot.put("submitted", getSubmittedCount());
+        snapshot.put("executed", getExecutedCount());
+        snapshot.put("failed", getFailedCount());
+        snapshot.put("skipped", getSkippedCount());
+        snapshot.put("backoffMs", getBackoffMillis());
+        snapshot.put("latencyMs", getLatencyMillis());
+        snapshot.put("cpu", this.cpuUsage);
+        return snapshot;
+    }
+
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    public static synchronized void destroy() {
+        if (instance != null) {
+            DongTaiLog.debug("replay engine destroyed: {}", instance);
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * 重放引擎的运行指标，引擎未创建时返回 null
+     */
+    public static JSONObject metrics() {
+        ReplayEngine engine = instance;
+        return engine == null ? null : engine.snapshot();
+    }
+
+    /**
+     * 应用请求结束时调用，记录请求的响应时间，引擎未创建时忽略
+     */
+    public static void onRequestLatency(long elapsedNanos) {
+        ReplayEngine engine = instance;
+        if (engine != null && elapsedNanos >= 0) {
+            engine.recordLatency(elapsedNanos);
+        }
+    }
+
+    /**
+     * 由 agent 同步 CPU 使用率时调用，引擎未创建时保存下来，创建时使用
+     */
+    public static synchronized void onCpuUsage(int cpuUsage) {
+        lastCpuUsage = cpuUsage;
+        if (instance != null) {
+            instance.updateCpuUsage(cpuUsage);
+        }
+    }
+}
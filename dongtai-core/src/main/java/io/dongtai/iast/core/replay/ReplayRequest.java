@@ -0,0 +1,63 @@
+package io.dongtai.iast.core.replay;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * 待发送的重放请求
+ */
+public class ReplayRequest {
+    private final String method;
+    private final String url;
+    private final String body;
+    private final Map<String, String> headers;
+    private final String host;
+    private final long createNanos;
+
+    public ReplayRequest(String method, String url, String body, Map<String, String> headers) {
+        this.method = method;
+        this.url = url;
+        this.body = body;
+        this.headers = headers;
+        this.host = parseHost(url);
+        this.createNanos = System.nanoTime();
+    }
+
+    private static String parseHost(String url) {
+        try {
+            URI uri = new URI(url);
+            if (uri.getHost() != null) {
+                return uri.getHost() + ":" + uri.getPort();
+            }
+        } catch (Throwable ignore) {
+        }
+        return url;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * 限速的维度，host:port
+     */
+    public String getHost() {
+        return host;
+    }
+
+    long getCreateNanos() {
+        return createNanos;
+    }
+}
@@ -0,0 +1,53 @@
+package io.dongtai.iast.core.replay;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限速，令牌不足时预占未来的令牌，返回需要等待的时间
+ */
+class TokenBucket {
+    private final double permitsPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastNanos;
+
+    /**
+     * @param permitsPerSecond 每秒生成的令牌数
+     * @param burst            最多累积的令牌数
+     * @param nowNanos         当前时间
+     */
+    TokenBucket(double permitsPerSecond, double burst, long nowNanos) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastNanos = nowNanos;
+    }
+
+    /**
+     * 取一个令牌
+     *
+     * @return 需要等待的纳秒数，0 表示可以立即执行
+     */
+    long reserve(long nowNanos) {
+        return reserve(nowNanos, Long.MAX_VALUE);
+    }
+
+    /**
+     * 等待时间不超过 maxWaitNanos 时取一个令牌
+     *
+     * @return 需要等待的纳秒数，0 表示可以立即执行；-1 表示等待时间超过上限，没有取令牌
+     */
+    synchronized long reserve(long nowNanos, long maxWaitNanos) {
+        if (nowNanos > this.lastNanos) {
+            this.tokens = Math.min(this.burst, this.tokens + (nowNanos - this.lastNanos) * this.permitsPerNano);
+            this.lastNanos = nowNanos;
+        }
+        double remaining = this.tokens - 1;
+        long wait = remaining >= 0 ? 0 : (long) Math.ceil(-remaining / this.permitsPerNano);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        this.tokens = remaining;
+        return wait;
+    }
+}
@@ -3,6 +3,8 @@ package io.dongtai.iast.core.service;
 import com.alibaba.fastjson2.JSONObject;
 import io.dongtai.iast.common.constants.*;
 import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.metrics.AgentMetrics;
+import io.dongtai.iast.core.handler.sampling.RequestSampler;
 import io.dongtai.iast.core.utils.HttpClientUtils;
 import io.dongtai.log.DongTaiLog;
 
@@ -20,12 +22,14 @@ public class AgentQueueReport implements Runnable {
         report.put(ReportKey.DETAIL, detail);
         detail.put(ReportKey.AGENT_ID, EngineManager.getAgentId());
         detail.put("reqCount", EngineManager.getRequestCount());
-        detail.put("reportQueue", 0);
+        detail.put("reportQueue", ThreadPools.getReportQueueSize());
         detail.put("methodQueue", 0);
         detail.put("replayQueue", 0);
         detail.put(ReportKey.IS_CORE_INSTALLED, 1);
         detail.put(ReportKey.IS_CORE_RUNNING, EngineManager.isEngineRunning() ? 1 : 0);
         detail.put(ReportKey.RETURN_QUEUE, 1);
+        detail.put("sampling", RequestSampler.getInstance().getStats());
+        detail.put("agentMetrics", AgentMetrics.snapshot());
 
         return report.toString();
     }
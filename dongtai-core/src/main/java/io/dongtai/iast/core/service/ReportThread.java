@@ -1,5 +1,6 @@
 package io.dongtai.iast.core.service;
 
+import io.dongtai.iast.core.handler.metrics.AgentMetrics;
 import io.dongtai.iast.core.utils.HttpClientUtils;
 import io.dongtai.log.DongTaiLog;
 import io.dongtai.log.ErrorCode;
@@ -31,10 +32,13 @@ public class ReportThread implements Runnable {
      */
     @Override
     public void run() {
+        long start = System.nanoTime();
         try {
             HttpClientUtils.sendPost(uri, report);
         } catch (Throwable e) {
             DongTaiLog.error(ErrorCode.get("REPORT_SEND_FAILED"), uri, report, e);
+        } finally {
+            AgentMetrics.REPORT_UPLOAD.recordSince(start);
         }
     }
 }
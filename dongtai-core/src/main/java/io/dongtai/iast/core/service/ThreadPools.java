@@ -1,9 +1,12 @@
 package io.dongtai.iast.core.service;
 
 import io.dongtai.iast.common.constants.AgentConstant;
+import io.dongtai.iast.core.handler.metrics.AgentMetrics;
 import io.dongtai.iast.core.replay.HttpRequestReplay;
+import io.dongtai.iast.core.replay.ReplayEngine;
 import io.dongtai.iast.core.utils.PropertyUtils;
 
+import java.util.List;
 import java.util.concurrent.*;
 
 /**
@@ -42,17 +45,83 @@ public class ThreadPools {
 
     });
 
+    private static volatile ReportSender reportSender;
+
+    /**
+     * 报告的发送方式，默认提交到线程池通过 HTTP 发送到服务端
+     */
+    public interface ReportSender {
+        void send(String url, String report);
+    }
+
+    /**
+     * 替换报告的发送方式，用于基准测试等不连接服务端的场景，传入 null 时恢复默认
+     */
+    public static void setReportSender(ReportSender sender) {
+        reportSender = sender;
+    }
 
     public static void execute(Runnable r) {
         COMMON_REPORT_THREAD.execute(r);
     }
 
     public static void sendPriorityReport(final String url, final String report) {
-        METHOD_REPORT_THREAD.execute(new ReportThread(url, report));
+        ReportSender sender = reportSender;
+        if (sender != null) {
+            sender.send(url, report);
+            return;
+        }
+        submitReport(METHOD_REPORT_THREAD, new ReportThread(url, report), 1);
     }
 
     public static void sendReport(final String url, final String report) {
-        COMMON_REPORT_THREAD.execute(new ReportThread(url, report));
+        ReportSender sender = reportSender;
+        if (sender != null) {
+            sender.send(url, report);
+            return;
+        }
+        submitReport(COMMON_REPORT_THREAD, new ReportThread(url, report), 1);
+    }
+
+    /**
+     * 一次提交多个报告，在同一个任务中依次发送，只占用一个队列位置
+     */
+    public static void sendReports(final String url, final List<String> reports) {
+        ReportSender sender = reportSender;
+        if (sender != null) {
+            for (String report : reports) {
+                sender.send(url, report);
+            }
+            return;
+        }
+        submitReport(COMMON_REPORT_THREAD, new Runnable() {
+            @Override
+            public void run() {
+                for (String report : reports) {
+                    new ReportThread(url, report).run();
+                }
+            }
+        }, reports.size());
+    }
+
+    /**
+     * 队列已满时记录丢弃的报告数量，异常仍然抛给调用方
+     */
+    private static void submitReport(ExecutorService executor, Runnable task, int reports) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            AgentMetrics.REPORT_DROPPED.add(reports);
+            throw e;
+        }
+    }
+
+    /**
+     * @return 等待上报的任务数量
+     */
+    public static int getReportQueueSize() {
+        return ((ThreadPoolExecutor) METHOD_REPORT_THREAD).getQueue().size()
+                + ((ThreadPoolExecutor) COMMON_REPORT_THREAD).getQueue().size();
     }
 
     public static void submitReplayTask(StringBuilder replayRequestRaw) {
@@ -64,5 +133,6 @@ public class ThreadPools {
         METHOD_REPORT_THREAD.shutdown();
         COMMON_REPORT_THREAD.shutdown();
         REPLAY_REQUEST_THREAD.shutdown();
+        ReplayEngine.destroy();
     }
 }
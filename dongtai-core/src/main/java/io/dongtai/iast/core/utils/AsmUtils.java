@@ -1,15 +1,9 @@
 package io.dongtai.iast.core.utils;
 
-import io.dongtai.iast.core.utils.matcher.structure.ClassStructure;
-import io.dongtai.iast.core.utils.matcher.structure.ClassStructureFactory;
-import org.apache.commons.io.IOUtils;
+import io.dongtai.iast.core.bytecode.enhance.ClassHierarchyCache;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 
-import java.io.InputStream;
-
-import static io.dongtai.iast.core.utils.SandboxStringUtils.toInternalClassName;
-
 /**
  * ASM工具集
  *
@@ -23,6 +17,8 @@ public class AsmUtils {
      */
     public static Integer api = Opcodes.ASM9;
 
+    private static final String OBJECT_INTERNAL_NAME = "java/lang/Object";
+
     public static Type voidType = Type.getType(void.class);
     public static Type stringArrayType = Type.getType(String[].class);
 
@@ -35,7 +31,7 @@ public class AsmUtils {
     }
 
     /**
-     * implements by ASM
+     * implements by ASM，类头信息从 {@link ClassHierarchyCache} 中读取，每个类只解析一次
      *
      * @param type1
      * @param type2
@@ -43,47 +39,36 @@ public class AsmUtils {
      * @return
      */
     private static String getCommonSuperClassImplByAsm(String type1, String type2, ClassLoader targetClassLoader) {
-        InputStream inputStreamOfType1 = null, inputStreamOfType2 = null;
-        try {
-            //targetClassLoader 为null，说明是BootStrapClassLoader，不能显式引用，故使用系统类加载器间接引用
-            if (null == targetClassLoader) {
-                targetClassLoader = ClassLoader.getSystemClassLoader();
-            }
-            if (null == targetClassLoader) {
-                return "java/lang/Object";
-            }
-            inputStreamOfType1 = targetClassLoader.getResourceAsStream(type1 + ".class");
-            if (null == inputStreamOfType1) {
-                return "java/lang/Object";
-            }
-            inputStreamOfType2 = targetClassLoader.getResourceAsStream(type2 + ".class");
-            if (null == inputStreamOfType2) {
-                return "java/lang/Object";
-            }
-            final ClassStructure classStructureOfType1 = ClassStructureFactory.createClassStructure(inputStreamOfType1, targetClassLoader);
-            final ClassStructure classStructureOfType2 = ClassStructureFactory.createClassStructure(inputStreamOfType2, targetClassLoader);
-            if (classStructureOfType2.getFamilyTypeClassStructures().contains(classStructureOfType1)) {
-                return type1;
-            }
-            if (classStructureOfType1.getFamilyTypeClassStructures().contains(classStructureOfType2)) {
-                return type2;
+        ClassHierarchyCache cache = ClassHierarchyCache.getInstance();
+        ClassHierarchyCache.ClassHeader header1 = cache.get(targetClassLoader, type1);
+        if (null == header1) {
+            return OBJECT_INTERNAL_NAME;
+        }
+        ClassHierarchyCache.ClassHeader header2 = cache.get(targetClassLoader, type2);
+        if (null == header2) {
+            return OBJECT_INTERNAL_NAME;
+        }
+        if (cache.isAssignableFrom(targetClassLoader, type1, type2)) {
+            return type1;
+        }
+        if (cache.isAssignableFrom(targetClassLoader, type2, type1)) {
+            return type2;
+        }
+        if (header1.isInterface() || header2.isInterface()) {
+            return OBJECT_INTERNAL_NAME;
+        }
+        String superName = header1.getSuperName();
+        while (superName != null) {
+            if (cache.isAssignableFrom(targetClassLoader, superName, type2)) {
+                return superName;
             }
-            if (classStructureOfType1.getAccess().isInterface()
-                    || classStructureOfType2.getAccess().isInterface()) {
-                return "java/lang/Object";
+            ClassHierarchyCache.ClassHeader superHeader = cache.get(targetClassLoader, superName);
+            if (null == superHeader) {
+                break;
             }
-            ClassStructure classStructure = classStructureOfType1;
-            do {
-                classStructure = classStructure.getSuperClassStructure();
-                if (null == classStructure) {
-                    return "java/lang/Object";
-                }
-            } while (!classStructureOfType2.getFamilyTypeClassStructures().contains(classStructure));
-            return toInternalClassName(classStructure.getJavaClassName());
-        } finally {
-            IOUtils.closeQuietly(inputStreamOfType1);
-            IOUtils.closeQuietly(inputStreamOfType2);
+            superName = superHeader.getSuperName();
         }
+        return OBJECT_INTERNAL_NAME;
     }
 
     public static String[] buildParameterTypes(String desc) {
@@ -40,6 +40,15 @@ public class PropertyUtils {
     public static final Integer DEFAULT_POOL_SIZE = 0;
     public static final Integer DEFAULT_POOL_MAX_SIZE = 10;
     public static final Integer DEFAULT_POOL_KEEPALIVE = 10;
+    public static final Integer DEFAULT_SAMPLING_WARMUP = 10;
+    public static final Integer DEFAULT_SAMPLING_MAX_INTERVAL = 100;
+    public static final Integer DEFAULT_REPORT_DEDUP_TTL = 3600;
+    public static final Integer DEFAULT_REPORT_NORMAL_DEDUP_WINDOW = 600;
+    public static final Integer DEFAULT_REPLAY_RATE = 5;
+    public static final Integer DEFAULT_REPLAY_CONCURRENCY = 2;
+    public static final Integer DEFAULT_REPLAY_CPU_THRESHOLD = 70;
+    public static final Integer DEFAULT_REPLAY_LATENCY_THRESHOLD = 1000;
+    public static final Integer DEFAULT_METRICS_LATENCY_SAMPLE = 64;
 
     // 污点转换为字符串的时候字符数长度限制
     private Integer taintToStringCharLimit = DEFAULT_TAINT_TO_STRING_CHAR_LIMIT;
@@ -47,6 +56,21 @@ public class PropertyUtils {
     private Integer poolSize;
     private Integer poolMaxSize;
     private Integer poolKeepalive;
+    private String samplingEnableStatus;
+    private Integer samplingWarmup;
+    private Integer samplingMaxInterval;
+    private String reportDedupEnableStatus;
+    private Integer reportDedupTtl;
+    private String reportNormalDedupEnableStatus;
+    private Integer reportNormalDedupWindow;
+    private String transformCacheEnableStatus;
+    private String policySnapshotEnableStatus;
+    private String taintIdentityEnableStatus;
+    private Integer replayRate = DEFAULT_REPLAY_RATE;
+    private Integer replayConcurrency = DEFAULT_REPLAY_CONCURRENCY;
+    private Integer replayCpuThreshold = DEFAULT_REPLAY_CPU_THRESHOLD;
+    private Integer replayLatencyThreshold = DEFAULT_REPLAY_LATENCY_THRESHOLD;
+    private Integer metricsLatencySample = DEFAULT_METRICS_LATENCY_SAMPLE;
 
     public static PropertyUtils getInstance(String propertiesFilePath) throws DongTaiPropertyConfigException, DongTaiEnvConfigException {
         if (null == instance) {
@@ -87,6 +111,10 @@ public class PropertyUtils {
         // 初始化一些参数
         this.initTaintToStringCharLimit();
         this.initPool();
+        this.initSampling();
+        this.initReportDedup();
+        this.initReplay();
+        this.initMetrics();
     }
 
     public static String getTmpDir() {
@@ -280,6 +308,153 @@ public class PropertyUtils {
         return instance.poolKeepalive;
     }
 
+    private String getSamplingEnableStatus() {
+        if (null == samplingEnableStatus) {
+            samplingEnableStatus = System.getProperty(PropertyConstant.PROPERTY_SAMPLING_ENABLE,
+                    cfg.getProperty(PropertyConstant.PROPERTY_SAMPLING_ENABLE, "false"));
+        }
+        return samplingEnableStatus;
+    }
+
+    /**
+     * 是否开启请求采样，开启后同一接口的重复请求只会按衰减的比例进行污点分析
+     */
+    public boolean isSamplingEnable() {
+        return "true".equalsIgnoreCase(getSamplingEnableStatus());
+    }
+
+    public Integer getSamplingWarmup() {
+        return samplingWarmup;
+    }
+
+    public Integer getSamplingMaxInterval() {
+        return samplingMaxInterval;
+    }
+
+    private String getReportDedupEnableStatus() {
+        if (null == reportDedupEnableStatus) {
+            reportDedupEnableStatus = System.getProperty(PropertyConstant.PROPERTY_REPORT_DEDUP_ENABLE,
+                    cfg.getProperty(PropertyConstant.PROPERTY_REPORT_DEDUP_ENABLE, "false"));
+        }
+        return reportDedupEnableStatus;
+    }
+
+    /**
+     * 是否在 agent 端对重复的污点链路去重后再上报
+     */
+    public boolean isReportDedupEnable() {
+        return "true".equalsIgnoreCase(getReportDedupEnableStatus());
+    }
+
+    /**
+     * 链路指纹的过期时间（秒），过期后会重新上报一次完整的方法池
+     */
+    public Integer getReportDedupTtl() {
+        return reportDedupTtl;
+    }
+
+    private String getReportNormalDedupEnableStatus() {
+        if (null == reportNormalDedupEnableStatus) {
+            reportNormalDedupEnableStatus = System.getProperty(PropertyConstant.PROPERTY_REPORT_NORMAL_DEDUP_ENABLE,
+                    cfg.getProperty(PropertyConstant.PROPERTY_REPORT_NORMAL_DEDUP_ENABLE, "true"));
+        }
+        return reportNormalDedupEnableStatus;
+    }
+
+    /**
+     * 是否对弱随机数、Cookie 标记等非污点漏洞按调用位置去重后再上报
+     */
+    public boolean isReportNormalDedupEnable() {
+        return "true".equalsIgnoreCase(getReportNormalDedupEnableStatus());
+    }
+
+    /**
+     * 非污点漏洞去重的时间窗口（秒），同一调用位置的同一类漏洞在窗口内只上报一次
+     */
+    public Integer getReportNormalDedupWindow() {
+        return reportNormalDedupWindow;
+    }
+
+    /**
+     * 每个目标主机每秒最多发起的重放请求数
+     */
+    public Integer getReplayRate() {
+        return replayRate;
+    }
+
+    /**
+     * 同时进行中的重放请求数上限
+     */
+    public Integer getReplayConcurrency() {
+        return replayConcurrency;
+    }
+
+    /**
+     * 应用 CPU 使用率（百分比）达到该值时重放退避
+     */
+    public Integer getReplayCpuThreshold() {
+        return replayCpuThreshold;
+    }
+
+    /**
+     * 应用请求的平均响应时间（毫秒）达到该值时重放退避
+     */
+    public Integer getReplayLatencyThreshold() {
+        return replayLatencyThreshold;
+    }
+
+    /**
+     * hook 点耗时的采样间隔，每 N 次调用记录一次耗时，设为 1 时记录每次调用
+     */
+    public Integer getMetricsLatencySample() {
+        return metricsLatencySample;
+    }
+
+    private String getTransformCacheEnableStatus() {
+        if (null == transformCacheEnableStatus) {
+            transformCacheEnableStatus = System.getProperty(PropertyConstant.PROPERTY_TRANSFORM_CACHE_ENABLE,
+                    cfg.getProperty(PropertyConstant.PROPERTY_TRANSFORM_CACHE_ENABLE, "false"));
+        }
+        return transformCacheEnableStatus;
+    }
+
+    /**
+     * 是否开启字节码转换结果的磁盘缓存，重启后相同的类直接复用上次的转换结果
+     */
+    public boolean isTransformCacheEnable() {
+        return "true".equalsIgnoreCase(getTransformCacheEnableStatus());
+    }
+
+    private String getPolicySnapshotEnableStatus() {
+        if (null == policySnapshotEnableStatus) {
+            policySnapshotEnableStatus = System.getProperty(PropertyConstant.PROPERTY_POLICY_SNAPSHOT_ENABLE,
+                    cfg.getProperty(PropertyConstant.PROPERTY_POLICY_SNAPSHOT_ENABLE, "true"));
+        }
+        return policySnapshotEnableStatus;
+    }
+
+    /**
+     * 是否保存构建好的策略快照，策略内容不变时下次启动直接读取快照
+     */
+    public boolean isPolicySnapshotEnable() {
+        return "true".equalsIgnoreCase(getPolicySnapshotEnableStatus());
+    }
+
+    private String getTaintIdentityEnableStatus() {
+        if (null == taintIdentityEnableStatus) {
+            taintIdentityEnableStatus = System.getProperty(PropertyConstant.PROPERTY_TAINT_IDENTITY_ENABLE,
+                    cfg.getProperty(PropertyConstant.PROPERTY_TAINT_IDENTITY_ENABLE, "false"));
+        }
+        return taintIdentityEnableStatus;
+    }
+
+    /**
+     * 是否按对象引用确认污点，避免 identityHashCode 相同的无关对象被当作污点
+     */
+    public boolean isTaintIdentityEnable() {
+        return "true".equalsIgnoreCase(getTaintIdentityEnableStatus());
+    }
+
     /**
      * 初始化taintToStringCharLimit参数的值
      *
@@ -317,6 +492,28 @@ public class PropertyUtils {
         this.poolKeepalive = parseAndSetProperty(PropertyConstant.PROPERTY_POOL_KEEPALIVE, DEFAULT_POOL_KEEPALIVE);
     }
 
+    private void initSampling() throws DongTaiPropertyConfigException, DongTaiEnvConfigException {
+        this.samplingWarmup = parseAndSetProperty(PropertyConstant.PROPERTY_SAMPLING_WARMUP, DEFAULT_SAMPLING_WARMUP);
+        this.samplingMaxInterval = parseAndSetProperty(PropertyConstant.PROPERTY_SAMPLING_MAX_INTERVAL, DEFAULT_SAMPLING_MAX_INTERVAL);
+    }
+
+    private void initReportDedup() throws DongTaiPropertyConfigException, DongTaiEnvConfigException {
+        this.reportDedupTtl = parseAndSetProperty(PropertyConstant.PROPERTY_REPORT_DEDUP_TTL, DEFAULT_REPORT_DEDUP_TTL);
+        this.reportNormalDedupWindow = parseAndSetProperty(PropertyConstant.PROPERTY_REPORT_NORMAL_DEDUP_WINDOW,
+                DEFAULT_REPORT_NORMAL_DEDUP_WINDOW);
+    }
+
+    private void initReplay() throws DongTaiPropertyConfigException, DongTaiEnvConfigException {
+        this.replayRate = parseAndSetProperty(PropertyConstant.PROPERTY_REPLAY_RATE, DEFAULT_REPLAY_RATE);
+        this.replayConcurrency = parseAndSetProperty(PropertyConstant.PROPERTY_REPLAY_CONCURRENCY, DEFAULT_REPLAY_CONCURRENCY);
+        this.replayCpuThreshold = parseAndSetProperty(PropertyConstant.PROPERTY_REPLAY_CPU_THRESHOLD, DEFAULT_REPLAY_CPU_THRESHOLD);
+        this.replayLatencyThreshold = parseAndSetProperty(PropertyConstant.PROPERTY_REPLAY_LATENCY_THRESHOLD, DEFAULT_REPLAY_LATENCY_THRESHOLD);
+    }
+
+    private void initMetrics() throws DongTaiPropertyConfigException, DongTaiEnvConfigException {
+        this.metricsLatencySample = parseAndSetProperty(PropertyConstant.PROPERTY_METRICS_LATENCY_SAMPLE, DEFAULT_METRICS_LATENCY_SAMPLE);
+    }
+
     private Integer parseAndSetProperty(String propertyKey,Integer defaultValue) throws DongTaiPropertyConfigException, DongTaiEnvConfigException {
         String propertyStr = cfg.getProperty(propertyKey);
         Integer value = defaultValue;
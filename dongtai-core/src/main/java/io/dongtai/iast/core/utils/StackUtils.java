@@ -1,11 +1,33 @@
 package io.dongtai.iast.core.utils;
 
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
 /**
  * 获取堆栈hook点的应用堆栈情况
  *
  * @author dongzhiyong@huoxian.cn
  */
 public class StackUtils {
+    /**
+     * agent、JDK 和常见框架、中间件的类，不作为应用的调用位置
+     */
+    private static final String[] NON_APPLICATION_PREFIXES = new String[]{
+            "io.dongtai.", "java.", "javax.", "jakarta.", "jdk.", "sun.", "com.sun.",
+            "org.springframework.", "org.apache.", "org.eclipse.jetty.", "io.undertow.", "org.glassfish.",
+            "org.jboss.", "io.netty.", "io.grpc.", "reactor.", "feign.", "okhttp3.",
+            "org.hibernate.", "org.mybatis.", "com.baomidou.mybatisplus.", "com.zaxxer.hikari.",
+            "com.alibaba.druid.", "com.alibaba.dubbo.", "com.alibaba.fastjson", "com.fasterxml.jackson.",
+            "com.google.", "org.aspectj.", "net.bytebuddy.", "org.slf4j.", "ch.qos.logback.",
+            "kotlin.", "scala.", "groovy.", "org.codehaus.groovy.",
+    };
+
+    private static final StackWalkerFrameFinder FRAME_FINDER = StackWalkerFrameFinder.create();
+    private static final ThrowableFrameFinder THROWABLE_FRAME_FINDER =
+            FRAME_FINDER == null ? ThrowableFrameFinder.create() : null;
+
     public static StackTraceElement[] createCallStack(int stackStartPos) {
         StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
         StackTraceElement[] selfCallStack = new StackTraceElement[0];
@@ -20,4 +42,134 @@ public class StackUtils {
         StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
         return stackTraceElements[stackStartPos];
     }
+
+    /**
+     * 当前调用栈中第一个应用的调用位置，只生成到需要的帧为止，不生成完整的调用栈：
+     * JDK 9+ 使用 StackWalker，JDK 8 按下标逐个读取 Throwable 的栈帧
+     *
+     * @return 类名.方法名:行号，调用栈中没有应用的类时返回 null
+     */
+    public static String getApplicationFrame() {
+        if (FRAME_FINDER != null) {
+            try {
+                return FRAME_FINDER.find();
+            } catch (Throwable ignore) {
+            }
+        }
+        if (THROWABLE_FRAME_FINDER != null) {
+            try {
+                return THROWABLE_FRAME_FINDER.find();
+            } catch (Throwable ignore) {
+            }
+        }
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            if (isApplicationClass(element.getClassName())) {
+                return element.getClassName() + "." + element.getMethodName() + ":" + element.getLineNumber();
+            }
+        }
+        return null;
+    }
+
+    static boolean isApplicationClass(String className) {
+        for (String prefix : NON_APPLICATION_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 通过反射使用 java.lang.StackWalker，JDK 8 上不可用
+     */
+    private static class StackWalkerFrameFinder implements Function<Stream<?>, String> {
+        private final Object walker;
+        private final Method walk;
+        private final Method getClassName;
+        private final Method getMethodName;
+        private final Method getLineNumber;
+
+        private StackWalkerFrameFinder(Object walker, Method walk, Method getClassName,
+                                       Method getMethodName, Method getLineNumber) {
+            this.walker = walker;
+            this.walk = walk;
+            this.getClassName = getClassName;
+            this.getMethodName = getMethodName;
+            this.getLineNumber = getLineNumber;
+        }
+
+        static StackWalkerFrameFinder create() {
+            try {
+                Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+                Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+                return new StackWalkerFrameFinder(walkerClass.getMethod("getInstance").invoke(null),
+                        walkerClass.getMethod("walk", Function.class),
+                        frameClass.getMethod("getClassName"),
+                        frameClass.getMethod("getMethodName"),
+                        frameClass.getMethod("getLineNumber"));
+            } catch (Throwable e) {
+                return null;
+            }
+        }
+
+        String find() throws Exception {
+            return (String) this.walk.invoke(this.walker, this);
+        }
+
+        @Override
+        public String apply(Stream<?> frames) {
+            try {
+                Iterator<?> it = frames.iterator();
+                while (it.hasNext()) {
+                    Object frame = it.next();
+                    String className = (String) this.getClassName.invoke(frame);
+                    if (isApplicationClass(className)) {
+                        return className + "." + this.getMethodName.invoke(frame) + ":" + this.getLineNumber.invoke(frame);
+                    }
+                }
+                return null;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * JDK 8 通过 JavaLangAccess 按下标读取栈帧，只为遍历到的帧创建 StackTraceElement
+     */
+    static class ThrowableFrameFinder {
+        private final Object access;
+        private final Method getStackTraceDepth;
+        private final Method getStackTraceElement;
+
+        private ThrowableFrameFinder(Object access, Method getStackTraceDepth, Method getStackTraceElement) {
+            this.access = access;
+            this.getStackTraceDepth = getStackTraceDepth;
+            this.getStackTraceElement = getStackTraceElement;
+        }
+
+        static ThrowableFrameFinder create() {
+            try {
+                Class<?> accessClass = Class.forName("sun.misc.JavaLangAccess");
+                Object access = Class.forName("sun.misc.SharedSecrets").getMethod("getJavaLangAccess").invoke(null);
+                return new ThrowableFrameFinder(access,
+                        accessClass.getMethod("getStackTraceDepth", Throwable.class),
+                        accessClass.getMethod("getStackTraceElement", Throwable.class, int.class));
+            } catch (Throwable e) {
+                return null;
+            }
+        }
+
+        String find() throws Exception {
+            Throwable throwable = new Throwable();
+            int depth = (Integer) this.getStackTraceDepth.invoke(this.access, throwable);
+            for (int i = 0; i < depth; i++) {
+                StackTraceElement element = (StackTraceElement) this.getStackTraceElement.invoke(this.access, throwable, i);
+                if (isApplicationClass(element.getClassName())) {
+                    return element.getClassName() + "." + element.getMethodName() + ":" + element.getLineNumber();
+                }
+            }
+            return null;
+        }
+    }
 }
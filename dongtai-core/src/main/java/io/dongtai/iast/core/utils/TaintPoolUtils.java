@@ -8,8 +8,6 @@ import io.dongtai.iast.core.handler.hookpoint.models.taint.range.*;
 import io.dongtai.log.DongTaiLog;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.util.*;
 
@@ -24,6 +22,16 @@ public class TaintPoolUtils {
     private static final String VALUES_ENUMERATOR = " org.apache.tomcat.util.http.ValuesEnumerator".substring(1);
     private static final String SPRING_OBJECT = " org.springframework.".substring(1);
 
+    /**
+     * 与传播节点检查 source 位置的条件一致，不记录污点来源
+     */
+    public static boolean isTainted(Object obj) {
+        return isNotEmpty(obj) && isAllowTaintType(obj) && poolContains(obj, null);
+    }
+
+    /**
+     * @param event 为 null 时只检查，不记录污点来源
+     */
     public static boolean poolContains(Object obj, MethodEvent event) {
         if (obj == null) {
             return false;
@@ -32,9 +40,11 @@ public class TaintPoolUtils {
         long hash = getStringHash(obj);
         boolean isContains;
         // check object hash exists
-        isContains = contains(hash);
+        isContains = contains(hash, obj);
         if (isContains) {
-            event.addSourceHash(hash);
+            if (event != null) {
+                event.addSourceHash(hash);
+            }
             return true;
         }
 
@@ -61,10 +71,11 @@ public class TaintPoolUtils {
      * 判断污点是否匹配
      *
      * @param hash long
+     * @param obj  开启按对象引用确认污点时用于排除哈希相同的其他对象
      * @return boolean
      */
-    private static boolean contains(long hash) {
-        return EngineManager.TAINT_HASH_CODES.contains(hash);
+    private static boolean contains(long hash, Object obj) {
+        return EngineManager.TAINT_HASH_CODES.contains(hash, obj);
     }
 
     /**
@@ -138,6 +149,14 @@ public class TaintPoolUtils {
     }
 
     public static void trackObject(MethodEvent event, PolicyNode policyNode, Object obj, int depth, Boolean isMicroservice) {
+        trackObject(event, policyNode, obj, depth, isMicroservice, null);
+    }
+
+    /**
+     * @param visited 已经展开过字段的自定义模型对象（按引用判断），第一次展开时创建，用于避免对象图中的环重复遍历
+     */
+    private static void trackObject(MethodEvent event, PolicyNode policyNode, Object obj, int depth, Boolean isMicroservice,
+                                    Set<Object> visited) {
         if (depth >= 10 || !TaintPoolUtils.isNotEmpty(obj) || !TaintPoolUtils.isAllowTaintType(obj)) {
             return;
         }
@@ -153,28 +172,28 @@ public class TaintPoolUtils {
                 hash = System.identityHashCode(obj);
                 identityHash = hash;
             }
-            if (EngineManager.TAINT_HASH_CODES.contains(hash)) {
+            if (EngineManager.TAINT_HASH_CODES.contains(hash, obj)) {
                 return;
             }
         }
 
         Class<?> cls = obj.getClass();
         if (cls.isArray() && !cls.getComponentType().isPrimitive()) {
-            trackArray(event, policyNode, obj, depth, isMicroservice);
+            trackArray(event, policyNode, obj, depth, isMicroservice, visited);
         } else if (obj instanceof Iterator && !(obj instanceof Enumeration)) {
-            trackIterator(event, policyNode, (Iterator<?>) obj, depth, isMicroservice);
+            trackIterator(event, policyNode, (Iterator<?>) obj, depth, isMicroservice, visited);
         } else if (obj instanceof Map) {
-            trackMap(event, policyNode, (Map<?, ?>) obj, depth, isMicroservice);
+            trackMap(event, policyNode, (Map<?, ?>) obj, depth, isMicroservice, visited);
         } else if (obj instanceof Map.Entry) {
-            trackMapEntry(event, policyNode, (Map.Entry<?, ?>) obj, depth, isMicroservice);
+            trackMapEntry(event, policyNode, (Map.Entry<?, ?>) obj, depth, isMicroservice, visited);
         } else if (obj instanceof Collection && !(obj instanceof Enumeration)) {
             if (obj instanceof List) {
-                trackList(event, policyNode, (List<?>) obj, depth, isMicroservice);
+                trackList(event, policyNode, (List<?>) obj, depth, isMicroservice, visited);
             } else {
-                trackIterator(event, policyNode, ((Collection<?>) obj).iterator(), depth, isMicroservice);
+                trackIterator(event, policyNode, ((Collection<?>) obj).iterator(), depth, isMicroservice, visited);
             }
         } else if ("java.util.Optional".equals(obj.getClass().getName())) {
-            trackOptional(event, policyNode, obj, depth, isMicroservice);
+            trackOptional(event, policyNode, obj, depth, isMicroservice, visited);
         } else {
             if (isSourceNode) {
                 int len = TaintRangesBuilder.getLength(obj);
@@ -192,30 +211,38 @@ public class TaintPoolUtils {
                 }
                 event.targetRanges.add(new MethodEvent.MethodEventTargetRange(hash, tr));
 
-                EngineManager.TAINT_HASH_CODES.add(hash);
+                EngineManager.TAINT_HASH_CODES.add(hash, obj);
                 event.addTargetHash(hash);
                 EngineManager.TAINT_RANGES_POOL.add(hash, tr);
-                TaintPoolUtils.customModel(isMicroservice, obj, cls, event, policyNode, depth);
+                TaintPoolUtils.customModel(isMicroservice, obj, cls, event, policyNode, depth, visited);
             } else {
                 hash = getStringHash(obj);
-                if (EngineManager.TAINT_HASH_CODES.contains(hash)) {
+                if (EngineManager.TAINT_HASH_CODES.contains(hash, obj)) {
                     event.addSourceHash(hash);
                 }
             }
         }
     }
 
-    private static void customModel(Boolean isMicroservice, Object obj, Class<?> cls, MethodEvent event, PolicyNode policyNode, int depth) {
+    private static void customModel(Boolean isMicroservice, Object obj, Class<?> cls, MethodEvent event, PolicyNode policyNode,
+                                    int depth, Set<Object> visited) {
         if (isMicroservice && !(obj instanceof String) && !PropertyUtils.isDisabledCustomModel()) {
+            if (visited == null) {
+                visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            }
+            if (!visited.add(obj)) {
+                return;
+            }
             try {
-                Field[] declaredFields = ReflectUtils.getDeclaredFieldsSecurity(cls);
-                for (Field field : declaredFields) {
-                    if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic() && !field.isEnumConstant() && !(field.get(obj) instanceof Enumeration)) {
-                        trackObject(event, policyNode, field.get(obj), depth + 1, isMicroservice);
+                TaintWalkPlan plan = TaintWalkPlan.of(cls);
+                for (int i = 0; i < plan.size(); i++) {
+                    Object value = plan.get(obj, i);
+                    if (value != null && !(value instanceof Enumeration)) {
+                        trackObject(event, policyNode, value, depth + 1, isMicroservice, visited);
                     }
                 }
                 long hash = System.identityHashCode(obj);
-                if (EngineManager.TAINT_HASH_CODES.contains(hash)) {
+                if (EngineManager.TAINT_HASH_CODES.contains(hash, obj)) {
                     event.addSourceHash(hash);
                 }
             } catch (Throwable e) {
@@ -225,41 +252,41 @@ public class TaintPoolUtils {
         }
     }
 
-    private static void trackArray(MethodEvent event, PolicyNode policyNode, Object arr, int depth, Boolean isMicroservice) {
+    private static void trackArray(MethodEvent event, PolicyNode policyNode, Object arr, int depth, Boolean isMicroservice, Set<Object> visited) {
         int length = Array.getLength(arr);
         for (int i = 0; i < length; i++) {
-            trackObject(event, policyNode, Array.get(arr, i), depth + 1, isMicroservice);
+            trackObject(event, policyNode, Array.get(arr, i), depth + 1, isMicroservice, visited);
         }
     }
 
-    private static void trackIterator(MethodEvent event, PolicyNode policyNode, Iterator<?> it, int depth, Boolean isMicroservice) {
+    private static void trackIterator(MethodEvent event, PolicyNode policyNode, Iterator<?> it, int depth, Boolean isMicroservice, Set<Object> visited) {
         while (it.hasNext()) {
-            trackObject(event, policyNode, it.next(), depth + 1, isMicroservice);
+            trackObject(event, policyNode, it.next(), depth + 1, isMicroservice, visited);
         }
     }
 
-    private static void trackMap(MethodEvent event, PolicyNode policyNode, Map<?, ?> map, int depth, Boolean isMicroservice) {
+    private static void trackMap(MethodEvent event, PolicyNode policyNode, Map<?, ?> map, int depth, Boolean isMicroservice, Set<Object> visited) {
         for (Object key : map.keySet()) {
-            trackObject(event, policyNode, key, depth + 1, isMicroservice);
-            trackObject(event, policyNode, map.get(key), depth + 1, isMicroservice);
+            trackObject(event, policyNode, key, depth + 1, isMicroservice, visited);
+            trackObject(event, policyNode, map.get(key), depth + 1, isMicroservice, visited);
         }
     }
 
-    private static void trackMapEntry(MethodEvent event, PolicyNode policyNode, Map.Entry<?, ?> entry, int depth, Boolean isMicroservice) {
-        trackObject(event, policyNode, entry.getKey(), depth + 1, isMicroservice);
-        trackObject(event, policyNode, entry.getValue(), depth + 1, isMicroservice);
+    private static void trackMapEntry(MethodEvent event, PolicyNode policyNode, Map.Entry<?, ?> entry, int depth, Boolean isMicroservice, Set<Object> visited) {
+        trackObject(event, policyNode, entry.getKey(), depth + 1, isMicroservice, visited);
+        trackObject(event, policyNode, entry.getValue(), depth + 1, isMicroservice, visited);
     }
 
-    private static void trackList(MethodEvent event, PolicyNode policyNode, List<?> list, int depth, Boolean isMicroservice) {
+    private static void trackList(MethodEvent event, PolicyNode policyNode, List<?> list, int depth, Boolean isMicroservice, Set<Object> visited) {
         for (Object obj : list) {
-            trackObject(event, policyNode, obj, depth + 1, isMicroservice);
+            trackObject(event, policyNode, obj, depth + 1, isMicroservice, visited);
         }
     }
 
-    private static void trackOptional(MethodEvent event, PolicyNode policyNode, Object obj, int depth, Boolean isMicroservice) {
+    private static void trackOptional(MethodEvent event, PolicyNode policyNode, Object obj, int depth, Boolean isMicroservice, Set<Object> visited) {
         try {
             Object v = ((Optional<?>) obj).orElse(null);
-            trackObject(event, policyNode, v, depth + 1, isMicroservice);
+            trackObject(event, policyNode, v, depth + 1, isMicroservice, visited);
         } catch (Throwable ignore) {
         }
     }
@@ -0,0 +1,66 @@
+package io.dongtai.iast.core.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * 自定义模型（DTO）的字段遍历计划，每个类只解析一次字段并缓存
+ * <p>
+ * 只保留可能携带污点的字段：非 static、非 synthetic，且声明类型不是基本类型、包装类型及其数组或 Enumeration
+ *
+ * @see TaintPoolUtils#trackObject
+ */
+public class TaintWalkPlan {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<TaintWalkPlan> PLANS = new ClassValue<TaintWalkPlan>() {
+        @Override
+        protected TaintWalkPlan computeValue(Class<?> type) {
+            return new TaintWalkPlan(type);
+        }
+    };
+
+    private final MethodHandle[] getters;
+
+    public static TaintWalkPlan of(Class<?> cls) {
+        return PLANS.get(cls);
+    }
+
+    TaintWalkPlan(Class<?> cls) {
+        List<MethodHandle> getters = new ArrayList<MethodHandle>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Field field : ReflectUtils.getDeclaredFieldsSecurity(cls)) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                continue;
+            }
+            Class<?> type = field.getType();
+            if (type.isPrimitive() || !TaintPoolUtils.isAllowTaintType(type)
+                    || Enumeration.class.isAssignableFrom(type)) {
+                continue;
+            }
+            try {
+                getters.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+            } catch (Throwable ignore) {
+                // 无法访问的字段（如 JDK9+ 未开放的模块）直接跳过
+            }
+        }
+        this.getters = getters.toArray(new MethodHandle[0]);
+    }
+
+    public int size() {
+        return this.getters.length;
+    }
+
+    /**
+     * @param index 字段序号，[0, size())
+     */
+    public Object get(Object obj, int index) throws Throwable {
+        return (Object) this.getters[index].invokeExact(obj);
+    }
+}
@@ -0,0 +1,138 @@
+package io.dongtai.iast.core.utils.matcher;
+
+import java.util.Arrays;
+
+/**
+ * 类名的前缀/后缀/全名匹配树，构建完成后只读，可在多线程中并发使用
+ * <p>
+ * 每个规则带有一组标记位，{@link #match(String)} 正向遍历一次类名匹配前缀和全名，反向遍历一次匹配后缀，返回所有命中规则的标记位
+ */
+public class ClassNameTrie {
+
+    private final Node prefixRoot;
+    private final Node suffixRoot;
+
+    private ClassNameTrie(Node prefixRoot, Node suffixRoot) {
+        this.prefixRoot = prefixRoot;
+        this.suffixRoot = suffixRoot;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param className 类名，规则与类名需要使用相同的分隔符
+     * @return 命中规则的标记位，未命中时返回 0
+     */
+    public int match(String className) {
+        int len = className.length();
+        Node node = this.prefixRoot;
+        int flags = node.flags;
+        for (int i = 0; i < len; i++) {
+            node = node.child(className.charAt(i));
+            if (node == null) {
+                break;
+            }
+            flags |= node.flags;
+            if (i == len - 1) {
+                flags |= node.exactFlags;
+            }
+        }
+        if (len == 0) {
+            flags |= node.exactFlags;
+        }
+
+        node = this.suffixRoot;
+        flags |= node.flags;
+        for (int i = len - 1; i >= 0; i--) {
+            node = node.child(className.charAt(i));
+            if (node == null) {
+                break;
+            }
+            flags |= node.flags;
+        }
+        return flags;
+    }
+
+    public static class Builder {
+        private final Node prefixRoot = new Node();
+        private final Node suffixRoot = new Node();
+
+        public Builder addExact(String className, int flags) {
+            Node node = this.prefixRoot;
+            for (int i = 0; i < className.length(); i++) {
+                node = node.getOrCreate(className.charAt(i));
+            }
+            node.exactFlags |= flags;
+            return this;
+        }
+
+        public Builder addPrefix(String prefix, int flags) {
+            Node node = this.prefixRoot;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.getOrCreate(prefix.charAt(i));
+            }
+            node.flags |= flags;
+            return this;
+        }
+
+        public Builder addSuffix(String suffix, int flags) {
+            Node node = this.suffixRoot;
+            for (int i = suffix.length() - 1; i >= 0; i--) {
+                node = node.getOrCreate(suffix.charAt(i));
+            }
+            node.flags |= flags;
+            return this;
+        }
+
+        public ClassNameTrie build() {
+            return new ClassNameTrie(this.prefixRoot, this.suffixRoot);
+        }
+    }
+
+    /**
+     * 子节点按字符有序存放，使用二分查找
+     */
+    private static class Node {
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        /**
+         * 前缀（后缀树中为后缀）在此结束的规则标记位
+         */
+        private int flags;
+        /**
+         * 全名在此结束的规则标记位
+         */
+        private int exactFlags;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(this.labels, c);
+            return index >= 0 ? this.children[index] : null;
+        }
+
+        private Node getOrCreate(char c) {
+            int index = Arrays.binarySearch(this.labels, c);
+            if (index >= 0) {
+                return this.children[index];
+            }
+            int insert = -index - 1;
+            int size = this.labels.length;
+            char[] labels = new char[size + 1];
+            Node[] children = new Node[size + 1];
+            System.arraycopy(this.labels, 0, labels, 0, insert);
+            System.arraycopy(this.children, 0, children, 0, insert);
+            System.arraycopy(this.labels, insert, labels, insert + 1, size - insert);
+            System.arraycopy(this.children, insert, children, insert + 1, size - insert);
+            Node node = new Node();
+            labels[insert] = c;
+            children[insert] = node;
+            this.labels = labels;
+            this.children = children;
+            return node;
+        }
+    }
+}
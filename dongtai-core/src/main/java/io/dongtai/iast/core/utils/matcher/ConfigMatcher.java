@@ -1,5 +1,6 @@
 package io.dongtai.iast.core.utils.matcher;
 
+import io.dongtai.iast.core.handler.hookpoint.models.policy.Policy;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
 import io.dongtai.iast.core.utils.ConfigUtils;
 import io.dongtai.iast.core.utils.PropertyUtils;
@@ -18,11 +19,32 @@ import java.util.Set;
  */
 public class ConfigMatcher {
 
+    /**
+     * agent 自身、数组等任何情况下都不能 hook 的类
+     */
+    private static final int FLAG_DENY = 1;
+    /**
+     * hook 黑名单中的类
+     */
+    private static final int FLAG_BLACKLIST = 1 << 1;
+    /**
+     * 策略中设置了 ignore_blacklist 或 ignore_internal 的类，不受黑名单限制
+     */
+    private static final int FLAG_IGNORE_BLACKLIST = 1 << 2;
+
+    private static final String[] DENY_PREFIXES = new String[]{
+            "[",
+            "java/lang/iast/",
+            "io/dongtai/",
+            "com/sun/jna/",
+    };
+
     private static ConfigMatcher INSTANCE;
     private final Set<String> BLACKS_SET;
-    private final String[] START_ARRAY;
-    private final String[] END_ARRAY;
+    private final Set<String> START_SET;
+    private final Set<String> END_SET;
     private final String[] DISABLE_EXT;
+    private volatile ClassNameFilter classNameFilter;
     private Instrumentation inst;
 
     private final Set<String> BLACK_URL;
@@ -44,8 +66,8 @@ public class ConfigMatcher {
         BLACK_URL = ConfigUtils.loadConfigFromFileByLine(blackUrl);
 
         Set<String>[] items = ConfigUtils.loadConfigFromFile(blackList);
-        START_ARRAY = items[1].toArray(new String[0]);
-        END_ARRAY = items[2].toArray(new String[0]);
+        START_SET = items[1];
+        END_SET = items[2];
         BLACKS_SET = items[0];
 
         DISABLE_EXT = ConfigUtils.loadExtConfigFromFile(disableExtList);
@@ -98,10 +120,67 @@ public class ConfigMatcher {
         return false;
     }
 
-    private boolean inHookBlacklist(String className) {
-        return BLACKS_SET.contains(className)
-                || StringUtils.startsWithAny(className, START_ARRAY)
-                || StringUtils.endsWithAny(className, END_ARRAY);
+    /**
+     * 编译后的类名过滤器，与策略一一对应，策略或其中的 ignore 类变化后重新编译
+     */
+    private static class ClassNameFilter {
+        private final Policy policy;
+        private final int ignoreCount;
+        private final ClassNameTrie trie;
+
+        private ClassNameFilter(Policy policy, int ignoreCount, ClassNameTrie trie) {
+            this.policy = policy;
+            this.ignoreCount = ignoreCount;
+            this.trie = trie;
+        }
+    }
+
+    private static int ignoreCount(Policy policy) {
+        if (policy == null) {
+            return 0;
+        }
+        return policy.getIgnoreBlacklistHooks().size() + policy.getIgnoreInternalHooks().size();
+    }
+
+    private ClassNameTrie getClassNameFilter(Policy policy) {
+        int ignoreCount = ignoreCount(policy);
+        ClassNameFilter filter = this.classNameFilter;
+        if (filter != null && filter.policy == policy && filter.ignoreCount == ignoreCount) {
+            return filter.trie;
+        }
+        synchronized (this) {
+            filter = this.classNameFilter;
+            if (filter == null || filter.policy != policy || filter.ignoreCount != ignoreCount) {
+                filter = new ClassNameFilter(policy, ignoreCount, compileClassNameFilter(policy));
+                this.classNameFilter = filter;
+            }
+            return filter.trie;
+        }
+    }
+
+    private ClassNameTrie compileClassNameFilter(Policy policy) {
+        ClassNameTrie.Builder builder = ClassNameTrie.builder();
+        for (String prefix : DENY_PREFIXES) {
+            builder.addPrefix(prefix, FLAG_DENY);
+        }
+        for (String className : BLACKS_SET) {
+            builder.addExact(className, FLAG_BLACKLIST);
+        }
+        for (String prefix : START_SET) {
+            builder.addPrefix(prefix, FLAG_BLACKLIST);
+        }
+        for (String suffix : END_SET) {
+            builder.addSuffix(suffix, FLAG_BLACKLIST);
+        }
+        if (policy != null) {
+            for (String className : policy.getIgnoreBlacklistHooks()) {
+                builder.addExact(className.replace('.', '/'), FLAG_IGNORE_BLACKLIST);
+            }
+            for (String className : policy.getIgnoreInternalHooks()) {
+                builder.addExact(className.replace('.', '/'), FLAG_IGNORE_BLACKLIST);
+            }
+        }
+        return builder.build();
     }
 
     public void setInst(Instrumentation inst) {
@@ -134,45 +213,26 @@ public class ConfigMatcher {
         if (StringUtils.isEmpty(className)) {
             return false;
         }
-        if (className.startsWith("[")) {
-            // DongTaiLog.trace("ignore transform {}. Reason: class is a Array Type", className);
-            return false;
-        }
-        if (className.contains("/$Proxy")) {
-            // DongTaiLog.trace("ignore transform {}. Reason: classname is a aop class by Proxy", className);
-            return false;
-        }
-        if (className.startsWith("java/lang/iast/")
-                || className.startsWith("io/dongtai/")
-                || className.startsWith("com/sun/jna/")
-        ) {
-            // DongTaiLog.trace("ignore transform {}. Reason: class is in blacklist", className);
-            return false;
-        }
-        if (className.contains("CGLIB$$")) {
-            // DongTaiLog.trace("ignore transform {}. Reason: classname is a aop class by CGLIB", className);
-            return false;
-        }
-
-        if (className.contains("$$Lambda$")) {
-            // DongTaiLog.trace("ignore transform {}. Reason: classname is a aop class by Lambda", className);
+        if (className.contains("/$Proxy")
+                || className.contains("CGLIB$$")
+                || className.contains("$$Lambda$")
+                || className.contains("_$$_jvst")) {
+            // DongTaiLog.trace("ignore transform {}. Reason: classname is a aop class", className);
             return false;
         }
 
-        if (className.contains("_$$_jvst")) {
-            // DongTaiLog.trace("ignore transform {}. Reason: classname is a aop class", className);
+        Policy policy = policyManager.getPolicy();
+        int flags = getClassNameFilter(policy).match(className);
+        if ((flags & FLAG_DENY) != 0) {
+            // DongTaiLog.trace("ignore transform {}. Reason: class is in blacklist", className);
             return false;
         }
-
-        String realClassName = className.replace('/', '.');
-        boolean isBlack = inHookBlacklist(className);
-        if (isBlack) {
-            if (policyManager.getPolicy() == null) {
+        if ((flags & FLAG_BLACKLIST) != 0) {
+            if (policy == null) {
                 return false;
             }
-            policyManager.getPolicy().addBlacklistHooks(realClassName);
-            if (!policyManager.getPolicy().isIgnoreBlacklistHooks(realClassName)
-                    && !policyManager.getPolicy().isIgnoreInternalHooks(realClassName)) {
+            policy.addBlacklistHooks(className);
+            if ((flags & FLAG_IGNORE_BLACKLIST) == 0) {
                 // DongTaiLog.trace("ignore transform {}. Reason: classname is startswith com/secnium/iast/", className);
                 return false;
             }
@@ -1,6 +1,10 @@
 package io.dongtai.iast.core.utils.threadlocal;
 
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.context.IdentityTaintPool;
+import io.dongtai.iast.core.handler.context.RequestTaintStore;
 import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.utils.PropertyUtils;
 import io.dongtai.iast.core.utils.TaintPoolUtils;
 import io.dongtai.log.DongTaiLog;
 import io.dongtai.log.ErrorCode;
@@ -11,21 +15,76 @@ import java.util.Map;
 /**
  * @author dongzhiyong@huoxian.cn
  */
-public class IastTaintHashCodes extends ThreadLocal<HashSet<Long>> {
+public class IastTaintHashCodes extends RequestStateLocal<HashSet<Long>> {
     @Override
-    protected HashSet<Long> initialValue() {
-        return null;
+    HashSet<Long> read(RequestState state) {
+        return state.taintHashes;
+    }
+
+    @Override
+    void write(RequestState state, HashSet<Long> value) {
+        state.taintHashes = value;
+    }
+
+    /**
+     * 进入请求时使用的污点池，开启 dongtai.taint.identity.enable 后按对象引用确认污点
+     */
+    public static HashSet<Long> newPool() {
+        PropertyUtils cfg = PropertyUtils.getInstance();
+        if (cfg != null && cfg.isTaintIdentityEnable()) {
+            return new IdentityTaintPool();
+        }
+        return new HashSet<Long>();
     }
 
     public boolean isEmpty() {
-        return this.get() == null || this.get().isEmpty();
+        HashSet<Long> hashCodes = this.get();
+        if (hashCodes != null && !hashCodes.isEmpty()) {
+            return false;
+        }
+        RequestTaintStore store = EngineManager.REQUEST_TAINT_STORE.get();
+        return store == null || store.isEmpty();
     }
 
     public boolean contains(Long hashCode) {
-        if (this.get() == null) {
+        HashSet<Long> hashCodes = this.get();
+        if (hashCodes == null) {
+            return false;
+        }
+        if (hashCodes.contains(hashCode)) {
+            return true;
+        }
+        // 其他线程（异步任务或提交任务的请求线程）产生的污点
+        RequestTaintStore store = EngineManager.REQUEST_TAINT_STORE.get();
+        return store != null && store.containsHash(hashCode);
+    }
+
+    /**
+     * 与 {@link #contains(Long)} 相同，按对象引用确认时排除哈希相同的其他对象
+     */
+    public boolean contains(Long hashCode, Object obj) {
+        HashSet<Long> hashCodes = this.get();
+        if (hashCodes == null) {
             return false;
         }
-        return this.get().contains(hashCode);
+        if (hashCodes.contains(hashCode)) {
+            return !(hashCodes instanceof IdentityTaintPool)
+                    || ((IdentityTaintPool) hashCodes).contains(hashCode, obj);
+        }
+        RequestTaintStore store = EngineManager.REQUEST_TAINT_STORE.get();
+        return store != null && store.containsHash(hashCode);
+    }
+
+    public void add(Long hashCode, Object obj) {
+        HashSet<Long> hashCodes = this.get();
+        if (hashCodes == null) {
+            return;
+        }
+        if (hashCodes instanceof IdentityTaintPool) {
+            ((IdentityTaintPool) hashCodes).add(hashCode, obj);
+        } else {
+            hashCodes.add(hashCode);
+        }
     }
 
     public void add(Long hashCode) {
@@ -46,16 +105,16 @@ public class IastTaintHashCodes extends ThreadLocal<HashSet<Long>> {
                 String[] tempObjs = (String[]) obj;
                 for (String tempObj : tempObjs) {
                     subHashCode = TaintPoolUtils.toStringHash(tempObj.hashCode(),System.identityHashCode(tempObj));
-                    this.add(subHashCode);
+                    this.add(subHashCode, tempObj);
                     event.addTargetHash(subHashCode);
                 }
             } else if (obj instanceof Map) {
                 long hashCode = System.identityHashCode(obj);
-                this.add(hashCode);
+                this.add(hashCode, obj);
                 event.addTargetHash(hashCode);
             } else if (obj instanceof String){
                 long hashCode = TaintPoolUtils.toStringHash(obj.hashCode(),System.identityHashCode(obj));
-                this.add(hashCode);
+                this.add(hashCode, obj);
                 event.addTargetHash(hashCode);
             } else if (obj.getClass().isArray() && !obj.getClass().getComponentType().isPrimitive()) {
                 Object[] tempObjs = (Object[]) obj;
@@ -66,7 +125,7 @@ public class IastTaintHashCodes extends ThreadLocal<HashSet<Long>> {
                 }
             } else {
                 subHashCode = System.identityHashCode(obj);
-                this.add(subHashCode);
+                this.add(subHashCode, obj);
                 event.addTargetHash(subHashCode);
             }
         } catch (Throwable e) {
@@ -7,10 +7,15 @@ import java.util.Map;
 /**
  * @author dongzhiyong@huoxian.cn
  */
-public class IastTrackMap extends ThreadLocal<Map<Integer, MethodEvent>> {
+public class IastTrackMap extends RequestStateLocal<Map<Integer, MethodEvent>> {
     @Override
-    protected Map<Integer, MethodEvent> initialValue() {
-        return null;
+    Map<Integer, MethodEvent> read(RequestState state) {
+        return state.trackMap;
+    }
+
+    @Override
+    void write(RequestState state, Map<Integer, MethodEvent> value) {
+        state.trackMap = value;
     }
 
     public void addTrackMethod(Integer invokeId, MethodEvent event) {
@@ -5,10 +5,15 @@ import java.util.Map;
 /**
  * @author dongzhiyong@huoxian.cn
  */
-public class RequestContext extends ThreadLocal<Map<String, Object>> {
+public class RequestContext extends RequestStateLocal<Map<String, Object>> {
     @Override
-    protected Map<String, Object> initialValue() {
-        return null;
+    Map<String, Object> read(RequestState state) {
+        return state.requestMeta;
+    }
+
+    @Override
+    void write(RequestState state, Map<String, Object> value) {
+        state.requestMeta = value;
     }
 
     public String getCookieValue() {
@@ -0,0 +1,29 @@
+package io.dongtai.iast.core.utils.threadlocal;
+
+import io.dongtai.iast.core.handler.context.RequestTaintStore;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * 当前线程正在处理的请求的状态：请求信息、方法池、污点池和跨线程的污点存储
+ * <p>
+ * 线程上只保存这一个对象，进入请求时创建，所有字段清空时一起移除。
+ * 虚拟线程通常只处理一个请求，每个线程只占用一个 ThreadLocalMap 条目
+ */
+final class RequestState {
+    static final ThreadLocal<RequestState> CURRENT = new ThreadLocal<RequestState>();
+
+    Map<String, Object> requestMeta;
+    Map<Integer, MethodEvent> trackMap;
+    HashSet<Long> taintHashes;
+    Map<Long, TaintRanges> taintRanges;
+    RequestTaintStore store;
+
+    boolean isEmpty() {
+        return this.requestMeta == null && this.trackMap == null && this.taintHashes == null
+                && this.taintRanges == null && this.store == null;
+    }
+}
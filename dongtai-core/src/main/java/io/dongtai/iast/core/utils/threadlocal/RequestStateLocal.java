@@ -0,0 +1,49 @@
+package io.dongtai.iast.core.utils.threadlocal;
+
+/**
+ * 保存在 {@link RequestState} 中的请求状态，使用方式与 ThreadLocal 相同
+ */
+public abstract class RequestStateLocal<T> extends ThreadLocal<T> {
+    @Override
+    public T get() {
+        RequestState state = RequestState.CURRENT.get();
+        return state == null ? null : read(state);
+    }
+
+    @Override
+    public void set(T value) {
+        if (value == null) {
+            remove();
+            return;
+        }
+        RequestState state = RequestState.CURRENT.get();
+        if (state == null) {
+            state = new RequestState();
+            RequestState.CURRENT.set(state);
+        }
+        write(state, value);
+    }
+
+    @Override
+    public void remove() {
+        RequestState state = RequestState.CURRENT.get();
+        if (state == null) {
+            return;
+        }
+        write(state, null);
+        if (state.isEmpty()) {
+            RequestState.CURRENT.remove();
+        }
+    }
+
+    /**
+     * 清除当前线程上的全部请求状态
+     */
+    public static void clear() {
+        RequestState.CURRENT.remove();
+    }
+
+    abstract T read(RequestState state);
+
+    abstract void write(RequestState state, T value);
+}
@@ -0,0 +1,18 @@
+package io.dongtai.iast.core.utils.threadlocal;
+
+import io.dongtai.iast.core.handler.context.RequestTaintStore;
+
+/**
+ * 请求提交过异步任务时才会创建的跨线程污点存储
+ */
+public class RequestTaintStoreLocal extends RequestStateLocal<RequestTaintStore> {
+    @Override
+    RequestTaintStore read(RequestState state) {
+        return state.store;
+    }
+
+    @Override
+    void write(RequestState state, RequestTaintStore value) {
+        state.store = value;
+    }
+}
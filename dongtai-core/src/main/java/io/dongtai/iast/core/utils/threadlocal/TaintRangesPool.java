@@ -1,13 +1,20 @@
 package io.dongtai.iast.core.utils.threadlocal;
 
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.context.RequestTaintStore;
 import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
 
 import java.util.Map;
 
-public class TaintRangesPool extends ThreadLocal<Map<Long, TaintRanges>> {
+public class TaintRangesPool extends RequestStateLocal<Map<Long, TaintRanges>> {
     @Override
-    protected Map<Long, TaintRanges> initialValue() {
-        return null;
+    Map<Long, TaintRanges> read(RequestState state) {
+        return state.taintRanges;
+    }
+
+    @Override
+    void write(RequestState state, Map<Long, TaintRanges> value) {
+        state.taintRanges = value;
     }
 
     public void add(Long hash, TaintRanges taintRanges) {
@@ -15,6 +22,13 @@ public class TaintRangesPool extends ThreadLocal<Map<Long, TaintRanges>> {
     }
 
     public TaintRanges get(long hash) {
-        return this.get().get(hash);
+        TaintRanges taintRanges = this.get().get(hash);
+        if (taintRanges == null) {
+            RequestTaintStore store = EngineManager.REQUEST_TAINT_STORE.get();
+            if (store != null) {
+                taintRanges = store.getRanges(hash);
+            }
+        }
+        return taintRanges;
     }
 }
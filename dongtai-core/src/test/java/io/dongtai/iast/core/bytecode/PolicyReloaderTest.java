@@ -0,0 +1,209 @@
+package io.dongtai.iast.core.bytecode;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.IastClassDiagram;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.*;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.iast.core.utils.matcher.ConfigMatcher;
+import org.apache.commons.io.FileUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+public class PolicyReloaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+    private static final Class<?>[] LOADED = new Class<?>[]{
+            UserController.class, UserService.class, UserDao.class, Repository.class, AuditLog.class,
+    };
+
+    private final List<Class<?>> retransformed = new ArrayList<Class<?>>();
+    private PolicyManager policyManager;
+    private PolicyReloader reloader;
+    private File policyFile;
+
+    @Before
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance(PROPERTY_FILE);
+        this.policyFile = this.folder.newFile("policy.json");
+        this.policyManager = new PolicyManager();
+        Instrumentation inst = fakeInstrumentation();
+        ConfigMatcher configMatcher = new ConfigMatcher() {
+            // 测试类在 agent 自身的包下，不经过黑名单
+            @Override
+            public boolean canHook(Class<?> clazz, PolicyManager policyManager) {
+                return !clazz.isInterface();
+            }
+        };
+        this.reloader = new PolicyReloader(inst, this.policyManager, configMatcher, IastClassDiagram.getInstance());
+
+        writePolicy(
+                node(2, UserController.class, "param()", "all").put("source", "").put("target", "R"),
+                node(4, Repository.class, "query(java.lang.String)", "true").put("source", "P1").put("vul_type", "sql-injection"),
+                node(1, AuditLog.class, "write(java.lang.String)", "false").put("source", "P1").put("target", "O"));
+        this.policyManager.loadPolicy(this.policyFile.getPath());
+        Assert.assertEquals(3, this.policyManager.getPolicy().getPolicyNodesMap().size());
+    }
+
+    @After
+    public void tearDown() {
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testReloadRetransformsChangedClassesOnly() throws Exception {
+        Policy oldPolicy = this.policyManager.getPolicy();
+        String oldVersion = this.policyManager.getPolicyVersion();
+
+        // 删除 source，新增 sink，只修改 Repository sink 的漏洞类型
+        writePolicy(
+                node(4, Repository.class, "query(java.lang.String)", "true").put("source", "P1").put("vul_type", "ssrf"),
+                node(1, AuditLog.class, "write(java.lang.String)", "false").put("source", "P1").put("target", "O"),
+                node(4, UserService.class, "exec(java.lang.String)", "false").put("source", "P1").put("vul_type", "cmd-injection"));
+        Class<?>[] classes = this.reloader.reload(this.policyFile.getPath());
+
+        Assert.assertEquals(new HashSet<Class<?>>(Arrays.<Class<?>>asList(UserController.class, UserService.class)),
+                new HashSet<Class<?>>(Arrays.asList(classes)));
+        Assert.assertEquals(Arrays.asList(classes), this.retransformed);
+        Policy policy = this.policyManager.getPolicy();
+        Assert.assertNotSame(oldPolicy, policy);
+        Assert.assertNotEquals(oldVersion, this.policyManager.getPolicyVersion());
+
+        // 重新转换 UserService 后插入新的 sink，hook 点按 key 查到新节点
+        Assert.assertFalse(matchedClasses(policy, UserService.class).isEmpty());
+        SinkNode exec = (SinkNode) policy.getMatchedPolicyNodes(UserService.class.getName(),
+                Policy.methodKey("exec", "(Ljava/lang/String;)V")).iterator().next();
+        Assert.assertSame(exec, policy.getPolicyNode(exec.toString()));
+        Assert.assertEquals("cmd-injection", exec.getVulType());
+
+        // 删除的 source 不再命中，UserController 重新转换后去掉原来的 hook
+        Assert.assertTrue(matchedClasses(policy, UserController.class).isEmpty());
+        for (PolicyNode node : oldPolicy.getSources()) {
+            Assert.assertNull(policy.getPolicyNode(node.toString()));
+        }
+
+        // 只修改了漏洞类型，UserDao 不需要重新转换，已插入的 hook 点直接使用新节点
+        SinkNode query = (SinkNode) policy.getMatchedPolicyNodes(Repository.class.getName(),
+                Policy.methodKey("query", "(Ljava/lang/String;)V")).iterator().next();
+        Assert.assertEquals("ssrf", ((SinkNode) policy.getPolicyNode(query.toString())).getVulType());
+        Assert.assertEquals(Collections.singleton(Repository.class.getName()), matchedClasses(policy, UserDao.class));
+    }
+
+    @Test
+    public void testInheritChanged() throws Exception {
+        writePolicy(
+                node(2, UserController.class, "param()", "all").put("source", "").put("target", "R"),
+                node(4, Repository.class, "query(java.lang.String)", "false").put("source", "P1").put("vul_type", "sql-injection"),
+                node(1, AuditLog.class, "write(java.lang.String)", "false").put("source", "P1").put("target", "O"));
+        Class<?>[] classes = this.reloader.reload(this.policyFile.getPath());
+
+        Assert.assertArrayEquals(new Class<?>[]{UserDao.class}, classes);
+        Assert.assertTrue(matchedClasses(this.policyManager.getPolicy(), UserDao.class).isEmpty());
+    }
+
+    @Test
+    public void testUnchangedOrInvalid() throws Exception {
+        Policy policy = this.policyManager.getPolicy();
+        Assert.assertEquals(0, this.reloader.reload(this.policyFile.getPath()).length);
+        Assert.assertSame(policy, this.policyManager.getPolicy());
+
+        FileUtils.writeStringToFile(this.policyFile, "{", "UTF-8");
+        Assert.assertEquals(0, this.reloader.reload(this.policyFile.getPath()).length);
+        Assert.assertSame(policy, this.policyManager.getPolicy());
+        Assert.assertTrue(this.retransformed.isEmpty());
+    }
+
+    @Test
+    public void testDiff() throws Exception {
+        Policy oldPolicy = this.policyManager.getPolicy();
+        writePolicy(
+                node(2, UserController.class, "param()", "false").put("source", "").put("target", "R"),
+                node(4, Repository.class, "query(java.lang.String)", "true").put("source", "P1").put("vul_type", "sql-injection"));
+        PolicyDiff diff = this.policyManager.reloadPolicy(this.policyFile.getPath());
+
+        Assert.assertEquals(0, diff.getAdded().size());
+        Assert.assertEquals(1, diff.getRemoved().size());
+        Assert.assertEquals(1, diff.getChanged().size());
+        Assert.assertSame(this.policyManager.getPolicy().getSources().get(0), diff.getChanged().get(0));
+        Assert.assertTrue(diff.isAffected(AuditLog.class.getName(), null));
+        Assert.assertTrue(diff.isAffected(UserController.class.getName(), null));
+        Assert.assertFalse(diff.isAffected(UserDao.class.getName(),
+                new HashSet<String>(Arrays.asList(UserDao.class.getName(), Repository.class.getName()))));
+        Assert.assertTrue(PolicyDiff.diff(oldPolicy, oldPolicy).isEmpty());
+    }
+
+    private static Set<String> matchedClasses(Policy policy, Class<?> clazz) {
+        Set<String> ancestors = IastClassDiagram.getInstance().getClassAncestorSet(clazz);
+        ClassContext context = new ClassContext(clazz.getName(), ancestors, new String[0], Modifier.PUBLIC, false);
+        return policy.getMatchedClass(context, clazz.getName(), ancestors);
+    }
+
+    private static JSONObject node(int type, Class<?> clazz, String method, String inherit) {
+        return new JSONObject()
+                .put("type", type)
+                .put("signature", clazz.getName() + "." + method)
+                .put("inherit", inherit);
+    }
+
+    private void writePolicy(JSONObject... nodes) throws Exception {
+        JSONObject config = new JSONObject().put("status", 201).put("data", new JSONArray(Arrays.asList(nodes)));
+        FileUtils.writeStringToFile(this.policyFile, config.toString(), "UTF-8");
+    }
+
+    private Instrumentation fakeInstrumentation() {
+        return (Instrumentation) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Instrumentation.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("getAllLoadedClasses".equals(method.getName())) {
+                            return LOADED.clone();
+                        }
+                        if ("retransformClasses".equals(method.getName())) {
+                            Collections.addAll(retransformed, (Class<?>[]) args[0]);
+                            return null;
+                        }
+                        if ("isModifiableClass".equals(method.getName())) {
+                            return true;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    public static class UserController {
+        public String param() {
+            return "";
+        }
+    }
+
+    public static class UserService {
+        public void exec(String cmd) {
+        }
+    }
+
+    public interface Repository {
+        void query(String sql);
+    }
+
+    public static class UserDao implements Repository {
+        @Override
+        public void query(String sql) {
+        }
+    }
+
+    public static class AuditLog {
+        public void write(String line) {
+        }
+    }
+}
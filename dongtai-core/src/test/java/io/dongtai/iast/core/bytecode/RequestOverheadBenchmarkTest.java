@@ -0,0 +1,252 @@
+package io.dongtai.iast.core.bytecode;
+
+import io.dongtai.iast.common.state.AgentState;
+import io.dongtai.iast.core.AgentEngine;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
+import io.dongtai.iast.core.service.ServiceFactory;
+import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.SimpleRemapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.dongtai.SpyDispatcher;
+import java.lang.dongtai.SpyDispatcherHandler;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次请求经过插桩代码的完整开销：在单独的 JVM 中用 {@link IastClassFileTransformer} 按策略转换模拟的业务类，
+ * 按 servlet 插桩的顺序调用 enterHttp、collectHttpRequest、leaveHttp，leaveHttp 时构建报告，报告不发送到服务端。
+ * <ul>
+ * <li>untaintedRequest：请求经过传播和 sink 的 hook 点，但没有读取请求参数，不产生污点</li>
+ * <li>taintedRequest：读取请求参数（source），拼接 SQL（propagator），执行查询（sink），生成漏洞报告</li>
+ * </ul>
+ * SampleTime 模式输出延迟的分位数，gc.alloc.rate.norm 为每个请求的分配字节数。
+ * 策略默认使用测试用例中的策略加上模拟业务类的节点，可以通过 -p policy=&lt;path&gt; 使用服务端下发的策略。
+ * 插桩代码调用的 java.lang.dongtai 包只能由启动类加载器加载，运行前需要编译 dongtai-spy 模块
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xbootclasspath/a:../dongtai-spy/target/classes")
+public class RequestOverheadBenchmarkTest {
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+    private static final String STAND_IN_PACKAGE = "bench/";
+    private static final List<String> HEADER_NAMES = Arrays.asList("Host", "User-Agent", "Accept", "Cookie");
+
+    @Param({"src/test/fixture/policy/policy.json"})
+    public String policy;
+
+    private final AtomicLong reportBytes = new AtomicLong();
+    private File dir;
+    private Servlet servlet;
+    private Object request;
+    private Object response;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.dir = new File(System.getProperty("java.io.tmpdir"), "dongtai-request-bench-" + System.nanoTime());
+        FileUtils.forceMkdir(this.dir);
+        // 避免启动时下载 dongtai-api.jar
+        FileUtils.touch(new File(this.dir, "dongtai-api.jar"));
+        System.setProperty("java.io.tmpdir.dongtai", this.dir.getPath() + File.separator);
+
+        PropertyUtils.getInstance(PROPERTY_FILE);
+        EngineManager.getInstance(1);
+        AgentState.getInstance().setState(io.dongtai.iast.common.state.State.RUNNING);
+        ThreadPools.setReportSender(new ThreadPools.ReportSender() {
+            @Override
+            public void send(String url, String report) {
+                reportBytes.addAndGet(report.length());
+            }
+        });
+        // 不启动心跳
+        Field running = ServiceFactory.class.getDeclaredField("RUNNING");
+        running.setAccessible(true);
+        running.set(null, true);
+
+        File policyFile = new File(this.dir, "policy.json");
+        FileUtils.writeStringToFile(policyFile, buildPolicy(this.policy).toString(), "UTF-8");
+        PolicyManager policyManager = new PolicyManager();
+        policyManager.loadPolicy(policyFile.getPath());
+        AgentEngine.getInstance().setPolicyManager(policyManager);
+
+        IastClassFileTransformer transformer = new IastClassFileTransformer(null, policyManager);
+        StandInClassLoader loader = new StandInClassLoader(getClass().getClassLoader(), transformer);
+        this.servlet = (Servlet) loader.loadClass("bench.StandServlet").newInstance();
+        this.request = loader.loadClass("bench.StandRequest").newInstance();
+        this.response = new Object();
+
+        this.reportBytes.set(0);
+        taintedRequest();
+        if (this.reportBytes.get() == 0) {
+            throw new IllegalStateException("tainted request did not produce a report");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ThreadPools.setReportSender(null);
+        FileUtils.deleteQuietly(this.dir);
+        PropertyUtils.clear();
+    }
+
+    @Benchmark
+    public int untaintedRequest() {
+        return service(false);
+    }
+
+    @Benchmark
+    public int taintedRequest() {
+        return service(true);
+    }
+
+    /**
+     * 与 servlet 入口插桩的调用顺序一致
+     */
+    private int service(boolean tainted) {
+        SpyDispatcher spy = SpyDispatcherHandler.getDispatcher();
+        spy.enterHttp();
+        try {
+            if (spy.isFirstLevelHttp()) {
+                spy.collectHttpRequest(this.servlet, this.request, this.response,
+                        new StringBuffer("http://localhost:8080/user"), "/user", "name=alice", "GET", "HTTP/1.1",
+                        "http", "localhost", "", "127.0.0.1", false, 8080,
+                        Collections.enumeration(HEADER_NAMES));
+            }
+            return this.servlet.service(this.request, tainted);
+        } finally {
+            spy.leaveHttp(this.request, this.response);
+        }
+    }
+
+    private static JSONObject buildPolicy(String path) throws Exception {
+        JSONObject config = new JSONObject(FileUtils.readFileToString(new File(path), "UTF-8"));
+        JSONArray data = config.getJSONArray("data");
+        data.put(node(2, "bench.StandRequest.getParameter(java.lang.String)").put("source", "").put("target", "R"));
+        data.put(node(1, "bench.StandDao.buildQuery(java.lang.String)").put("source", "P1").put("target", "R"));
+        data.put(node(4, "bench.StandDao.executeQuery(java.lang.String)").put("source", "P1")
+                .put("vul_type", "sql-injection"));
+        return config;
+    }
+
+    private static JSONObject node(int type, String signature) {
+        return new JSONObject().put("type", type).put("signature", signature).put("inherit", "false");
+    }
+
+    public interface Servlet {
+        int service(Object request, boolean tainted);
+    }
+
+    public static class StandRequest {
+        private static final String NAME = "alice' or '1'='1";
+
+        public String getParameter(String name) {
+            return new String(NAME);
+        }
+
+        public String getHeader(String name) {
+            return "Host".equals(name) ? "localhost:8080" : "bench";
+        }
+    }
+
+    public static class StandDao {
+        public String buildQuery(String name) {
+            return "select id from user where name = '" + name + "'";
+        }
+
+        public int executeQuery(String sql) {
+            return sql.length();
+        }
+    }
+
+    public static class StandServlet implements Servlet {
+        private final StandDao dao = new StandDao();
+
+        @Override
+        public int service(Object request, boolean tainted) {
+            String name = tainted ? ((StandRequest) request).getParameter("name") : "guest";
+            return this.dao.executeQuery(this.dao.buildQuery(name));
+        }
+    }
+
+    /**
+     * agent 不转换自身包下的类，加载时把模拟的业务类移到 bench 包下，再经过 transformer 转换
+     */
+    private static class StandInClassLoader extends ClassLoader {
+        private static final Class<?>[] STAND_INS = new Class<?>[]{
+                StandRequest.class, StandDao.class, StandServlet.class,
+        };
+
+        private final IastClassFileTransformer transformer;
+        private final Map<String, String> mapping = new HashMap<String, String>();
+
+        StandInClassLoader(ClassLoader parent, IastClassFileTransformer transformer) {
+            super(parent);
+            this.transformer = transformer;
+            for (Class<?> clazz : STAND_INS) {
+                this.mapping.put(clazz.getName().replace('.', '/'), STAND_IN_PACKAGE + clazz.getSimpleName());
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            String internalName = name.replace('.', '/');
+            for (Map.Entry<String, String> entry : this.mapping.entrySet()) {
+                if (!entry.getValue().equals(internalName)) {
+                    continue;
+                }
+                try {
+                    InputStream in = getParent().getResourceAsStream(entry.getKey() + ".class");
+                    byte[] bytes;
+                    try {
+                        bytes = IOUtils.toByteArray(in);
+                    } finally {
+                        in.close();
+                    }
+                    ClassReader cr = new ClassReader(bytes);
+                    ClassWriter cw = new ClassWriter(0);
+                    cr.accept(new ClassRemapper(cw, new SimpleRemapper(this.mapping)), 0);
+                    bytes = cw.toByteArray();
+
+                    byte[] transformed = this.transformer.transform(this, internalName, null, null, bytes);
+                    if (transformed != null) {
+                        bytes = transformed;
+                    }
+                    return defineClass(name, bytes, 0, bytes.length);
+                } catch (Exception e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+            throw new ClassNotFoundException(name);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(RequestOverheadBenchmarkTest.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,139 @@
+package io.dongtai.iast.core.bytecode;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class TransformCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final byte[] CLASS_BYTES = new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 1, 2, 3};
+
+    @Test
+    public void testKey() {
+        Set<String> ancestors = new HashSet<String>(Arrays.asList("a.B", "a.C", "a.D"));
+        Set<String> reordered = new LinkedHashSet<String>(Arrays.asList("a.D", "a.B", "a.C"));
+        String key = TransformCache.key(CLASS_BYTES, ancestors, false);
+        Assert.assertEquals(40, key.length());
+        Assert.assertEquals(key, TransformCache.key(CLASS_BYTES, reordered, false));
+        Assert.assertNotEquals(key, TransformCache.key(CLASS_BYTES, ancestors, true));
+        Assert.assertNotEquals(key, TransformCache.key(CLASS_BYTES, new HashSet<String>(Arrays.asList("a.B", "a.C")), false));
+        Assert.assertNotEquals(key, TransformCache.key(Arrays.copyOf(CLASS_BYTES, 6), ancestors, false));
+    }
+
+    @Test
+    public void testReuseAcrossRestart() throws Exception {
+        File base = folder.getRoot();
+        String transformedKey = TransformCache.key(CLASS_BYTES, null, false);
+        String skipKey = TransformCache.key(CLASS_BYTES, null, true);
+        byte[] transformed = new byte[]{9, 8, 7};
+
+        TransformCache cache = TransformCache.open(base, "1.0", "p1");
+        Assert.assertNotNull(cache);
+        Assert.assertNull(cache.get(transformedKey));
+        Assert.assertNull(cache.get(skipKey));
+        cache.putTransformed(transformedKey, transformed);
+        cache.putNotHookable(skipKey);
+        cache.putNotHookable(skipKey);
+        Assert.assertEquals(2, cache.getMissCount());
+        cache.close();
+
+        // 模拟重启
+        TransformCache reopened = TransformCache.open(base, "1.0", "p1");
+        Assert.assertNotNull(reopened);
+        Assert.assertArrayEquals(transformed, reopened.get(transformedKey));
+        Assert.assertSame(TransformCache.NOT_HOOKABLE, reopened.get(skipKey));
+        Assert.assertEquals(2, reopened.getHitCount());
+        Assert.assertEquals(20, new File(reopened.getDir(), TransformCache.NOT_HOOKABLE_INDEX).length());
+        reopened.close();
+    }
+
+    @Test
+    public void testInvalidatedOnPolicyChange() throws Exception {
+        File base = folder.getRoot();
+        String key = TransformCache.key(CLASS_BYTES, null, false);
+
+        TransformCache cache = TransformCache.open(base, "1.0", "p1");
+        cache.putTransformed(key, new byte[]{1});
+        cache.putNotHookable(TransformCache.key(CLASS_BYTES, null, true));
+        File oldDir = cache.getDir();
+        cache.close();
+
+        TransformCache changed = TransformCache.open(base, "1.0", "p2");
+        Assert.assertNull(changed.get(key));
+        Assert.assertNull(changed.get(TransformCache.key(CLASS_BYTES, null, true)));
+        // 其他 JVM 可能还在使用旧策略的目录
+        Assert.assertTrue(oldDir.exists());
+        changed.close();
+
+        TransformCache upgraded = TransformCache.open(base, "1.1", "p2");
+        Assert.assertNotEquals(changed.getDir(), upgraded.getDir());
+        Assert.assertTrue(changed.getDir().exists());
+        upgraded.close();
+    }
+
+    @Test
+    public void testEvictIdleEntries() throws Exception {
+        File base = folder.getRoot();
+        TransformCache idle = TransformCache.open(base, "1.0", "idle");
+        idle.close();
+        Assert.assertTrue(idle.getDir().setLastModified(System.currentTimeMillis() - TransformCache.MAX_IDLE_MILLIS - 1000));
+
+        long now = System.currentTimeMillis();
+        File[] recent = new File[TransformCache.MAX_ENTRIES];
+        for (int i = 0; i < recent.length; i++) {
+            TransformCache cache = TransformCache.open(base, "1.0", "p" + i);
+            cache.close();
+            recent[i] = cache.getDir();
+            Assert.assertTrue(recent[i].setLastModified(now - (recent.length - i) * 1000L));
+        }
+        Assert.assertFalse(idle.getDir().exists());
+
+        // 超过数量上限时淘汰最久没有打开的目录
+        TransformCache current = TransformCache.open(base, "1.0", "current");
+        current.close();
+        Assert.assertTrue(current.getDir().exists());
+        Assert.assertFalse(recent[0].exists());
+        Assert.assertTrue(recent[1].exists());
+        Assert.assertEquals(TransformCache.MAX_ENTRIES, current.getDir().getParentFile().listFiles().length);
+    }
+
+    @Test
+    public void testFileDigest() throws Exception {
+        File a = folder.newFile("a.jar");
+        File b = folder.newFile("b.jar");
+        FileUtils.writeByteArrayToFile(a, CLASS_BYTES);
+        FileUtils.writeByteArrayToFile(b, CLASS_BYTES);
+        Assert.assertTrue(b.setLastModified(a.lastModified() - 10000));
+        Assert.assertEquals(TransformCache.sha1Hex(CLASS_BYTES), TransformCache.sha1Hex(a));
+        Assert.assertEquals(TransformCache.sha1Hex(a), TransformCache.sha1Hex(b));
+    }
+
+    @Test
+    public void testTruncatedIndexRecordIgnored() throws Exception {
+        File base = folder.getRoot();
+        String key = TransformCache.key(CLASS_BYTES, null, false);
+        TransformCache cache = TransformCache.open(base, "1.0", "p1");
+        cache.putNotHookable(key);
+        cache.close();
+
+        File index = new File(cache.getDir(), TransformCache.NOT_HOOKABLE_INDEX);
+        RandomAccessFile raf = new RandomAccessFile(index, "rw");
+        raf.seek(raf.length());
+        raf.write(new byte[]{1, 2, 3});
+        raf.close();
+
+        TransformCache reopened = TransformCache.open(base, "1.0", "p1");
+        Assert.assertSame(TransformCache.NOT_HOOKABLE, reopened.get(key));
+        Assert.assertEquals(20, index.length());
+        reopened.close();
+    }
+}
@@ -0,0 +1,126 @@
+package io.dongtai.iast.core.bytecode.enhance;
+
+import io.dongtai.iast.core.utils.AsmUtils;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.InputStream;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 模拟应用启动时的类转换：对一组第三方 jar 中的全部类计算祖先类集合，并以 COMPUTE_FRAMES 重新生成字节码
+ * <p>
+ * cold 每轮都清空类头缓存和祖先类缓存，warm 复用已有缓存，单位为每轮（整个类集合）耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ClassHierarchyBenchmarkTest {
+    /**
+     * 取这些类所在的 jar 作为被转换的类集合
+     */
+    private static final Class<?>[] JAR_ANCHORS = new Class<?>[]{
+            com.alibaba.fastjson2.JSON.class,
+            org.apache.commons.lang3.StringUtils.class,
+            org.objectweb.asm.ClassReader.class,
+            org.junit.Assert.class,
+    };
+
+    private final List<byte[]> classes = new ArrayList<byte[]>();
+    private ClassLoader loader;
+    private IastClassDiagram warmDiagram;
+
+    @Setup
+    public void setup() throws Exception {
+        this.loader = getClass().getClassLoader();
+        for (Class<?> anchor : JAR_ANCHORS) {
+            CodeSource codeSource = anchor.getProtectionDomain().getCodeSource();
+            File file = new File(codeSource.getLocation().toURI());
+            if (!file.isFile()) {
+                continue;
+            }
+            JarFile jar = new JarFile(file);
+            try {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    String name = entry.getName();
+                    if (!name.endsWith(".class") || name.startsWith("META-INF/") || name.endsWith("module-info.class")) {
+                        continue;
+                    }
+                    InputStream in = jar.getInputStream(entry);
+                    try {
+                        this.classes.add(IOUtils.toByteArray(in));
+                    } finally {
+                        in.close();
+                    }
+                }
+            } finally {
+                jar.close();
+            }
+        }
+        this.warmDiagram = new IastClassDiagram(ClassHierarchyCache.getInstance());
+        transformAll(this.warmDiagram);
+    }
+
+    @Benchmark
+    public int coldCache() {
+        ClassHierarchyCache.getInstance().clear();
+        return transformAll(new IastClassDiagram(ClassHierarchyCache.getInstance()));
+    }
+
+    @Benchmark
+    public int warmCache() {
+        return transformAll(this.warmDiagram);
+    }
+
+    private int transformAll(IastClassDiagram diagram) {
+        int size = 0;
+        for (byte[] bytes : this.classes) {
+            ClassReader cr = new ClassReader(bytes);
+            if ((cr.getAccess() & Opcodes.ACC_INTERFACE) != 0) {
+                continue;
+            }
+            ClassContext classContext = new ClassContext(cr, this.loader);
+            ClassHierarchyCache.getInstance().put(this.loader, cr);
+            size += diagram.updateAncestorsByClassContext(this.loader, classContext).size();
+
+            // SKIP_FRAMES 后由 COMPUTE_FRAMES 对每个方法重新计算栈帧，与插桩后的类一致地触发公共父类计算
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+                @Override
+                protected String getCommonSuperClass(String type1, String type2) {
+                    return AsmUtils.getCommonSuperClass(type1, type2, loader);
+                }
+            };
+            cr.accept(cw, ClassReader.SKIP_FRAMES);
+            size += cw.toByteArray().length;
+        }
+        return size;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(ClassHierarchyBenchmarkTest.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+
+}
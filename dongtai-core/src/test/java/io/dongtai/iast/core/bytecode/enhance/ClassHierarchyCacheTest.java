@@ -0,0 +1,139 @@
+package io.dongtai.iast.core.bytecode.enhance;
+
+import io.dongtai.iast.core.utils.AsmUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+
+public class ClassHierarchyCacheTest {
+
+    /**
+     * 统计资源读取次数的 ClassLoader
+     */
+    private static class CountingClassLoader extends URLClassLoader {
+        private int resourceReads;
+
+        private CountingClassLoader(ClassLoader parent) {
+            super(new URL[0], parent);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            this.resourceReads++;
+            return super.getResourceAsStream(name);
+        }
+    }
+
+    @Test
+    public void testHeaderParsedOncePerLoader() {
+        ClassHierarchyCache cache = new ClassHierarchyCache();
+        CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader());
+
+        ClassHierarchyCache.ClassHeader header = cache.get(loader, "java/util/ArrayList");
+        Assert.assertNotNull(header);
+        Assert.assertEquals("java/util/AbstractList", header.getSuperName());
+        Assert.assertTrue(Arrays.asList(header.getInterfaces()).contains("java/util/List"));
+        Assert.assertFalse(header.isInterface());
+        Assert.assertSame(header, cache.get(loader, "java/util/ArrayList"));
+        Assert.assertEquals(1, loader.resourceReads);
+
+        // 找不到的类同样只查找一次
+        Assert.assertNull(cache.get(loader, "com/foo/NotExists"));
+        Assert.assertNull(cache.get(loader, "com/foo/NotExists"));
+        Assert.assertEquals(2, loader.resourceReads);
+
+        // 不同的 ClassLoader 互不影响
+        CountingClassLoader other = new CountingClassLoader(getClass().getClassLoader());
+        Assert.assertNotNull(cache.get(other, "java/util/ArrayList"));
+        Assert.assertEquals(1, other.resourceReads);
+    }
+
+    @Test
+    public void testPutAvoidsResourceRead() throws Exception {
+        ClassHierarchyCache cache = new ClassHierarchyCache();
+        CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader());
+        InputStream in = getClass().getClassLoader().getResourceAsStream("java/util/HashMap.class");
+        Assert.assertNotNull(in);
+        cache.put(loader, new ClassReader(in));
+        in.close();
+
+        ClassHierarchyCache.ClassHeader header = cache.get(loader, "java/util/HashMap");
+        Assert.assertNotNull(header);
+        Assert.assertEquals("java/util/AbstractMap", header.getSuperName());
+        Assert.assertEquals(0, loader.resourceReads);
+    }
+
+    @Test
+    public void testLoaderIsWeaklyReferenced() throws Exception {
+        ClassHierarchyCache cache = new ClassHierarchyCache();
+        CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader());
+        cache.get(loader, "java/util/ArrayList");
+        Assert.assertEquals(1, cache.size());
+
+        loader = null;
+        for (int i = 0; i < 50 && cache.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testIsAssignableFrom() {
+        ClassHierarchyCache cache = new ClassHierarchyCache();
+        ClassLoader loader = getClass().getClassLoader();
+        Assert.assertTrue(cache.isAssignableFrom(loader, "java/util/List", "java/util/ArrayList"));
+        Assert.assertTrue(cache.isAssignableFrom(loader, "java/util/Collection", "java/util/ArrayList"));
+        Assert.assertTrue(cache.isAssignableFrom(loader, "java/util/AbstractList", "java/util/ArrayList"));
+        Assert.assertFalse(cache.isAssignableFrom(loader, "java/util/ArrayList", "java/util/List"));
+        Assert.assertFalse(cache.isAssignableFrom(loader, "java/util/Map", "java/util/ArrayList"));
+    }
+
+    @Test
+    public void testCommonSuperClass() {
+        ClassLoader loader = getClass().getClassLoader();
+        Assert.assertEquals("java/util/AbstractList",
+                AsmUtils.getCommonSuperClass("java/util/ArrayList", "java/util/LinkedList", loader));
+        Assert.assertEquals("java/util/AbstractList",
+                AsmUtils.getCommonSuperClass("java/util/AbstractList", "java/util/ArrayList", loader));
+        Assert.assertEquals("java/util/List",
+                AsmUtils.getCommonSuperClass("java/util/ArrayList", "java/util/List", loader));
+        Assert.assertEquals("java/lang/Object",
+                AsmUtils.getCommonSuperClass("java/util/ArrayList", "java/util/HashMap", loader));
+        Assert.assertEquals("java/lang/Object",
+                AsmUtils.getCommonSuperClass("java/util/List", "java/util/Map", loader));
+        Assert.assertEquals("java/lang/Object",
+                AsmUtils.getCommonSuperClass("com/foo/NotExists", "java/util/List", loader));
+        Assert.assertEquals("java/lang/Exception",
+                AsmUtils.getCommonSuperClass("java/io/IOException", "java/lang/InterruptedException", loader));
+    }
+
+    @Test
+    public void testDiagramIsLoaderAware() throws Exception {
+        IastClassDiagram diagram = new IastClassDiagram(new ClassHierarchyCache());
+        ClassLoader loader1 = new CountingClassLoader(getClass().getClassLoader());
+        ClassLoader loader2 = new CountingClassLoader(getClass().getClassLoader());
+
+        InputStream in = getClass().getClassLoader().getResourceAsStream("java/util/ArrayList.class");
+        Assert.assertNotNull(in);
+        ClassContext classContext = new ClassContext(new ClassReader(in), loader1);
+        in.close();
+
+        Set<String> ancestors = diagram.updateAncestorsByClassContext(loader1, classContext);
+        Assert.assertTrue(ancestors.containsAll(Arrays.asList("java.util.ArrayList", "java.util.AbstractList",
+                "java.util.AbstractCollection", "java.util.List", "java.util.Collection", "java.lang.Iterable",
+                "java.util.RandomAccess")));
+        Assert.assertFalse(ancestors.contains("java.lang.Object"));
+        Assert.assertSame(ancestors, diagram.getClassAncestorSet(loader1, "java.util.ArrayList"));
+        Assert.assertNull(diagram.getClassAncestorSet(loader2, "java.util.ArrayList"));
+
+        diagram.setClassAncestorSet(loader2, "java.util.ArrayList", new HashSet<String>(Collections.singleton("x")));
+        Assert.assertEquals(Collections.singleton("x"), diagram.getClassAncestorSet(loader2, "java.util.ArrayList"));
+        Assert.assertSame(ancestors, diagram.getClassAncestorSet(loader1, "java.util.ArrayList"));
+    }
+}
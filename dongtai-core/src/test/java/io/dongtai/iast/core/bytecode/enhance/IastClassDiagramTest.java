@@ -4,6 +4,8 @@ import io.dongtai.iast.core.bytecode.IastClassFileTransformer;
 import org.junit.Assert;
 import org.junit.Test;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -41,6 +43,38 @@ public class IastClassDiagramTest {
         Assert.assertEquals("[io.dongtai.iast.core.bytecode.IastClassFileTransformer, java.lang.instrument.ClassFileTransformer]", strings.toString());
     }
 
+    /**
+     * 祖先类的默认继承关系按祖先类本身查找：子类的祖先集合应包含祖先类转换时得到的全部祖先
+     * （以前按当前转换的类名查找，只有类自身在 DEFAULT_INTERFACE_LIST_MAP 中时才生效，子类拿不到这些祖先）
+     */
+    @Test
+    public void updateAncestorsWithDefaultInterfaceOfAncestor() {
+        ClassLoader loader = getClass().getClassLoader();
+        ClassHierarchyCache cache = new ClassHierarchyCache();
+        byte[] base = classBytes("weblogic/servlet/jsp/JspBase", "java/lang/Object");
+        byte[] page = classBytes("com/example/IndexJsp", "weblogic/servlet/jsp/JspBase");
+        cache.put(loader, new ClassReader(base));
+        cache.put(loader, new ClassReader(page));
+
+        IastClassDiagram diagram = new IastClassDiagram(cache);
+        Set<String> baseAncestors = diagram.updateAncestorsByClassContext(loader,
+                new ClassContext(new ClassReader(base), loader));
+        Assert.assertTrue(baseAncestors.contains("javax.servlet.http.HttpServlet"));
+
+        diagram = new IastClassDiagram(cache);
+        Set<String> pageAncestors = diagram.updateAncestorsByClassContext(loader,
+                new ClassContext(new ClassReader(page), loader));
+        Assert.assertTrue(pageAncestors.contains("weblogic.servlet.jsp.JspBase"));
+        Assert.assertTrue(pageAncestors.containsAll(baseAncestors));
+    }
+
+    private static byte[] classBytes(String name, String superName) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, superName, null);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
     @Test
     public void getFamilyFromClass() {
     }
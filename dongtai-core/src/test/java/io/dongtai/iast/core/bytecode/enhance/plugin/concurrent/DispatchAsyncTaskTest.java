@@ -0,0 +1,37 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.concurrent;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+public class DispatchAsyncTaskTest {
+    private final DispatchAsyncTask plugin = new DispatchAsyncTask();
+
+    @Test
+    public void testDispatch() {
+        Assert.assertTrue(dispatch(DispatchAsyncTask.THREAD_POOL_EXECUTOR, "java.util.concurrent.AbstractExecutorService"));
+        Assert.assertTrue(dispatch(DispatchAsyncTask.FORK_JOIN_POOL, "java.util.concurrent.AbstractExecutorService"));
+        Assert.assertTrue(dispatch(DispatchAsyncTask.THREAD_PER_TASK_EXECUTOR));
+        // 业务自定义的线程池需要还原 beforeExecute/afterExecute 的参数
+        Assert.assertTrue(dispatch("com.example.MonitoredExecutor", DispatchAsyncTask.THREAD_POOL_EXECUTOR));
+        Assert.assertFalse(dispatch("com.example.DirectExecutor", "java.util.concurrent.Executor"));
+        Assert.assertFalse(dispatch("java.util.ArrayList", "java.util.AbstractList"));
+    }
+
+    @Test
+    public void testIsHookClass() {
+        Assert.assertTrue(DispatchAsyncTask.isHookClass(Arrays.asList("com.example.Pool", DispatchAsyncTask.SCHEDULED_THREAD_POOL_EXECUTOR)));
+        Assert.assertFalse(DispatchAsyncTask.isHookClass(Arrays.asList("com.example.Pool", "java.util.concurrent.Executor")));
+        Assert.assertFalse(DispatchAsyncTask.isHookClass(Collections.<String>emptyList()));
+    }
+
+    private boolean dispatch(String className, String... ancestors) {
+        ClassContext context = new ClassContext(className, new HashSet<String>(Arrays.asList(ancestors)),
+                new String[0], Modifier.PUBLIC, false);
+        return this.plugin.dispatch(new ClassWriter(0), context, null) instanceof AsyncTaskExecutorAdapter;
+    }
+}
@@ -0,0 +1,203 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.core;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.IastClassDiagram;
+import io.dongtai.iast.core.bytecode.enhance.MethodContext;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.Policy;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyBuilder;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyNode;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyNodeType;
+import io.dongtai.iast.core.utils.AsmUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.objectweb.asm.*;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对一组 JDK 类进行 DispatchClassPlugin 转换的吞吐量
+ * <p>
+ * 策略按 JDK 常用类的全部方法生成，约 1500 个节点（inherit=all，子类同样命中），
+ * linearScan 为逐个策略节点调用 SignatureMethodMatcher 的方法匹配，indexedLookup 为按 (类, 方法名, 描述符) 查找索引，
+ * transform 为完整的插件转换
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DispatchClassPluginBenchmarkTest {
+    /**
+     * 生成策略节点的类
+     */
+    private static final Class<?>[] POLICY_CLASSES = new Class<?>[]{
+            String.class, StringBuilder.class, StringBuffer.class, AbstractMap.class, Map.class, List.class,
+            AbstractList.class, Collection.class, AbstractCollection.class, Character.class, Integer.class,
+            Long.class, java.io.InputStream.class, java.io.OutputStream.class, java.io.Reader.class,
+            java.io.Writer.class, java.net.URI.class, java.net.URL.class, java.util.regex.Pattern.class,
+            java.util.regex.Matcher.class, Arrays.class, Collections.class, java.nio.ByteBuffer.class,
+            java.nio.CharBuffer.class, Properties.class, java.util.Base64.Encoder.class,
+            java.util.Base64.Decoder.class, java.text.MessageFormat.class, java.lang.reflect.Method.class,
+    };
+
+    /**
+     * 被转换的类
+     */
+    private static final Class<?>[] CORPUS = new Class<?>[]{
+            String.class, StringBuilder.class, StringBuffer.class, HashMap.class, LinkedHashMap.class,
+            TreeMap.class, ArrayList.class, LinkedList.class, HashSet.class, TreeSet.class, ArrayDeque.class,
+            Properties.class, Hashtable.class, Vector.class, Character.class, Integer.class, Long.class,
+            java.io.BufferedReader.class, java.io.BufferedWriter.class, java.io.ByteArrayInputStream.class,
+            java.io.ByteArrayOutputStream.class, java.io.InputStreamReader.class, java.io.PrintWriter.class,
+            java.io.StringWriter.class, java.net.URI.class, java.net.URL.class, java.util.regex.Pattern.class,
+            java.util.regex.Matcher.class, Arrays.class, Collections.class, java.text.MessageFormat.class,
+            java.util.concurrent.ConcurrentHashMap.class, java.util.concurrent.CopyOnWriteArrayList.class,
+    };
+
+    private Policy policy;
+    private final List<byte[]> classes = new ArrayList<byte[]>();
+    private final List<ClassContext> contexts = new ArrayList<ClassContext>();
+    private final List<String[]> methods = new ArrayList<String[]>();
+
+    @Setup
+    public void setup() throws Exception {
+        JSONArray config = new JSONArray();
+        for (Class<?> clazz : POLICY_CLASSES) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                JSONObject node = new JSONObject();
+                node.put("type", PolicyNodeType.PROPAGATOR.getType());
+                node.put("signature", AsmUtils.buildSignature(clazz.getName(), method.getName(),
+                        Type.getMethodDescriptor(method)));
+                node.put("source", "P1");
+                node.put("target", "R");
+                node.put("inherit", "all");
+                config.put(node);
+            }
+        }
+        this.policy = PolicyBuilder.build(config);
+
+        ClassLoader loader = getClass().getClassLoader();
+        for (Class<?> clazz : CORPUS) {
+            InputStream in = loader.getResourceAsStream(Type.getInternalName(clazz) + ".class");
+            byte[] bytes = IOUtils.toByteArray(in);
+            in.close();
+            ClassReader cr = new ClassReader(bytes);
+            ClassContext context = newContext(cr, loader);
+            if (this.policy.getMatchedClass(context, context.getClassName(), context.getAncestors()).isEmpty()) {
+                continue;
+            }
+            this.classes.add(bytes);
+            final List<String[]> classMethods = new ArrayList<String[]>();
+            cr.accept(new ClassVisitor(AsmUtils.api) {
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                                 String[] exceptions) {
+                    classMethods.add(new String[]{name, descriptor});
+                    return null;
+                }
+            }, ClassReader.SKIP_CODE);
+            for (String[] method : classMethods) {
+                this.contexts.add(context);
+                this.methods.add(method);
+            }
+        }
+    }
+
+    private ClassContext newContext(ClassReader cr, ClassLoader loader) {
+        ClassContext context = new ClassContext(cr, loader);
+        context.setAncestors(IastClassDiagram.getInstance().updateAncestorsByClassContext(loader, context));
+        context.setMatchedClassSet(this.policy.getMatchedClass(context, context.getClassName(), context.getAncestors()));
+        return context;
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int matched = 0;
+        for (int i = 0; i < this.methods.size(); i++) {
+            ClassContext context = this.contexts.get(i);
+            String[] method = this.methods.get(i);
+            MethodContext methodContext = new MethodContext(context, method[0]);
+            methodContext.setParameters(AsmUtils.buildParameterTypes(method[1]));
+            for (String matchedName : context.getMatchedClassSet()) {
+                context.setMatchedClassName(matchedName);
+                AsmUtils.buildSignature(matchedName, method[0], method[1]);
+                Set<PolicyNode> nodes = new HashSet<PolicyNode>();
+                for (PolicyNode node : this.policy.getPolicyNodesMap().values()) {
+                    if (node.getMethodMatcher().match(methodContext)) {
+                        nodes.add(node);
+                    }
+                }
+                if (!nodes.isEmpty()) {
+                    matched++;
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int indexedLookup() {
+        int matched = 0;
+        for (int i = 0; i < this.methods.size(); i++) {
+            ClassContext context = this.contexts.get(i);
+            String[] method = this.methods.get(i);
+            String methodKey = Policy.methodKey(method[0], method[1]);
+            for (String matchedName : context.getMatchedClassSet()) {
+                Set<PolicyNode> nodes = this.policy.getMatchedPolicyNodes(matchedName, methodKey);
+                if (nodes != null && !nodes.isEmpty()) {
+                    matched++;
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int transform() {
+        int size = 0;
+        ClassLoader loader = getClass().getClassLoader();
+        DispatchClassPlugin plugin = new DispatchClassPlugin();
+        for (byte[] bytes : this.classes) {
+            ClassReader cr = new ClassReader(bytes);
+            ClassContext context = newContext(cr, loader);
+            ClassWriter cw = new ClassWriter(cr, ClassWriter.COMPUTE_MAXS);
+            cr.accept(plugin.dispatch(cw, context, this.policy), ClassReader.EXPAND_FRAMES);
+            size += cw.toByteArray().length;
+        }
+        return size;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // 插桩代码引用的 java.lang.dongtai 包只能由 BootstrapClassLoader 加载
+        URL spyClass = DispatchClassPluginBenchmarkTest.class.getClassLoader()
+                .getResource("java/lang/dongtai/SpyDispatcher.class");
+        String spy;
+        if ("jar".equals(spyClass.getProtocol())) {
+            String path = spyClass.getPath();
+            spy = new File(new URL(path.substring(0, path.indexOf("!/"))).toURI()).getPath();
+        } else {
+            spy = new File(spyClass.toURI()).getParentFile().getParentFile().getParentFile().getParent();
+        }
+        Options opts = new OptionsBuilder()
+                .include(DispatchClassPluginBenchmarkTest.class.getSimpleName())
+                .jvmArgsAppend("-Xbootclasspath/a:" + spy)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+
+}
@@ -0,0 +1,301 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.core.adapter;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.IastClassDiagram;
+import io.dongtai.iast.core.bytecode.enhance.plugin.core.DispatchClassPlugin;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.Policy;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyBuilder;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyNodeType;
+import io.dongtai.iast.core.utils.AsmUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.*;
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.*;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 传播节点的插桩代码先检查 source 位置的对象是否有污点，没有污点时不构建参数数组
+ */
+public class PropagatorAdapterTest {
+    private static final String STAND_IN = StandIn.class.getName();
+
+    private Object previousDispatcher;
+    private RecordingSpy spy;
+    private Class<?> standIn;
+    private ClassNode transformed;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue("java.lang.dongtai 不在启动类路径上", spyOnBootClasspath());
+        JSONArray config = new JSONArray();
+        config.put(node("concat(java.lang.String,int)", "P1"));
+        config.put(node("append(java.lang.String)", "O|P1"));
+        config.put(node("append(char)", "P1"));
+        config.put(node("repeat(int)", "P1"));
+        Policy policy = PolicyBuilder.build(config);
+
+        InputStream in = getClass().getClassLoader().getResourceAsStream(Type.getInternalName(StandIn.class) + ".class");
+        byte[] bytes;
+        try {
+            bytes = IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+        ClassReader cr = new ClassReader(bytes);
+        ClassLoader loader = getClass().getClassLoader();
+        ClassContext context = new ClassContext(cr, loader);
+        context.setAncestors(IastClassDiagram.getInstance().updateAncestorsByClassContext(loader, context));
+        context.setMatchedClassSet(policy.getMatchedClass(context, context.getClassName(), context.getAncestors()));
+        ClassWriter cw = new ClassWriter(cr, ClassWriter.COMPUTE_FRAMES);
+        cr.accept(new DispatchClassPlugin().dispatch(cw, context, policy), ClassReader.EXPAND_FRAMES);
+        byte[] enhanced = cw.toByteArray();
+
+        this.transformed = new ClassNode();
+        new ClassReader(enhanced).accept(this.transformed, 0);
+        this.standIn = new TransformedLoader(loader, enhanced).loadClass(STAND_IN);
+
+        this.previousDispatcher = java.lang.dongtai.SpyDispatcherHandler.getDispatcher();
+        this.spy = new RecordingSpy();
+        java.lang.dongtai.SpyDispatcherHandler.setDispatcher(this.spy);
+    }
+
+    @After
+    public void tearDown() {
+        if (this.spy != null) {
+            java.lang.dongtai.SpyDispatcherHandler.setDispatcher(
+                    (java.lang.dongtai.SpyDispatcher) this.previousDispatcher);
+        }
+    }
+
+    @Test
+    public void testUntaintedPathHasNoArgumentArray() {
+        for (String[] method : new String[][]{
+                {"concat", "(Ljava/lang/String;I)Ljava/lang/String;"},
+                {"append", "(Ljava/lang/String;)L" + Type.getInternalName(StandIn.class) + ";"},
+        }) {
+            MethodNode methodNode = method(method[0], method[1]);
+            List<AbstractInsnNode> path = untaintedPath(methodNode);
+            Assert.assertTrue(method[0], hasCall(path, "isTainted"));
+            Assert.assertFalse(method[0], hasCall(path, "collectMethod"));
+            for (AbstractInsnNode insn : path) {
+                Assert.assertNotEquals("Object[] on untainted path of " + method[0], Opcodes.ANEWARRAY, insn.getOpcode());
+                Assert.assertFalse("boxing on untainted path of " + method[0], insn instanceof MethodInsnNode
+                        && "valueOf".equals(((MethodInsnNode) insn).name));
+            }
+            // 有污点时才构建参数数组
+            List<AbstractInsnNode> all = Arrays.asList(methodNode.instructions.toArray());
+            Assert.assertTrue(hasCall(all, "collectMethod"));
+            Assert.assertTrue(hasOpcode(all, Opcodes.ANEWARRAY));
+        }
+    }
+
+    @Test
+    public void testGateOnSourceArgument() throws Exception {
+        Object target = this.standIn.newInstance();
+        String arg = "name";
+
+        Assert.assertEquals("name1", invoke(target, "concat", arg, 1));
+        Assert.assertEquals(Arrays.<Object>asList(arg), this.spy.checked);
+        Assert.assertNull(this.spy.parameters);
+
+        this.spy.tainted = true;
+        Assert.assertEquals("name2", invoke(target, "concat", arg, 2));
+        Assert.assertEquals(Arrays.<Object>asList(arg, 2), Arrays.asList(this.spy.parameters));
+    }
+
+    @Test
+    public void testGateOnInstanceAndArgument() throws Exception {
+        Object target = this.standIn.newInstance();
+        String arg = "name";
+
+        invoke(target, "append", arg);
+        Assert.assertEquals(Arrays.asList(target, arg), this.spy.checked);
+        Assert.assertNull(this.spy.parameters);
+
+        // 对象有污点时不再检查参数
+        this.spy.taintedObject = target;
+        this.spy.checked.clear();
+        invoke(target, "append", arg);
+        Assert.assertEquals(Arrays.<Object>asList(target), this.spy.checked);
+        Assert.assertEquals(Arrays.<Object>asList(arg), Arrays.asList(this.spy.parameters));
+    }
+
+    @Test
+    public void testNoGate() throws Exception {
+        Object target = this.standIn.newInstance();
+
+        // char 装箱后可能是污点，保持原来的方式
+        invoke(target, "append", 'c');
+        Assert.assertTrue(this.spy.checked.isEmpty());
+        Assert.assertEquals(Arrays.<Object>asList('c'), Arrays.asList(this.spy.parameters));
+
+        // int 不会是污点，不需要检查
+        this.spy.parameters = null;
+        invoke(target, "repeat", 3);
+        Assert.assertTrue(this.spy.checked.isEmpty());
+        Assert.assertEquals(Arrays.<Object>asList(3), Arrays.asList(this.spy.parameters));
+    }
+
+    private Object invoke(Object target, String name, Object arg) throws Exception {
+        Class<?> type = arg instanceof Character ? char.class : arg instanceof Integer ? int.class : String.class;
+        return this.standIn.getMethod(name, type).invoke(target, arg);
+    }
+
+    private Object invoke(Object target, String name, String arg, int n) throws Exception {
+        return this.standIn.getMethod(name, String.class, int.class).invoke(target, arg, n);
+    }
+
+    private MethodNode method(String name, String desc) {
+        for (MethodNode methodNode : this.transformed.methods) {
+            if (methodNode.name.equals(name) && methodNode.desc.equals(desc)) {
+                return methodNode;
+            }
+        }
+        throw new AssertionError(name + desc);
+    }
+
+    /**
+     * 沿着 isTainted 都返回 false 的分支走到方法返回，其他条件跳转按不跳转处理
+     */
+    private static List<AbstractInsnNode> untaintedPath(MethodNode methodNode) {
+        List<AbstractInsnNode> path = new ArrayList<AbstractInsnNode>();
+        AbstractInsnNode insn = methodNode.instructions.getFirst();
+        AbstractInsnNode previous = null;
+        while (insn != null && path.size() < 10000) {
+            path.add(insn);
+            int opcode = insn.getOpcode();
+            if ((opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) || opcode == Opcodes.ATHROW) {
+                break;
+            }
+            if (opcode == Opcodes.GOTO) {
+                insn = ((JumpInsnNode) insn).label;
+                continue;
+            }
+            if (opcode == Opcodes.IFEQ && previous instanceof MethodInsnNode
+                    && "isTainted".equals(((MethodInsnNode) previous).name)) {
+                insn = ((JumpInsnNode) insn).label;
+                continue;
+            }
+            if (opcode >= 0) {
+                previous = insn;
+            }
+            insn = insn.getNext();
+        }
+        return path;
+    }
+
+    private static boolean hasCall(List<AbstractInsnNode> insns, String name) {
+        for (AbstractInsnNode insn : insns) {
+            if (insn instanceof MethodInsnNode && name.equals(((MethodInsnNode) insn).name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasOpcode(List<AbstractInsnNode> insns, int opcode) {
+        for (AbstractInsnNode insn : insns) {
+            if (insn.getOpcode() == opcode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static JSONObject node(String method, String source) {
+        int paren = method.indexOf('(');
+        JSONObject node = new JSONObject();
+        node.put("type", PolicyNodeType.PROPAGATOR.getType());
+        node.put("signature", STAND_IN + "." + method);
+        node.put("source", source);
+        node.put("target", "R");
+        node.put("inherit", "false");
+        return node;
+    }
+
+    private static boolean spyOnBootClasspath() {
+        try {
+            return Class.forName("java.lang.dongtai.SpyDispatcher").getClassLoader() == null;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    public static class StandIn {
+        private final StringBuilder value = new StringBuilder();
+
+        public String concat(String s, int n) {
+            return s + n;
+        }
+
+        public StandIn append(String s) {
+            this.value.append(s);
+            return this;
+        }
+
+        public StandIn append(char c) {
+            this.value.append(c);
+            return this;
+        }
+
+        public String repeat(int n) {
+            return String.valueOf(n);
+        }
+    }
+
+    public static class RecordingSpy extends java.lang.dongtai.NopSpy {
+        private final List<Object> checked = new ArrayList<Object>();
+        private boolean tainted;
+        private Object taintedObject;
+        private Object[] parameters;
+
+        @Override
+        public boolean isFirstLevelPropagator() {
+            return true;
+        }
+
+        @Override
+        public boolean isTainted(Object obj) {
+            this.checked.add(obj);
+            return this.tainted || (obj != null && obj == this.taintedObject);
+        }
+
+        @Override
+        public boolean collectMethod(Object instance, Object[] parameters, Object retObject, String methodMatcher,
+                                     String className, String matchedClassName, String methodName, String signature,
+                                     boolean isStatic) {
+            this.parameters = parameters;
+            return false;
+        }
+    }
+
+    /**
+     * 转换后的类由子加载器定义，其他类交给父加载器
+     */
+    private static class TransformedLoader extends ClassLoader {
+        private final byte[] bytes;
+
+        TransformedLoader(ClassLoader parent, byte[] bytes) {
+            super(parent);
+            this.bytes = bytes;
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (STAND_IN.equals(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    loaded = defineClass(name, this.bytes, 0, this.bytes.length);
+                }
+                return loaded;
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+}
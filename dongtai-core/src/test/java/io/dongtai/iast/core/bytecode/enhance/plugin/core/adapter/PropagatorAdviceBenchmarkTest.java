@@ -0,0 +1,191 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.core.adapter;
+
+import io.dongtai.iast.common.state.AgentState;
+import io.dongtai.iast.core.AgentEngine;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.IastClassDiagram;
+import io.dongtai.iast.core.bytecode.enhance.plugin.core.DispatchClassPlugin;
+import io.dongtai.iast.core.handler.hookpoint.SpyDispatcherImpl;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.Policy;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyBuilder;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyNodeType;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.iast.core.utils.TaintPoolUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.InputStream;
+import java.lang.dongtai.SpyDispatcherHandler;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 插桩后的 StringBuilder.append 循环：策略与 JDK 的 append 传播节点一致（O|P1 =&gt; O），
+ * 被转换的是与 StringBuilder 行为相同的模拟类（JDK 类只能通过 retransform 转换）。
+ * <ul>
+ * <li>plainAppend：未插桩</li>
+ * <li>untaintedAppend：请求中没有污点，插桩代码只检查对象和字符串参数</li>
+ * <li>taintedAppend：第一次拼接的字符串是污点，之后每次 append 都构建参数数组并记录传播</li>
+ * </ul>
+ * gc.alloc.rate.norm 为每次循环（{@link #APPENDS} 次 append）分配的字节数。
+ * 插桩代码调用的 java.lang.dongtai 包只能由启动类加载器加载，运行前需要编译 dongtai-spy 模块
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xbootclasspath/a:../dongtai-spy/target/classes")
+public class PropagatorAdviceBenchmarkTest {
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+    private static final String STAND_IN = StandInBuilder.class.getName();
+    private static final int APPENDS = 16;
+
+    private Class<?> hooked;
+    private String input;
+
+    @Setup
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance(PROPERTY_FILE);
+        EngineManager.getInstance(1);
+        AgentState.getInstance().setState(io.dongtai.iast.common.state.State.RUNNING);
+        SpyDispatcherHandler.setDispatcher(new SpyDispatcherImpl());
+
+        JSONArray config = new JSONArray();
+        config.put(node("append(java.lang.String)", "O|P1"));
+        config.put(node("append(int)", "O"));
+        Policy policy = PolicyBuilder.build(config);
+        PolicyManager policyManager = new PolicyManager();
+        policyManager.setPolicy(policy);
+        AgentEngine.getInstance().setPolicyManager(policyManager);
+
+        ClassLoader loader = getClass().getClassLoader();
+        InputStream in = loader.getResourceAsStream(Type.getInternalName(StandInBuilder.class) + ".class");
+        byte[] bytes;
+        try {
+            bytes = IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+        ClassReader cr = new ClassReader(bytes);
+        ClassContext context = new ClassContext(cr, loader);
+        context.setAncestors(IastClassDiagram.getInstance().updateAncestorsByClassContext(loader, context));
+        context.setMatchedClassSet(policy.getMatchedClass(context, context.getClassName(), context.getAncestors()));
+        ClassWriter cw = new ClassWriter(cr, ClassWriter.COMPUTE_FRAMES);
+        cr.accept(new DispatchClassPlugin().dispatch(cw, context, policy), ClassReader.EXPAND_FRAMES);
+        final byte[] enhanced = cw.toByteArray();
+        this.hooked = new ClassLoader(loader) {
+            @Override
+            protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (STAND_IN.equals(name)) {
+                    Class<?> loaded = findLoadedClass(name);
+                    return loaded != null ? loaded : defineClass(name, enhanced, 0, enhanced.length);
+                }
+                return super.loadClass(name, resolve);
+            }
+        }.loadClass(STAND_IN);
+
+        this.input = new String("alice");
+        EngineManager.enterKafkaEntry(new HashMap<String, Object>());
+        taintedAppend();
+        if (EngineManager.TRACK_MAP.get().isEmpty()) {
+            throw new IllegalStateException("hooked append did not propagate the taint");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        EngineManager.cleanThreadState();
+        SpyDispatcherHandler.destroy();
+        PropertyUtils.clear();
+    }
+
+    @Benchmark
+    public String plainAppend() {
+        return loop(new StandInBuilder());
+    }
+
+    @Benchmark
+    public String untaintedAppend() throws Exception {
+        return loop((Builder) this.hooked.newInstance());
+    }
+
+    @Benchmark
+    public String taintedAppend() throws Exception {
+        // 每次循环重新开始，避免方法池和污点池一直增长
+        EngineManager.TRACK_MAP.get().clear();
+        EngineManager.TAINT_HASH_CODES.get().clear();
+        EngineManager.TAINT_RANGES_POOL.get().clear();
+        EngineManager.TAINT_HASH_CODES.add(TaintPoolUtils.getStringHash(this.input));
+        String value = loop((Builder) this.hooked.newInstance());
+        EngineManager.TAINT_HASH_CODES.get().clear();
+        return value;
+    }
+
+    private String loop(Builder builder) {
+        builder.append(this.input);
+        for (int i = 1; i < APPENDS / 2; i++) {
+            builder.append(",").append(i);
+        }
+        builder.append(";");
+        return builder.toString();
+    }
+
+    private static JSONObject node(String method, String source) {
+        JSONObject node = new JSONObject();
+        node.put("type", PolicyNodeType.PROPAGATOR.getType());
+        node.put("signature", STAND_IN + "." + method);
+        node.put("source", source);
+        node.put("target", "O");
+        node.put("inherit", "false");
+        return node;
+    }
+
+    public interface Builder {
+        Builder append(String s);
+
+        Builder append(int i);
+    }
+
+    public static class StandInBuilder implements Builder {
+        private final StringBuilder value = new StringBuilder();
+
+        @Override
+        public Builder append(String s) {
+            this.value.append(s);
+            return this;
+        }
+
+        @Override
+        public Builder append(int i) {
+            this.value.append(i);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return this.value.toString();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(PropagatorAdviceBenchmarkTest.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
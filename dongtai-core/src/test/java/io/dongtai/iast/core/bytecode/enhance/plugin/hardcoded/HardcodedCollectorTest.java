@@ -0,0 +1,103 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.hardcoded;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.junit.*;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HardcodedCollectorTest {
+    private static final int CONSTANT = Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL;
+
+    private HardcodedCollector collector;
+
+    @Before
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+        EngineManager.getInstance(1);
+        this.collector = new HardcodedCollector();
+    }
+
+    @After
+    public void tearDown() {
+        ThreadPools.setReportSender(null);
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testCollectAndDrain() {
+        byte[] bytes = constantClass("com/example/Config");
+        transform(bytes);
+        Assert.assertEquals("转换时只记录字段名匹配的静态常量", 4, this.collector.getPending());
+
+        List<String> reports = this.collector.drain(HardcodedCollector.MAX_BATCH);
+        Assert.assertEquals(2, reports.size());
+        JSONObject detail = JSON.parseObject(reports.get(0)).getJSONObject("detail");
+        Assert.assertEquals("com.example.Config", detail.getString("class"));
+        Assert.assertEquals("Config.java", detail.getString("file"));
+        Assert.assertEquals("PASSWORD", detail.getString("field"));
+        Assert.assertEquals("s3cr3t!", detail.getString("value"));
+        Assert.assertEquals("AWS_SECRET_ACCESS_KEY",
+                JSON.parseObject(reports.get(1)).getJSONObject("detail").getString("field"));
+
+        // 同一个类被其他类加载器再次加载，不重复上报
+        transform(bytes);
+        Assert.assertTrue(this.collector.drain(HardcodedCollector.MAX_BATCH).isEmpty());
+        Assert.assertEquals(0, this.collector.getPending());
+
+        transform(constantClass("com/example/OtherConfig"));
+        Assert.assertEquals(2, this.collector.drain(HardcodedCollector.MAX_BATCH).size());
+    }
+
+    @Test
+    public void testQueueBound() {
+        for (int i = 0; i < HardcodedCollector.MAX_PENDING + 5; i++) {
+            this.collector.collect("A.java", "com.example.A", false, CONSTANT, "PASSWORD", "Ljava/lang/String;",
+                    "value" + i);
+        }
+        Assert.assertEquals(5, this.collector.getDropped());
+        Assert.assertEquals(HardcodedCollector.MAX_PENDING, this.collector.getPending());
+
+        final List<String> sent = new ArrayList<String>();
+        ThreadPools.setReportSender(new ThreadPools.ReportSender() {
+            @Override
+            public void send(String url, String report) {
+                sent.add(report);
+            }
+        });
+        this.collector.flush();
+        Assert.assertEquals(HardcodedCollector.MAX_PENDING, sent.size());
+        Assert.assertEquals(0, this.collector.getPending());
+    }
+
+    private void transform(byte[] bytes) {
+        ClassReader cr = new ClassReader(bytes);
+        ClassContext context = new ClassContext(cr, getClass().getClassLoader());
+        cr.accept(new DispatchHardcodedPlugin(this.collector).dispatch(new ClassWriter(0), context, null), 0);
+    }
+
+    private static byte[] constantClass(String internalName) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null);
+        cw.visitSource(internalName.substring(internalName.lastIndexOf('/') + 1) + ".java", null);
+        cw.visitField(CONSTANT, "PASSWORD", "Ljava/lang/String;", null, "s3cr3t!").visitEnd();
+        cw.visitField(CONSTANT, "AWS_SECRET_ACCESS_KEY", "Ljava/lang/String;", null, "wJalrXUtnFEMI/K7MDENG").visitEnd();
+        // 值像类名、属性名，或者为空
+        cw.visitField(CONSTANT, "SECRET", "Ljava/lang/String;", null, "spring.datasource.secret").visitEnd();
+        cw.visitField(CONSTANT, "ACCESS_TOKEN", "Ljava/lang/String;", null, "").visitEnd();
+        // 不是静态常量，或字段名不匹配
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "passphrase", "Ljava/lang/String;", null, "abc").visitEnd();
+        cw.visitField(CONSTANT, "TOKEN_HEADER", "Ljava/lang/String;", null, "Authorization").visitEnd();
+        cw.visitField(CONSTANT, "TIMEOUT", "I", null, 30).visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
@@ -0,0 +1,224 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.hardcoded;
+
+import com.alibaba.fastjson2.JSONObject;
+import io.dongtai.iast.common.constants.ApiPath;
+import io.dongtai.iast.common.constants.ReportKey;
+import io.dongtai.iast.common.constants.ReportType;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.AsmUtils;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.iast.core.utils.commonUtils;
+import org.objectweb.asm.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 转换一批常量很多的类（每个类 40 个字符串常量，其中 2 个命中硬编码规则）的耗时：
+ * <ul>
+ * <li>withoutPlugin：不经过硬编码插件</li>
+ * <li>legacyPlugin：转换时判断规则并生成报告（报告交给空的发送方式，不计入 HTTP 发送）</li>
+ * <li>collectorPlugin：转换时只记录候选字段，判断和上报在后台线程</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class HardcodedPluginBenchmarkTest {
+    private static final int FIELDS = 40;
+    private static final int CONSTANT = Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL;
+
+    @Param({"3000"})
+    public int classes;
+
+    private final List<ClassReader> readers = new ArrayList<ClassReader>();
+    private final List<ClassContext> contexts = new ArrayList<ClassContext>();
+    private final AtomicLong reports = new AtomicLong();
+    private HardcodedCollector collector;
+
+    @Setup
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+        EngineManager.getInstance(1);
+        ThreadPools.setReportSender(new ThreadPools.ReportSender() {
+            @Override
+            public void send(String url, String report) {
+                reports.incrementAndGet();
+            }
+        });
+        ClassLoader loader = getClass().getClassLoader();
+        for (int i = 0; i < this.classes; i++) {
+            ClassReader cr = new ClassReader(constantClass("com/example/constants/Constants" + i));
+            this.readers.add(cr);
+            this.contexts.add(new ClassContext(cr, loader));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void newCollector() {
+        this.collector = new HardcodedCollector(this.classes * FIELDS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ThreadPools.setReportSender(null);
+        PropertyUtils.clear();
+    }
+
+    @Benchmark
+    public int withoutPlugin() {
+        int size = 0;
+        for (ClassReader cr : this.readers) {
+            ClassWriter cw = new ClassWriter(cr, 0);
+            cr.accept(cw, 0);
+            size += cw.toByteArray().length;
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int legacyPlugin() {
+        int size = 0;
+        for (int i = 0; i < this.readers.size(); i++) {
+            ClassReader cr = this.readers.get(i);
+            ClassWriter cw = new ClassWriter(cr, 0);
+            cr.accept(new LegacyExtractClassContent(cw, this.contexts.get(i)), 0);
+            size += cw.toByteArray().length;
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int collectorPlugin() {
+        DispatchHardcodedPlugin plugin = new DispatchHardcodedPlugin(this.collector);
+        int size = 0;
+        for (int i = 0; i < this.readers.size(); i++) {
+            ClassReader cr = this.readers.get(i);
+            ClassWriter cw = new ClassWriter(cr, 0);
+            cr.accept(plugin.dispatch(cw, this.contexts.get(i), null), 0);
+            size += cw.toByteArray().length;
+        }
+        return size;
+    }
+
+    private static byte[] constantClass(String internalName) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null);
+        cw.visitSource("Constants.java", null);
+        for (int i = 0; i < FIELDS - 2; i++) {
+            cw.visitField(CONSTANT, "MESSAGE_" + i, "Ljava/lang/String;", null,
+                    "message text number " + i).visitEnd();
+        }
+        cw.visitField(CONSTANT, "PASSWORD", "Ljava/lang/String;", null, internalName + "-pwd").visitEnd();
+        cw.visitField(CONSTANT, "ACCESS_TOKEN", "Ljava/lang/String;", null, internalName + "-token").visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * 修改前的实现
+     */
+    private static class LegacyExtractClassContent extends ClassVisitor {
+        private final ClassContext context;
+        private String source;
+
+        LegacyExtractClassContent(ClassVisitor classVisitor, ClassContext context) {
+            super(AsmUtils.api, classVisitor);
+            this.context = context;
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            super.visitSource(source, debug);
+            this.source = source;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            FieldVisitor fieldVisitor = super.visitField(access, name, desc, signature, value);
+            if (null != value && "Ljava/lang/String;".equals(desc) && isStaticAndFinal(access) && isPassField(name)
+                    && !isWrongPrefix(name) && value instanceof String) {
+                String fieldValue = (String) value;
+                if (!commonUtils.isEmpty(fieldValue) && !valueMatcher(fieldValue)) {
+                    sendVulReport(source, context.getClassName(), context.isBootstrapClassLoader(), name,
+                            fieldValue);
+                }
+            }
+            return fieldVisitor;
+        }
+
+        private boolean isStaticAndFinal(int access) {
+            return (Modifier.isStatic(access) && Modifier.isFinal(access));
+        }
+
+        private boolean isPassField(String name) {
+            return containArrayItem(name, passArray);
+        }
+
+        private boolean isWrongPrefix(String name) {
+            return containArrayItem(name, notPrefixes);
+        }
+
+        private boolean containArrayItem(String name, String[] arrays) {
+            name = name.toUpperCase();
+            for (String item : arrays) {
+                if (name.equals(item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean valueMatcher(String value) {
+            return e.matcher(value).find() || f.matcher(value).find();
+        }
+
+        private final Pattern e = Pattern.compile("^[a-zA-Z]+\\.[\\.a-zA-Z]*[a-zA-Z]+$");
+
+        private final Pattern f = Pattern.compile("^[a-zA-Z]+\\_[\\_a-zA-Z]*[a-zA-Z]+$");
+
+        private final String[] passArray = {"PASSWORD", "PASSKEY", "PASSPHRASE", "SECRET", "ACCESS_TOKEN",
+                "AWS_ACCESS_KEY_ID", "AWS_SECRET_ACCESS_KEY"};
+        private final String[] notPrefixes = {"date", "forgot", "form", "encode", "pattern", "prefix", "prop", "suffix",
+                "url"};
+
+        private void sendVulReport(String fileName, String className, boolean isJDKClass, String fieldName,
+                                   String value) {
+            JSONObject report = new JSONObject();
+            JSONObject detail = new JSONObject();
+            report.put(ReportKey.TYPE, ReportType.VUL_HARDCODE);
+            report.put(ReportKey.DETAIL, detail);
+            detail.put(ReportKey.AGENT_ID, EngineManager.getAgentId());
+            detail.put("file", fileName);
+            detail.put("class", className);
+            detail.put("isJdk", isJDKClass);
+            detail.put("field", fieldName);
+            detail.put("value", value);
+            ThreadPools.sendPriorityReport(ApiPath.REPORT_UPLOAD, report.toString());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(HardcodedPluginBenchmarkTest.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,41 @@
+package io.dongtai.iast.core.bytecode.enhance.plugin.service.kafka;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+
+public class DispatchKafkaTest {
+    private final DispatchKafka plugin = new DispatchKafka();
+
+    @Test
+    public void testDispatch() {
+        Assert.assertTrue(dispatch("org.apache.kafka.clients.consumer.ConsumerRecords$ConcatenatedIterable$1")
+                instanceof KafkaRecordIteratorAdapter);
+        Assert.assertTrue(dispatch("org.apache.kafka.clients.consumer.KafkaConsumer")
+                instanceof KafkaConsumerAdapter);
+        Assert.assertTrue(dispatch("org.springframework.kafka.listener.KafkaMessageListenerContainer$ListenerConsumer")
+                instanceof KafkaListenerConsumerAdapter);
+        Assert.assertTrue(dispatch("org.apache.kafka.common.config.AbstractConfig")
+                instanceof KafkaAbstractConfigAdapter);
+        Assert.assertTrue(dispatch("org.apache.kafka.clients.consumer.ConsumerRecords") instanceof ClassWriter);
+    }
+
+    @Test
+    public void testHookDescriptors() {
+        Assert.assertEquals("()Lorg/apache/kafka/clients/consumer/ConsumerRecord;",
+                KafkaRecordIteratorAdapter.MAKE_NEXT_DESC);
+        Assert.assertEquals("org/apache/kafka/clients/consumer/ConsumerRecords",
+                KafkaConsumerAdapter.CONSUMER_RECORDS);
+    }
+
+    private ClassVisitor dispatch(String className) {
+        ClassContext context = new ClassContext(className, Collections.<String>emptySet(), new String[0],
+                Modifier.PUBLIC, false);
+        return this.plugin.dispatch(new ClassWriter(0), context, null);
+    }
+}
@@ -0,0 +1,170 @@
+package io.dongtai.iast.core.handler.context;
+
+import io.dongtai.iast.common.scope.Scope;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.controller.impl.AsyncTaskImpl;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRange;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class AsyncTaintContextTest {
+    private static final long REQUEST_TAINT = 1L;
+
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        this.pool = Executors.newFixedThreadPool(2);
+        Map<String, Object> requestMeta = new HashMap<String, Object>();
+        requestMeta.put("requestURI", "/async");
+        EngineManager.REQUEST_CONTEXT.set(requestMeta);
+        EngineManager.TRACK_MAP.set(new HashMap<Integer, MethodEvent>());
+        EngineManager.TAINT_HASH_CODES.set(new HashSet<Long>());
+        EngineManager.TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
+        EngineManager.TAINT_HASH_CODES.add(REQUEST_TAINT);
+        EngineManager.TAINT_RANGES_POOL.add(REQUEST_TAINT, new TaintRanges(new TaintRange(0, 3)));
+        ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_ENTRY).enter();
+    }
+
+    @After
+    public void tearDown() {
+        this.pool.shutdownNow();
+        EngineManager.cleanThreadState();
+    }
+
+    @Test
+    public void testPropagateToWorkers() throws Exception {
+        final int tasks = 8;
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < tasks; i++) {
+            final int id = i;
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    Assert.assertEquals("/async", EngineManager.REQUEST_CONTEXT.get().get("requestURI"));
+                    Assert.assertTrue(ScopeManager.SCOPE_TRACKER.inEnterEntry());
+                    Assert.assertTrue(EngineManager.TAINT_HASH_CODES.contains(REQUEST_TAINT));
+                    Assert.assertNotNull(EngineManager.TAINT_RANGES_POOL.get(REQUEST_TAINT));
+                    EngineManager.TAINT_HASH_CODES.add(100L + id);
+                    EngineManager.TRACK_MAP.addTrackMethod(1000 + id, newEvent(id));
+                }
+            };
+            Object wrapped = AsyncTaskImpl.wrap(task);
+            Assert.assertNotSame(task, wrapped);
+            Assert.assertSame(task, ((AsyncTaintContext.WrappedTask) wrapped).getTask());
+            futures.add(this.pool.submit((Runnable) wrapped));
+        }
+        Callable<String> callable = new Callable<String>() {
+            @Override
+            public String call() {
+                EngineManager.TRACK_MAP.addTrackMethod(2000, newEvent(2000));
+                return (String) EngineManager.REQUEST_CONTEXT.get().get("requestURI");
+            }
+        };
+        @SuppressWarnings("unchecked")
+        Future<Object> result = this.pool.submit((Callable<Object>) AsyncTaskImpl.wrap(callable));
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals("/async", result.get(10, TimeUnit.SECONDS));
+
+        // 工作线程恢复为原来的状态
+        for (int i = 0; i < 4; i++) {
+            Assert.assertNull(this.pool.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return EngineManager.REQUEST_CONTEXT.get() != null ? "leak" : EngineManager.REQUEST_TAINT_STORE.get();
+                }
+            }).get(10, TimeUnit.SECONDS));
+        }
+
+        // 请求线程可以查到异步任务产生的污点
+        for (int i = 0; i < tasks; i++) {
+            Assert.assertFalse(EngineManager.TAINT_HASH_CODES.get().contains(100L + i));
+            Assert.assertTrue(EngineManager.TAINT_HASH_CODES.contains(100L + i));
+        }
+
+        Map<Integer, MethodEvent> trackMap = EngineManager.TRACK_MAP.get();
+        Assert.assertEquals(tasks + 1, EngineManager.REQUEST_TAINT_STORE.get().mergeInto(trackMap));
+        Assert.assertEquals(tasks + 1, trackMap.size());
+        Assert.assertTrue(trackMap.containsKey(2000));
+
+        // 上报之后完成的任务不再合并
+        this.pool.submit((Runnable) AsyncTaskImpl.wrap(new Runnable() {
+            @Override
+            public void run() {
+                EngineManager.TRACK_MAP.addTrackMethod(3000, newEvent(3000));
+            }
+        })).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(0, EngineManager.REQUEST_TAINT_STORE.get().mergeInto(trackMap));
+    }
+
+    @Test
+    public void testRunOnCallerThread() {
+        final Map<Integer, MethodEvent> trackMap = EngineManager.TRACK_MAP.get();
+        ((Runnable) AsyncTaskImpl.wrap(new Runnable() {
+            @Override
+            public void run() {
+                Assert.assertSame(trackMap, EngineManager.TRACK_MAP.get());
+                EngineManager.TRACK_MAP.addTrackMethod(1, newEvent(1));
+            }
+        })).run();
+        Assert.assertEquals(1, trackMap.size());
+        Assert.assertTrue(ScopeManager.SCOPE_TRACKER.inEnterEntry());
+    }
+
+    @Test
+    public void testNotWrapped() throws Exception {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        Assert.assertNull(AsyncTaskImpl.wrap(null));
+        Assert.assertSame("task", AsyncTaskImpl.wrap("task"));
+
+        // fork/join 任务保持原对象，CompletableFuture 的异步任务需要包装
+        RecursiveAction action = new RecursiveAction() {
+            @Override
+            protected void compute() {
+            }
+        };
+        Assert.assertSame(action, AsyncTaskImpl.wrap(action));
+        final Runnable[] asyncRun = new Runnable[1];
+        CompletableFuture.runAsync(task, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                asyncRun[0] = command;
+            }
+        });
+        Assert.assertTrue(asyncRun[0] instanceof ForkJoinTask);
+        Assert.assertTrue(AsyncTaskImpl.wrap(asyncRun[0]) instanceof AsyncTaintContext.WrappedTask);
+
+        Object wrapped = AsyncTaskImpl.wrap(task);
+        Assert.assertSame(wrapped, AsyncTaskImpl.wrap(wrapped));
+
+        // agent 自身提交的任务
+        ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
+        Assert.assertSame(task, AsyncTaskImpl.wrap(task));
+        ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+
+        // 不在请求中
+        EngineManager.cleanThreadState();
+        Assert.assertSame(task, AsyncTaskImpl.wrap(task));
+    }
+
+    private static MethodEvent newEvent(int invokeId) {
+        MethodEvent event = new MethodEvent("com.example.Service", "com.example.Service", "run",
+                "com.example.Service.run()", null, new Object[0], null);
+        event.setInvokeId(invokeId);
+        return event;
+    }
+}
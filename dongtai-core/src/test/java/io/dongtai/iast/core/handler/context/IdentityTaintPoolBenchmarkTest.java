@@ -0,0 +1,85 @@
+package io.dongtai.iast.core.handler.context;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比只按哈希的污点池与按对象引用确认的污点池的查询耗时。
+ * 未命中的查询两者都只查哈希集合；命中时按引用确认多一次 HashMap 查询
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class IdentityTaintPoolBenchmarkTest {
+    private static final int SIZE = 1024;
+
+    private final HashSet<Long> hashPool = new HashSet<Long>();
+    private final IdentityTaintPool identityPool = new IdentityTaintPool();
+    private final Object[] tainted = new Object[SIZE];
+    private final Object[] untainted = new Object[SIZE];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SIZE; i++) {
+            this.tainted[i] = new Object();
+            long hash = System.identityHashCode(this.tainted[i]);
+            this.hashPool.add(hash);
+            this.identityPool.add(hash, this.tainted[i]);
+        }
+        for (int i = 0; i < SIZE; i++) {
+            Object obj = new Object();
+            while (this.hashPool.contains((long) System.identityHashCode(obj))) {
+                obj = new Object();
+            }
+            this.untainted[i] = obj;
+        }
+    }
+
+    private int next() {
+        return this.index = (this.index + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public boolean hashHit() {
+        Object obj = this.tainted[next()];
+        return this.hashPool.contains((long) System.identityHashCode(obj));
+    }
+
+    @Benchmark
+    public boolean identityHit() {
+        Object obj = this.tainted[next()];
+        return this.identityPool.contains((long) System.identityHashCode(obj), obj);
+    }
+
+    @Benchmark
+    public boolean hashMiss() {
+        Object obj = this.untainted[next()];
+        return this.hashPool.contains((long) System.identityHashCode(obj));
+    }
+
+    @Benchmark
+    public boolean identityMiss() {
+        Object obj = this.untainted[next()];
+        return this.identityPool.contains((long) System.identityHashCode(obj), obj);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(IdentityTaintPoolBenchmarkTest.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,122 @@
+package io.dongtai.iast.core.handler.context;
+
+import io.dongtai.iast.common.constants.PropertyConstant;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.iast.core.utils.TaintPoolUtils;
+import org.junit.*;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+public class IdentityTaintPoolTest {
+    private static Object[] colliding;
+
+    /**
+     * 大量分配对象，直到两个对象的 identityHashCode 相同
+     */
+    @BeforeClass
+    public static void findCollision() {
+        Map<Integer, Object> seen = new HashMap<Integer, Object>();
+        for (int i = 0; i < 5000000; i++) {
+            Object obj = new Object();
+            Object prev = seen.put(System.identityHashCode(obj), obj);
+            if (prev != null) {
+                colliding = new Object[]{prev, obj};
+                return;
+            }
+        }
+        Assert.fail("no identity hash collision found");
+    }
+
+    @After
+    public void tearDown() {
+        EngineManager.cleanThreadState();
+        PropertyUtils.clear();
+        System.clearProperty(PropertyConstant.PROPERTY_TAINT_IDENTITY_ENABLE);
+    }
+
+    @Test
+    public void testCollision() {
+        Object tainted = colliding[0];
+        Object other = colliding[1];
+        Long hash = (long) System.identityHashCode(tainted);
+        Assert.assertEquals(hash.longValue(), System.identityHashCode(other));
+
+        HashSet<Long> hashOnly = new HashSet<Long>();
+        hashOnly.add(hash);
+        Assert.assertTrue("只按哈希判断时无关对象被当作污点", hashOnly.contains((long) System.identityHashCode(other)));
+
+        IdentityTaintPool pool = new IdentityTaintPool();
+        pool.add(hash, tainted);
+        Assert.assertTrue(pool.contains(hash, tainted));
+        Assert.assertFalse(pool.contains(hash, other));
+        Assert.assertFalse(pool.contains(hash + 1, new Object()));
+
+        // 两个对象都是污点
+        pool.add(hash, other);
+        Assert.assertTrue(pool.contains(hash, tainted));
+        Assert.assertTrue(pool.contains(hash, other));
+
+        pool.remove(hash);
+        Assert.assertFalse(pool.contains(hash, tainted));
+    }
+
+    @Test
+    public void testHashOnlyEntry() {
+        IdentityTaintPool pool = new IdentityTaintPool();
+        pool.add(1L);
+        Assert.assertTrue(pool.contains(1L, new Object()));
+    }
+
+    @Test
+    public void testRequestPool() throws Exception {
+        System.setProperty(PropertyConstant.PROPERTY_TAINT_IDENTITY_ENABLE, "true");
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+        EngineManager.enterKafkaEntry(new HashMap<String, Object>());
+        Assert.assertTrue(EngineManager.TAINT_HASH_CODES.get() instanceof IdentityTaintPool);
+
+        Object tainted = colliding[0];
+        Object other = colliding[1];
+        EngineManager.TAINT_HASH_CODES.addObject(tainted, newEvent());
+        Assert.assertTrue(TaintPoolUtils.poolContains(tainted, null));
+        Assert.assertFalse(TaintPoolUtils.poolContains(other, null));
+        Assert.assertFalse(TaintPoolUtils.poolContains(new Object[]{other}, null));
+        Assert.assertTrue(TaintPoolUtils.poolContains(new Object[]{other, tainted}, null));
+    }
+
+    @Test
+    public void testRequestPoolDisabled() throws Exception {
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+        EngineManager.enterKafkaEntry(new HashMap<String, Object>());
+        Assert.assertFalse(EngineManager.TAINT_HASH_CODES.get() instanceof IdentityTaintPool);
+
+        EngineManager.TAINT_HASH_CODES.addObject(colliding[0], newEvent());
+        Assert.assertTrue("默认仍然只按哈希判断", TaintPoolUtils.poolContains(colliding[1], null));
+    }
+
+    @Test
+    public void testWeakReference() throws Exception {
+        IdentityTaintPool pool = new IdentityTaintPool();
+        WeakReference<Object> ref = addTemporary(pool);
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertNull("污点池不影响对象回收", ref.get());
+    }
+
+    private static WeakReference<Object> addTemporary(IdentityTaintPool pool) {
+        Object obj = new Object();
+        pool.add((long) System.identityHashCode(obj), obj);
+        return new WeakReference<Object>(obj);
+    }
+
+    private static MethodEvent newEvent() {
+        return new MethodEvent("com.example.Foo", "com.example.Foo", "bar",
+                "com.example.Foo.bar(java.lang.Object)", null, new Object[0], null);
+    }
+}
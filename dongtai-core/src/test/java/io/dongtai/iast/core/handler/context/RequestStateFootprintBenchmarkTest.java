@@ -0,0 +1,74 @@
+package io.dongtai.iast.core.handler.context;
+
+import io.dongtai.iast.common.scope.ScopeAggregator;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRange;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个虚拟线程只处理一次请求，线程本地状态不会被复用。每次操作结束都清掉线程本地状态来模拟新的线程，
+ * 使用 GC profiler 观察 gc.alloc.rate.norm：
+ * <ul>
+ * <li>outsideRequest：不在请求中的线程经过 hook 点时分配的 scope 状态</li>
+ * <li>request：一次请求的线程本地状态（请求信息、方法池、污点池、scope）</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(8)
+public class RequestStateFootprintBenchmarkTest {
+    private static final ThreadLocal<ScopeAggregator> LEGACY_SCOPE_TRACKER = new ThreadLocal<ScopeAggregator>() {
+        @Override
+        protected ScopeAggregator initialValue() {
+            return new ScopeAggregator();
+        }
+    };
+
+    @Benchmark
+    public boolean legacyOutsideRequest() {
+        boolean in = LEGACY_SCOPE_TRACKER.get().getPolicyScope().inAgent()
+                || LEGACY_SCOPE_TRACKER.get().getHttpEntryScope().in()
+                || LEGACY_SCOPE_TRACKER.get().getDubboRequestScope().in();
+        LEGACY_SCOPE_TRACKER.remove();
+        return in;
+    }
+
+    @Benchmark
+    public boolean lazyOutsideRequest() {
+        boolean in = ScopeManager.SCOPE_TRACKER.inAgent() || ScopeManager.SCOPE_TRACKER.inEnterEntry();
+        ScopeManager.SCOPE_TRACKER.remove();
+        return in;
+    }
+
+    @Benchmark
+    public boolean request() {
+        VirtualThreadValidationTest.beginRequest("/footprint");
+        EngineManager.TAINT_HASH_CODES.add(1L);
+        EngineManager.TAINT_RANGES_POOL.add(1L, new TaintRanges(new TaintRange(0, 8)));
+        boolean tainted = EngineManager.TAINT_HASH_CODES.contains(1L);
+        EngineManager.cleanThreadState();
+        return tainted;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(RequestStateFootprintBenchmarkTest.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,32 @@
+package io.dongtai.iast.core.handler.context;
+
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRange;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class RequestTaintStoreTest {
+    @Test
+    public void testPublishPerPool() {
+        RequestTaintStore store = new RequestTaintStore();
+        Set<Long> requestHashes = new HashSet<Long>(Collections.singleton(1L));
+        Map<Long, TaintRanges> requestRanges = new HashMap<Long, TaintRanges>();
+        requestRanges.put(1L, new TaintRanges(new TaintRange(0, 1)));
+        store.publishRequest(requestHashes, requestRanges);
+        Assert.assertTrue(store.containsHash(1L));
+
+        // 工作线程嵌套提交时发布自己的污点池，数量与请求线程相同也要发布
+        Set<Long> workerHashes = new HashSet<Long>(Collections.singleton(2L));
+        Map<Long, TaintRanges> workerRanges = new HashMap<Long, TaintRanges>();
+        workerRanges.put(2L, new TaintRanges(new TaintRange(0, 2)));
+        store.publishRequest(workerHashes, workerRanges);
+        Assert.assertTrue(store.containsHash(2L));
+        Assert.assertNotNull(store.getRanges(2L));
+
+        requestHashes.add(3L);
+        store.publishRequest(requestHashes, requestRanges);
+        Assert.assertTrue(store.containsHash(3L));
+    }
+}
@@ -0,0 +1,207 @@
+package io.dongtai.iast.core.handler.context;
+
+import io.dongtai.iast.common.scope.Scope;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.controller.PooledBodyStreamTest;
+import io.dongtai.iast.core.handler.hookpoint.controller.impl.AsyncTaskImpl;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.*;
+import io.dongtai.iast.core.utils.TaintWalkPlanTest;
+import org.junit.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.Statement;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 在虚拟线程上运行污点相关的测试，JDK 21 以下跳过
+ */
+public class VirtualThreadValidationTest {
+    private static final Class<?>[] TAINT_TESTS = new Class<?>[]{
+            AsyncTaintContextTest.class,
+            ContextManagerTest.class,
+            PooledBodyStreamTest.class,
+            TaintRangesTest.class,
+            TaintRangeTest.class,
+            TaintRangeBuilderAppendTest.class,
+            TaintRangeBuilderConcatTest.class,
+            TaintRangeBuilderInsertTest.class,
+            TaintRangeBuilderKeepTest.class,
+            TaintRangeBuilderRemoveTest.class,
+            TaintRangeBuilderReplaceTest.class,
+            TaintRangeBuilderSubsetTest.class,
+            TaintRangeBuilderTrimTest.class,
+            TaintWalkPlanTest.class,
+    };
+
+    private ExecutorService executor;
+
+    /**
+     * 每个任务一个虚拟线程的线程池，不支持虚拟线程时返回 null
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static boolean isVirtual(Thread thread) {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 模拟请求入口设置的线程状态
+     */
+    static void beginRequest(String uri) {
+        Map<String, Object> requestMeta = new HashMap<String, Object>();
+        requestMeta.put("requestURI", uri);
+        EngineManager.REQUEST_CONTEXT.set(requestMeta);
+        EngineManager.TRACK_MAP.set(new HashMap<Integer, MethodEvent>());
+        EngineManager.TAINT_HASH_CODES.set(new HashSet<Long>());
+        EngineManager.TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
+        ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_ENTRY).enter();
+    }
+
+    @Before
+    public void setUp() {
+        this.executor = newVirtualThreadExecutor();
+        Assume.assumeNotNull(this.executor);
+    }
+
+    @After
+    public void tearDown() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTaintTestsOnVirtualThreads() {
+        for (Class<?> testClass : TAINT_TESTS) {
+            Result result;
+            try {
+                result = new JUnitCore().run(Request.runner(new VirtualThreadRunner(testClass, this.executor)));
+            } catch (InitializationError e) {
+                throw new AssertionError(testClass.getName() + ": " + e.getCauses());
+            }
+            for (Failure failure : result.getFailures()) {
+                Assert.fail(failure.getTestHeader() + ": " + failure.getTrace());
+            }
+            Assert.assertTrue(testClass.getName(), result.getRunCount() > 0);
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsIsolated() throws Exception {
+        final int requests = 2000;
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < requests; i++) {
+            final long taint = 10000L + i;
+            futures.add(this.executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    Assert.assertTrue(isVirtual(Thread.currentThread()));
+                    beginRequest("/vt/" + taint);
+                    try {
+                        EngineManager.TAINT_HASH_CODES.add(taint);
+                        EngineManager.TAINT_RANGES_POOL.add(taint, new TaintRanges(new TaintRange(0, 1)));
+                        Callable<Boolean> child = new Callable<Boolean>() {
+                            @Override
+                            public Boolean call() {
+                                EngineManager.TAINT_HASH_CODES.add(taint + requests);
+                                return EngineManager.TAINT_HASH_CODES.contains(taint)
+                                        && !EngineManager.TAINT_HASH_CODES.contains(taint + 1)
+                                        && ("/vt/" + taint).equals(EngineManager.REQUEST_CONTEXT.get().get("requestURI"));
+                            }
+                        };
+                        @SuppressWarnings("unchecked")
+                        Callable<Boolean> wrapped = (Callable<Boolean>) AsyncTaskImpl.wrap(child);
+                        Assert.assertNotSame(child, wrapped);
+                        boolean childOk = executor.submit(wrapped).get(10, TimeUnit.SECONDS);
+                        return childOk
+                                && EngineManager.TAINT_HASH_CODES.contains(taint + requests)
+                                && !EngineManager.TAINT_HASH_CODES.contains(taint - 1);
+                    } finally {
+                        EngineManager.cleanThreadState();
+                        Assert.assertNull(ScopeManager.SCOPE_TRACKER.peek());
+                    }
+                }
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            Assert.assertTrue(future.get(30, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testNoScopeStateOutsideRequest() throws Exception {
+        Assert.assertNull(this.executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                Assert.assertFalse(ScopeManager.SCOPE_TRACKER.inEnterEntry());
+                Assert.assertFalse(ScopeManager.SCOPE_TRACKER.inAgent());
+                Assert.assertFalse(ScopeManager.SCOPE_TRACKER.in(Scope.HTTP_REQUEST));
+                Assert.assertSame(AsyncTaskImpl.class, AsyncTaskImpl.wrap(AsyncTaskImpl.class));
+                return ScopeManager.SCOPE_TRACKER.peek();
+            }
+        }).get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 每个测试方法（包括 @Before/@After）都在一个新的虚拟线程上执行
+     */
+    private static class VirtualThreadRunner extends BlockJUnit4ClassRunner {
+        private final ExecutorService executor;
+
+        VirtualThreadRunner(Class<?> testClass, ExecutorService executor) throws InitializationError {
+            super(testClass);
+            this.executor = executor;
+        }
+
+        @Override
+        protected Statement methodBlock(FrameworkMethod method) {
+            final Statement statement = super.methodBlock(method);
+            return new Statement() {
+                @Override
+                public void evaluate() throws Throwable {
+                    Future<?> future = executor.submit(new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            Assert.assertTrue(isVirtual(Thread.currentThread()));
+                            try {
+                                statement.evaluate();
+                            } catch (Exception e) {
+                                throw e;
+                            } catch (Throwable t) {
+                                throw new ExecutionException(t);
+                            }
+                            return null;
+                        }
+                    });
+                    try {
+                        future.get(60, TimeUnit.SECONDS);
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        throw cause instanceof ExecutionException && cause.getCause() != null ? cause.getCause() : cause;
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.dongtai.iast.core.handler.hookpoint;
+
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.common.state.State;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.context.ContextManager;
+import io.dongtai.iast.core.handler.hookpoint.controller.PooledBodyStream;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SpyDispatcherImplTest {
+    private final SpyDispatcherImpl spy = new SpyDispatcherImpl();
+    private State prevState;
+
+    @After
+    public void tearDown() {
+        EngineManager.cleanThreadState();
+        if (this.prevState != null) {
+            EngineManager.AGENT_STATE.setState(this.prevState);
+            PropertyUtils.clear();
+        }
+    }
+
+    @Test
+    public void testIsTaintedOutsideRequest() throws Exception {
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Assert.assertFalse(spy.isTainted("value"));
+                    // 不在请求中的线程不创建 scope 状态
+                    Assert.assertNull(ScopeManager.SCOPE_TRACKER.peek());
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+    }
+
+    @Test
+    public void testRequestHooksOutsideRequest() throws Exception {
+        startEngine();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Assert.assertFalse(spy.collectMethod(null, new Object[0], null, "policy",
+                            "a.b.C", "a.b.C", "m", "()V", false));
+                    Assert.assertFalse(spy.traceFeignInvoke(null, new Object[0], "a.b.C", "m", "()V"));
+                    spy.onServletInputStreamRead(-1, "()I", null, null, 0, 0);
+                    spy.onServletOutputStreamWrite("(I)V", null, 1, null, 0, 0);
+                    spy.onPrintWriterWrite("(I)V", null, 1, null, null, 0, 0);
+                    spy.collectHttpResponse(null, null, null, null, 200);
+                    spy.collectDubboResponse(null, (byte) 20);
+                    // 只在请求中处理的 hook 点不为普通线程创建 scope 状态
+                    Assert.assertNull(ScopeManager.SCOPE_TRACKER.peek());
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+    }
+
+    @Test
+    public void testUnsampledHttpLeaveReleasesBody() throws Exception {
+        startEngine();
+        this.spy.enterHttp();
+        ContextManager.initContext();
+        PooledBodyStream body = EngineManager.BODY_BUFFER.getRequest();
+
+        this.spy.leaveHttp(null, null);
+        Assert.assertNull(ContextManager.getContext().get());
+        Assert.assertNotSame(body, EngineManager.BODY_BUFFER.getRequest());
+    }
+
+    @Test
+    public void testDubboLeaveKeepsOuterTraceContext() throws Exception {
+        startEngine();
+        this.spy.enterHttp();
+        ContextManager.initContext();
+        Object context = ContextManager.getContext().get();
+
+        // 未采样的 HTTP 请求中发起的 Dubbo 调用结束，外层请求的 trace 上下文不变
+        this.spy.enterDubbo();
+        this.spy.leaveDubbo(null, null);
+        Assert.assertSame(context, ContextManager.getContext().get());
+
+        this.spy.leaveHttp(null, null);
+        Assert.assertNull(ContextManager.getContext().get());
+    }
+
+    private void startEngine() throws Exception {
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+        EngineManager.getInstance(1);
+        this.prevState = EngineManager.AGENT_STATE.getState();
+        EngineManager.AGENT_STATE.setState(State.RUNNING);
+    }
+}
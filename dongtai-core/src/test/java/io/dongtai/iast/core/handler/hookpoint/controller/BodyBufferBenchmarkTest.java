@@ -0,0 +1,85 @@
+package io.dongtai.iast.core.handler.hookpoint.controller;
+
+import io.dongtai.iast.common.utils.base64.Base64Encoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟 500 个工作线程下每个请求的 body 采集开销，使用 GC profiler 观察 gc.alloc.rate.norm（每个请求分配的字节数）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(500)
+public class BodyBufferBenchmarkTest {
+    private static final int MAX_LENGTH = 50000;
+
+    private static final ThreadLocal<ByteArrayOutputStream> LEGACY_REQUEST =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(65535));
+    private static final ThreadLocal<ByteArrayOutputStream> LEGACY_RESPONSE =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(65535));
+
+    private final BodyBuffer bodyBuffer = new BodyBuffer();
+
+    @Param({"256", "4096"})
+    public int responseLength;
+
+    private String response;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder(this.responseLength);
+        for (int i = 0; i < this.responseLength; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        this.response = sb.toString();
+    }
+
+    @Benchmark
+    public String legacyThreadLocalStreams() throws Exception {
+        ByteArrayOutputStream req = LEGACY_REQUEST.get();
+        req.write("a=b".getBytes());
+        ByteArrayOutputStream buff = LEGACY_RESPONSE.get();
+        int size = buff.size();
+        if (size < MAX_LENGTH) {
+            buff.write((new String(this.response.toCharArray(), 0,
+                    Math.min(this.response.length(), MAX_LENGTH - size))).getBytes());
+        }
+        String body = buff.toString();
+        String encoded = Base64Encoder.encodeBase64String(body.getBytes(StandardCharsets.UTF_8));
+        LEGACY_REQUEST.remove();
+        LEGACY_RESPONSE.remove();
+        return encoded;
+    }
+
+    @Benchmark
+    public String pooledBodyStream() {
+        byte[] reqBody = "a=b".getBytes();
+        this.bodyBuffer.getRequest().write(reqBody, 0, reqBody.length, 4096);
+        this.bodyBuffer.getResponse().write(this.response, 0, this.response.length(), MAX_LENGTH);
+        String encoded = this.bodyBuffer.getResponse().toBase64String();
+        this.bodyBuffer.remove();
+        return encoded;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(BodyBufferBenchmarkTest.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+
+}
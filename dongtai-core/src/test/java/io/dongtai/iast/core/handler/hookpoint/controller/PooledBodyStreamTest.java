@@ -0,0 +1,60 @@
+package io.dongtai.iast.core.handler.hookpoint.controller;
+
+import io.dongtai.iast.common.utils.base64.Base64Encoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class PooledBodyStreamTest {
+    @Test
+    public void testWrite() {
+        BodyBufferPool pool = new BodyBufferPool(4);
+        PooledBodyStream stream = new PooledBodyStream(pool);
+        Assert.assertEquals("empty", "", stream.toString());
+        Assert.assertEquals("empty base64", "", stream.toBase64String());
+
+        stream.write('a', 100);
+        stream.write("xbcx".getBytes(), 1, 2, 100);
+        stream.write("中文".toCharArray(), 0, 2, 100);
+        stream.write("foo-bar", 3, 4, 100);
+        byte[] expected = "abc中文-bar".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals("size", expected.length, stream.size());
+        Assert.assertEquals("base64", Base64Encoder.encodeBase64String(expected), stream.toBase64String());
+    }
+
+    @Test
+    public void testLimit() {
+        PooledBodyStream stream = new PooledBodyStream(new BodyBufferPool(4));
+        stream.write("abcdef".getBytes(), 0, 6, 4);
+        stream.write('g', 4);
+        Assert.assertEquals("bytes limit", "abcd", stream.toString());
+
+        stream = new PooledBodyStream(new BodyBufferPool(4));
+        // multi-byte char must not be split at the limit
+        stream.write("ab中", 0, 3, 4);
+        Assert.assertEquals("chars limit", "ab", stream.toString());
+    }
+
+    @Test
+    public void testGrowAndRelease() {
+        BodyBufferPool pool = new BodyBufferPool(4);
+        PooledBodyStream stream = new PooledBodyStream(pool);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        String s = sb.toString();
+        stream.write(s, 0, s.length(), 50000);
+        stream.write(s.toCharArray(), 0, s.length(), 50000);
+        Assert.assertEquals("grow", s + s, stream.toString());
+        Assert.assertEquals("grown buffers released", 4096, pool.getIdleBytes());
+
+        stream.release();
+        Assert.assertEquals("release", 0, stream.size());
+        Assert.assertEquals("pooled", 4096 + 16384, pool.getIdleBytes());
+
+        stream.write(s, 0, 2000, 50000);
+        Assert.assertEquals("reuse", 16384, pool.getIdleBytes());
+    }
+}
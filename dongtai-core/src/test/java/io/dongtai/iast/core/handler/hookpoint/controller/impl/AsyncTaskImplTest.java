@@ -0,0 +1,162 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import io.dongtai.iast.common.scope.Scope;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class AsyncTaskImplTest {
+    private final List<ThreadPoolExecutor> executors = new ArrayList<ThreadPoolExecutor>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        Map<String, Object> requestMeta = new HashMap<String, Object>();
+        requestMeta.put("requestURI", "/async");
+        EngineManager.REQUEST_CONTEXT.set(requestMeta);
+        EngineManager.TRACK_MAP.set(new HashMap<Integer, MethodEvent>());
+        EngineManager.TAINT_HASH_CODES.set(new HashSet<Long>());
+        EngineManager.TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
+        ScopeManager.SCOPE_TRACKER.getScope(Scope.HTTP_ENTRY).enter();
+    }
+
+    @After
+    public void tearDown() {
+        this.release.countDown();
+        for (ThreadPoolExecutor executor : this.executors) {
+            executor.shutdownNow();
+        }
+        EngineManager.cleanThreadState();
+    }
+
+    @Test
+    public void testContextOnWorker() throws Exception {
+        // 其他用例中没有执行的任务等 GC 后才会清理
+        int pending = AsyncTaskImpl.pendingCount();
+        ThreadPoolExecutor executor = newExecutor(new LinkedBlockingQueue<Runnable>(), new ThreadPoolExecutor.AbortPolicy());
+        Future<Object> uri = executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                Assert.assertTrue(ScopeManager.SCOPE_TRACKER.inEnterEntry());
+                return EngineManager.REQUEST_CONTEXT.get().get("requestURI");
+            }
+        });
+        Assert.assertEquals("/async", uri.get(10, TimeUnit.SECONDS));
+
+        // 工作线程恢复为原来的状态
+        EngineManager.cleanThreadState();
+        Future<Object> leaked = executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return EngineManager.REQUEST_CONTEXT.get();
+            }
+        });
+        Assert.assertNull(leaked.get(10, TimeUnit.SECONDS));
+        Assert.assertTrue("执行后不再保存任务的上下文", AsyncTaskImpl.pendingCount() <= pending);
+    }
+
+    @Test
+    public void testShutdownNowReturnsOriginalTasks() throws Exception {
+        ThreadPoolExecutor executor = newExecutor(new LinkedBlockingQueue<Runnable>(), new ThreadPoolExecutor.AbortPolicy());
+        executor.execute(blocker());
+        Runnable removed = noop();
+        Runnable queued = noop();
+        executor.execute(removed);
+        executor.execute(queued);
+        Future<?> future = executor.submit(noop());
+
+        // 队列中是业务提交的原任务
+        Iterator<Runnable> it = executor.getQueue().iterator();
+        Assert.assertSame(removed, it.next());
+        Assert.assertSame(queued, it.next());
+        Assert.assertSame(future, it.next());
+        Assert.assertTrue(executor.remove(removed));
+
+        List<Runnable> dropped = executor.shutdownNow();
+        Assert.assertEquals(2, dropped.size());
+        Assert.assertSame(queued, dropped.get(0));
+        Assert.assertSame(future, dropped.get(1));
+        Assert.assertTrue(dropped.get(1) instanceof Future);
+    }
+
+    @Test
+    public void testRejectionSeesOriginalTask() throws Exception {
+        final List<Runnable> rejected = new ArrayList<Runnable>();
+        ThreadPoolExecutor executor = newExecutor(new SynchronousQueue<Runnable>(), new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                rejected.add(r);
+            }
+        });
+        executor.execute(blocker());
+        Runnable task = noop();
+        executor.execute(task);
+        Future<?> future = executor.submit(noop());
+
+        Assert.assertEquals(2, rejected.size());
+        Assert.assertSame(task, rejected.get(0));
+        Assert.assertSame(future, rejected.get(1));
+    }
+
+    private ThreadPoolExecutor newExecutor(BlockingQueue<Runnable> queue, RejectedExecutionHandler handler) {
+        ThreadPoolExecutor executor = new InstrumentedExecutor(queue, handler);
+        this.executors.add(executor);
+        return executor;
+    }
+
+    private Runnable blocker() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignore) {
+                }
+            }
+        };
+    }
+
+    private static Runnable noop() {
+        return new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+    }
+
+    /**
+     * 与插桩后的 ThreadPoolExecutor 行为一致：execute 记录请求上下文，beforeExecute/afterExecute 恢复、还原。
+     * 子类和父类的回调都被插桩，子类调用 super 时会进入两次
+     */
+    private static class InstrumentedExecutor extends ThreadPoolExecutor {
+        InstrumentedExecutor(BlockingQueue<Runnable> queue, RejectedExecutionHandler handler) {
+            super(1, 1, 0, TimeUnit.SECONDS, queue, handler);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            AsyncTaskImpl.capture(command);
+            super.execute(command);
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            AsyncTaskImpl.enter(r);
+            AsyncTaskImpl.enter(r);
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            AsyncTaskImpl.leave(r);
+            AsyncTaskImpl.leave(r);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class DubboRequestCacheTest {
+    private static final String URL = "dubbo://192.168.1.10:20880/com.example.DemoService?anyhost=true&application=demo";
+
+    @After
+    public void tearDown() {
+        DubboRequestCache.clear();
+    }
+
+    @Test
+    public void testProvider() throws Exception {
+        DubboRequestCache.Provider provider = DubboRequestCache.getProvider(URL);
+        Assert.assertSame(provider, DubboRequestCache.getProvider(URL));
+
+        Map<String, Object> meta = provider.newRequestMeta("0:0:0:0:0:0:0:1");
+        Assert.assertEquals("dubbo://192.168.1.10:20880/com.example.DemoService", meta.get("requestURL"));
+        Assert.assertEquals("/com.example.DemoService", meta.get("requestURI"));
+        Assert.assertEquals("dubbo", meta.get("scheme"));
+        Assert.assertEquals(20880, meta.get("serverPort"));
+        Assert.assertEquals("127.0.0.1", meta.get("remoteAddr"));
+        Assert.assertEquals("DUBBO", meta.get("protocol"));
+        Assert.assertEquals(false, meta.get("secure"));
+
+        // 每个请求独立
+        meta.put("requestURL", "changed");
+        Assert.assertNotSame(meta, provider.newRequestMeta("10.0.0.1"));
+        Assert.assertEquals("dubbo://192.168.1.10:20880/com.example.DemoService",
+                provider.newRequestMeta("10.0.0.1").get("requestURL"));
+    }
+
+    @Test
+    public void testMethodUrls() {
+        String[] urls = DubboRequestCache.getMethodUrls("dubbo://h:1/S", "/S", "say",
+                new Class<?>[]{String.class, int[].class, Map.Entry.class});
+        Assert.assertEquals("dubbo://h:1/S/say(java.lang.String,int[],java.util.Map.Entry)", urls[0]);
+        Assert.assertEquals("/S/say(java.lang.String,int[],java.util.Map.Entry)", urls[1]);
+        Assert.assertSame(urls, DubboRequestCache.getMethodUrls("dubbo://h:1/S", "/S", "say",
+                new Class<?>[]{String.class, int[].class, Map.Entry.class}));
+
+        Assert.assertEquals("/S/say()", DubboRequestCache.getMethodUrls("dubbo://h:1/S", "/S", "say", null)[1]);
+        Assert.assertEquals("/S/say(java.lang.Long)",
+                DubboRequestCache.getMethodUrls("dubbo://h:1/S", "/S", "say", new Class<?>[]{Long.class})[1]);
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        for (int i = 0; i < DubboRequestCache.MAX_CACHE_SIZE + 10; i++) {
+            DubboRequestCache.getProvider("dubbo://h:" + (i % 60000 + 1) + "/S" + i);
+            DubboRequestCache.getMethodUrls("dubbo://h:1/S", "/S", "m" + i, null);
+        }
+        Assert.assertEquals(DubboRequestCache.MAX_CACHE_SIZE * 2, DubboRequestCache.size());
+        Assert.assertEquals("/S/m" + (DubboRequestCache.MAX_CACHE_SIZE + 5) + "()",
+                DubboRequestCache.getMethodUrls("dubbo://h:1/S", "/S", "m" + (DubboRequestCache.MAX_CACHE_SIZE + 5), null)[1]);
+    }
+}
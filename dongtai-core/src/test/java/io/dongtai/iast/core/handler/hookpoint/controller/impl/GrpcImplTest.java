@@ -0,0 +1,157 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import io.dongtai.iast.common.constants.ReportKey;
+import io.dongtai.iast.common.scope.Scope;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.common.state.State;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.context.ContextManager;
+import io.dongtai.iast.core.handler.hookpoint.SpyDispatcherImpl;
+import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.iast.core.utils.TaintPoolUtils;
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GrpcImplTest {
+    private final List<String> reports = new ArrayList<String>();
+    private final SpyDispatcherImpl spy = new SpyDispatcherImpl();
+    private State prevState;
+
+    @Before
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+        EngineManager.getInstance(1);
+        this.prevState = EngineManager.AGENT_STATE.getState();
+        EngineManager.AGENT_STATE.setState(State.RUNNING);
+        ThreadPools.setReportSender(new ThreadPools.ReportSender() {
+            @Override
+            public void send(String url, String report) {
+                reports.add(report);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        EngineManager.cleanThreadState();
+        EngineManager.AGENT_STATE.setState(this.prevState);
+        ThreadPools.setReportSender(null);
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testStreamingCall() throws Exception {
+        // 线程上原有的状态不受调用影响
+        Map<String, Object> threadMeta = new HashMap<String, Object>();
+        EngineManager.REQUEST_CONTEXT.set(threadMeta);
+
+        final Object call = this.spy.enterGrpcCall(newMeta());
+        Assert.assertNotNull(call);
+        Assert.assertSame(threadMeta, EngineManager.REQUEST_CONTEXT.get());
+        Assert.assertFalse(ScopeManager.SCOPE_TRACKER.in(Scope.GRPC_ENTRY));
+
+        // 流式调用的每条消息可能在不同的线程上回调
+        final String first = new String("hello-1");
+        final String second = new String("hello-2");
+        runOnThread(new Runnable() {
+            @Override
+            public void run() {
+                Object token = spy.attachGrpcCall(call);
+                try {
+                    Assert.assertTrue(ScopeManager.SCOPE_TRACKER.in(Scope.GRPC_ENTRY));
+                    spy.collectGrpcMessage(call, first);
+                    Assert.assertTrue(TaintPoolUtils.poolContains(first, null));
+                } finally {
+                    spy.detachGrpcCall(call, token);
+                }
+                Assert.assertNull(EngineManager.REQUEST_CONTEXT.get());
+                Assert.assertFalse(TaintPoolUtils.poolContains(first, null));
+            }
+        });
+        runOnThread(new Runnable() {
+            @Override
+            public void run() {
+                Object token = spy.attachGrpcCall(call);
+                try {
+                    Assert.assertTrue("上一条消息的污点仍在调用中", TaintPoolUtils.poolContains(first, null));
+                    spy.collectGrpcMessage(call, second);
+                    Assert.assertTrue(TaintPoolUtils.poolContains(second, null));
+                } finally {
+                    spy.detachGrpcCall(call, token);
+                }
+            }
+        });
+        Assert.assertTrue(this.reports.isEmpty());
+
+        this.spy.leaveGrpcCall(call);
+        Assert.assertSame(threadMeta, EngineManager.REQUEST_CONTEXT.get());
+        Assert.assertEquals("调用结束时上报一次", 1, this.reports.size());
+        JSONObject detail = JSON.parseObject(this.reports.get(0)).getJSONObject(ReportKey.DETAIL);
+        Assert.assertEquals("GRPC", detail.getString(ReportKey.PROTOCOL));
+        Assert.assertEquals("/helloworld.Greeter/Chat", detail.getString(ReportKey.URI));
+        Assert.assertEquals("grpc://localhost:50051/helloworld.Greeter/Chat", detail.getString(ReportKey.URL));
+        Assert.assertEquals("trace-1", detail.getString(ReportKey.TRACE_ID).split("\\.")[0]);
+        Assert.assertTrue(detail.getString(ReportKey.REQ_BODY).contains("hello-1"));
+        Assert.assertTrue(detail.getString(ReportKey.REQ_BODY).contains("hello-2"));
+        JSONArray pool = detail.getJSONArray(ReportKey.METHOD_POOL);
+        Assert.assertEquals("每条消息一个污点来源", 2, pool.size());
+
+        // 调用结束后的回调不再切换上下文，也不会重复上报
+        Assert.assertNull(this.spy.attachGrpcCall(call));
+        this.spy.collectGrpcMessage(call, "late");
+        this.spy.leaveGrpcCall(call);
+        Assert.assertEquals(1, this.reports.size());
+        Assert.assertSame(threadMeta, EngineManager.REQUEST_CONTEXT.get());
+    }
+
+    @Test
+    public void testInsideRequest() {
+        EngineManager.REQUEST_CONTEXT.set(new HashMap<String, Object>());
+        ScopeManager.SCOPE_TRACKER.enter(Scope.HTTP_ENTRY);
+        // HTTP 请求中发起的进程内调用属于这个请求
+        Assert.assertNull(this.spy.enterGrpcCall(newMeta()));
+    }
+
+    @Test
+    public void testEngineStopped() {
+        Object call = this.spy.enterGrpcCall(newMeta());
+        EngineManager.AGENT_STATE.setState(State.PAUSED);
+        this.spy.leaveGrpcCall(call);
+        Assert.assertTrue(this.reports.isEmpty());
+        Assert.assertNull(this.spy.attachGrpcCall(call));
+        Assert.assertNull(this.spy.enterGrpcCall(newMeta()));
+    }
+
+    private static Map<String, Object> newMeta() {
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("x-user", "u1");
+        headers.put(ContextManager.getHeaderKey(), "trace-1.1.0.1");
+        Map<String, Object> meta = new HashMap<String, Object>();
+        meta.put("requestURI", "helloworld.Greeter/Chat");
+        meta.put("serverAddr", "localhost:50051");
+        meta.put("headers", headers);
+        return meta;
+    }
+
+    private static void runOnThread(Runnable task) throws Exception {
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread thread = new Thread(task);
+        thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread t, Throwable e) {
+                error.set(e);
+            }
+        });
+        thread.start();
+        thread.join();
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import io.dongtai.iast.common.constants.ReportKey;
+import io.dongtai.iast.common.scope.Scope;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.context.ContextManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.junit.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class KafkaImplTest {
+    private final List<String> reports = new ArrayList<String>();
+
+    @Before
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+        EngineManager.getInstance(1);
+        ThreadPools.setReportSender(new ThreadPools.ReportSender() {
+            @Override
+            public void send(String url, String report) {
+                reports.add(report);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        KafkaImpl.clear();
+        EngineManager.cleanThreadState();
+        ThreadPools.setReportSender(null);
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testRecordPerFlow() {
+        StandInConsumer consumer = new StandInConsumer("orders", 3, 2);
+        List<Long> taints = new ArrayList<Long>();
+        int consumed = 0;
+        for (int i = 0; i < 2; i++) {
+            for (StandInRecord record : consumer.poll()) {
+                Assert.assertTrue(ScopeManager.SCOPE_TRACKER.inEnterEntry());
+                Assert.assertTrue("每条消息使用新的方法池", EngineManager.TRACK_MAP.get().isEmpty());
+                for (Long taint : taints) {
+                    Assert.assertFalse("上一条消息的污点不在当前消息中", EngineManager.TAINT_HASH_CODES.contains(taint));
+                }
+                // 模拟 source 和 sink
+                long taint = System.identityHashCode(record.value());
+                EngineManager.TAINT_HASH_CODES.add(taint);
+                taints.add(taint);
+                EngineManager.TRACK_MAP.addTrackMethod(1, newEvent(1, "source"));
+                EngineManager.TRACK_MAP.addTrackMethod(2, newEvent(2, "sink"));
+                consumed++;
+            }
+            // 一批消息迭代完，最后一条消息已经上报
+            Assert.assertFalse(ScopeManager.SCOPE_TRACKER.in(Scope.KAFKA_ENTRY));
+        }
+        Assert.assertEquals(6, consumed);
+        Assert.assertEquals("每条消息单独上报", 6, this.reports.size());
+
+        for (int i = 0; i < this.reports.size(); i++) {
+            JSONObject detail = JSON.parseObject(this.reports.get(i)).getJSONObject(ReportKey.DETAIL);
+            Assert.assertEquals("KAFKA", detail.getString(ReportKey.PROTOCOL));
+            Assert.assertEquals("CONSUME", detail.getString(ReportKey.METHOD));
+            Assert.assertEquals("kafka://orders", detail.getString(ReportKey.URL));
+            Assert.assertEquals("/orders", detail.getString(ReportKey.URI));
+            Assert.assertEquals("partition=" + (i % 2) + "&offset=" + (100 + i),
+                    detail.getString(ReportKey.QUERY_STRING));
+            Assert.assertEquals("trace-" + i, detail.getString(ReportKey.TRACE_ID).split("\\.")[0]);
+            Assert.assertEquals(2, detail.getJSONArray(ReportKey.METHOD_POOL).size());
+            Assert.assertTrue(detail.getString(ReportKey.REQ_BODY).contains("order-" + i));
+        }
+    }
+
+    @Test
+    public void testListenerDispatch() {
+        StandInRecord first = new StandInRecord("payments", 0, 7, "p-7", null);
+        StandInRecord second = new StandInRecord("payments", 0, 8, "p-8", null);
+
+        // 容器迭代时已经进入第一条消息，分发给 listener 时保持同一个上下文
+        KafkaImpl.enterRecord(first);
+        EngineManager.TRACK_MAP.addTrackMethod(1, newEvent(1, "source"));
+        KafkaImpl.enterRecord(first);
+        Assert.assertEquals(1, EngineManager.TRACK_MAP.get().size());
+        KafkaImpl.leaveRecord();
+        Assert.assertEquals(1, this.reports.size());
+
+        // listener 处理完成后不会再重复上报
+        KafkaImpl.leaveRecord();
+        KafkaImpl.enterRecord(null);
+        Assert.assertEquals(1, this.reports.size());
+
+        KafkaImpl.enterRecord(second);
+        Assert.assertTrue(EngineManager.TRACK_MAP.get().isEmpty());
+        KafkaImpl.enterRecord(null);
+        Assert.assertEquals(2, this.reports.size());
+        Assert.assertEquals("partition=0&offset=8", JSON.parseObject(this.reports.get(1))
+                .getJSONObject(ReportKey.DETAIL).getString(ReportKey.QUERY_STRING));
+    }
+
+    @Test
+    public void testInsideRequest() {
+        Map<String, Object> requestMeta = new HashMap<String, Object>();
+        requestMeta.put("requestURI", "/poll");
+        EngineManager.REQUEST_CONTEXT.set(requestMeta);
+        ScopeManager.SCOPE_TRACKER.enter(Scope.HTTP_ENTRY);
+
+        // HTTP 请求中消费的消息属于这个请求
+        KafkaImpl.enterRecord(new StandInRecord("orders", 0, 1, "order", null));
+        Assert.assertSame(requestMeta, EngineManager.REQUEST_CONTEXT.get());
+        Assert.assertFalse(ScopeManager.SCOPE_TRACKER.in(Scope.KAFKA_ENTRY));
+        KafkaImpl.enterRecord(null);
+        Assert.assertSame(requestMeta, EngineManager.REQUEST_CONTEXT.get());
+        Assert.assertTrue(this.reports.isEmpty());
+    }
+
+    @Test
+    public void testUnsupportedRecord() {
+        KafkaImpl.enterRecord("not a record");
+        Assert.assertFalse(ScopeManager.SCOPE_TRACKER.in(Scope.KAFKA_ENTRY));
+        Assert.assertNull(EngineManager.REQUEST_CONTEXT.get());
+    }
+
+    private static MethodEvent newEvent(int invokeId, String policyType) {
+        MethodEvent event = new MethodEvent("com.example.Listener", "com.example.Listener", "onMessage",
+                "com.example.Listener.onMessage(java.lang.String)", null, new Object[0], null);
+        event.setInvokeId(invokeId);
+        event.setPolicyType(policyType);
+        event.setCallStack(new StackTraceElement("com.example.Listener", "onMessage", "Listener.java", 10));
+        return event;
+    }
+
+    /**
+     * 模拟 KafkaConsumer：每次 poll 返回一批消息，迭代器的行为与插桩后的 ConsumerRecords 迭代器一致
+     */
+    private static class StandInConsumer {
+        private final String topic;
+        private final int batchSize;
+        private final int partitions;
+        private long offset = 100;
+
+        StandInConsumer(String topic, int batchSize, int partitions) {
+            this.topic = topic;
+            this.batchSize = batchSize;
+            this.partitions = partitions;
+        }
+
+        Iterable<StandInRecord> poll() {
+            KafkaImpl.leaveRecord();
+            final List<StandInRecord> records = new ArrayList<StandInRecord>();
+            for (int i = 0; i < this.batchSize; i++) {
+                int n = (int) (this.offset - 100);
+                Header trace = new Header(ContextManager.getHeaderKey(),
+                        ("trace-" + n + ".1.0.1").getBytes(StandardCharsets.UTF_8));
+                records.add(new StandInRecord(this.topic, n % this.partitions, this.offset++, "order-" + n,
+                        Collections.singletonList(trace)));
+            }
+            return new Iterable<StandInRecord>() {
+                @Override
+                public Iterator<StandInRecord> iterator() {
+                    final Iterator<StandInRecord> it = records.iterator();
+                    return new Iterator<StandInRecord>() {
+                        @Override
+                        public boolean hasNext() {
+                            if (it.hasNext()) {
+                                return true;
+                            }
+                            KafkaImpl.enterRecord(null);
+                            return false;
+                        }
+
+                        @Override
+                        public StandInRecord next() {
+                            StandInRecord record = it.next();
+                            KafkaImpl.enterRecord(record);
+                            return record;
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    public static class StandInRecord {
+        private final String topic;
+        private final int partition;
+        private final long offset;
+        private final String value;
+        private final List<Header> headers;
+
+        StandInRecord(String topic, int partition, long offset, String value, List<Header> headers) {
+            this.topic = topic;
+            this.partition = partition;
+            this.offset = offset;
+            this.value = value;
+            this.headers = headers;
+        }
+
+        public String topic() {
+            return this.topic;
+        }
+
+        public int partition() {
+            return this.partition;
+        }
+
+        public long offset() {
+            return this.offset;
+        }
+
+        public String value() {
+            return this.value;
+        }
+
+        public Iterable<Header> headers() {
+            return this.headers;
+        }
+    }
+
+    public static class Header {
+        private final String key;
+        private final byte[] value;
+
+        Header(String key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public String key() {
+            return this.key;
+        }
+
+        public byte[] value() {
+            return this.value;
+        }
+    }
+}
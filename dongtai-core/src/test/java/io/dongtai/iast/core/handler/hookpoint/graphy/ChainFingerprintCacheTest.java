@@ -0,0 +1,69 @@
+package io.dongtai.iast.core.handler.hookpoint.graphy;
+
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class ChainFingerprintCacheTest {
+    private static MethodEvent event(String policyType, String signature, int line) {
+        MethodEvent event = new MethodEvent("com.foo.Bar", "com.foo.Bar", "run", signature,
+                null, null, null);
+        event.setPolicyType(policyType);
+        event.setCallStack(new StackTraceElement("com.foo.Caller", "call", "Caller.java", line));
+        if ("sink".equals(policyType)) {
+            event.setStacks(new StackTraceElement[]{
+                    new StackTraceElement("com.foo.Caller", "call", "Caller.java", line),
+                    new StackTraceElement("com.foo.Controller", "handle", "Controller.java", 10),
+            });
+        }
+        return event;
+    }
+
+    private static List<MethodEvent> chain(int sinkLine) {
+        return Arrays.asList(
+                event("source", "javax.servlet.ServletRequest.getParameter(java.lang.String)", 12),
+                event("propagator", "java.lang.StringBuilder.append(java.lang.String)", 13),
+                event("sink", "java.sql.Statement.executeQuery(java.lang.String)", sinkLine));
+    }
+
+    @Test
+    public void testFingerprint() {
+        long fp = ChainFingerprintCache.fingerprint(chain(14));
+        Assert.assertNotEquals(0, fp);
+        Assert.assertEquals("stable", fp, ChainFingerprintCache.fingerprint(chain(14)));
+        List<MethodEvent> reversed = chain(14);
+        Collections.reverse(reversed);
+        Assert.assertEquals("order insensitive", fp, ChainFingerprintCache.fingerprint(reversed));
+        Assert.assertNotEquals("caller line", fp, ChainFingerprintCache.fingerprint(chain(15)));
+        Assert.assertEquals("no sink", 0, ChainFingerprintCache.fingerprint(chain(14).subList(0, 2)));
+    }
+
+    @Test
+    public void testObserve() {
+        ChainFingerprintCache cache = new ChainFingerprintCache(2, 1000);
+        Assert.assertTrue(cache.observe(1L, 0));
+        Assert.assertFalse(cache.observe(1L, 10));
+        Assert.assertFalse(cache.observe(1L, 999));
+        Assert.assertTrue("ttl expired", cache.observe(1L, 1000));
+        Assert.assertFalse(cache.observe(1L, 1500));
+
+        Assert.assertTrue(cache.observe(2L, 1000));
+        Assert.assertTrue(cache.observe(3L, 1000));
+        Assert.assertEquals("bounded", 2, cache.size());
+        Assert.assertTrue("evicted", cache.observe(1L, 1001));
+    }
+
+    @Test
+    public void testExpireWithoutRepeat() {
+        ChainFingerprintCache cache = new ChainFingerprintCache(16, 1000);
+        cache.observe(1L, 0);
+        cache.observe(2L, 10);
+        cache.observe(3L, 500);
+        Assert.assertEquals(3, cache.size());
+        // 其他链路命中时移除已过期的链路
+        Assert.assertTrue(cache.observe(4L, 1200));
+        Assert.assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,111 @@
+package io.dongtai.iast.core.handler.hookpoint.models.policy;
+
+import io.dongtai.iast.core.bytecode.TransformCache;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.apache.commons.io.FileUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动时加载策略：解析 JSON 构建策略 vs 读取快照，两者都包含读取策略原文和计算摘要。
+ * 仓库中没有随包发布的策略文件，这里生成与服务端默认策略规模相近的策略（约 2000 个节点）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PolicySnapshotBenchmarkTest {
+    private static final String[] TYPES = new String[]{
+            "java.lang.String", "java.lang.StringBuilder", "javax.servlet.http.HttpServletRequest",
+            "java.util.Map", "java.io.InputStream", "java.lang.Object[]", "int", "byte[]",
+    };
+
+    @Param({"2000"})
+    public int nodes;
+
+    private File dir;
+    private String policyPath;
+    private File snapshot;
+
+    @Setup
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+        this.dir = new File(System.getProperty("java.io.tmpdir"), "dongtai-policy-bench-" + System.nanoTime());
+        this.policyPath = new File(this.dir, "policy.json").getPath();
+        this.snapshot = new File(this.dir, "policy.snapshot");
+
+        JSONArray data = new JSONArray();
+        for (int i = 0; i < this.nodes; i++) {
+            String clazz = "com.example.pkg" + (i % 40) + ".Service" + (i / 8);
+            String params = TYPES[i % TYPES.length] + "," + TYPES[(i / 3) % TYPES.length];
+            JSONObject node = new JSONObject()
+                    .put("signature", clazz + ".method" + i + "(" + params + ")")
+                    .put("inherit", i % 3 == 0 ? "all" : (i % 3 == 1 ? "true" : "false"));
+            switch (i % 4) {
+                case 0:
+                    node.put("type", 2).put("source", "").put("target", "R").put("tags", new JSONArray().put("untrusted"));
+                    break;
+                case 1:
+                    node.put("type", 1).put("source", "P1").put("target", "O|R").put("command", "APPEND(P1)");
+                    break;
+                case 2:
+                    node.put("type", 4).put("source", "P1,2").put("vul_type", "sql-injection")
+                            .put("stack_blacklist", new JSONArray().put("com.example.Safe.run"));
+                    break;
+                default:
+                    node.put("type", 3).put("source", "P1").put("tags", new JSONArray().put("xss-encoded"));
+            }
+            data.put(node);
+        }
+        FileUtils.writeStringToFile(new File(this.policyPath),
+                new JSONObject().put("status", 201).put("data", data).toString(), "UTF-8");
+
+        String content = PolicyBuilder.readFile(this.policyPath);
+        Policy policy = PolicyBuilder.build(PolicyBuilder.parseFromFile(this.policyPath, content));
+        PolicySnapshot.write(this.snapshot, version(content), policy);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtils.deleteQuietly(this.dir);
+        PropertyUtils.clear();
+    }
+
+    @Benchmark
+    public Policy jsonBuild() throws Exception {
+        String content = PolicyBuilder.readFile(this.policyPath);
+        version(content);
+        return PolicyBuilder.build(PolicyBuilder.parseFromFile(this.policyPath, content));
+    }
+
+    @Benchmark
+    public Policy snapshotLoad() throws Exception {
+        String content = PolicyBuilder.readFile(this.policyPath);
+        return PolicySnapshot.read(this.snapshot, version(content));
+    }
+
+    private static String version(String content) {
+        return TransformCache.sha1Hex(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(PolicySnapshotBenchmarkTest.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,197 @@
+package io.dongtai.iast.core.handler.hookpoint.models.policy;
+
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintCommandRunner;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.*;
+
+public class PolicySnapshotTest {
+    private static final String POLICY_DIR = "src/test/fixture/policy/";
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance(PROPERTY_FILE);
+    }
+
+    @After
+    public void tearDown() {
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testRoundTripFixtures() throws Exception {
+        int count = 0;
+        for (File fixture : FileUtils.listFiles(new File(POLICY_DIR), new String[]{"json"}, true)) {
+            Policy policy;
+            try {
+                policy = PolicyBuilder.build(PolicyBuilder.fetchFromFile(fixture.getPath()));
+            } catch (PolicyException e) {
+                continue;
+            }
+            File snapshot = new File(this.folder.getRoot(), fixture.getName() + ".snapshot");
+            Assert.assertTrue(fixture.getName(), PolicySnapshot.write(snapshot, "v1", policy));
+            Policy loaded = PolicySnapshot.read(snapshot, "v1");
+            Assert.assertNotNull(fixture.getName(), loaded);
+            Assert.assertEquals(fixture.getName(), describe(policy), describe(loaded));
+            count++;
+        }
+        Assert.assertTrue(count > 20);
+    }
+
+    @Test
+    public void testInvalidSnapshot() throws Exception {
+        Policy policy = PolicyBuilder.build(PolicyBuilder.fetchFromFile(POLICY_DIR + "command/policy-append-p2-p3.json"));
+        File snapshot = this.folder.newFile("policy.snapshot");
+        Assert.assertTrue(PolicySnapshot.write(snapshot, "v1", policy));
+
+        Assert.assertNull("content changed", PolicySnapshot.read(snapshot, "v2"));
+        Assert.assertNull("not exists", PolicySnapshot.read(new File(this.folder.getRoot(), "none"), "v1"));
+
+        RandomAccessFile file = new RandomAccessFile(snapshot, "rw");
+        try {
+            file.setLength(file.length() - 3);
+        } finally {
+            file.close();
+        }
+        Assert.assertNull("truncated", PolicySnapshot.read(snapshot, "v1"));
+
+        FileUtils.writeByteArrayToFile(snapshot, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        Assert.assertNull("corrupted", PolicySnapshot.read(snapshot, "v1"));
+    }
+
+    @Test
+    public void testPolicyManagerSnapshot() throws Exception {
+        File policyFile = this.folder.newFile("policy.json");
+        FileUtils.copyFile(new File(POLICY_DIR + "policy.json"), policyFile);
+        String tmpDir = System.getProperty("java.io.tmpdir.dongtai");
+        System.setProperty("java.io.tmpdir.dongtai", this.folder.getRoot().getPath());
+        try {
+            File stale = new File(this.folder.getRoot(), "policy-0000.snapshot");
+            FileUtils.writeByteArrayToFile(stale, new byte[]{1});
+            Assert.assertTrue(stale.setLastModified(System.currentTimeMillis()
+                    - PolicyManager.SNAPSHOT_MAX_IDLE_MILLIS - 1000));
+
+            PolicyManager first = new PolicyManager();
+            first.loadPolicy(policyFile.getPath());
+            File snapshot = PolicyManager.getSnapshotFile(first.getPolicyVersion());
+            Assert.assertEquals(this.folder.getRoot(), snapshot.getParentFile());
+            Assert.assertTrue(snapshot.isFile());
+            // 只剩下策略文件和快照，临时文件已经替换，过期的快照已经清理
+            Assert.assertFalse(stale.exists());
+            Assert.assertEquals(2, this.folder.getRoot().listFiles().length);
+            long modified = snapshot.lastModified();
+
+            PolicyManager second = new PolicyManager();
+            second.loadPolicy(policyFile.getPath());
+            Assert.assertEquals(first.getPolicyVersion(), second.getPolicyVersion());
+            Assert.assertEquals(describe(first.getPolicy()), describe(second.getPolicy()));
+            Assert.assertEquals(modified, snapshot.lastModified());
+
+            // 策略内容变化后不使用旧的快照
+            FileUtils.copyFile(new File(POLICY_DIR + "policy-node-count-src1-p2-sink1-policy4-cls4.json"), policyFile);
+            PolicyManager third = new PolicyManager();
+            third.loadPolicy(policyFile.getPath());
+            Assert.assertNotEquals(first.getPolicyVersion(), third.getPolicyVersion());
+            Assert.assertEquals(4, third.getPolicy().getPolicyNodesMap().size());
+            File thirdSnapshot = PolicyManager.getSnapshotFile(third.getPolicyVersion());
+            Assert.assertNotEquals(snapshot, thirdSnapshot);
+            Assert.assertNotNull(PolicySnapshot.read(thirdSnapshot, third.getPolicyVersion()));
+            // 其他 JVM 可能还在使用旧策略的快照
+            Assert.assertNotNull(PolicySnapshot.read(snapshot, first.getPolicyVersion()));
+        } finally {
+            if (tmpDir == null) {
+                System.clearProperty("java.io.tmpdir.dongtai");
+            } else {
+                System.setProperty("java.io.tmpdir.dongtai", tmpDir);
+            }
+        }
+    }
+
+    @Test
+    public void testSharedStrings() throws Exception {
+        Policy policy = PolicyBuilder.build(PolicyBuilder.fetchFromFile(POLICY_DIR + "policy-node-count-src1-p2-sink1-policy4-cls4.json"));
+        File snapshot = this.folder.newFile("policy.snapshot");
+        Assert.assertTrue(PolicySnapshot.write(snapshot, "v1", policy));
+        Policy loaded = PolicySnapshot.read(snapshot, "v1");
+
+        List<PolicyNode> nodes = new ArrayList<PolicyNode>(loaded.getPolicyNodesMap().values());
+        Map<String, String> classNames = new HashMap<String, String>();
+        for (PolicyNode node : nodes) {
+            String className = ((SignatureMethodMatcher) node.getMethodMatcher()).getSignature().getClassName();
+            String prev = classNames.put(className, className);
+            if (prev != null) {
+                Assert.assertSame(prev, className);
+            }
+        }
+    }
+
+    private static String describe(Policy policy) {
+        StringBuilder sb = new StringBuilder();
+        describeNodes(sb, policy.getSources());
+        describeNodes(sb, policy.getPropagators());
+        describeNodes(sb, policy.getSinks());
+        describeNodes(sb, policy.getValidators());
+        sb.append(new TreeMap<String, PolicyNode>(policy.getPolicyNodesMap()).keySet()).append('\n');
+        sb.append(new TreeSet<String>(policy.getClassHooks())).append('\n');
+        sb.append(new TreeSet<String>(policy.getAncestorClassHooks())).append('\n');
+        sb.append(new TreeSet<String>(policy.getIgnoreInternalHooks())).append('\n');
+        sb.append(new TreeSet<String>(policy.getIgnoreBlacklistHooks())).append('\n');
+        for (PolicyNode node : policy.getPolicyNodesMap().values()) {
+            Signature signature = ((SignatureMethodMatcher) node.getMethodMatcher()).getSignature();
+            Set<PolicyNode> matched = policy.getMatchedPolicyNodes(signature.getClassName(),
+                    Policy.methodKey(signature.getMethodName(), signature.getParameters()));
+            Assert.assertTrue(node.toString(), matched.contains(node));
+        }
+        return sb.toString();
+    }
+
+    private static void describeNodes(StringBuilder sb, List<? extends PolicyNode> nodes) {
+        for (PolicyNode node : nodes) {
+            sb.append(node).append(' ').append(node.getInheritable())
+                    .append(' ').append(node.isIgnoreInternal()).append(' ').append(node.isIgnoreBlacklist());
+            if (node instanceof SourceNode) {
+                SourceNode source = (SourceNode) node;
+                sb.append(' ').append(sorted(source.getSources())).append(' ').append(sorted(source.getTargets()))
+                        .append(' ').append(Arrays.toString(source.getTags()));
+            } else if (node instanceof PropagatorNode) {
+                PropagatorNode propagator = (PropagatorNode) node;
+                sb.append(' ').append(sorted(propagator.getSources())).append(' ').append(sorted(propagator.getTargets()))
+                        .append(' ').append(Arrays.toString(propagator.getTags()))
+                        .append(' ').append(Arrays.toString(propagator.getUntags()));
+                TaintCommandRunner runner = propagator.getCommandRunner();
+                if (runner != null) {
+                    sb.append(' ').append(runner.getCommand()).append(runner.getOrigParams());
+                }
+            } else if (node instanceof SinkNode) {
+                SinkNode sink = (SinkNode) node;
+                sb.append(' ').append(sorted(sink.getSources())).append(' ').append(sink.getVulType())
+                        .append(' ').append(Arrays.toString(sink.getStackDenyList()));
+            } else if (node instanceof ValidatorNode) {
+                ValidatorNode validator = (ValidatorNode) node;
+                sb.append(' ').append(sorted(validator.getSources()))
+                        .append(' ').append(Arrays.toString(validator.getTags()));
+            }
+            sb.append('\n');
+        }
+    }
+
+    private static Set<String> sorted(Set<TaintPosition> positions) {
+        if (positions == null) {
+            return null;
+        }
+        Set<String> values = new TreeSet<String>();
+        for (TaintPosition position : positions) {
+            values.add(position.toString());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,113 @@
+package io.dongtai.iast.core.handler.hookpoint.models.policy;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.MethodContext;
+import io.dongtai.iast.core.utils.AsmUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+public class PolicyTest {
+    private static final Class<?>[] CLASSES = new Class<?>[]{
+            String.class, StringBuilder.class, Arrays.class, HashMap.class, Character.class,
+    };
+
+    @Test
+    public void testMethodKey() {
+        Assert.assertEquals("append(Ljava/lang/String;)",
+                Policy.methodKey("append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;"));
+        Assert.assertEquals("foo(I[[JLjava/lang/String;[Ljava/util/Map$Entry;Z)",
+                Policy.methodKey("foo", new String[]{"int", "long[][]", "java.lang.String", "java.util.Map$Entry[]", "boolean"}));
+        Assert.assertEquals("bar()", Policy.methodKey("bar", new String[]{}));
+        Assert.assertEquals("bar()", Policy.methodKey("bar", "()V"));
+    }
+
+    /**
+     * 索引查找的结果需要与逐个节点调用 SignatureMethodMatcher 的结果一致
+     */
+    @Test
+    public void testIndexConsistentWithMatcher() throws PolicyException {
+        JSONArray config = new JSONArray();
+        for (Class<?> clazz : CLASSES) {
+            int i = 0;
+            for (Method method : clazz.getDeclaredMethods()) {
+                // 只取一部分方法，剩下的用于验证不会误匹配
+                if (i++ % 2 == 0) {
+                    config.put(propagator(AsmUtils.buildSignature(clazz.getName(), method.getName(),
+                            Type.getMethodDescriptor(method))));
+                }
+            }
+        }
+        Policy policy = PolicyBuilder.build(config);
+
+        int matched = 0;
+        for (Class<?> clazz : CLASSES) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                String descriptor = Type.getMethodDescriptor(method);
+                ClassContext classContext = new ClassContext(clazz.getName(), null, null, Modifier.PUBLIC, false);
+                classContext.setMatchedClassName(clazz.getName());
+                MethodContext methodContext = new MethodContext(classContext, method.getName());
+                methodContext.setParameters(AsmUtils.buildParameterTypes(descriptor));
+
+                Set<PolicyNode> expected = new HashSet<PolicyNode>();
+                for (PolicyNode node : policy.getPolicyNodesMap().values()) {
+                    if (node.getMethodMatcher().match(methodContext)) {
+                        expected.add(node);
+                    }
+                }
+                Set<PolicyNode> actual = policy.getMatchedPolicyNodes(clazz.getName(),
+                        Policy.methodKey(method.getName(), descriptor));
+                if (expected.isEmpty()) {
+                    Assert.assertTrue(method.toString(), actual == null || actual.isEmpty());
+                } else {
+                    Assert.assertEquals(method.toString(), expected, actual);
+                    matched++;
+                }
+            }
+        }
+        Assert.assertTrue(matched > 0);
+        Assert.assertNull(policy.getMatchedPolicyNodes("java.lang.Object", "toString()"));
+    }
+
+    @Test
+    public void testDuplicateNodeReplaced() throws PolicyException {
+        JSONArray config = new JSONArray();
+        config.put(propagator("java.lang.String.concat(java.lang.String)"));
+        config.put(propagator("java.lang.String.concat(java.lang.String)").put("inherit", "all"));
+        config.put(sink("java.lang.String.concat(java.lang.String)"));
+        Policy policy = PolicyBuilder.build(config);
+
+        Set<PolicyNode> nodes = policy.getMatchedPolicyNodes("java.lang.String", "concat(Ljava/lang/String;)");
+        Assert.assertEquals(2, nodes.size());
+        Assert.assertEquals(2, policy.getPolicyNodesMap().size());
+        for (PolicyNode node : nodes) {
+            Assert.assertSame(node, policy.getPolicyNode(node.toString()));
+        }
+    }
+
+    private static JSONObject propagator(String signature) {
+        JSONObject node = new JSONObject();
+        node.put("type", PolicyNodeType.PROPAGATOR.getType());
+        node.put("signature", signature);
+        node.put("source", "P1");
+        node.put("target", "R");
+        node.put("inherit", "false");
+        return node;
+    }
+
+    private static JSONObject sink(String signature) {
+        JSONObject node = new JSONObject();
+        node.put("type", PolicyNodeType.SINK.getType());
+        node.put("signature", signature);
+        node.put("source", "P1");
+        node.put("inherit", "false");
+        node.put("vul_type", "ssrf");
+        return node;
+    }
+}
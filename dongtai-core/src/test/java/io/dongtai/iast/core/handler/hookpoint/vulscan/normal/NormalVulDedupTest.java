@@ -0,0 +1,151 @@
+package io.dongtai.iast.core.handler.hookpoint.vulscan.normal;
+
+import io.dongtai.iast.common.constants.PropertyConstant;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.SinkNode;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.TaintPosition;
+import io.dongtai.iast.core.handler.metrics.AgentMetrics;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+public class NormalVulDedupTest {
+    private static final String FIXTURE = "src/test/fixture/property/policy-test-invalid.properties";
+
+    @Before
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance(FIXTURE);
+        AbstractNormalVulScan.clearDedupCache();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(PropertyConstant.PROPERTY_REPORT_NORMAL_DEDUP_ENABLE);
+        AbstractNormalVulScan.clearDedupCache();
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testSameCallSiteReportedOnce() {
+        RecordingScan scan = new RecordingScan();
+        scan.callSite = "com.example.TokenService.next:42";
+        long deduped = AgentMetrics.REPORT_DEDUPED.sum();
+        for (int i = 0; i < 100; i++) {
+            scan.scan(randomEvent(), sink("crypto-weak-randomness"));
+        }
+        Assert.assertEquals(1, scan.reports.size());
+        Assert.assertEquals(deduped + 99, AgentMetrics.REPORT_DEDUPED.sum());
+        Assert.assertEquals("crypto-weak-randomness", scan.reports.get(0));
+    }
+
+    @Test
+    public void testDifferentCallSiteOrType() {
+        RecordingScan scan = new RecordingScan();
+        scan.callSite = "com.example.TokenService.next:42";
+        scan.scan(randomEvent(), sink("crypto-weak-randomness"));
+        scan.callSite = "com.example.TokenService.next:43";
+        scan.scan(randomEvent(), sink("crypto-weak-randomness"));
+        scan.scan(randomEvent(), sink("crypto-weak-randomness"));
+        scan.scan(randomEvent(), sink("other-type"));
+        scan.callSite = null;
+        scan.scan(randomEvent(), sink("crypto-weak-randomness"));
+        scan.scan(randomEvent(), sink("crypto-weak-randomness"));
+        Assert.assertEquals(4, scan.reports.size());
+    }
+
+    @Test
+    public void testNoCallSiteUsesSignature() {
+        RecordingScan scan = new RecordingScan();
+        scan.callSite = null;
+        scan.scan(randomEvent(), sink("crypto-weak-randomness"));
+        scan.scan(randomEvent(), sink("crypto-weak-randomness"));
+        scan.scan(new MethodEvent("java.util.Random", "java.util.Random", "nextLong",
+                "java.util.Random.nextLong()", new Object(), new Object[0], null), sink("crypto-weak-randomness"));
+        Assert.assertEquals(2, scan.reports.size());
+    }
+
+    @Test
+    public void testParameterScansDeduplicated() {
+        CookieScan scan = new CookieScan();
+        Object[] insecure = new Object[]{false};
+        for (int i = 0; i < 10; i++) {
+            scan.scan(event(insecure), parameterSink("cookie-flags-missing"));
+            // 安全的调用不占用去重的位置
+            scan.scan(event(new Object[]{true}), parameterSink("cookie-flags-missing"));
+        }
+        Assert.assertEquals(1, scan.reports.size());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        PropertyUtils.clear();
+        System.setProperty(PropertyConstant.PROPERTY_REPORT_NORMAL_DEDUP_ENABLE, "false");
+        PropertyUtils.getInstance(FIXTURE);
+        Assert.assertNull(AbstractNormalVulScan.getDedupCache());
+
+        RecordingScan scan = new RecordingScan();
+        scan.callSite = "com.example.TokenService.next:42";
+        for (int i = 0; i < 5; i++) {
+            scan.scan(randomEvent(), sink("crypto-weak-randomness"));
+        }
+        Assert.assertEquals(5, scan.reports.size());
+    }
+
+    private static MethodEvent randomEvent() {
+        return event(new Object[0]);
+    }
+
+    private static MethodEvent event(Object[] args) {
+        return new MethodEvent("java.util.Random", "java.util.Random", "nextInt",
+                "java.util.Random.nextInt()", new Object(), args, null);
+    }
+
+    private static SinkNode sink(String vulType) {
+        SinkNode sinkNode = new SinkNode(new HashSet<TaintPosition>(), null);
+        sinkNode.setVulType(vulType);
+        return sinkNode;
+    }
+
+    private static SinkNode parameterSink(String vulType) {
+        HashSet<TaintPosition> sources = new HashSet<TaintPosition>();
+        sources.add(new TaintPosition("P1"));
+        SinkNode sinkNode = new SinkNode(sources, null);
+        sinkNode.setVulType(vulType);
+        return sinkNode;
+    }
+
+    private static class RecordingScan extends CryptoWeakRandomnessVulScan {
+        private final List<String> reports = new ArrayList<String>();
+        private String callSite;
+
+        @Override
+        protected String getCallSite() {
+            return this.callSite;
+        }
+
+        @Override
+        public void sendReport(StackTraceElement[] stacks, String vulType) {
+            this.reports.add(vulType);
+        }
+    }
+
+    private static class CookieScan extends CookieFlagsMissingVulScan {
+        private final List<String> reports = new ArrayList<String>();
+
+        @Override
+        protected String getCallSite() {
+            return "com.example.LoginController.login:18";
+        }
+
+        @Override
+        public void sendReport(StackTraceElement[] stacks, String vulType) {
+            this.reports.add(vulType);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.dongtai.iast.core.handler.hookpoint.vulscan.normal;
+
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.SinkNode;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.TaintPosition;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 业务在循环中调用 Random.nextInt，每次调用都命中弱随机数规则：
+ * <ul>
+ * <li>legacy：每次命中都获取调用栈并生成报告</li>
+ * <li>dedup：同一调用位置在窗口内只生成一次报告，之后只计算调用位置</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class NormalVulReportBenchmarkTest {
+    private static final String VUL_TYPE = "crypto-weak-randomness";
+
+    private final Random random = new Random();
+    private final ReportScan scan = new ReportScan();
+    private SinkNode sinkNode;
+    private MethodEvent event;
+
+    @Setup
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+        EngineManager.getInstance(1);
+        AbstractNormalVulScan.clearDedupCache();
+        Map<String, Object> requestMeta = new HashMap<String, Object>();
+        requestMeta.put("requestURL", new StringBuffer("http://localhost:8080/token"));
+        requestMeta.put("requestURI", "/token");
+        requestMeta.put("method", "GET");
+        requestMeta.put("headers", new HashMap<String, String>());
+        EngineManager.REQUEST_CONTEXT.set(requestMeta);
+        this.sinkNode = new SinkNode(new HashSet<TaintPosition>(), null);
+        this.sinkNode.setVulType(VUL_TYPE);
+        this.event = new MethodEvent("java.util.Random", "java.util.Random", "nextInt",
+                "java.util.Random.nextInt()", this.random, new Object[0], null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        EngineManager.REQUEST_CONTEXT.remove();
+        AbstractNormalVulScan.clearDedupCache();
+        PropertyUtils.clear();
+    }
+
+    @Benchmark
+    public String legacy() {
+        this.random.nextInt();
+        return this.scan.buildReport(this.scan.getLatestStack(), VUL_TYPE);
+    }
+
+    @Benchmark
+    public String dedup() {
+        this.random.nextInt();
+        this.scan.last = null;
+        this.scan.scan(this.event, this.sinkNode);
+        return this.scan.last;
+    }
+
+    private static class ReportScan extends CryptoWeakRandomnessVulScan {
+        private String last;
+
+        @Override
+        public void sendReport(StackTraceElement[] stacks, String vulType) {
+            this.last = buildReport(stacks, vulType);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(NormalVulReportBenchmarkTest.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
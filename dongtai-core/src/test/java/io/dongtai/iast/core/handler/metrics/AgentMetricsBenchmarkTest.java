@@ -0,0 +1,80 @@
+package io.dongtai.iast.core.handler.metrics;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 指标记录在每个 hook 点上执行，每次记录应只有几纳秒且不分配对象（gc.alloc.rate.norm 为 0）。
+ * 单个 AtomicLong 作为对照，观察多线程下的竞争
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class AgentMetricsBenchmarkTest {
+    private final AtomicLong shared = new AtomicLong();
+    private final StripedCounter counter = new StripedCounter();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Benchmark
+    @Threads(1)
+    public long sharedAtomic() {
+        return this.shared.incrementAndGet();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void stripedCounter() {
+        this.counter.increment();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void histogram() {
+        this.histogram.record(1234);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void hookAndTimer() {
+        long start = System.nanoTime();
+        AgentMetrics.hook(AgentMetrics.Hook.PROPAGATOR);
+        AgentMetrics.SPY_METHOD.recordSince(start);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long sharedAtomicContended() {
+        return this.shared.incrementAndGet();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void stripedCounterContended() {
+        this.counter.increment();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void histogramContended() {
+        this.histogram.record(1234);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(AgentMetricsBenchmarkTest.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
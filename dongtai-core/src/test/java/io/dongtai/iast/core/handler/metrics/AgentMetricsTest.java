@@ -0,0 +1,137 @@
+package io.dongtai.iast.core.handler.metrics;
+
+import com.alibaba.fastjson2.JSONObject;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+public class AgentMetricsTest {
+    @Before
+    public void setUp() throws Exception {
+        // ThreadPools 初始化时读取配置
+        PropertyUtils.getInstance("src/test/fixture/property/policy-test-invalid.properties");
+    }
+
+    @After
+    public void tearDown() {
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testStripes() {
+        Assert.assertEquals(2, StripedCounter.stripes(1));
+        Assert.assertEquals(8, StripedCounter.stripes(4));
+        Assert.assertEquals(16, StripedCounter.stripes(6));
+        Assert.assertEquals(64, StripedCounter.stripes(256));
+    }
+
+    @Test
+    public void testCounterAcrossThreads() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        final int threads = 8;
+        final int perThread = 10000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < perThread; j++) {
+                        counter.increment();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        counter.add(5);
+        Assert.assertEquals(threads * perThread + 5, counter.sum());
+    }
+
+    @Test
+    public void testBucket() {
+        Assert.assertEquals(0, LatencyHistogram.bucket(-1));
+        Assert.assertEquals(0, LatencyHistogram.bucket(0));
+        Assert.assertEquals(1, LatencyHistogram.bucket(1));
+        Assert.assertEquals(2, LatencyHistogram.bucket(2));
+        Assert.assertEquals(2, LatencyHistogram.bucket(3));
+        Assert.assertEquals(10, LatencyHistogram.bucket(1000));
+        Assert.assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+        // 桶的上界不小于落在桶内的耗时
+        for (long nanos = 1; nanos < 100000; nanos = nanos * 3 + 1) {
+            Assert.assertTrue(LatencyHistogram.upperBound(LatencyHistogram.bucket(nanos)) >= nanos);
+        }
+    }
+
+    @Test
+    public void testHistogramSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        JSONObject empty = histogram.snapshot();
+        Assert.assertEquals(0L, empty.getLongValue("count"));
+        Assert.assertEquals(0L, empty.getLongValue("p99Ns"));
+
+        for (int i = 0; i < 98; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+        histogram.record(1000000);
+
+        JSONObject snapshot = histogram.snapshot();
+        Assert.assertEquals(100L, snapshot.getLongValue("count"));
+        Assert.assertEquals((98 * 100 + 5000 + 1000000) / 100, snapshot.getLongValue("avgNs"));
+        Assert.assertEquals(128L, snapshot.getLongValue("p50Ns"));
+        Assert.assertEquals(128L, snapshot.getLongValue("p90Ns"));
+        Assert.assertEquals(8192L, snapshot.getLongValue("p99Ns"));
+        Assert.assertEquals(1L << 20, snapshot.getLongValue("maxNs"));
+    }
+
+    @Test
+    public void testSampledTimer() {
+        try {
+            LatencyHistogram histogram = new LatencyHistogram();
+            AgentMetrics.setLatencySample(1);
+            for (int i = 0; i < 10; i++) {
+                AgentMetrics.stopTimer(histogram, AgentMetrics.startTimer());
+            }
+            Assert.assertEquals(10L, histogram.snapshot().getLongValue("count"));
+
+            // 未被采样的计时不记录
+            AgentMetrics.stopTimer(histogram, 0L);
+            Assert.assertEquals(10L, histogram.snapshot().getLongValue("count"));
+
+            AgentMetrics.setLatencySample(1000);
+            for (int i = 0; i < 1000; i++) {
+                AgentMetrics.stopTimer(histogram, AgentMetrics.startTimer());
+            }
+            Assert.assertTrue(histogram.snapshot().getLongValue("count") < 10L + 100L);
+            Assert.assertEquals(1000, AgentMetrics.snapshot().getIntValue("latencySample"));
+        } finally {
+            AgentMetrics.setLatencySample(PropertyUtils.DEFAULT_METRICS_LATENCY_SAMPLE);
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        long before = AgentMetrics.getHookCount(AgentMetrics.Hook.SINK);
+        AgentMetrics.hook(AgentMetrics.Hook.SINK);
+        Assert.assertEquals(before + 1, AgentMetrics.getHookCount(AgentMetrics.Hook.SINK));
+
+        JSONObject snapshot = AgentMetrics.snapshot();
+        JSONObject hooks = snapshot.getJSONObject("hooks");
+        for (AgentMetrics.Hook hook : AgentMetrics.Hook.values()) {
+            Assert.assertTrue(hooks.containsKey(hook.getName()));
+        }
+        Assert.assertEquals(before + 1, hooks.getLongValue("sink"));
+        for (String key : new String[]{"spyEntry", "spyMethod", "spyLeave", "graphBuild"}) {
+            Assert.assertTrue(snapshot.getJSONObject(key).containsKey("p99Ns"));
+        }
+        JSONObject report = snapshot.getJSONObject("report");
+        Assert.assertTrue(report.containsKey("queue"));
+        Assert.assertTrue(report.containsKey("dropped"));
+        Assert.assertTrue(report.containsKey("deduped"));
+        Assert.assertTrue(report.getJSONObject("upload").containsKey("count"));
+    }
+}
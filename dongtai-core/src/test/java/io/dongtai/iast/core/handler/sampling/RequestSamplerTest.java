@@ -0,0 +1,86 @@
+package io.dongtai.iast.core.handler.sampling;
+
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RequestSamplerTest {
+    private static Map<String, Object> request(String method, String uri, String queryString) {
+        Map<String, Object> requestMeta = new HashMap<String, Object>();
+        requestMeta.put("method", method);
+        requestMeta.put("requestURI", uri);
+        requestMeta.put("queryString", queryString);
+        requestMeta.put("headers", new HashMap<String, String>());
+        requestMeta.put("replay-request", false);
+        return requestMeta;
+    }
+
+    @Test
+    public void testNormalizeUri() {
+        Assert.assertEquals("/", RequestSampler.normalizeUri(null));
+        Assert.assertEquals("/api/user/{id}", RequestSampler.normalizeUri("/api/user/123"));
+        Assert.assertEquals("/api/user/{id}/orders/", RequestSampler.normalizeUri("/api/user/42/orders/"));
+        Assert.assertEquals("/doc/{id}", RequestSampler.normalizeUri("/doc/3f2b8c1e-9d4a-4b6e-8f7a-2c1d0e9b8a7f"));
+        Assert.assertEquals("/doc/{id}", RequestSampler.normalizeUri("/doc/5f1a9c3e7b2d4e6f8a0b1c2d"));
+        Assert.assertEquals("/page/index.jsp", RequestSampler.normalizeUri("/page/index.jsp;jsessionid=ABC123"));
+        Assert.assertEquals("/api/user-profile", RequestSampler.normalizeUri("/api/user-profile"));
+    }
+
+    @Test
+    public void testParameterShape() {
+        Assert.assertEquals(RequestSampler.parameterShape("a=1&b=2", null),
+                RequestSampler.parameterShape("b=3&a=4", null));
+        Assert.assertNotEquals(RequestSampler.parameterShape("a=1&b=2", null),
+                RequestSampler.parameterShape("a=1&c=2", null));
+        Assert.assertNotEquals(RequestSampler.parameterShape("a=1", null),
+                RequestSampler.parameterShape("a=1", "application/json"));
+    }
+
+    @Test
+    public void testDisabled() {
+        RequestSampler sampler = new RequestSampler(false, 2, 10);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(sampler.shouldAnalyze(request("GET", "/a", null)));
+        }
+        Assert.assertEquals(0, sampler.getEndpointCount());
+    }
+
+    @Test
+    public void testAdaptiveSampling() {
+        RequestSampler sampler = new RequestSampler(true, 5, 20);
+        int analyzed = 0;
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue("warmup " + i, sampler.shouldAnalyze(request("GET", "/user/" + i, "id=1")));
+            analyzed++;
+        }
+        for (int i = 0; i < 995; i++) {
+            if (sampler.shouldAnalyze(request("GET", "/user/" + i, "id=1"))) {
+                analyzed++;
+            }
+        }
+        Assert.assertEquals("one endpoint", 1, sampler.getEndpointCount());
+        EndpointCoverage coverage = sampler.getCoverage("GET", "/user/1");
+        Assert.assertEquals(1000, coverage.getHits());
+        Assert.assertEquals(analyzed, coverage.getAnalyzed());
+        Assert.assertTrue("decayed: " + analyzed, analyzed < 100 && analyzed >= 1000 / 20);
+        Assert.assertEquals(analyzed, sampler.getSampledCount());
+        Assert.assertEquals(1000 - analyzed, sampler.getSkippedCount());
+
+        Assert.assertTrue("new shape", sampler.shouldAnalyze(request("GET", "/user/7", "id=1&debug=1")));
+        Assert.assertTrue("new method", sampler.shouldAnalyze(request("POST", "/user/7", "id=1")));
+        Map<String, Object> replay = request("GET", "/user/7", "id=1");
+        replay.put("replay-request", true);
+        Assert.assertTrue("replay", sampler.shouldAnalyze(replay));
+    }
+
+    @Test
+    public void testInstanceWithoutConfig() {
+        PropertyUtils.clear();
+        RequestSampler sampler = RequestSampler.getInstance();
+        Assert.assertSame("配置未加载时不会每次创建新的采样器", sampler, RequestSampler.getInstance());
+        Assert.assertTrue(sampler.shouldAnalyze(request("GET", "/api/user/1", null)));
+    }
+}
@@ -0,0 +1,265 @@
+package io.dongtai.iast.core.replay;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.junit.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReplayEngineTest {
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+
+    private HttpServer server;
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger maxInflight = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        PropertyUtils.getInstance(PROPERTY_FILE);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int n = inflight.incrementAndGet();
+                maxInflight.accumulateAndGet(n, Math::max);
+                try {
+                    Thread.sleep(30);
+                } catch (InterruptedException ignore) {
+                }
+                received.incrementAndGet();
+                inflight.decrementAndGet();
+                byte[] body = "ok".getBytes();
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+        this.server.setExecutor(Executors.newFixedThreadPool(8));
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testRateLimitAndConcurrency() throws Exception {
+        ReplayEngine engine = new ReplayEngine(10, 2, 100, 60000, ReplayEngine.HTTP_SENDER);
+        String url = "http://127.0.0.1:" + this.server.getAddress().getPort() + "/replay";
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(engine.submit(new ReplayRequest("GET", url + "?i=" + i, null,
+                    new HashMap<String, String>())));
+        }
+        waitFor(engine, 20);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(20, this.received.get());
+        Assert.assertEquals(20, engine.getExecutedCount());
+        Assert.assertEquals(0, engine.getSkippedCount());
+        Assert.assertEquals(0, engine.getQueuedCount());
+        Assert.assertTrue("max inflight " + this.maxInflight.get(), this.maxInflight.get() <= 2);
+        // 前 10 个令牌立即可用，之后每 100ms 一个
+        Assert.assertTrue("elapsed " + elapsedMs, elapsedMs >= 900);
+        engine.shutdown();
+    }
+
+    @Test
+    public void testHostsLimitedSeparately() throws Exception {
+        final CountDownLatch done = new CountDownLatch(4);
+        ReplayEngine engine = new ReplayEngine(1, 4, 100, 60000, new ReplayEngine.Sender() {
+            @Override
+            public void send(ReplayRequest request) {
+                done.countDown();
+            }
+        });
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            engine.submit(new ReplayRequest("GET", "http://10.0.0." + i + ":8080/a", null, null));
+        }
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 900);
+        engine.shutdown();
+    }
+
+    @Test
+    public void testSkipWhenQueueFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        ReplayEngine engine = new ReplayEngine(100000, 1, 100, 60000, new ReplayEngine.Sender() {
+            @Override
+            public void send(ReplayRequest request) throws Exception {
+                release.await();
+            }
+        });
+        int total = ReplayEngine.QUEUE_CAPACITY + 5;
+        int accepted = 0;
+        for (int i = 0; i < total; i++) {
+            if (engine.submit(new ReplayRequest("GET", "http://127.0.0.1:1/a", null, null))) {
+                accepted++;
+            }
+        }
+        Assert.assertTrue(engine.getSkippedCount() >= 4);
+        Assert.assertEquals(total, engine.getSubmittedCount());
+        Assert.assertEquals(total - accepted, engine.getSkippedCount());
+        release.countDown();
+        waitFor(engine, accepted);
+        Assert.assertEquals(accepted, engine.getExecutedCount());
+        engine.shutdown();
+    }
+
+    @Test
+    public void testDelayDoesNotBlockWorker() throws Exception {
+        final CountDownLatch otherHost = new CountDownLatch(1);
+        ReplayEngine engine = new ReplayEngine(1, 1, 100, 60000, new ReplayEngine.Sender() {
+            @Override
+            public void send(ReplayRequest request) {
+                if (request.getHost().startsWith("10.0.0.2")) {
+                    otherHost.countDown();
+                }
+            }
+        });
+        // 第二个请求需要等 1 秒的令牌，等待期间唯一的工作线程可以执行其他 host 的请求
+        engine.submit(new ReplayRequest("GET", "http://10.0.0.1:8080/a", null, null));
+        engine.submit(new ReplayRequest("GET", "http://10.0.0.1:8080/b", null, null));
+        long start = System.nanoTime();
+        engine.submit(new ReplayRequest("GET", "http://10.0.0.2:8080/a", null, null));
+        Assert.assertTrue(otherHost.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        Assert.assertEquals(1, engine.getQueuedCount());
+        engine.shutdown();
+    }
+
+    @Test
+    public void testZeroRateDisabled() {
+        ReplayEngine engine = new ReplayEngine(0, 1, 100, 60000, ReplayEngine.HTTP_SENDER);
+        Assert.assertFalse(engine.isEnabled());
+        Assert.assertFalse(engine.submit(new ReplayRequest("GET", "http://127.0.0.1:1/a", null, null)));
+        Assert.assertEquals(1, engine.getSkippedCount());
+        Assert.assertEquals(0, engine.getQueuedCount());
+        engine.shutdown();
+    }
+
+    @Test
+    public void testInstanceWithoutConfig() {
+        PropertyUtils.clear();
+        ReplayEngine.destroy();
+        try {
+            Assert.assertTrue(ReplayEngine.getInstance().isEnabled());
+        } finally {
+            ReplayEngine.destroy();
+        }
+    }
+
+    @Test
+    public void testBackoff() {
+        ReplayEngine engine = new ReplayEngine(10, 1, 80, 1000, ReplayEngine.HTTP_SENDER);
+        long now = System.nanoTime();
+        long step = ReplayEngine.BACKOFF_STEP_NANOS;
+        Assert.assertEquals(0, engine.currentBackoffNanos(now));
+
+        engine.updateCpuUsage(95);
+        Assert.assertTrue(engine.isOverloaded());
+        // 同一个周期内多次提交不会改变退避级别
+        Assert.assertEquals(0, engine.currentBackoffNanos(now));
+        long prev = 0;
+        for (int i = 1; i <= ReplayEngine.MAX_BACKOFF_LEVEL; i++) {
+            now += step;
+            long backoff = engine.currentBackoffNanos(now);
+            Assert.assertTrue(backoff > prev);
+            Assert.assertEquals(backoff, engine.currentBackoffNanos(now + step / 2));
+            prev = backoff;
+        }
+        now += step;
+        Assert.assertEquals(prev, engine.currentBackoffNanos(now));
+        Assert.assertEquals(TimeUnit.NANOSECONDS.toMillis(prev), engine.getBackoffMillis());
+
+        engine.updateCpuUsage(10);
+        Assert.assertFalse(engine.isOverloaded());
+        now += step;
+        Assert.assertEquals(ReplayEngine.levelBackoffNanos(ReplayEngine.MAX_BACKOFF_LEVEL - 1),
+                engine.currentBackoffNanos(now));
+        // 按经过的时间逐级恢复
+        now += 2 * step;
+        Assert.assertEquals(ReplayEngine.levelBackoffNanos(ReplayEngine.MAX_BACKOFF_LEVEL - 3),
+                engine.currentBackoffNanos(now));
+        now += ReplayEngine.MAX_BACKOFF_LEVEL * step;
+        Assert.assertEquals(0, engine.currentBackoffNanos(now));
+        Assert.assertEquals(0, engine.getBackoffMillis());
+        engine.shutdown();
+    }
+
+    @Test
+    public void testApplicationLatencyBackoff() {
+        ReplayEngine engine = new ReplayEngine(10, 1, 80, 1000, ReplayEngine.HTTP_SENDER);
+        Assert.assertFalse(engine.isOverloaded());
+        engine.recordLatency(TimeUnit.SECONDS.toNanos(2));
+        Assert.assertTrue(engine.isOverloaded());
+        Assert.assertEquals(2000, engine.getLatencyMillis());
+        engine.shutdown();
+    }
+
+    @Test
+    public void testRejectWhenWaitTooLong() {
+        ReplayEngine engine = new ReplayEngine(1, 1, 100, 60000, new ReplayEngine.Sender() {
+            @Override
+            public void send(ReplayRequest request) {
+            }
+        });
+        int total = 100;
+        int accepted = 0;
+        for (int i = 0; i < total; i++) {
+            if (engine.submit(new ReplayRequest("GET", "http://10.0.0.1:8080/a", null, null))) {
+                accepted++;
+            }
+        }
+        // 1 个令牌立即可用，之后每秒一个，排队超过 60 秒的请求在提交时丢弃
+        long maxAccepted = TimeUnit.NANOSECONDS.toSeconds(ReplayEngine.MAX_QUEUE_NANOS) + 1;
+        Assert.assertTrue("accepted " + accepted, accepted <= maxAccepted && accepted >= maxAccepted - 1);
+        Assert.assertEquals(total - accepted, engine.getSkippedCount());
+        // 第一个请求可能已经开始执行
+        Assert.assertTrue(engine.getQueuedCount() >= accepted - 1);
+
+        JSONObject snapshot = engine.snapshot();
+        Assert.assertEquals(total, snapshot.getLongValue("submitted"));
+        Assert.assertEquals(total - accepted, snapshot.getLongValue("skipped"));
+        Assert.assertTrue(snapshot.containsKey("queued"));
+        Assert.assertTrue(snapshot.containsKey("backoffMs"));
+        engine.shutdown();
+    }
+
+    @Test
+    public void testTokenBucket() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        TokenBucket bucket = new TokenBucket(2, 2, 0);
+        Assert.assertEquals(0, bucket.reserve(0));
+        Assert.assertEquals(0, bucket.reserve(0));
+        Assert.assertEquals(second / 2, bucket.reserve(0));
+        Assert.assertEquals(second, bucket.reserve(0));
+        // 等待期间的令牌已经被预占
+        Assert.assertEquals(second, bucket.reserve(second / 2));
+        // 长时间空闲后最多累积 burst 个
+        Assert.assertEquals(0, bucket.reserve(100 * second));
+        Assert.assertEquals(0, bucket.reserve(100 * second));
+        Assert.assertEquals(second / 2, bucket.reserve(100 * second));
+        // 等待时间超过上限时不取令牌
+        Assert.assertEquals(-1, bucket.reserve(100 * second, second / 2));
+        Assert.assertEquals(second, bucket.reserve(100 * second, second));
+    }
+
+    private static void waitFor(ReplayEngine engine, long executed) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (engine.getExecutedCount() + engine.getFailedCount() < executed && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.dongtai.iast.core.utils;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class StackUtilsTest {
+    @Test
+    public void testIsApplicationClass() {
+        Assert.assertTrue(StackUtils.isApplicationClass("com.example.TokenService"));
+        Assert.assertTrue(StackUtils.isApplicationClass("org.example.web.UserController"));
+
+        Assert.assertFalse(StackUtils.isApplicationClass("io.dongtai.iast.core.utils.StackUtils"));
+        Assert.assertFalse(StackUtils.isApplicationClass("java.util.Random"));
+        Assert.assertFalse(StackUtils.isApplicationClass("jakarta.servlet.http.HttpServlet"));
+        Assert.assertFalse(StackUtils.isApplicationClass("org.springframework.web.servlet.DispatcherServlet"));
+        Assert.assertFalse(StackUtils.isApplicationClass("org.apache.catalina.core.ApplicationFilterChain"));
+        Assert.assertFalse(StackUtils.isApplicationClass("io.netty.channel.AbstractChannelHandlerContext"));
+        Assert.assertFalse(StackUtils.isApplicationClass("com.fasterxml.jackson.databind.ObjectMapper"));
+    }
+
+    @Test
+    public void testThrowableFrameFinder() throws Exception {
+        StackUtils.ThrowableFrameFinder finder = StackUtils.ThrowableFrameFinder.create();
+        Assume.assumeNotNull(finder);
+        // 测试类和 JDK 反射的帧都被跳过，第一个是 JUnit 的帧
+        String frame = finder.find();
+        Assert.assertNotNull(frame);
+        Assert.assertTrue(frame, frame.startsWith("org.junit."));
+        Assert.assertEquals(frame, StackUtils.getApplicationFrame());
+    }
+}
@@ -0,0 +1,229 @@
+package io.dongtai.iast.core.utils;
+
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.SourceNode;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dubbo 请求参数（多层嵌套 DTO）的自定义模型遍历
+ * <p>
+ * reflectWalk 为原来每次调用 getDeclaredFieldsSecurity 并对每个字段 field.get 两次的遍历方式，
+ * planWalk 为使用缓存的 TaintWalkPlan 遍历，trackObject 为完整的 source 污点标记
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class TaintWalkPlanBenchmarkTest {
+    public static class Address {
+        private String province;
+        private String city;
+        private String street;
+        private int zip;
+    }
+
+    public static class User {
+        private long id;
+        private String name;
+        private String email;
+        private Integer age;
+        private Address address;
+        private List<String> roles;
+    }
+
+    public static class Item {
+        private String sku;
+        private String title;
+        private int quantity;
+        private BigDecimal price;
+    }
+
+    public static class Order {
+        private String orderNo;
+        private Date created;
+        private BigDecimal amount;
+        private Boolean paid;
+        private List<Item> items;
+        private Address shipping;
+    }
+
+    public static class Request {
+        private static final long serialVersionUID = 1L;
+        private String traceId;
+        private User user;
+        private List<Order> orders;
+        private Map<String, String> attachments;
+        private long timestamp;
+    }
+
+    private Object[] arguments;
+    private MethodEvent event;
+    private SourceNode sourceNode;
+
+    @Setup
+    public void setup() {
+        Request request = new Request();
+        request.traceId = UUID.randomUUID().toString();
+        request.timestamp = System.currentTimeMillis();
+        request.user = new User();
+        request.user.name = "name";
+        request.user.email = "user@example.com";
+        request.user.age = 30;
+        request.user.address = address();
+        request.user.roles = new ArrayList<String>(Arrays.asList("admin", "user"));
+        request.orders = new ArrayList<Order>();
+        for (int i = 0; i < 5; i++) {
+            Order order = new Order();
+            order.orderNo = "NO" + i;
+            order.created = new Date();
+            order.amount = new BigDecimal(i);
+            order.paid = Boolean.TRUE;
+            order.shipping = address();
+            order.items = new ArrayList<Item>();
+            for (int j = 0; j < 4; j++) {
+                Item item = new Item();
+                item.sku = "SKU" + i + j;
+                item.title = "title" + i + j;
+                item.quantity = j;
+                item.price = new BigDecimal(j);
+                order.items.add(item);
+            }
+            request.orders.add(order);
+        }
+        request.attachments = new HashMap<String, String>();
+        request.attachments.put("interface", "com.example.OrderService");
+        request.attachments.put("version", "1.0.0");
+        this.arguments = new Object[]{request, "plain"};
+        this.event = new MethodEvent("a.B", "a.B", "c", "a.B.c()", null, this.arguments, null);
+        this.sourceNode = new SourceNode(null, null, null);
+    }
+
+    private static Address address() {
+        Address address = new Address();
+        address.province = "province";
+        address.city = "city";
+        address.street = "street";
+        address.zip = 100000;
+        return address;
+    }
+
+    @Benchmark
+    public int reflectWalk() {
+        return reflectWalk(this.arguments, 0);
+    }
+
+    @Benchmark
+    public int planWalk() {
+        return planWalk(this.arguments, 0);
+    }
+
+    @Benchmark
+    public int trackObject() {
+        EngineManager.TAINT_HASH_CODES.set(new HashSet<Long>());
+        EngineManager.TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
+        TaintPoolUtils.trackObject(this.event, this.sourceNode, this.arguments, 0, true);
+        int size = EngineManager.TAINT_HASH_CODES.get().size();
+        EngineManager.TAINT_HASH_CODES.remove();
+        EngineManager.TAINT_RANGES_POOL.remove();
+        return size;
+    }
+
+    private static int reflectWalk(Object obj, int depth) {
+        if (obj == null || depth >= 10 || !TaintPoolUtils.isAllowTaintType(obj)) {
+            return 0;
+        }
+        if (obj instanceof Object[]) {
+            int n = 0;
+            for (Object item : (Object[]) obj) {
+                n += reflectWalk(item, depth + 1);
+            }
+            return n;
+        } else if (obj instanceof Collection) {
+            int n = 0;
+            for (Object item : (Collection<?>) obj) {
+                n += reflectWalk(item, depth + 1);
+            }
+            return n;
+        } else if (obj instanceof Map) {
+            int n = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+                n += reflectWalk(entry.getKey(), depth + 1) + reflectWalk(entry.getValue(), depth + 1);
+            }
+            return n;
+        } else if (obj instanceof String) {
+            return 1;
+        }
+        int n = 0;
+        try {
+            for (Field field : ReflectUtils.getDeclaredFieldsSecurity(obj.getClass())) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic() && !field.isEnumConstant()
+                        && !(field.get(obj) instanceof Enumeration)) {
+                    n += reflectWalk(field.get(obj), depth + 1);
+                }
+            }
+        } catch (Throwable ignore) {
+        }
+        return n;
+    }
+
+    private static int planWalk(Object obj, int depth) {
+        if (obj == null || depth >= 10 || !TaintPoolUtils.isAllowTaintType(obj)) {
+            return 0;
+        }
+        if (obj instanceof Object[]) {
+            int n = 0;
+            for (Object item : (Object[]) obj) {
+                n += planWalk(item, depth + 1);
+            }
+            return n;
+        } else if (obj instanceof Collection) {
+            int n = 0;
+            for (Object item : (Collection<?>) obj) {
+                n += planWalk(item, depth + 1);
+            }
+            return n;
+        } else if (obj instanceof Map) {
+            int n = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+                n += planWalk(entry.getKey(), depth + 1) + planWalk(entry.getValue(), depth + 1);
+            }
+            return n;
+        } else if (obj instanceof String) {
+            return 1;
+        }
+        int n = 0;
+        try {
+            TaintWalkPlan plan = TaintWalkPlan.of(obj.getClass());
+            for (int i = 0; i < plan.size(); i++) {
+                Object value = plan.get(obj, i);
+                if (!(value instanceof Enumeration)) {
+                    n += planWalk(value, depth + 1);
+                }
+            }
+        } catch (Throwable ignore) {
+        }
+        return n;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(TaintWalkPlanBenchmarkTest.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
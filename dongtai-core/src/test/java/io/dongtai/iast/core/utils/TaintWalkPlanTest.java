@@ -0,0 +1,94 @@
+package io.dongtai.iast.core.utils;
+
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.SourceNode;
+import io.dongtai.iast.core.handler.hookpoint.models.taint.range.TaintRanges;
+import org.junit.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+public class TaintWalkPlanTest {
+    static class Order {
+        static String STATIC_FIELD = "static";
+        int id;
+        Long amount;
+        BigDecimal price;
+        Integer[] counts;
+        Enumeration<String> enumeration;
+        String name;
+        Object extra;
+        List<Item> items = new ArrayList<Item>();
+    }
+
+    static class Item {
+        String sku;
+        Order order;
+    }
+
+    @Before
+    public void setUp() {
+        EngineManager.TAINT_HASH_CODES.set(new HashSet<Long>());
+        EngineManager.TAINT_RANGES_POOL.set(new HashMap<Long, TaintRanges>());
+    }
+
+    @After
+    public void tearDown() {
+        EngineManager.TAINT_HASH_CODES.remove();
+        EngineManager.TAINT_RANGES_POOL.remove();
+    }
+
+    @Test
+    public void testPlanFields() throws Throwable {
+        Order order = new Order();
+        order.name = "n";
+        order.extra = "e";
+        TaintWalkPlan plan = TaintWalkPlan.of(Order.class);
+        Assert.assertSame(plan, TaintWalkPlan.of(Order.class));
+        Assert.assertEquals(3, plan.size());
+        Set<Object> values = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (int i = 0; i < plan.size(); i++) {
+            values.add(plan.get(order, i));
+        }
+        Assert.assertTrue(values.contains(order.name));
+        Assert.assertTrue(values.contains(order.extra));
+        Assert.assertTrue(values.contains(order.items));
+    }
+
+    @Test
+    public void testTrackCyclicModel() {
+        Order order = new Order();
+        order.name = "order";
+        for (int i = 0; i < 3; i++) {
+            Item item = new Item();
+            item.sku = "sku" + i;
+            item.order = order;
+            order.items.add(item);
+        }
+        order.extra = order.items.get(0);
+
+        MethodEvent event = new MethodEvent("a.B", "a.B", "c", "a.B.c()", null, new Object[]{order}, null);
+        SourceNode sourceNode = new SourceNode(null, null, null);
+        TaintPoolUtils.trackObject(event, sourceNode, new Object[]{order}, 0, true);
+
+        Assert.assertTrue(EngineManager.TAINT_HASH_CODES.contains(TaintPoolUtils.getStringHash(order)));
+        Assert.assertTrue(EngineManager.TAINT_HASH_CODES.contains(TaintPoolUtils.getStringHash(order.name)));
+        for (Item item : order.items) {
+            Assert.assertTrue(EngineManager.TAINT_HASH_CODES.contains(TaintPoolUtils.getStringHash(item)));
+            Assert.assertTrue(EngineManager.TAINT_HASH_CODES.contains(TaintPoolUtils.getStringHash(item.sku)));
+        }
+        // order、order.name、3 个 item 及其 sku
+        Assert.assertEquals(8, event.getTargetHashes().size());
+    }
+
+    @Test
+    public void testNotMicroservice() {
+        Order order = new Order();
+        order.name = "order";
+        MethodEvent event = new MethodEvent("a.B", "a.B", "c", "a.B.c()", null, new Object[]{order}, null);
+        TaintPoolUtils.trackObject(event, new SourceNode(null, null, null), order, 0, false);
+        Assert.assertFalse(EngineManager.TAINT_HASH_CODES.contains(TaintPoolUtils.getStringHash(order.name)));
+        Assert.assertEquals(1, event.getTargetHashes().size());
+    }
+}
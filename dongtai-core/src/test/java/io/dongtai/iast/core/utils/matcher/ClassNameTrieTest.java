@@ -0,0 +1,58 @@
+package io.dongtai.iast.core.utils.matcher;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClassNameTrieTest {
+    private static final int A = 1;
+    private static final int B = 1 << 1;
+    private static final int C = 1 << 2;
+
+    @Test
+    public void testMatch() {
+        ClassNameTrie trie = ClassNameTrie.builder()
+                .addPrefix("org/apache/", A)
+                .addPrefix("org/apache/catalina/", B)
+                .addExact("org/apache/Foo", C)
+                .addExact("com/example/Bar", A)
+                .addSuffix("$Proxy", B)
+                .addSuffix("Test", C)
+                .build();
+
+        Assert.assertEquals(A, trie.match("org/apache/Util"));
+        Assert.assertEquals(A | B, trie.match("org/apache/catalina/Server"));
+        Assert.assertEquals(A | C, trie.match("org/apache/Foo"));
+        Assert.assertEquals(A, trie.match("org/apache/FooBar"));
+        Assert.assertEquals(A, trie.match("com/example/Bar"));
+        Assert.assertEquals(0, trie.match("com/example/Ba"));
+        Assert.assertEquals(0, trie.match("com/example/Bar2"));
+        Assert.assertEquals(B, trie.match("com/foo/$Proxy"));
+        Assert.assertEquals(A | C, trie.match("org/apache/UtilTest"));
+        Assert.assertEquals(0, trie.match("org/apach"));
+        Assert.assertEquals(0, trie.match(""));
+    }
+
+    @Test
+    public void testEmptyRule() {
+        ClassNameTrie trie = ClassNameTrie.builder().addPrefix("", A).addExact("", B).build();
+        Assert.assertEquals(A, trie.match("java/lang/String"));
+        Assert.assertEquals(A | B, trie.match(""));
+        Assert.assertEquals(0, ClassNameTrie.builder().build().match("java/lang/String"));
+    }
+
+    /**
+     * 子节点插入顺序不影响查找
+     */
+    @Test
+    public void testManySiblings() {
+        ClassNameTrie.Builder builder = ClassNameTrie.builder();
+        for (char c = 'z'; c >= '0'; c--) {
+            builder.addPrefix("p/" + c, c);
+        }
+        ClassNameTrie trie = builder.build();
+        for (char c = '0'; c <= 'z'; c++) {
+            Assert.assertEquals(c, trie.match("p/" + c + "/X"));
+        }
+        Assert.assertEquals(0, trie.match("p/~"));
+    }
+}
@@ -0,0 +1,144 @@
+package io.dongtai.iast.core.utils.matcher;
+
+import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
+import io.dongtai.iast.core.utils.ConfigUtils;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 模拟 30000 个类加载时 ConfigMatcher.canHook 的类名过滤吞吐量
+ * <p>
+ * 类名取自测试 classpath 中的 jar，不足的部分按黑名单前缀和普通包名生成；
+ * legacy 为原来的 startsWithAny/endsWithAny + replace 实现，trie 为当前实现
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ConfigMatcherBenchmarkTest {
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+    private static final int CLASS_COUNT = 30000;
+
+    private String[] classNames;
+    private Set<String> blacksSet;
+    private String[] startArray;
+    private String[] endArray;
+    private ConfigMatcher matcher;
+    private PolicyManager policyManager;
+
+    @Setup
+    public void setup() throws Exception {
+        PropertyUtils.getInstance(PROPERTY_FILE);
+        Set<String>[] items = ConfigUtils.loadConfigFromFile(PropertyUtils.getInstance().getBlackClassFilePath());
+        this.blacksSet = items[0];
+        this.startArray = items[1].toArray(new String[0]);
+        this.endArray = items[2].toArray(new String[0]);
+        this.matcher = new ConfigMatcher();
+        this.policyManager = new PolicyManager();
+
+        List<String> names = new ArrayList<String>();
+        for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!path.endsWith(".jar")) {
+                continue;
+            }
+            JarFile jar = new JarFile(path);
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements() && names.size() < CLASS_COUNT) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class")) {
+                    names.add(name.substring(0, name.length() - 6));
+                }
+            }
+            jar.close();
+        }
+        Random random = new Random(0);
+        while (names.size() < CLASS_COUNT) {
+            if (random.nextInt(10) == 0) {
+                names.add(this.startArray[random.nextInt(this.startArray.length)] + "Gen" + names.size());
+            } else {
+                names.add("com/example/app/module" + random.nextInt(200) + "/Service" + names.size());
+            }
+        }
+        Collections.shuffle(names, random);
+        this.classNames = names.toArray(new String[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        PropertyUtils.clear();
+    }
+
+    @Benchmark
+    public int legacy(Blackhole bh) {
+        int hookable = 0;
+        for (String className : this.classNames) {
+            if (legacyCanHook(className, bh)) {
+                hookable++;
+            }
+        }
+        return hookable;
+    }
+
+    @Benchmark
+    public int trie() {
+        int hookable = 0;
+        for (String className : this.classNames) {
+            if (this.matcher.canHook(className, this.policyManager)) {
+                hookable++;
+            }
+        }
+        return hookable;
+    }
+
+    private boolean legacyCanHook(String className, Blackhole bh) {
+        if (StringUtils.isEmpty(className)) {
+            return false;
+        }
+        if (className.startsWith("[")) {
+            return false;
+        }
+        if (className.contains("/$Proxy")) {
+            return false;
+        }
+        if (className.startsWith("java/lang/iast/")
+                || className.startsWith("io/dongtai/")
+                || className.startsWith("com/sun/jna/")) {
+            return false;
+        }
+        if (className.contains("CGLIB$$")
+                || className.contains("$$Lambda$")
+                || className.contains("_$$_jvst")) {
+            return false;
+        }
+        String realClassName = className.replace('/', '.');
+        bh.consume(realClassName);
+        if (StringUtils.startsWithAny(className, this.startArray)
+                || StringUtils.endsWithAny(className, this.endArray)
+                || this.blacksSet.contains(className)) {
+            return false;
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = new OptionsBuilder()
+                .include(ConfigMatcherBenchmarkTest.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(opts).run();
+    }
+}
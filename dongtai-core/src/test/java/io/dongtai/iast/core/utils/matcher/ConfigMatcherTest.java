@@ -0,0 +1,69 @@
+package io.dongtai.iast.core.utils.matcher;
+
+import io.dongtai.iast.core.handler.hookpoint.models.policy.*;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.*;
+
+public class ConfigMatcherTest {
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+
+    private ConfigMatcher matcher;
+
+    @Before
+    public void setUp() throws PropertyUtils.DongTaiPropertyConfigException, PropertyUtils.DongTaiEnvConfigException {
+        PropertyUtils.getInstance(PROPERTY_FILE);
+        this.matcher = new ConfigMatcher();
+    }
+
+    @After
+    public void tearDown() {
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testCanHook() throws PolicyException {
+        PolicyManager policyManager = new PolicyManager();
+        Assert.assertTrue(this.matcher.canHook("com/example/Foo", policyManager));
+        Assert.assertFalse(this.matcher.canHook("", policyManager));
+        Assert.assertFalse(this.matcher.canHook("[Ljava/lang/String;", policyManager));
+        Assert.assertFalse(this.matcher.canHook("io/dongtai/iast/Foo", policyManager));
+        Assert.assertFalse(this.matcher.canHook("com/example/Foo$$Lambda$1", policyManager));
+        Assert.assertFalse(this.matcher.canHook("com/sun/proxy/$Proxy12", policyManager));
+        Assert.assertFalse(this.matcher.canHook("com/taobao/Foo", policyManager));
+        Assert.assertFalse(this.matcher.canHook("weblogic/iiop/IIOPInputStream", policyManager));
+        Assert.assertTrue(this.matcher.canHook("weblogic/iiop/IIOPInputStream2", policyManager));
+
+        JSONArray config = new JSONArray();
+        config.put(propagator("com.taobao.Ignored.foo()").put("ignore_blacklist", true));
+        config.put(propagator("weblogic.iiop.IIOPInputStream.read()").put("ignore_internal", true));
+        config.put(propagator("io.dongtai.Foo.foo()").put("ignore_blacklist", true));
+        Policy policy = PolicyBuilder.build(config);
+        policyManager.setPolicy(policy);
+
+        Assert.assertFalse(this.matcher.canHook("com/taobao/Foo", policyManager));
+        Assert.assertTrue(policy.isBlacklistHooks("com/taobao/Foo"));
+        Assert.assertTrue(this.matcher.canHook("com/taobao/Ignored", policyManager));
+        Assert.assertTrue(policy.isBlacklistHooks("com/taobao/Ignored"));
+        Assert.assertTrue(this.matcher.canHook("weblogic/iiop/IIOPInputStream", policyManager));
+        // agent 自身的类不受 ignore_blacklist 影响
+        Assert.assertFalse(this.matcher.canHook("io/dongtai/Foo", policyManager));
+        Assert.assertTrue(this.matcher.canHook("com/example/Foo", policyManager));
+        Assert.assertFalse(policy.isBlacklistHooks("com/example/Foo"));
+
+        // 策略更新后重新编译
+        policyManager.setPolicy(PolicyBuilder.build(new JSONArray().put(propagator("com.example.Foo.foo()"))));
+        Assert.assertFalse(this.matcher.canHook("com/taobao/Ignored", policyManager));
+    }
+
+    private static JSONObject propagator(String signature) {
+        JSONObject node = new JSONObject();
+        node.put("type", PolicyNodeType.PROPAGATOR.getType());
+        node.put("signature", signature);
+        node.put("source", "P1");
+        node.put("target", "R");
+        node.put("inherit", "false");
+        return node;
+    }
+}
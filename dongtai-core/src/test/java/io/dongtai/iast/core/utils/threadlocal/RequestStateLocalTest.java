@@ -0,0 +1,61 @@
+package io.dongtai.iast.core.utils.threadlocal;
+
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.context.RequestTaintStore;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+public class RequestStateLocalTest {
+    @After
+    public void tearDown() {
+        EngineManager.cleanThreadState();
+    }
+
+    @Test
+    public void testSharedState() {
+        Assert.assertNull(EngineManager.REQUEST_CONTEXT.get());
+        Assert.assertNull(RequestState.CURRENT.get());
+
+        Map<String, Object> requestMeta = new HashMap<String, Object>();
+        Map<Integer, MethodEvent> trackMap = new HashMap<Integer, MethodEvent>();
+        EngineManager.REQUEST_CONTEXT.set(requestMeta);
+        EngineManager.TRACK_MAP.set(trackMap);
+        EngineManager.TAINT_HASH_CODES.set(new HashSet<Long>());
+        EngineManager.REQUEST_TAINT_STORE.set(new RequestTaintStore());
+
+        // 一个线程只有一份请求状态
+        RequestState state = RequestState.CURRENT.get();
+        Assert.assertSame(requestMeta, state.requestMeta);
+        Assert.assertSame(trackMap, state.trackMap);
+        Assert.assertNotNull(state.taintHashes);
+        Assert.assertNotNull(state.store);
+        Assert.assertNull(EngineManager.TAINT_RANGES_POOL.get());
+
+        EngineManager.REQUEST_CONTEXT.remove();
+        EngineManager.TAINT_HASH_CODES.set(null);
+        EngineManager.REQUEST_TAINT_STORE.remove();
+        Assert.assertNull(EngineManager.REQUEST_CONTEXT.get());
+        Assert.assertSame(state, RequestState.CURRENT.get());
+
+        // 所有字段清空后不再占用线程的 ThreadLocalMap 条目
+        EngineManager.TRACK_MAP.remove();
+        Assert.assertNull(RequestState.CURRENT.get());
+        EngineManager.TRACK_MAP.remove();
+        Assert.assertNull(RequestState.CURRENT.get());
+    }
+
+    @Test
+    public void testCleanThreadState() {
+        EngineManager.REQUEST_CONTEXT.set(new HashMap<String, Object>());
+        EngineManager.TRACK_MAP.set(new HashMap<Integer, MethodEvent>());
+        EngineManager.cleanThreadState();
+        Assert.assertNull(RequestState.CURRENT.get());
+        Assert.assertNull(EngineManager.TRACK_MAP.get());
+    }
+}
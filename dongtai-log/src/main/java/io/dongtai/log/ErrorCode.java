@@ -91,6 +91,11 @@ public enum ErrorCode {
     SPY_COLLECT_DUBBO_FAILED(20363, "hookpoint collect dubbo {} failed"),
     BYPASS_FAILED_DUBBO(20364, "hookpoint skip collect dubbo {} failed"),
     BYPASS_FAILED_FEIGN(20365, "hookpoint skip collect feign {} failed"),
+    SPY_ENTER_KAFKA_RECORD_FAILED(20371, "hookpoint enter kafka record failed"),
+    SPY_LEAVE_KAFKA_RECORD_FAILED(20372, "hookpoint leave kafka record failed"),
+    SPY_ENTER_GRPC_CALL_FAILED(20381, "hookpoint enter grpc call failed"),
+    SPY_COLLECT_GRPC_MESSAGE_FAILED(20382, "hookpoint collect grpc message failed"),
+    SPY_LEAVE_GRPC_CALL_FAILED(20383, "hookpoint leave grpc call failed"),
 
     // report & replay
     REPORT_SEND_FAILED(20401, "send report to {} error, report: {}"),
@@ -25,7 +25,7 @@ public class DongTaiClientCall<REQUEST, RESPONSE> extends ForwardingClientCall.S
     @Override
     public void start(Listener<RESPONSE> responseListener, Metadata headers) {
         try {
-            Metadata.Key<String> dtTraceId = Metadata.Key.of(traceKey, Metadata.ASCII_STRING_MARSHALLER);
+            Metadata.Key<String> dtTraceId = MetadataKeys.ascii(traceKey);
             headers.discardAll(dtTraceId);
             headers.put(dtTraceId, traceId);
         } catch (Throwable e) {
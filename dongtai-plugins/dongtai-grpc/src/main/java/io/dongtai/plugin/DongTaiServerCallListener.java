@@ -4,7 +4,122 @@ import io.grpc.ForwardingServerCallListener;
 import io.grpc.ServerCall;
 
 public class DongTaiServerCallListener<REQUEST> extends ForwardingServerCallListener.SimpleForwardingServerCallListener<REQUEST> {
-    protected DongTaiServerCallListener(ServerCall.Listener<REQUEST> delegate) {
+    private final GrpcCallContext callContext;
+
+    protected DongTaiServerCallListener(ServerCall.Listener<REQUEST> delegate, GrpcCallContext callContext) {
         super(delegate);
+        this.callContext = callContext;
+    }
+
+    @Override
+    public void onMessage(REQUEST message) {
+        GrpcCallListener listener = GrpcProxy.getCallListener();
+        Object token = attach(listener, this.callContext);
+        try {
+            // 每条请求消息都是一个污点来源，流式调用会多次进入
+            this.callContext.addMessage(message);
+            if (listener != null) {
+                try {
+                    listener.onMessage(this.callContext, message);
+                } catch (Throwable ignore) {
+                }
+            }
+            super.onMessage(message);
+        } finally {
+            detach(listener, this.callContext, token);
+        }
+    }
+
+    @Override
+    public void onHalfClose() {
+        GrpcCallListener listener = GrpcProxy.getCallListener();
+        Object token = attach(listener, this.callContext);
+        try {
+            super.onHalfClose();
+        } finally {
+            detach(listener, this.callContext, token);
+        }
+    }
+
+    @Override
+    public void onReady() {
+        GrpcCallListener listener = GrpcProxy.getCallListener();
+        Object token = attach(listener, this.callContext);
+        try {
+            super.onReady();
+        } finally {
+            detach(listener, this.callContext, token);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        GrpcCallListener listener = GrpcProxy.getCallListener();
+        Object token = attach(listener, this.callContext);
+        try {
+            super.onComplete();
+        } finally {
+            detach(listener, this.callContext, token);
+            finish(false);
+        }
+    }
+
+    @Override
+    public void onCancel() {
+        GrpcCallListener listener = GrpcProxy.getCallListener();
+        Object token = attach(listener, this.callContext);
+        try {
+            super.onCancel();
+        } finally {
+            detach(listener, this.callContext, token);
+            finish(true);
+        }
+    }
+
+    private void finish(boolean cancelled) {
+        if (!this.callContext.complete(cancelled)) {
+            return;
+        }
+        GrpcCallListener listener = GrpcProxy.getCallListener();
+        if (listener != null) {
+            try {
+                listener.onCallComplete(this.callContext);
+            } catch (Throwable ignore) {
+            }
+        }
+    }
+
+    static void notifyStart(GrpcCallContext callContext) {
+        GrpcCallListener listener = GrpcProxy.getCallListener();
+        if (listener != null) {
+            try {
+                listener.onCallStart(callContext);
+            } catch (Throwable ignore) {
+            }
+        }
+    }
+
+    /**
+     * 业务回调期间切换到调用的上下文
+     */
+    static Object attach(GrpcCallListener listener, GrpcCallContext callContext) {
+        if (listener == null) {
+            return null;
+        }
+        try {
+            return listener.attach(callContext);
+        } catch (Throwable ignore) {
+            return null;
+        }
+    }
+
+    static void detach(GrpcCallListener listener, GrpcCallContext callContext, Object token) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.detach(callContext, token);
+        } catch (Throwable ignore) {
+        }
     }
 }
@@ -2,28 +2,42 @@ package io.dongtai.plugin;
 
 import io.grpc.*;
 
-import java.util.Set;
-
 public class DongTaiServerInterceptor implements ServerInterceptor {
 
     @Override
-    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> serverCall, Metadata metadata, ServerCallHandler<ReqT, RespT> serverCallHandler) {
-        Set<String> keys = metadata.keys();
-        for (String key : keys) {
-            Metadata.Key<?> metaItemKey;
-            if (key.endsWith("-bin")) {
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> serverCall, Metadata metadata, final ServerCallHandler<ReqT, RespT> serverCallHandler) {
+        final GrpcCallContext callContext = new GrpcCallContext(
+                serverCall.getMethodDescriptor().getFullMethodName(), serverCall.getAuthority());
+        for (String key : metadata.keys()) {
+            if (key.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
                 continue;
             }
-            metaItemKey = Metadata.Key.of(key, Metadata.ASCII_STRING_MARSHALLER);
-            GrpcProxy.addMetaItem(key, metadata.get(metaItemKey));
+            callContext.addMeta(key, metadata.get(MetadataKeys.ascii(key)));
         }
-        GrpcProxy.addMetaItem("requestURI", serverCall.getMethodDescriptor().getFullMethodName());
-        GrpcProxy.addMetaItem("serverAddr", serverCall.getAuthority());
-        return new DongTaiServerCallListener<ReqT>(serverCallHandler.startCall(new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(serverCall) {
+
+        ServerCall<ReqT, RespT> call = new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(serverCall) {
             @Override
             public void close(Status status, Metadata trailers) {
+                callContext.setStatus(status);
                 super.close(status, trailers);
             }
-        }, metadata));
+        };
+
+        // 调用上下文绑定到 gRPC Context，监听器的每个回调执行期间都可以通过 GrpcCallContext.current() 取到
+        Context context = Context.current().withValue(GrpcCallContext.KEY, callContext);
+        return Contexts.interceptCall(context, call, metadata, new ServerCallHandler<ReqT, RespT>() {
+            @Override
+            public ServerCall.Listener<ReqT> startCall(ServerCall<ReqT, RespT> call, Metadata headers) {
+                DongTaiServerCallListener.notifyStart(callContext);
+                // 流式调用在 startCall 中执行业务方法
+                GrpcCallListener listener = GrpcProxy.getCallListener();
+                Object token = DongTaiServerCallListener.attach(listener, callContext);
+                try {
+                    return new DongTaiServerCallListener<ReqT>(serverCallHandler.startCall(call, headers), callContext);
+                } finally {
+                    DongTaiServerCallListener.detach(listener, callContext, token);
+                }
+            }
+        });
     }
 }
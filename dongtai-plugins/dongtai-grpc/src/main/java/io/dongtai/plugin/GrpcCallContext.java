@@ -0,0 +1,129 @@
+package io.dongtai.plugin;
+
+import io.grpc.Context;
+import io.grpc.Status;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单次 gRPC 服务端调用的上下文，通过 gRPC Context 绑定到调用上，在该调用的所有回调线程中可见
+ */
+public class GrpcCallContext {
+    static final Context.Key<GrpcCallContext> KEY = Context.key("dongtai-grpc-call");
+    /**
+     * 流式调用最多保留的请求消息数，超出部分只计数
+     */
+    static final int MAX_MESSAGES = 64;
+
+    private final String requestURI;
+    private final String serverAddr;
+    private final Map<String, Object> meta = new ConcurrentHashMap<String, Object>(32);
+    private final List<Object> messages = new ArrayList<Object>();
+    private final AtomicInteger messageCount = new AtomicInteger();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    private volatile Status status;
+    private volatile boolean cancelled;
+    /**
+     * 引擎中这次调用的状态
+     */
+    private volatile Object engineCall;
+
+    GrpcCallContext(String requestURI, String serverAddr) {
+        this.requestURI = requestURI;
+        this.serverAddr = serverAddr;
+        addMeta("requestURI", requestURI);
+        addMeta("serverAddr", serverAddr);
+    }
+
+    /**
+     * @return 当前线程所在的 gRPC 调用，不在调用中时返回 null
+     */
+    public static GrpcCallContext current() {
+        return KEY.get();
+    }
+
+    void addMeta(String key, Object value) {
+        if (key != null && value != null) {
+            this.meta.put(key, value);
+        }
+    }
+
+    void addMessage(Object message) {
+        if (this.messageCount.getAndIncrement() < MAX_MESSAGES) {
+            synchronized (this.messages) {
+                this.messages.add(message);
+            }
+        }
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * 标记调用结束，只有第一次返回 true
+     */
+    boolean complete(boolean cancelled) {
+        if (!this.completed.compareAndSet(false, true)) {
+            return false;
+        }
+        this.cancelled = cancelled;
+        this.endNanos = System.nanoTime();
+        return true;
+    }
+
+    Object getEngineCall() {
+        return engineCall;
+    }
+
+    void setEngineCall(Object engineCall) {
+        this.engineCall = engineCall;
+    }
+
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    public String getServerAddr() {
+        return serverAddr;
+    }
+
+    public Map<String, Object> getMeta() {
+        return meta;
+    }
+
+    public List<Object> getMessages() {
+        synchronized (this.messages) {
+            return Collections.unmodifiableList(new ArrayList<Object>(this.messages));
+        }
+    }
+
+    public int getMessageCount() {
+        return messageCount.get();
+    }
+
+    public boolean isCompleted() {
+        return completed.get();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getElapsedNanos() {
+        long end = this.endNanos;
+        return (end == 0 ? System.nanoTime() : end) - this.startNanos;
+    }
+}
@@ -0,0 +1,33 @@
+package io.dongtai.plugin;
+
+/**
+ * gRPC 服务端调用的生命周期回调，默认转发给引擎，可以通过 {@link GrpcProxy#setCallListener(Object)} 替换
+ */
+public interface GrpcCallListener {
+    /**
+     * 请求头已解析，业务处理开始之前
+     */
+    void onCallStart(GrpcCallContext context);
+
+    /**
+     * 每收到一条请求消息调用一次，流式调用会调用多次
+     */
+    void onMessage(GrpcCallContext context, Object message);
+
+    /**
+     * 调用完成或被取消，每个调用只调用一次
+     */
+    void onCallComplete(GrpcCallContext context);
+
+    /**
+     * 每个业务回调执行之前调用，回调可能在不同的线程上执行
+     *
+     * @return 传给 {@link #detach(GrpcCallContext, Object)} 的值
+     */
+    Object attach(GrpcCallContext context);
+
+    /**
+     * 每个业务回调执行之后调用
+     */
+    void detach(GrpcCallContext context, Object token);
+}
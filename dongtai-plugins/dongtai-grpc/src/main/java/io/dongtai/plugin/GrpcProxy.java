@@ -3,11 +3,11 @@ package io.dongtai.plugin;
 import io.grpc.*;
 
 import java.lang.dongtai.TraceIdHandler;
-import java.util.HashMap;
 import java.util.Map;
 
 public class GrpcProxy {
-    private static Map<String, Object> metadata;
+    private static final GrpcCallListener DEFAULT_LISTENER = new SpyGrpcCallListener();
+    private static volatile GrpcCallListener callListener = DEFAULT_LISTENER;
 
     public static Object interceptChannel(Object channel, Object traceIdHandler) {
         try {
@@ -23,8 +23,6 @@ public class GrpcProxy {
 
     public static Object interceptService(Object service) {
         try {
-            metadata = null;
-            metadata = new HashMap<String, Object>(32);
             ServerServiceDefinition interceptedService = (ServerServiceDefinition) service;
             return ServerInterceptors.intercept(interceptedService, new DongTaiServerInterceptor());
         } catch (Throwable e) {
@@ -34,13 +32,29 @@ public class GrpcProxy {
         return service;
     }
 
+    /**
+     * 替换调用生命周期回调，传入 null 时恢复为转发给引擎的默认回调
+     */
+    public static void setCallListener(Object listener) {
+        callListener = listener == null ? DEFAULT_LISTENER : (GrpcCallListener) listener;
+    }
+
+    static GrpcCallListener getCallListener() {
+        return callListener;
+    }
+
+    /**
+     * @return 当前调用的请求元数据，不在 gRPC 调用中时返回 null
+     */
     public static Map<String, Object> getServerMeta() {
-        return metadata;
+        GrpcCallContext context = GrpcCallContext.current();
+        return context == null ? null : context.getMeta();
     }
 
     public static void addMetaItem(String key, Object obj) {
-        if (metadata != null) {
-            metadata.put(key, obj);
+        GrpcCallContext context = GrpcCallContext.current();
+        if (context != null) {
+            context.addMeta(key, obj);
         }
     }
 }
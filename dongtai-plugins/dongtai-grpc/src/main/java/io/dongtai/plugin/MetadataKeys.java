@@ -0,0 +1,40 @@
+package io.dongtai.plugin;
+
+import io.grpc.Metadata;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Metadata.Key 缓存，避免每次调用都为每个请求头重新创建 key
+ */
+class MetadataKeys {
+    static final int MAX_CACHE_SIZE = 1024;
+
+    private static final ConcurrentMap<String, Metadata.Key<String>> ASCII_KEYS =
+            new ConcurrentHashMap<String, Metadata.Key<String>>();
+
+    static Metadata.Key<String> ascii(String name) {
+        Metadata.Key<String> key = ASCII_KEYS.get(name);
+        if (key != null) {
+            return key;
+        }
+        key = Metadata.Key.of(name, Metadata.ASCII_STRING_MARSHALLER);
+        // 请求头名称由客户端决定，超过上限后不再缓存
+        if (ASCII_KEYS.size() < MAX_CACHE_SIZE) {
+            Metadata.Key<String> prev = ASCII_KEYS.putIfAbsent(name, key);
+            if (prev != null) {
+                return prev;
+            }
+        }
+        return key;
+    }
+
+    static int size() {
+        return ASCII_KEYS.size();
+    }
+
+    static void clear() {
+        ASCII_KEYS.clear();
+    }
+}
@@ -0,0 +1,71 @@
+package io.dongtai.plugin;
+
+import java.lang.dongtai.SpyDispatcher;
+import java.lang.dongtai.SpyDispatcherHandler;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 默认的调用监听器，把调用的生命周期转发给引擎：调用开始时创建请求，
+ * 每条请求消息作为污点来源，业务回调期间切换到调用的上下文，调用结束时上报
+ */
+class SpyGrpcCallListener implements GrpcCallListener {
+
+    @Override
+    public void onCallStart(GrpcCallContext context) {
+        SpyDispatcher dispatcher = SpyDispatcherHandler.getDispatcher();
+        if (dispatcher == null) {
+            return;
+        }
+        Map<String, String> headers = new HashMap<String, String>();
+        for (Map.Entry<String, Object> entry : context.getMeta().entrySet()) {
+            if ("requestURI".equals(entry.getKey()) || "serverAddr".equals(entry.getKey())) {
+                continue;
+            }
+            headers.put(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        Map<String, Object> meta = new HashMap<String, Object>();
+        meta.put("requestURI", context.getRequestURI());
+        meta.put("serverAddr", context.getServerAddr());
+        meta.put("headers", headers);
+        context.setEngineCall(dispatcher.enterGrpcCall(meta));
+    }
+
+    @Override
+    public void onMessage(GrpcCallContext context, Object message) {
+        Object call = context.getEngineCall();
+        SpyDispatcher dispatcher = SpyDispatcherHandler.getDispatcher();
+        if (call != null && dispatcher != null) {
+            dispatcher.collectGrpcMessage(call, message);
+        }
+    }
+
+    @Override
+    public void onCallComplete(GrpcCallContext context) {
+        Object call = context.getEngineCall();
+        SpyDispatcher dispatcher = SpyDispatcherHandler.getDispatcher();
+        if (call != null && dispatcher != null) {
+            context.setEngineCall(null);
+            dispatcher.leaveGrpcCall(call);
+        }
+    }
+
+    @Override
+    public Object attach(GrpcCallContext context) {
+        Object call = context.getEngineCall();
+        SpyDispatcher dispatcher = SpyDispatcherHandler.getDispatcher();
+        if (call == null || dispatcher == null) {
+            return null;
+        }
+        return dispatcher.attachGrpcCall(call);
+    }
+
+    @Override
+    public void detach(GrpcCallContext context, Object token) {
+        Object call = context.getEngineCall();
+        SpyDispatcher dispatcher = SpyDispatcherHandler.getDispatcher();
+        if (token != null && call != null && dispatcher != null) {
+            dispatcher.detachGrpcCall(call, token);
+        }
+    }
+}
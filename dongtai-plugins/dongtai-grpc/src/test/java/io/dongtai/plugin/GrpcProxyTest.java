@@ -0,0 +1,369 @@
+package io.dongtai.plugin;
+
+import io.grpc.*;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.dongtai.NopSpy;
+import java.lang.dongtai.SpyDispatcher;
+import java.lang.dongtai.SpyDispatcherHandler;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GrpcProxyTest {
+    private static final String SERVICE = "dongtai.Echo";
+    private static final Metadata.Key<String> USER_KEY = Metadata.Key.of("x-user", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final MethodDescriptor.Marshaller<String> STRING_MARSHALLER = new MethodDescriptor.Marshaller<String>() {
+        @Override
+        public InputStream stream(String value) {
+            return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String parse(InputStream stream) {
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[256];
+                int n;
+                while ((n = stream.read(buf)) != -1) {
+                    out.write(buf, 0, n);
+                }
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    private static final MethodDescriptor<String, String> UNARY = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE, "Unary"))
+            .setRequestMarshaller(STRING_MARSHALLER)
+            .setResponseMarshaller(STRING_MARSHALLER)
+            .build();
+
+    private static final MethodDescriptor<String, String> STREAM = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.CLIENT_STREAMING)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE, "Stream"))
+            .setRequestMarshaller(STRING_MARSHALLER)
+            .setResponseMarshaller(STRING_MARSHALLER)
+            .build();
+
+    private final RecordingListener listener = new RecordingListener();
+    private Server server;
+    private ManagedChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        String name = "dongtai-grpc-" + UUID.randomUUID();
+        ServerServiceDefinition service = ServerServiceDefinition.builder(SERVICE)
+                .addMethod(UNARY, ServerCalls.asyncUnaryCall(new ServerCalls.UnaryMethod<String, String>() {
+                    @Override
+                    public void invoke(String request, StreamObserver<String> observer) {
+                        if (GrpcProxy.getCallListener() == listener) {
+                            assertAttached();
+                        } else {
+                            RecordingSpy.checkAttached();
+                        }
+                        Map<String, Object> meta = GrpcProxy.getServerMeta();
+                        observer.onNext(request + "|" + meta.get("x-user") + "|" + meta.get("requestURI"));
+                        observer.onCompleted();
+                    }
+                }))
+                .addMethod(STREAM, ServerCalls.asyncClientStreamingCall(new ServerCalls.ClientStreamingMethod<String, String>() {
+                    @Override
+                    public StreamObserver<String> invoke(final StreamObserver<String> observer) {
+                        final StringBuilder sb = new StringBuilder();
+                        return new StreamObserver<String>() {
+                            @Override
+                            public void onNext(String value) {
+                                assertAttached();
+                                sb.append(value).append(GrpcCallContext.current().getMessageCount());
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                            }
+
+                            @Override
+                            public void onCompleted() {
+                                assertAttached();
+                                observer.onNext(sb.toString() + "|" + GrpcProxy.getServerMeta().get("x-user"));
+                                observer.onCompleted();
+                            }
+                        };
+                    }
+                }))
+                .build();
+
+        GrpcProxy.setCallListener(this.listener);
+        this.server = InProcessServerBuilder.forName(name)
+                .addService((ServerServiceDefinition) GrpcProxy.interceptService(service))
+                .executor(Executors.newFixedThreadPool(4))
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        GrpcProxy.setCallListener(null);
+        this.channel.shutdownNow();
+        this.server.shutdownNow();
+        this.server.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testConcurrentCallsHaveIsolatedMeta() throws Exception {
+        final int threads = 8;
+        final int callsPerThread = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            futures.add(pool.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    int ok = 0;
+                    for (int i = 0; i < callsPerThread; i++) {
+                        String user = "user-" + id + "-" + i;
+                        String resp = ClientCalls.blockingUnaryCall(withUser(user), UNARY, CallOptions.DEFAULT, "req" + i);
+                        Assert.assertEquals("req" + i + "|" + user + "|" + SERVICE + "/Unary", resp);
+                        ok++;
+                    }
+                    return ok;
+                }
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> f : futures) {
+            total += f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Assert.assertEquals(threads * callsPerThread, total);
+        Assert.assertTrue(this.listener.awaitCompleted(threads * callsPerThread));
+        Assert.assertEquals(threads * callsPerThread, this.listener.started.get());
+        Assert.assertEquals(threads * callsPerThread, this.listener.messages.get());
+        for (GrpcCallContext ctx : this.listener.completed) {
+            Assert.assertEquals(1, ctx.getMessageCount());
+            Assert.assertTrue(ctx.getStatus().isOk());
+            Assert.assertFalse(ctx.isCancelled());
+            Assert.assertEquals(SERVICE + "/Unary", ctx.getRequestURI());
+            Assert.assertEquals(ctx.getMessages().get(0), "req" + ((String) ctx.getMeta().get("x-user")).replaceAll(".*-", ""));
+        }
+        // 调用之外没有上下文
+        Assert.assertNull(GrpcProxy.getServerMeta());
+    }
+
+    @Test
+    public void testStreamingMessages() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final String[] result = new String[1];
+        ClientCall<String, String> call = withUser("streamer").newCall(STREAM, CallOptions.DEFAULT);
+        StreamObserver<String> requests = ClientCalls.asyncClientStreamingCall(call, new StreamObserver<String>() {
+            @Override
+            public void onNext(String value) {
+                result[0] = value;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.countDown();
+            }
+
+            @Override
+            public void onCompleted() {
+                done.countDown();
+            }
+        });
+        requests.onNext("a");
+        requests.onNext("b");
+        requests.onNext("c");
+        requests.onCompleted();
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        Assert.assertEquals("a1b2c3|streamer", result[0]);
+        Assert.assertTrue(this.listener.awaitCompleted(1));
+        GrpcCallContext ctx = this.listener.completed.peek();
+        Assert.assertEquals(3, ctx.getMessageCount());
+        Assert.assertEquals(Arrays.<Object>asList("a", "b", "c"), ctx.getMessages());
+        Assert.assertEquals(3, this.listener.messages.get());
+        Assert.assertTrue(ctx.isCompleted());
+    }
+
+    @Test
+    public void testDefaultListenerForwardsToSpy() throws Exception {
+        RecordingSpy spy = new RecordingSpy();
+        SpyDispatcher prevDispatcher = SpyDispatcherHandler.getDispatcher();
+        SpyDispatcherHandler.setDispatcher(spy);
+        GrpcProxy.setCallListener(null);
+        try {
+            String resp = ClientCalls.blockingUnaryCall(withUser("spy"), UNARY, CallOptions.DEFAULT, "req");
+            Assert.assertEquals("req|spy|" + SERVICE + "/Unary", resp);
+            Assert.assertTrue(spy.left.await(10, TimeUnit.SECONDS));
+        } finally {
+            SpyDispatcherHandler.setDispatcher(prevDispatcher);
+        }
+
+        Assert.assertEquals(SERVICE + "/Unary", spy.meta.get("requestURI"));
+        Assert.assertEquals("spy", ((Map<?, ?>) spy.meta.get("headers")).get("x-user"));
+        Assert.assertEquals(Collections.<Object>singletonList("req"), spy.messages);
+        Assert.assertTrue(spy.attached.get() > 0);
+        Assert.assertEquals(spy.attached.get(), spy.detached.get());
+        Assert.assertTrue("业务代码在调用的上下文中执行", spy.invokedAttached);
+    }
+
+    @Test
+    public void testMessagesBounded() {
+        GrpcCallContext ctx = new GrpcCallContext("s/m", "localhost");
+        for (int i = 0; i < GrpcCallContext.MAX_MESSAGES + 10; i++) {
+            ctx.addMessage(i);
+        }
+        Assert.assertEquals(GrpcCallContext.MAX_MESSAGES + 10, ctx.getMessageCount());
+        Assert.assertEquals(GrpcCallContext.MAX_MESSAGES, ctx.getMessages().size());
+        Assert.assertTrue(ctx.complete(false));
+        Assert.assertFalse(ctx.complete(true));
+        Assert.assertFalse(ctx.isCancelled());
+    }
+
+    @Test
+    public void testMetadataKeyCache() {
+        Assert.assertSame(MetadataKeys.ascii("x-user"), MetadataKeys.ascii("x-user"));
+        for (int i = 0; i < MetadataKeys.MAX_CACHE_SIZE + 10; i++) {
+            Assert.assertEquals("x-h" + i, MetadataKeys.ascii("x-h" + i).name());
+        }
+        Assert.assertEquals(MetadataKeys.MAX_CACHE_SIZE, MetadataKeys.size());
+        MetadataKeys.clear();
+    }
+
+    /**
+     * 业务回调执行期间监听器已经切换到当前调用
+     */
+    private static void assertAttached() {
+        if (RecordingListener.ATTACHED.get() != GrpcCallContext.current()) {
+            throw new IllegalStateException("call not attached");
+        }
+    }
+
+    private Channel withUser(String user) {
+        Metadata headers = new Metadata();
+        headers.put(USER_KEY, user);
+        return ClientInterceptors.intercept(this.channel, MetadataUtils.newAttachHeadersInterceptor(headers));
+    }
+
+    private static class RecordingListener implements GrpcCallListener {
+        private static final ThreadLocal<GrpcCallContext> ATTACHED = new ThreadLocal<GrpcCallContext>();
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger messages = new AtomicInteger();
+        private final Queue<GrpcCallContext> completed = new ConcurrentLinkedQueue<GrpcCallContext>();
+
+        @Override
+        public void onCallStart(GrpcCallContext context) {
+            Assert.assertSame(context, GrpcCallContext.current());
+            started.incrementAndGet();
+        }
+
+        @Override
+        public void onMessage(GrpcCallContext context, Object message) {
+            Assert.assertSame(context, GrpcCallContext.current());
+            messages.incrementAndGet();
+        }
+
+        @Override
+        public void onCallComplete(GrpcCallContext context) {
+            completed.add(context);
+        }
+
+        @Override
+        public Object attach(GrpcCallContext context) {
+            GrpcCallContext prev = ATTACHED.get();
+            ATTACHED.set(context);
+            return prev;
+        }
+
+        @Override
+        public void detach(GrpcCallContext context, Object token) {
+            Assert.assertSame(context, ATTACHED.get());
+            ATTACHED.set((GrpcCallContext) token);
+        }
+
+        boolean awaitCompleted(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (completed.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return completed.size() == count;
+        }
+    }
+
+    private static class RecordingSpy extends NopSpy {
+        private static final ThreadLocal<RecordingSpy> CURRENT = new ThreadLocal<RecordingSpy>();
+        private final Object call = new Object();
+        private final List<Object> messages = new CopyOnWriteArrayList<Object>();
+        private final AtomicInteger attached = new AtomicInteger();
+        private final AtomicInteger detached = new AtomicInteger();
+        private final CountDownLatch left = new CountDownLatch(1);
+        private volatile Map<String, Object> meta;
+        private volatile boolean invokedAttached;
+
+        static void checkAttached() {
+            RecordingSpy spy = CURRENT.get();
+            if (spy != null) {
+                spy.invokedAttached = true;
+            }
+        }
+
+        @Override
+        public Object enterGrpcCall(Map<String, Object> meta) {
+            this.meta = meta;
+            return this.call;
+        }
+
+        @Override
+        public Object attachGrpcCall(Object call) {
+            Assert.assertSame(this.call, call);
+            this.attached.incrementAndGet();
+            RecordingSpy prev = CURRENT.get();
+            CURRENT.set(this);
+            return prev == null ? "none" : prev;
+        }
+
+        @Override
+        public void detachGrpcCall(Object call, Object threadState) {
+            this.detached.incrementAndGet();
+            if (threadState instanceof RecordingSpy) {
+                CURRENT.set((RecordingSpy) threadState);
+            } else {
+                CURRENT.remove();
+            }
+        }
+
+        @Override
+        public void collectGrpcMessage(Object call, Object message) {
+            Assert.assertSame(this.call, call);
+            this.messages.add(message);
+        }
+
+        @Override
+        public void leaveGrpcCall(Object call) {
+            Assert.assertSame(this.call, call);
+            this.left.countDown();
+        }
+    }
+}
@@ -105,6 +105,36 @@ public class NopSpy implements SpyDispatcher {
     public void collectDubboResponse(Object result, byte status) {
     }
 
+    @Override
+    public void enterKafkaRecord(Object record) {
+    }
+
+    @Override
+    public void leaveKafkaRecord() {
+    }
+
+    @Override
+    public Object enterGrpcCall(Map<String, Object> meta) {
+        return null;
+    }
+
+    @Override
+    public Object attachGrpcCall(Object call) {
+        return null;
+    }
+
+    @Override
+    public void detachGrpcCall(Object call, Object threadState) {
+    }
+
+    @Override
+    public void collectGrpcMessage(Object call, Object message) {
+    }
+
+    @Override
+    public void leaveGrpcCall(Object call) {
+    }
+
     /**
      * mark for enter Source Entry Point
      *
@@ -167,6 +197,11 @@ public class NopSpy implements SpyDispatcher {
         return false;
     }
 
+    @Override
+    public boolean isTainted(Object obj) {
+        return false;
+    }
+
     /**
      * mark for enter Sink Entry Point
      *
@@ -285,4 +320,21 @@ public class NopSpy implements SpyDispatcher {
         return false;
     }
 
+    @Override
+    public Object wrapAsyncTask(Object task) {
+        return task;
+    }
+
+    @Override
+    public void captureAsyncTask(Object task) {
+    }
+
+    @Override
+    public void enterAsyncTask(Object task) {
+    }
+
+    @Override
+    public void leaveAsyncTask(Object task) {
+    }
+
 }
@@ -65,6 +65,57 @@ public interface SpyDispatcher {
 
     void collectDubboResponse(Object result, byte status);
 
+    /**
+     * mark for enter a kafka consumer record, the previous record on the current thread is finished
+     *
+     * @param record ConsumerRecord, null when the iteration is finished
+     */
+    void enterKafkaRecord(Object record);
+
+    /**
+     * mark for leave the current kafka consumer record
+     */
+    void leaveKafkaRecord();
+
+    /**
+     * mark for enter a grpc server call, the call state is kept apart from the current thread
+     *
+     * @param meta requestURI, serverAddr and headers of the call
+     * @return call state, null if the call is not tracked
+     */
+    Object enterGrpcCall(Map<String, Object> meta);
+
+    /**
+     * switch the current thread to the grpc call before a listener callback
+     *
+     * @param call call state returned by {@link #enterGrpcCall(Map)}
+     * @return previous thread state, passed to {@link #detachGrpcCall(Object, Object)}
+     */
+    Object attachGrpcCall(Object call);
+
+    /**
+     * restore the current thread after a listener callback
+     *
+     * @param call        call state returned by {@link #enterGrpcCall(Map)}
+     * @param threadState value returned by {@link #attachGrpcCall(Object)}
+     */
+    void detachGrpcCall(Object call, Object threadState);
+
+    /**
+     * collect a request message of the grpc call as taint source, streaming calls collect every message
+     *
+     * @param call    call state returned by {@link #enterGrpcCall(Map)}
+     * @param message request message
+     */
+    void collectGrpcMessage(Object call, Object message);
+
+    /**
+     * mark for leave the grpc call and report it
+     *
+     * @param call call state returned by {@link #enterGrpcCall(Map)}
+     */
+    void leaveGrpcCall(Object call);
+
     /**
      * mark for enter Source Entry Point
      *
@@ -109,6 +160,15 @@ public interface SpyDispatcher {
      */
     boolean isFirstLevelPropagator();
 
+    /**
+     * Determines whether the object is in the taint pool of the current request,
+     * used by the propagator advice before building the argument array
+     *
+     * @param obj the instance or an argument at a source position of the propagator
+     * @return true if the object is tainted
+     */
+    boolean isTainted(Object obj);
+
     /**
      * mark for enter Sink Entry Point
      *
@@ -180,4 +240,34 @@ public interface SpyDispatcher {
     boolean skipCollect(Object instance, Object[] parameters, Object retObject, String methodMatcher,
                         String className, String matchedClassName, String methodName, String signature,
                         boolean isStatic);
+
+    /**
+     * capture current request context for task submitted to thread pool,
+     * used where the pool keeps the task inside its own task type (ForkJoinPool, ScheduledThreadPoolExecutor)
+     *
+     * @param task Runnable or Callable
+     * @return wrapped task, or the original task if not in a request
+     */
+    Object wrapAsyncTask(Object task);
+
+    /**
+     * capture current request context for task submitted to ThreadPoolExecutor, the task itself is queued unchanged
+     *
+     * @param task Runnable passed to execute
+     */
+    void captureAsyncTask(Object task);
+
+    /**
+     * restore the request context captured for the task on the worker thread, called in beforeExecute
+     *
+     * @param task task about to run
+     */
+    void enterAsyncTask(Object task);
+
+    /**
+     * restore the worker thread after the task, called in afterExecute
+     *
+     * @param task finished task
+     */
+    void leaveAsyncTask(Object task);
 }